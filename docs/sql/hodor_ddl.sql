@@ -27,6 +27,7 @@ CREATE TABLE `hodor_job_info` (
   `misfire` tinyint(1) NOT NULL DEFAULT 0 COMMENT '错过执行是否马上调度 1：错过马上调度 0 ：否',
   `fire_now` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否马上开始执行（比如设置时间是5分钟，那么5分钟后才执行），如果设置为true，则现在执行一次，1：马上执行，0：否',
   `retry_count` tinyint(1) NOT NULL DEFAULT 0 COMMENT '重试次数，不超过10次',
+  `load_balance` varchar(32) CHARACTER SET utf8 NOT NULL DEFAULT 'RANDOM' COMMENT '执行节点负载均衡策略，RANDOM、ROUND_ROBIN、LEAST_OUTSTANDING、POWER_OF_TWO_CHOICES',
   `is_once` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否为一次性任务，0：否，1：是；默认0',
   `is_broadcast` tinyint(1) NOT NULL DEFAULT 0 COMMENT '是否广播模式 0：否，1：是；默认0',
   `slave_ip` varchar(32) CHARACTER SET utf8 NOT NULL DEFAULT '' COMMENT '该job被分配到slave的IP',
@@ -0,0 +1,10 @@
+/* 已有数据库升级，可以重复执行，新建数据库直接执行hodor_ddl.sql即可 */
+
+/* hodor_job_info.load_balance */
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'hodor_job_info' AND COLUMN_NAME = 'load_balance') = 0,
+    'ALTER TABLE `hodor_job_info` ADD COLUMN `load_balance` varchar(32) CHARACTER SET utf8 NOT NULL DEFAULT ''RANDOM'' COMMENT ''执行节点负载均衡策略，RANDOM、ROUND_ROBIN、LEAST_OUTSTANDING、POWER_OF_TWO_CHOICES'' AFTER `retry_count`',
+    'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -136,6 +136,7 @@ public class HodorActuatorManager {
         msgSender.getNodeOfflineSender().run();
         executorServer.close();
         heartbeatSenderService.shutdown();
+        requestHandleManager.close();
         jobRegister.clear();
     }
 
@@ -69,6 +69,9 @@ public abstract class AbstractAction<I extends RequestBody, O extends ResponseBo
     }
 
     private <T> T buildRequestMessage(Class<T> requestBodyClass) {
+        if (context.requestBody() != null) {
+            return requestBodyClass.cast(context.requestBody());
+        }
         return serializer.deserialize(context.rawRequestBody(), requestBodyClass);
     }
 
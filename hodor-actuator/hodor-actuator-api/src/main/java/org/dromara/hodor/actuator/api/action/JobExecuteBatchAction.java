@@ -0,0 +1,52 @@
+package org.dromara.hodor.actuator.api.action;
+
+import org.dromara.hodor.actuator.api.executor.RequestHandleManager;
+import org.dromara.hodor.remoting.api.message.Header;
+import org.dromara.hodor.remoting.api.message.MessageType;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.RequestContext;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteBatchRequest;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteRequest;
+import org.dromara.hodor.remoting.api.message.response.JobExecuteBatchResponse;
+
+/**
+ * 批量任务执行请求，拆分成单个任务请求执行，执行结果按单个任务请求返回，这里只返回接收确认
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class JobExecuteBatchAction extends AbstractAction<JobExecuteBatchRequest, JobExecuteBatchResponse> {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    public JobExecuteBatchAction(final RequestContext context, final RequestHandleManager requestHandleManager) {
+        super(context, requestHandleManager);
+    }
+
+    @Override
+    public JobExecuteBatchResponse executeRequest(JobExecuteBatchRequest request) throws Exception {
+        JobExecuteBatchResponse response = new JobExecuteBatchResponse();
+        Header batchHeader = getRequestContext().requestHeader();
+        for (JobExecuteBatchRequest.Item item : request.getRequests()) {
+            JobExecuteRequest jobExecuteRequest = item.getRequest();
+            Header header = Header.builder()
+                .id(jobExecuteRequest.getRequestId())
+                .type(MessageType.JOB_EXEC_REQUEST.getType())
+                .version(batchHeader.getVersion())
+                .attachment(item.getAttachment())
+                .build();
+            RemotingMessage message = RemotingMessage.builder()
+                .header(header)
+                .body(EMPTY_BODY)
+                .build();
+            RequestContext context = new RequestContext(getRequestContext().channel(), message, getRequestContext().serializer(), jobExecuteRequest);
+            if (getRequestHandleManager().executeJobRequest(context)) {
+                response.getAcceptedRequestIds().add(jobExecuteRequest.getRequestId());
+            } else {
+                response.getRejectedRequestIds().add(jobExecuteRequest.getRequestId());
+            }
+        }
+        return response;
+    }
+
+}
@@ -58,6 +58,26 @@ public class HodorProperties {
      */
     private Integer longTaskTime = 60;
 
+    /**
+     * 是否合并同一轮事件循环中的flush，默认开启，突发大量响应时减少系统调用
+     */
+    private Boolean flushConsolidation = true;
+
+    /**
+     * 任务执行记录写入模式，默认ASYNC，ASYNC：合并后批量异步写入、SYNC：等待所在批次提交后返回
+     */
+    private String executionPersistMode = "ASYNC";
+
+    /**
+     * 任务执行记录每批写入的最大条数，默认500
+     */
+    private Integer executionPersistBatchSize = 500;
+
+    /**
+     * 任务执行记录批量写入的时间间隔，单位毫秒，默认200ms
+     */
+    private Integer executionPersistFlushInterval = 200;
+
     /**
      * 任务数据存储路径
      */
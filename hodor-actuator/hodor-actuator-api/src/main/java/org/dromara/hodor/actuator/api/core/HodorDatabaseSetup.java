@@ -63,6 +63,10 @@ public class HodorDatabaseSetup {
             // create index
             dbOperator.update(indexSql);
         }
+        // 旧版本的表没有下次重试时间
+        dbOperator.update(MessageFormat.format("ALTER TABLE {0} ADD COLUMN IF NOT EXISTS next_retry_time TIMESTAMP;", RETRYABLE_MESSAGE_TABLE_NAME));
+        dbOperator.update(MessageFormat.format("UPDATE {0} SET next_retry_time = create_time WHERE next_retry_time IS NULL;", RETRYABLE_MESSAGE_TABLE_NAME));
+        dbOperator.update(buildRetryableMessageNextRetryIndex());
     }
 
     private String buildCreateJobExecutionTableSql() {
@@ -96,6 +100,7 @@ public class HodorDatabaseSetup {
             "    retry_count INT,\n" +
             "    create_time TIMESTAMP,\n" +
             "    update_time TIMESTAMP,\n" +
+            "    next_retry_time TIMESTAMP,\n" +
             "    CONSTRAINT {0}_pk PRIMARY KEY (id)\n" +
             ");", RETRYABLE_MESSAGE_TABLE_NAME);
     }
@@ -110,4 +115,9 @@ public class HodorDatabaseSetup {
             RETRYABLE_MESSAGE_TABLE_NAME);
     }
 
+    private String buildRetryableMessageNextRetryIndex() {
+        return MessageFormat.format("CREATE INDEX IF NOT EXISTS {0}_next_retry_time_index ON {0} (next_retry_time, request_id);",
+            RETRYABLE_MESSAGE_TABLE_NAME);
+    }
+
 }
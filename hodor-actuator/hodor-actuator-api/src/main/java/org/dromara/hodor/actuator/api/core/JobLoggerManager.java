@@ -2,6 +2,8 @@ package org.dromara.hodor.actuator.api.core;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.logging.log4j.Logger;
 import org.dromara.hodor.actuator.api.utils.JobPathUtils;
 import org.dromara.hodor.common.log.LogUtil;
@@ -9,7 +11,9 @@ import org.dromara.hodor.common.utils.StringUtils;
 import org.dromara.hodor.common.utils.Utils.Assert;
 
 /**
- * job logger manager
+ * job logger manager<br/>
+ *
+ * 任务日志使用共享写线程池的日志，不为每次执行注册log4j的logger和appender
  *
  * @author tomgs
  * @since 1.0
@@ -18,6 +22,8 @@ public class JobLoggerManager {
 
     private static final JobLoggerManager INSTANCE = new JobLoggerManager();
 
+    private final Map<String, Logger> jobLoggers = new ConcurrentHashMap<>();
+
     private JobLoggerManager() {
     }
 
@@ -59,12 +65,16 @@ public class JobLoggerManager {
     }
 
     public JobLogger createJobLogger(String loggerName, File logFile) {
-        Logger logger = LogUtil.getInstance().createLogger(loggerName, logFile);
+        Logger logger = LogUtil.getInstance().createPooledLogger(loggerName, logFile);
+        jobLoggers.put(loggerName, logger);
         return new JobLogger(loggerName, logFile.toPath(), logger);
     }
 
     public void stopJobLogger(String loggerName) {
-        LogUtil.getInstance().stopLogger(loggerName);
+        Logger logger = jobLoggers.remove(loggerName);
+        if (logger != null) {
+            LogUtil.getInstance().stopPooledLogger(logger);
+        }
     }
 
 }
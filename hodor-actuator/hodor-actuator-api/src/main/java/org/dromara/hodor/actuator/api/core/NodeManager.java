@@ -6,6 +6,7 @@ import org.dromara.hodor.common.executor.ExecutorInfo;
 import org.dromara.hodor.common.utils.HostUtils;
 import org.dromara.hodor.common.utils.MachineUtils;
 import org.dromara.hodor.model.node.NodeInfo;
+import org.dromara.hodor.remoting.api.RemotingConst;
 
 /**
  * 节点管理
@@ -39,6 +40,7 @@ public class NodeManager {
             .port(port)
             .hostname(hostName)
             .pid(pid)
+            .protocolVersion(RemotingConst.LATEST_VERSION)
             .cpuRatio(cpuUsage)
             .memoryRatio(memUsage)
             //.loadAverageRatio()
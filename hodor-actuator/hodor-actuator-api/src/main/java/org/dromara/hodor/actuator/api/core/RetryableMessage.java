@@ -36,6 +36,8 @@ public class RetryableMessage {
 
    private Integer retryCount;
 
+   private Date nextRetryTime;
+
    public static RetryableMessage createRetryableMessage(String remoteIp, RemotingMessage rawMessage) {
        long requestId = rawMessage.getHeader().getId();
        Date currentDate = new Date();
@@ -47,6 +49,7 @@ public class RetryableMessage {
            .updateTime(currentDate)
            .status(false)
            .retryCount(0)
+           .nextRetryTime(currentDate)
            .build();
    }
 
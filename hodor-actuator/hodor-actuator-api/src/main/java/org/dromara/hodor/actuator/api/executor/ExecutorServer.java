@@ -31,6 +31,7 @@ public class ExecutorServer {
         attribute.put(RemotingConst.HOST_KEY, this.properties.getHost());
         attribute.put(RemotingConst.PORT_KEY, this.properties.getPort());
         attribute.put(RemotingConst.TCP_PROTOCOL, true);
+        attribute.put(RemotingConst.FLUSH_CONSOLIDATION_KEY, !Boolean.FALSE.equals(this.properties.getFlushConsolidation()));
 
         final JobRequestHandler handler = new JobRequestHandler(requestHandleManager, remotingMessageSerializer);
         final NetServerTransport netServerTransport = ExtensionLoader.getExtensionLoader(NetServerTransport.class).getDefaultJoin();
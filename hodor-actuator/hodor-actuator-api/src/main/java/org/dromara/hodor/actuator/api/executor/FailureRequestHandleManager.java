@@ -1,52 +1,91 @@
 package org.dromara.hodor.actuator.api.executor;
 
-import cn.hutool.core.collection.CollectionUtil;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.actuator.api.core.RetryableMessage;
 import org.dromara.hodor.common.concurrent.HodorThreadFactory;
-import org.dromara.hodor.common.event.AbstractAsyncEventPublisher;
-import org.dromara.hodor.common.event.Event;
-import org.dromara.hodor.common.executor.HodorRunnable;
 import org.dromara.hodor.common.storage.db.DBOperator;
 import org.dromara.hodor.common.utils.SerializeUtils;
 import org.dromara.hodor.remoting.api.HodorChannel;
 import org.dromara.hodor.remoting.api.message.RemotingMessage;
 
 /**
- * failure request handler manager
+ * failure request handler manager<br/>
+ *
+ * 1、失败消息持久化后按指数退避设置下次重试时间，next_retry_time建有索引
+ * 2、内存中按下次重试时间有序保存一个窗口的消息，只在窗口内消息不足且数据库还有未加载的消息时分页加载
+ * 3、每次检查只发送到期的消息，按执行端分组，同一个执行端只获取一次连接
+ * 4、所有状态变更在单个检查线程中执行，不需要加锁
  *
  * @author tomgs
  * @since 1.0
  */
 @Slf4j
-public class FailureRequestHandleManager extends AbstractAsyncEventPublisher<RetryableMessage> {
+public class FailureRequestHandleManager {
 
-    private static final String MESSAGE_INSERT_EVENT = "MESSAGE_INSERT_EVENT";
+    private static final long CHECK_INTERVAL_MILLIS = 1_000;
 
-    private static final String MESSAGE_UPDATE_EVENT = "MESSAGE_UPDATE_EVENT";
+    private static final long BASE_BACKOFF_MILLIS = 2_000;
 
-    private static final String MESSAGE_DELETE_EVENT = "MESSAGE_DELETE_EVENT";
+    private static final long MAX_BACKOFF_MILLIS = 300_000;
 
-    private final ClientChannelManager clientChannelManager;
+    private static final int PAGE_SIZE = 200;
+
+    private static final int SEND_BATCH_SIZE = 200;
 
-    private final ExecutorManager executorManager;
+    private static final int MAX_QUEUED = 10_000;
+
+    private final ClientChannelManager clientChannelManager;
 
     private final ScheduledThreadPoolExecutor failureRequestCheckService;
 
     private final DBOperator dbOperator;
 
+    /**
+     * 按下次重试时间排序的消息，pollFirst取最早到期的消息，超过上限时pollLast淘汰最晚的消息
+     */
+    private final TreeSet<RetryableMessage> retryQueue;
+
+    /**
+     * 正在发送的消息，加载时跳过
+     */
+    private final Set<Long> sendingRequestIds;
+
+    /**
+     * 已加载位置，(next_retry_time, request_id)不大于该位置的消息都在内存中
+     */
+    private long loadedRetryTime;
+
+    private long loadedRequestId;
+
+    /**
+     * 数据库中的消息已全部加载，之后新增的消息直接进入内存
+     */
+    private boolean allLoaded;
+
     public FailureRequestHandleManager(final ClientChannelManager clientChannelManager,
-                                       final ExecutorManager executorManager,
                                        final DBOperator dbOperator) {
         this.clientChannelManager = clientChannelManager;
-        this.executorManager = executorManager;
         this.dbOperator = dbOperator;
+        this.retryQueue = new TreeSet<>(Comparator.<RetryableMessage>comparingLong(message -> message.getNextRetryTime().getTime())
+            .thenComparing(RetryableMessage::getRequestId));
+        this.sendingRequestIds = new HashSet<>();
+        this.loadedRetryTime = Long.MIN_VALUE;
+        this.loadedRequestId = Long.MIN_VALUE;
         this.failureRequestCheckService = new ScheduledThreadPoolExecutor(1,
             HodorThreadFactory.create("hodor-failure-request-checker", true),
             new ThreadPoolExecutor.DiscardOldestPolicy());
@@ -55,90 +94,165 @@ public class FailureRequestHandleManager extends AbstractAsyncEventPublisher<Ret
 
     private void startCheck() {
         this.failureRequestCheckService.scheduleWithFixedDelay(this::fireFailureRequestHandler,
-            10_000, 10_000, TimeUnit.MILLISECONDS);
+            CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-    @Override
-    public void registryListener() {
-        registerAddFailureMessageListener();
-        registerUpdateFailureMessageListener();
-        registerDeleteFailureMessageListener();
+    public void fireFailureRequestHandler() {
+        try {
+            loadIfNeeded();
+            sendDueMessages();
+        } catch (Exception e) {
+            log.error("retry failure request exception, {}", e.getMessage(), e);
+        }
     }
 
-    private void registerAddFailureMessageListener() {
-        this.addListener(e -> {
-            RetryableMessage retryableMessage = e.getValue();
+    public void addFailureRequest(String remoteIp, RemotingMessage message) {
+        RetryableMessage retryableMessage = RetryableMessage.createRetryableMessage(remoteIp, message);
+        retryableMessage.setNextRetryTime(nextRetryTime(0));
+        failureRequestCheckService.execute(() -> {
             try {
                 dbOperator.update(insertSql, retryableMessage.getRequestId(), retryableMessage.getRemoteIp(), retryableMessage.getRawMessage(),
-                    retryableMessage.getCreateTime(), retryableMessage.getStatus());
+                    retryableMessage.getCreateTime(), retryableMessage.getStatus(), retryableMessage.getRetryCount(), retryableMessage.getNextRetryTime());
             } catch (SQLException ex) {
                 log.error("insert retry message exception, {}", ex.getMessage(), ex);
+                return;
             }
-        }, MESSAGE_INSERT_EVENT);
+            enqueueIfLoaded(retryableMessage);
+        });
     }
 
-    private void registerUpdateFailureMessageListener() {
-        this.addListener(e -> {
-            RetryableMessage retryableMessage = e.getValue();
-            try {
-                dbOperator.update(updateSql, retryableMessage.getStatus(), new Date(), retryableMessage.getId());
-            } catch (SQLException ex) {
-                log.error("update retry message exception, {}", ex.getMessage(), ex);
-            }
-        }, MESSAGE_UPDATE_EVENT);
+    public void close() {
+        failureRequestCheckService.shutdown();
     }
 
-    private void registerDeleteFailureMessageListener() {
-        this.addListener(e -> {
-            RetryableMessage retryableMessage = e.getValue();
-            try {
-                dbOperator.update(deleteSql, retryableMessage.getId());
-            } catch (SQLException ex) {
-                log.error("insert retry message exception, {}", ex.getMessage(), ex);
-            }
-        }, MESSAGE_DELETE_EVENT);
+    /**
+     * 内存中等待重试的消息数
+     */
+    public int getQueuedCount() {
+        return retryQueue.size();
     }
 
-    public void fireFailureRequestHandler() {
-        executorManager.commonExecute(new HodorRunnable() {
-            @Override
-            public void execute() {
-                List<RetryableMessage> retryableMessages = null;
-                try {
-                    retryableMessages = dbOperator.queryList(querySql, RetryableMessage.class);
-                } catch (SQLException ex) {
-                    log.error("select retry message exception, {}", ex.getMessage(), ex);
-                }
-                if (CollectionUtil.isEmpty(retryableMessages)) {
-                    return;
+    private void loadIfNeeded() throws SQLException {
+        while (!allLoaded && retryQueue.size() < PAGE_SIZE) {
+            final List<RetryableMessage> page;
+            if (loadedRetryTime == Long.MIN_VALUE) {
+                page = dbOperator.queryList(queryFirstPageSql, RetryableMessage.class, PAGE_SIZE);
+            } else {
+                final Timestamp loadedTime = new Timestamp(loadedRetryTime);
+                page = dbOperator.queryList(queryPageSql, RetryableMessage.class, loadedTime, loadedTime, loadedRequestId, PAGE_SIZE);
+            }
+            for (RetryableMessage retryableMessage : page) {
+                if (!sendingRequestIds.contains(retryableMessage.getRequestId())) {
+                    retryQueue.add(retryableMessage);
                 }
-                retryableMessages.forEach(retryableMessage -> {
-                    String remoteIp = retryableMessage.getRemoteIp();
-                    RemotingMessage remotingMessage = SerializeUtils.deserialize(retryableMessage.getRawMessage(), RemotingMessage.class);
-                    HodorChannel activeChannel = clientChannelManager.getActiveOrBackupChannel(remoteIp);
-                    activeChannel.send(remotingMessage)
-                        .operationComplete(e -> {
-                            if (e.cause() == null && e.isSuccess()) {
-                                publish(Event.create(retryableMessage, MESSAGE_DELETE_EVENT));
-                            } else {
-                                retryableMessage.setStatus(false);
-                                retryableMessage.setUpdateTime(new Date());
-                                publish(Event.create(retryableMessage, MESSAGE_UPDATE_EVENT));
-                            }
-                        });
-                });
-
             }
-        });
+            if (page.size() < PAGE_SIZE) {
+                allLoaded = true;
+            } else {
+                final RetryableMessage last = page.get(page.size() - 1);
+                loadedRetryTime = last.getNextRetryTime().getTime();
+                loadedRequestId = last.getRequestId();
+            }
+            evictOverflow();
+        }
     }
 
-    public void addFailureRequest(String remoteIp, RemotingMessage message) {
-        RetryableMessage retryableMessage = RetryableMessage.createRetryableMessage(remoteIp, message);
-        publish(Event.create(retryableMessage, MESSAGE_INSERT_EVENT)); // RESEND_EVENT
+    private void sendDueMessages() {
+        final long now = System.currentTimeMillis();
+        final Map<String, List<RetryableMessage>> dueMessages = new LinkedHashMap<>();
+        int count = 0;
+        while (count < SEND_BATCH_SIZE && !retryQueue.isEmpty() && retryQueue.first().getNextRetryTime().getTime() <= now) {
+            final RetryableMessage retryableMessage = retryQueue.pollFirst();
+            dueMessages.computeIfAbsent(retryableMessage.getRemoteIp(), k -> new ArrayList<>()).add(retryableMessage);
+            count++;
+        }
+        dueMessages.forEach(this::sendMessages);
+    }
+
+    private void sendMessages(String remoteIp, List<RetryableMessage> retryableMessages) {
+        final HodorChannel activeChannel = clientChannelManager.getActiveOrBackupChannel(remoteIp);
+        if (activeChannel == null || !activeChannel.isOpen()) {
+            // 没有可用连接时不发送，直接进入下一次退避
+            retryableMessages.forEach(this::onSendFailure);
+            return;
+        }
+        for (RetryableMessage retryableMessage : retryableMessages) {
+            final RemotingMessage remotingMessage = SerializeUtils.deserialize(retryableMessage.getRawMessage(), RemotingMessage.class);
+            sendingRequestIds.add(retryableMessage.getRequestId());
+            activeChannel.send(remotingMessage)
+                .operationComplete(e -> failureRequestCheckService.execute(() -> {
+                    sendingRequestIds.remove(retryableMessage.getRequestId());
+                    if (e.cause() == null && e.isSuccess()) {
+                        onSendSuccess(retryableMessage);
+                    } else {
+                        onSendFailure(retryableMessage);
+                    }
+                }));
+        }
+    }
+
+    private void onSendSuccess(RetryableMessage retryableMessage) {
+        try {
+            dbOperator.update(deleteSql, retryableMessage.getRequestId());
+        } catch (SQLException ex) {
+            log.error("delete retry message exception, {}", ex.getMessage(), ex);
+        }
+    }
+
+    private void onSendFailure(RetryableMessage retryableMessage) {
+        final int retryCount = retryableMessage.getRetryCount() == null ? 1 : retryableMessage.getRetryCount() + 1;
+        retryableMessage.setStatus(false);
+        retryableMessage.setRetryCount(retryCount);
+        retryableMessage.setUpdateTime(new Date());
+        retryableMessage.setNextRetryTime(nextRetryTime(retryCount));
+        try {
+            dbOperator.update(updateSql, retryableMessage.getStatus(), retryableMessage.getUpdateTime(), retryableMessage.getNextRetryTime(),
+                retryableMessage.getRequestId());
+        } catch (SQLException ex) {
+            log.error("update retry message exception, {}", ex.getMessage(), ex);
+        }
+        enqueueIfLoaded(retryableMessage);
+    }
+
+    /**
+     * 只有在已加载范围内的消息才放入内存，其余的由后续分页加载
+     */
+    private void enqueueIfLoaded(RetryableMessage retryableMessage) {
+        final long retryTime = retryableMessage.getNextRetryTime().getTime();
+        if (allLoaded || retryTime < loadedRetryTime
+            || (retryTime == loadedRetryTime && retryableMessage.getRequestId() <= loadedRequestId)) {
+            retryQueue.add(retryableMessage);
+            evictOverflow();
+        }
+    }
+
+    /**
+     * 超过内存上限时淘汰最晚到期的消息，并将已加载位置回退到淘汰的消息之前
+     */
+    private void evictOverflow() {
+        while (retryQueue.size() > MAX_QUEUED) {
+            final RetryableMessage last = retryQueue.pollLast();
+            loadedRetryTime = last.getNextRetryTime().getTime();
+            loadedRequestId = last.getRequestId() - 1;
+            allLoaded = false;
+        }
+    }
+
+    /**
+     * 指数退避，增加随机抖动避免执行端恢复后同时重发
+     */
+    private Date nextRetryTime(int retryCount) {
+        final long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(retryCount, 20));
+        final long jitter = ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+        return new Date(System.currentTimeMillis() + backoff + jitter);
     }
 
-    private final String insertSql = "INSERT INTO hodor_retryable_message (request_id, remote_ip, raw_message, create_time, status) VALUES (?, ?, ?, ?, ?)";
-    private final String updateSql = "UPDATE hodor_retryable_message SET status = ?, update_time = ?, retry_count = retry_count + 1 WHERE id = ?";
-    private final String querySql = "SELECT * FROM hodor_retryable_message";
-    private final String deleteSql = "DELETE FROM hodor_retryable_message WHERE id = ?";
+    private final String insertSql = "INSERT INTO hodor_retryable_message (request_id, remote_ip, raw_message, create_time, status, retry_count, next_retry_time) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private final String updateSql = "UPDATE hodor_retryable_message SET status = ?, update_time = ?, retry_count = retry_count + 1, next_retry_time = ? " +
+        "WHERE request_id = ?";
+    private final String queryFirstPageSql = "SELECT * FROM hodor_retryable_message ORDER BY next_retry_time, request_id LIMIT ?";
+    private final String queryPageSql = "SELECT * FROM hodor_retryable_message WHERE next_retry_time > ? OR (next_retry_time = ? AND request_id > ?) " +
+        "ORDER BY next_retry_time, request_id LIMIT ?";
+    private final String deleteSql = "DELETE FROM hodor_retryable_message WHERE request_id = ?";
 }
@@ -1,79 +1,422 @@
 package org.dromara.hodor.actuator.api.executor;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.actuator.api.config.HodorProperties;
 import org.dromara.hodor.actuator.api.core.HodorJobExecution;
-import org.dromara.hodor.common.event.AbstractAsyncEventPublisher;
-import org.dromara.hodor.common.event.Event;
+import org.dromara.hodor.common.metrics.KVMetrics;
 import org.dromara.hodor.common.storage.db.DBOperator;
 import org.dromara.hodor.model.enums.JobExecuteStatus;
 
 /**
- * Job persistence
+ * Job persistence<br/>
+ *
+ * 1、任务执行记录先写入内存，同一个requestId的插入与更新在内存中合并，未写入时只需要一条INSERT
+ * 2、写线程在待写入条数达到批量大小或到达时间间隔时，在一个事务中批量写入
+ * 3、ASYNC模式下发布记录不等待写入；SYNC模式下等待所在批次提交后返回，写入失败或超时时返回false
+ * 4、查询优先读取未写入的记录，保证写入后立即可见
+ * 5、未写入记录数、批量写入耗时和写入条数注册在进程内共享的{@link KVMetrics#metricRegistry()}中
  *
  * @author tomgs
  * @since 1.0
  */
 @Slf4j
-public class JobExecutionPersistence extends AbstractAsyncEventPublisher<HodorJobExecution> {
+public class JobExecutionPersistence {
+
+    public static final String ASYNC_MODE = "ASYNC";
+
+    public static final String SYNC_MODE = "SYNC";
+
+    public static final String METRIC_PENDING = MetricRegistry.name(JobExecutionPersistence.class, "pending");
+
+    public static final String METRIC_FLUSH_TIMER = MetricRegistry.name(JobExecutionPersistence.class, "flush-timer");
+
+    public static final String METRIC_ROWS = MetricRegistry.name(JobExecutionPersistence.class, "rows");
+
+    private static final long SYNC_WAIT_SECONDS = 10;
 
     private final DBOperator dbOperator;
 
-    private final static Integer INSERT_EVENT = 0;
+    private final boolean syncMode;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    /**
+     * requestId -> 未写入的记录
+     */
+    private final Map<Long, PendingExecution> pendingExecutions;
 
-    private final static Integer UPDATE_EVENT = 1;
+    /**
+     * requestId -> 正在写入的记录，提交后删除
+     */
+    private final Map<Long, PendingExecution> flushingExecutions;
 
-    public JobExecutionPersistence(final DBOperator dbOperator) {
+    private final Thread writerThread;
+
+    private final Timer flushTimer;
+
+    private final Meter rowsMeter;
+
+    private final Gauge<Integer> pendingGauge;
+
+    private volatile boolean running;
+
+    public JobExecutionPersistence(final DBOperator dbOperator, final HodorProperties properties) {
         this.dbOperator = dbOperator;
+        this.syncMode = SYNC_MODE.equalsIgnoreCase(properties.getExecutionPersistMode());
+        this.batchSize = Math.max(1, properties.getExecutionPersistBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getExecutionPersistFlushInterval()));
+        this.pendingExecutions = new ConcurrentHashMap<>();
+        this.flushingExecutions = new ConcurrentHashMap<>();
+        this.flushTimer = KVMetrics.timer(METRIC_FLUSH_TIMER);
+        this.rowsMeter = KVMetrics.meter(METRIC_ROWS);
+        this.pendingGauge = this::getPendingCount;
+        // 重新创建时替换上一个实例的gauge
+        KVMetrics.metricRegistry().remove(METRIC_PENDING);
+        KVMetrics.metricRegistry().register(METRIC_PENDING, pendingGauge);
+        this.writerThread = new Thread(this::writeLoop, "job-execution-persist");
+        this.writerThread.setDaemon(true);
+        this.running = true;
+        this.writerThread.start();
     }
 
-    @Override
-    public void registryListener() {
-        insertHodorJobExecutionListener();
-        updateHodorJobExecutionListener();
+    /**
+     * 发布任务执行记录，SYNC模式下返回是否已写入数据库，ASYNC模式下始终返回true
+     */
+    public boolean fireJobExecutionEvent(HodorJobExecution jobExecution) {
+        final boolean insert = jobExecution.getStatus() == JobExecuteStatus.RUNNING;
+        final PendingExecution merged = pendingExecutions.compute(jobExecution.getRequestId(), (requestId, pending) -> {
+            if (pending == null) {
+                return new PendingExecution(jobExecution, insert);
+            }
+            pending.merge(jobExecution, insert);
+            return pending;
+        });
+        if (syncMode) {
+            LockSupport.unpark(writerThread);
+            return awaitFlush(jobExecution.getRequestId(), merged.persisted);
+        }
+        if (pendingExecutions.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
     }
 
-    private void insertHodorJobExecutionListener() {
-        this.addListener(e -> {
-            HodorJobExecution jobExecution = e.getValue();
+    /**
+     * 依次合并数据库、正在写入、未写入的记录，先读未写入的记录，写线程先放入正在写入的记录再删除未写入的记录，不会漏读
+     */
+    public HodorJobExecution fetchJobExecution(Long requestId) throws SQLException {
+        final PendingExecution pending = pendingExecutions.get(requestId);
+        if (pending != null) {
+            synchronized (pending) {
+                if (pending.insert) {
+                    return pending.copy();
+                }
+            }
+        }
+        // 只有更新未写入时，插入可能还在写入中，数据库中查不到
+        final PendingExecution flushing = flushingExecutions.get(requestId);
+        HodorJobExecution jobExecution = null;
+        if (flushing != null) {
+            synchronized (flushing) {
+                if (flushing.insert) {
+                    jobExecution = flushing.copy();
+                }
+            }
+        }
+        if (jobExecution == null) {
+            jobExecution = dbOperator.query(selectJobExecution, this::mapJobExecution, requestId);
+            if (jobExecution != null && flushing != null) {
+                synchronized (flushing) {
+                    PendingExecution.applyUpdate(jobExecution, flushing.execution);
+                }
+            }
+        }
+        if (jobExecution != null && pending != null) {
+            synchronized (pending) {
+                PendingExecution.applyUpdate(jobExecution, pending.execution);
+            }
+        }
+        return jobExecution;
+    }
+
+    /**
+     * 未写入数据库的记录数
+     */
+    public int getPendingCount() {
+        return pendingExecutions.size();
+    }
+
+    /**
+     * 停止写线程，未写入的记录全部写入后返回
+     */
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(SYNC_WAIT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        KVMetrics.metricRegistry().removeMatching((name, metric) -> METRIC_PENDING.equals(name) && metric == pendingGauge);
+    }
+
+    private boolean awaitFlush(Long requestId, CompletableFuture<Void> flushed) {
+        try {
+            flushed.get(SYNC_WAIT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("job execution {} not persisted, msg: {}", requestId, e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            log.warn("wait job execution {} persist timeout", requestId);
+        }
+        return false;
+    }
+
+    private void writeLoop() {
+        while (running || !pendingExecutions.isEmpty()) {
+            // SYNC模式有待写入记录时立即写入
+            final boolean flushNow = pendingExecutions.size() >= batchSize || (syncMode && !pendingExecutions.isEmpty());
+            if (running && !flushNow) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
             try {
-                dbOperator.update(insertJobExecution, jobExecution.getRequestId(), jobExecution.getGroupName(), jobExecution.getJobName(),
-                    jobExecution.getParameters(), jobExecution.getSchedulerTag(), jobExecution.getClientHostname(), jobExecution.getClientIp(),
-                    jobExecution.getStartTime(), jobExecution.getStatus().getStatus());
-            } catch (SQLException ex) {
-                log.error("insert job execution message exception, {}", ex.getMessage(), ex);
+                flush();
+            } catch (Throwable e) {
+                log.error("job execution persist error, msg: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void flush() {
+        while (!pendingExecutions.isEmpty()) {
+            final List<PendingExecution> batch = new ArrayList<>(Math.min(batchSize, pendingExecutions.size()));
+            final Iterator<Long> iterator = pendingExecutions.keySet().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                final Long requestId = iterator.next();
+                final PendingExecution pending = pendingExecutions.get(requestId);
+                if (pending == null) {
+                    continue;
+                }
+                // 先放入写入中的记录再删除，查询始终能读到
+                flushingExecutions.put(requestId, pending);
+                pendingExecutions.remove(requestId, pending);
+                batch.add(pending);
+            }
+            Map<PendingExecution, Throwable> failures = null;
+            Throwable batchFailure = null;
+            try {
+                failures = writeBatch(batch);
+            } catch (Throwable e) {
+                batchFailure = e;
+                throw e;
+            } finally {
+                // 没有写入的记录不能通知SYNC调用方成功
+                for (PendingExecution pending : batch) {
+                    flushingExecutions.remove(pending.execution.getRequestId(), pending);
+                    final Throwable failure = failures == null ? batchFailure : failures.get(pending);
+                    if (failure == null) {
+                        pending.persisted.complete(null);
+                    } else {
+                        pending.persisted.completeExceptionally(failure);
+                    }
+                }
             }
-        }, INSERT_EVENT);
+        }
     }
 
-    private void updateHodorJobExecutionListener() {
-        this.addListener(e -> {
-            HodorJobExecution jobExecution = e.getValue();
+    /**
+     * 返回写入失败的记录及原因
+     */
+    private Map<PendingExecution, Throwable> writeBatch(List<PendingExecution> batch) {
+        final List<PendingExecution> inserts = new ArrayList<>();
+        final List<PendingExecution> updates = new ArrayList<>();
+        final List<Object[]> insertParams = new ArrayList<>();
+        final List<Object[]> updateParams = new ArrayList<>();
+        for (PendingExecution pending : batch) {
+            synchronized (pending) {
+                if (pending.insert) {
+                    inserts.add(pending);
+                    insertParams.add(insertParams(pending.execution));
+                } else {
+                    updates.add(pending);
+                    updateParams.add(updateParams(pending.execution));
+                }
+            }
+        }
+        final Map<String, Object[][]> batches = new LinkedHashMap<>();
+        batches.put(insertJobExecution, insertParams.toArray(new Object[0][]));
+        batches.put(updateJobExecution, updateParams.toArray(new Object[0][]));
+        try (Timer.Context ignored = flushTimer.time()) {
+            dbOperator.batchInTransaction(batches);
+            rowsMeter.mark(batch.size());
+            return Collections.emptyMap();
+        } catch (SQLException e) {
+            // 批量失败时逐条写入，避免单条异常数据导致整批丢失
+            log.warn("batch persist {} job executions error, fallback to single write, msg: {}", batch.size(), e.getMessage());
+            final Map<PendingExecution, Throwable> failures = new IdentityHashMap<>();
+            writeOneByOne(insertJobExecution, inserts, insertParams, failures);
+            writeOneByOne(updateJobExecution, updates, updateParams, failures);
+            rowsMeter.mark(batch.size() - failures.size());
+            return failures;
+        }
+    }
+
+    private void writeOneByOne(String sql, List<PendingExecution> pendings, List<Object[]> params,
+                               Map<PendingExecution, Throwable> failures) {
+        for (int i = 0; i < pendings.size(); i++) {
             try {
-                dbOperator.update(updateJobExecution, jobExecution.getCompleteTime(), jobExecution.getStatus().getStatus(),
-                    jobExecution.getComments(), jobExecution.getResult(), jobExecution.getRequestId());
+                dbOperator.update(sql, params.get(i));
             } catch (SQLException ex) {
-                log.error("update job execution message exception, {}", ex.getMessage(), ex);
+                log.error("persist job execution {} exception, {}", pendings.get(i).execution.getRequestId(), ex.getMessage(), ex);
+                failures.put(pendings.get(i), ex);
             }
-        }, UPDATE_EVENT);
+        }
     }
 
-    public void fireJobExecutionEvent(HodorJobExecution jobExecution) {
-        Integer eventType = INSERT_EVENT;
-        if (jobExecution.getStatus() != JobExecuteStatus.RUNNING) {
-            eventType = UPDATE_EVENT;
+    /**
+     * status列为状态码，需要转换为枚举
+     */
+    private HodorJobExecution mapJobExecution(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
         }
-        Event<HodorJobExecution> event = new Event<>(jobExecution, eventType);
-        this.publish(event);
+        return HodorJobExecution.builder()
+            .requestId(rs.getLong("request_id"))
+            .groupName(rs.getString("group_name"))
+            .jobName(rs.getString("job_name"))
+            .parameters(rs.getString("parameters"))
+            .schedulerTag(rs.getString("scheduler_tag"))
+            .clientHostname(rs.getString("client_hostname"))
+            .clientIp(rs.getString("client_ip"))
+            .startTime(rs.getTimestamp("start_time"))
+            .completeTime(rs.getTimestamp("complete_time"))
+            .status(JobExecuteStatus.ofCode(rs.getInt("status")))
+            .comments(rs.getString("comments"))
+            .result(rs.getBytes("result"))
+            .build();
     }
 
-    public HodorJobExecution fetchJobExecution(Long requestId) throws SQLException {
-        return dbOperator.query(selectJobExecution, HodorJobExecution.class, requestId);
+    private Object[] insertParams(HodorJobExecution jobExecution) {
+        return new Object[] {jobExecution.getRequestId(), jobExecution.getGroupName(), jobExecution.getJobName(),
+            jobExecution.getParameters(), jobExecution.getSchedulerTag(), jobExecution.getClientHostname(), jobExecution.getClientIp(),
+            jobExecution.getStartTime(), jobExecution.getCompleteTime(), jobExecution.getStatus().getStatus(), jobExecution.getComments(),
+            jobExecution.getResult()};
+    }
+
+    private Object[] updateParams(HodorJobExecution jobExecution) {
+        return new Object[] {jobExecution.getCompleteTime(), jobExecution.getStatus().getStatus(),
+            jobExecution.getComments(), jobExecution.getResult(), jobExecution.getRequestId()};
+    }
+
+    /**
+     * 同一个requestId未写入的记录
+     */
+    private static class PendingExecution {
+
+        private final HodorJobExecution execution;
+
+        /**
+         * 所在批次写入完成，SYNC模式下等待
+         */
+        private final CompletableFuture<Void> persisted = new CompletableFuture<>();
+
+        /**
+         * 记录还未插入，写入时使用INSERT，否则使用UPDATE
+         */
+        private boolean insert;
+
+        PendingExecution(HodorJobExecution execution, boolean insert) {
+            this.execution = HodorJobExecution.builder().build();
+            this.insert = insert;
+            if (insert) {
+                applyInsert(this.execution, execution);
+            } else {
+                applyUpdate(this.execution, execution);
+            }
+        }
+
+        synchronized void merge(HodorJobExecution jobExecution, boolean insert) {
+            if (insert) {
+                // 插入晚于更新到达时，保留已经完成的状态
+                final boolean finished = this.execution.getStatus() != null;
+                final HodorJobExecution update = finished ? copy() : null;
+                applyInsert(this.execution, jobExecution);
+                if (finished) {
+                    applyUpdate(this.execution, update);
+                }
+                this.insert = true;
+            } else {
+                applyUpdate(this.execution, jobExecution);
+            }
+        }
+
+        HodorJobExecution copy() {
+            return HodorJobExecution.builder()
+                .requestId(execution.getRequestId())
+                .groupName(execution.getGroupName())
+                .jobName(execution.getJobName())
+                .parameters(execution.getParameters())
+                .schedulerTag(execution.getSchedulerTag())
+                .clientHostname(execution.getClientHostname())
+                .clientIp(execution.getClientIp())
+                .startTime(execution.getStartTime())
+                .completeTime(execution.getCompleteTime())
+                .status(execution.getStatus())
+                .comments(execution.getComments())
+                .result(execution.getResult())
+                .build();
+        }
+
+        static void applyInsert(HodorJobExecution target, HodorJobExecution source) {
+            target.setRequestId(source.getRequestId());
+            target.setGroupName(source.getGroupName());
+            target.setJobName(source.getJobName());
+            target.setParameters(source.getParameters());
+            target.setSchedulerTag(source.getSchedulerTag());
+            target.setClientHostname(source.getClientHostname());
+            target.setClientIp(source.getClientIp());
+            target.setStartTime(source.getStartTime());
+            target.setStatus(source.getStatus());
+        }
+
+        static void applyUpdate(HodorJobExecution target, HodorJobExecution source) {
+            target.setRequestId(source.getRequestId());
+            target.setCompleteTime(source.getCompleteTime());
+            target.setStatus(source.getStatus());
+            target.setComments(source.getComments());
+            target.setResult(source.getResult());
+        }
     }
 
     final String insertJobExecution =
-        "INSERT INTO hodor_job_execution (request_id, group_name, job_name, parameters, scheduler_tag, client_hostname, client_ip, start_time, status) " +
-            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        "INSERT INTO hodor_job_execution (request_id, group_name, job_name, parameters, scheduler_tag, client_hostname, client_ip, start_time, " +
+            "complete_time, status, comments, result) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     final String updateJobExecution =
         "UPDATE hodor_job_execution SET complete_time = ?, status = ?, comments = ?, result = ? WHERE request_id = ?";
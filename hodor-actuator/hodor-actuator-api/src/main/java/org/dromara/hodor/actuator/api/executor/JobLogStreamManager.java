@@ -0,0 +1,207 @@
+package org.dromara.hodor.actuator.api.executor;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.actuator.api.config.HodorProperties;
+import org.dromara.hodor.actuator.api.utils.JobPathUtils;
+import org.dromara.hodor.common.concurrent.HodorThreadFactory;
+import org.dromara.hodor.model.job.JobKey;
+import org.dromara.hodor.remoting.api.HodorChannel;
+import org.dromara.hodor.remoting.api.RemotingConst;
+import org.dromara.hodor.remoting.api.message.FileRegionMessage;
+import org.dromara.hodor.remoting.api.message.Header;
+import org.dromara.hodor.remoting.api.message.MessageType;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.RequestContext;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteLogStreamRequest;
+
+/**
+ * 任务日志流推送<br/>
+ *
+ * 1、每个订阅在执行端保存读取位置，日志块以文件片段发送，不读入堆内存
+ * 2、同一时间每个订阅只有一个日志块在发送，发送完成后再发送下一块；连接不可写时等待，由网络层水位控制推送速度
+ * 3、读到文件末尾时，任务运行中则定时检查新写入的日志，任务结束后发送结束消息
+ * 4、所有订阅在单个线程中调度，发送回调只把下一次推送提交到该线程
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class JobLogStreamManager {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final int MIN_CHUNK_SIZE = 4 * 1024;
+
+    private static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAX_STREAMS = 1024;
+
+    private static final long UNWRITABLE_DELAY_MILLIS = 10;
+
+    private static final long FOLLOW_INTERVAL_MILLIS = 200;
+
+    private final HodorProperties properties;
+
+    private final RequestHandleManager requestHandleManager;
+
+    private final Map<Long, LogStream> streams = new ConcurrentHashMap<>();
+
+    private final ScheduledThreadPoolExecutor streamService;
+
+    public JobLogStreamManager(final HodorProperties properties, final RequestHandleManager requestHandleManager) {
+        this.properties = properties;
+        this.requestHandleManager = requestHandleManager;
+        this.streamService = new ScheduledThreadPoolExecutor(1, HodorThreadFactory.create("hodor-job-log-stream", true));
+        this.streamService.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 处理订阅或取消订阅请求，消息id作为订阅id
+     */
+    public void handle(final RequestContext context) {
+        final JobExecuteLogStreamRequest request = (JobExecuteLogStreamRequest) context.requestBody();
+        final long streamId = context.requestHeader().getId();
+        if (request.isCancel()) {
+            streams.remove(streamId);
+            return;
+        }
+        final File logFile = JobPathUtils.getJobLogPath(properties.getDataPath(),
+            JobKey.of(request.getGroupName(), request.getJobName()), request.getRequestId()).toFile();
+        final long offset = request.getOffset() == null ? 0 : Math.max(0, request.getOffset());
+        final LogStream stream = new LogStream(streamId, request.getRequestId(), context.channel(), logFile, offset, chunkSize(request.getChunkSize()));
+        if (streams.size() >= MAX_STREAMS) {
+            sendEnd(stream, "too many log streams, limit " + MAX_STREAMS);
+            return;
+        }
+        streams.put(streamId, stream);
+        streamService.execute(() -> pump(stream));
+    }
+
+    public int getStreamCount() {
+        return streams.size();
+    }
+
+    public void close() {
+        streams.clear();
+        streamService.shutdownNow();
+    }
+
+    private void pump(final LogStream stream) {
+        if (streams.get(stream.streamId) != stream || stream.sending) {
+            return;
+        }
+        if (!stream.channel.isOpen()) {
+            streams.remove(stream.streamId, stream);
+            return;
+        }
+        if (!stream.channel.isWritable()) {
+            schedule(stream, UNWRITABLE_DELAY_MILLIS);
+            return;
+        }
+        final long length = stream.logFile.length();
+        if (stream.position < length) {
+            stream.finished = false;
+            sendChunk(stream, (int) Math.min(stream.chunkSize, length - stream.position));
+            return;
+        }
+        // 任务结束后日志可能还在异步写入，确认结束后再等待一次检查间隔没有新日志才发送结束消息
+        if (requestHandleManager.getExecutableJobContext(stream.requestId) == null) {
+            if (stream.finished) {
+                streams.remove(stream.streamId, stream);
+                sendEnd(stream, null);
+                return;
+            }
+            stream.finished = true;
+        }
+        schedule(stream, FOLLOW_INTERVAL_MILLIS);
+    }
+
+    private void sendChunk(final LogStream stream, final int count) {
+        final FileRegionMessage message = new FileRegionMessage(buildHeader(stream, false, null), stream.logFile, stream.position, count);
+        stream.sending = true;
+        stream.channel.send(message).operationComplete(future -> streamService.execute(() -> {
+            stream.sending = false;
+            if (!future.isSuccess()) {
+                log.warn("send job {} log stream {} chunk failed, msg: {}", stream.requestId, stream.streamId,
+                    future.cause() == null ? null : future.cause().getMessage());
+                streams.remove(stream.streamId, stream);
+                return;
+            }
+            stream.position += count;
+            pump(stream);
+        }));
+    }
+
+    private void sendEnd(final LogStream stream, final String error) {
+        final Header header = buildHeader(stream, true, error);
+        header.setLength(0);
+        stream.channel.send(RemotingMessage.builder().header(header).build());
+    }
+
+    private Header buildHeader(final LogStream stream, final boolean eof, final String error) {
+        final Map<String, Object> attachment = new HashMap<>(4);
+        attachment.put(JobExecuteLogStreamRequest.OFFSET_KEY, stream.position);
+        if (eof) {
+            attachment.put(JobExecuteLogStreamRequest.EOF_KEY, true);
+        }
+        if (error != null) {
+            attachment.put(JobExecuteLogStreamRequest.ERROR_KEY, error);
+        }
+        return Header.builder()
+            .id(stream.streamId)
+            .type(MessageType.FETCH_JOB_LOG_STREAM_REQUEST.getType())
+            .version(RemotingConst.BINARY_VERSION)
+            .attachment(attachment)
+            .build();
+    }
+
+    private void schedule(final LogStream stream, final long delayMillis) {
+        streamService.schedule(() -> pump(stream), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private int chunkSize(final Integer chunkSize) {
+        if (chunkSize == null || chunkSize <= 0) {
+            return DEFAULT_CHUNK_SIZE;
+        }
+        return Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, chunkSize));
+    }
+
+    /**
+     * 订阅状态，只在推送线程中修改
+     */
+    private static class LogStream {
+
+        private final long streamId;
+
+        private final Long requestId;
+
+        private final HodorChannel channel;
+
+        private final File logFile;
+
+        private final int chunkSize;
+
+        private long position;
+
+        private boolean sending;
+
+        private boolean finished;
+
+        LogStream(final long streamId, final Long requestId, final HodorChannel channel, final File logFile,
+                  final long position, final int chunkSize) {
+            this.streamId = streamId;
+            this.requestId = requestId;
+            this.channel = channel;
+            this.logFile = logFile;
+            this.position = position;
+            this.chunkSize = chunkSize;
+        }
+    }
+
+}
@@ -6,6 +6,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.actuator.api.JobRegister;
 import org.dromara.hodor.actuator.api.action.HeartbeatAction;
+import org.dromara.hodor.actuator.api.action.JobExecuteBatchAction;
 import org.dromara.hodor.actuator.api.action.JobExecuteAction;
 import org.dromara.hodor.actuator.api.action.JobExecuteLogAction;
 import org.dromara.hodor.actuator.api.action.JobExecuteStatusAction;
@@ -46,6 +47,8 @@ public class RequestHandleManager extends AbstractEventPublisher<RequestContext>
 
     private final JobExecutionPersistence jobExecutionPersistence;
 
+    private final JobLogStreamManager jobLogStreamManager;
+
     private final JobRegister jobRegister;
 
     private final Map<Long, ExecutableJobContext> executableJobContextMap;
@@ -59,8 +62,9 @@ public class RequestHandleManager extends AbstractEventPublisher<RequestContext>
         this.jobRegister = jobRegister;
         this.executorManager = executorManager;
         this.clientChannelManager = clientChannelManager;
-        this.jobExecutionPersistence = new JobExecutionPersistence(dbOperator);
-        this.failureRequestHandleManager = new FailureRequestHandleManager(clientChannelManager, executorManager, dbOperator);
+        this.jobExecutionPersistence = new JobExecutionPersistence(dbOperator, properties);
+        this.failureRequestHandleManager = new FailureRequestHandleManager(clientChannelManager, dbOperator);
+        this.jobLogStreamManager = new JobLogStreamManager(properties, this);
         this.executableJobContextMap = new ConcurrentHashMap<>();
     }
 
@@ -68,9 +72,15 @@ public class RequestHandleManager extends AbstractEventPublisher<RequestContext>
     public void registryListener() {
         registerHeartbeatListener();
         registerJobExecuteListener();
+        registerJobExecuteBatchListener();
         registerKillRunningListener();
         registerFetchJobStatusListener();
         registerFetchJobExecLogListener();
+        registerFetchJobExecLogStreamListener();
+    }
+
+    private void registerFetchJobExecLogStreamListener() {
+        this.addListener(e -> jobLogStreamManager.handle(e.getValue()), MessageType.FETCH_JOB_LOG_STREAM_REQUEST);
     }
 
     private void registerFetchJobExecLogListener() {
@@ -95,16 +105,31 @@ public class RequestHandleManager extends AbstractEventPublisher<RequestContext>
     }
 
     private void registerJobExecuteListener() {
+        this.addListener(e -> executeJobRequest(e.getValue()), MessageType.JOB_EXEC_REQUEST);
+    }
+
+    private void registerJobExecuteBatchListener() {
         this.addListener(e -> {
             RequestContext context = e.getValue();
-            long requestId = context.requestHeader().getId();
-            if (!readyExecutableJobContext(requestId)) {
-                //retryableSendMessage(context, RemotingResponse.failed(String.format("RequestId %s has running.", requestId)));
-                log.error("RequestId {} has running.", requestId);
-                return;
-            }
-            executorManager.execute(new JobExecuteAction(context, properties, jobExecutionPersistence, jobRegister, this));
-        }, MessageType.JOB_EXEC_REQUEST);
+            executorManager.commonExecute(new JobExecuteBatchAction(context, this));
+        }, MessageType.JOB_EXEC_BATCH_REQUEST);
+    }
+
+    /**
+     * 执行单个任务请求
+     *
+     * @param context 请求上下文
+     * @return 请求已在执行中时返回false
+     */
+    public boolean executeJobRequest(RequestContext context) {
+        long requestId = context.requestHeader().getId();
+        if (!readyExecutableJobContext(requestId)) {
+            //retryableSendMessage(context, RemotingResponse.failed(String.format("RequestId %s has running.", requestId)));
+            log.error("RequestId {} has running.", requestId);
+            return false;
+        }
+        executorManager.execute(new JobExecuteAction(context, properties, jobExecutionPersistence, jobRegister, this));
+        return true;
     }
 
     private void registerHeartbeatListener() {
@@ -199,4 +224,10 @@ public class RequestHandleManager extends AbstractEventPublisher<RequestContext>
         return true;
     }
 
+    public void close() {
+        jobExecutionPersistence.close();
+        failureRequestHandleManager.close();
+        jobLogStreamManager.close();
+    }
+
 }
@@ -4,8 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.actuator.api.executor.RequestHandleManager;
 import org.dromara.hodor.remoting.api.HodorChannel;
 import org.dromara.hodor.remoting.api.HodorChannelHandler;
+import org.dromara.hodor.remoting.api.RemotingConst;
 import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializerFactory;
+import org.dromara.hodor.remoting.api.message.MessageType;
 import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.RequestBody;
 import org.dromara.hodor.remoting.api.message.RequestContext;
 
 /**
@@ -29,10 +33,23 @@ public class JobRequestHandler implements HodorChannelHandler {
     @Override
     public void received(HodorChannel channel, Object message) {
         final RemotingMessage request = (RemotingMessage) message;
-        final RequestContext context = new RequestContext(channel, request, remotingMessageSerializer);
+        final RemotingMessageSerializer serializer = getSerializer(request.getHeader().getVersion());
+        // 请求异步处理，接收缓冲区在received返回后释放，所以在这里直接从缓冲区反序列化
+        final RequestBody requestBody = serializer.deserialize(request.bodyBuffer(), MessageType.to(request.getHeader().getType()).getMessageClass());
+        final RequestContext context = new RequestContext(channel, request, serializer, requestBody);
         this.requestHandleManager.notifyRequestHandler(context);
     }
 
+    /**
+     * 响应与请求使用相同的协议版本，所以按请求版本选择序列化器
+     */
+    private RemotingMessageSerializer getSerializer(byte version) {
+        if (version == RemotingConst.DEFAULT_VERSION) {
+            return remotingMessageSerializer;
+        }
+        return RemotingMessageSerializerFactory.getSerializer(version);
+    }
+
     @Override
     public void exceptionCaught(HodorChannel channel, Throwable cause) {
         log.error("handler the request message has exception, message: {}.", cause.getMessage(), cause);
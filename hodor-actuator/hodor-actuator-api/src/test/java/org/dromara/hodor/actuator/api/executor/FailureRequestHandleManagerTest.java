@@ -0,0 +1,65 @@
+package org.dromara.hodor.actuator.api.executor;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.dromara.hodor.actuator.api.core.HodorDatabaseSetup;
+import org.dromara.hodor.common.storage.db.DBOperator;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * failure request handle manager test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class FailureRequestHandleManagerTest {
+
+    private DBOperator dbOperator;
+
+    private FailureRequestHandleManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:retryable_message_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dbOperator = new DBOperator(dataSource);
+        new HodorDatabaseSetup(dbOperator).initTables();
+    }
+
+    @After
+    public void tearDown() {
+        if (manager != null) {
+            manager.close();
+        }
+    }
+
+    @Test
+    public void testBackoffWhenChannelUnavailable() throws Exception {
+        final int messages = 450;
+        final Date past = new Date(System.currentTimeMillis() - 60_000);
+        for (long requestId = 0; requestId < messages; requestId++) {
+            dbOperator.update("INSERT INTO hodor_retryable_message (request_id, remote_ip, raw_message, create_time, status, retry_count, next_retry_time) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", requestId, "127.0.0.2", new byte[0], past, false, 0, past);
+        }
+        final long start = System.currentTimeMillis();
+        manager = new FailureRequestHandleManager(ClientChannelManager.getInstance(), dbOperator);
+
+        // 没有可用连接，所有到期消息分页加载后进入下一次退避
+        long retried = 0;
+        for (int i = 0; i < 100 && retried < messages; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+            retried = count("SELECT COUNT(*) FROM hodor_retryable_message WHERE retry_count >= 1");
+        }
+        Assert.assertEquals(messages, retried);
+        Assert.assertEquals(0, count("SELECT COUNT(*) FROM hodor_retryable_message WHERE next_retry_time < ?", new Date(start + 2_000)));
+    }
+
+    private long count(String sql, Object... params) throws Exception {
+        return dbOperator.query(sql, rs -> rs.next() ? rs.getLong(1) : 0L, params);
+    }
+
+}
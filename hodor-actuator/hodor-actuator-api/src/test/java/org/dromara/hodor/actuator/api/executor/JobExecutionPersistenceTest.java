@@ -0,0 +1,157 @@
+package org.dromara.hodor.actuator.api.executor;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.dromara.hodor.actuator.api.config.HodorProperties;
+import org.dromara.hodor.actuator.api.core.HodorDatabaseSetup;
+import org.dromara.hodor.actuator.api.core.HodorJobExecution;
+import org.dromara.hodor.common.metrics.KVMetrics;
+import org.dromara.hodor.common.storage.db.DBOperator;
+import org.dromara.hodor.model.enums.JobExecuteStatus;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * job execution persistence test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class JobExecutionPersistenceTest {
+
+    private JdbcDataSource dataSource;
+
+    private DBOperator dbOperator;
+
+    private JobExecutionPersistence persistence;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:job_execution_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        dbOperator = new DBOperator(dataSource);
+        new HodorDatabaseSetup(dbOperator).initTables();
+    }
+
+    @After
+    public void tearDown() {
+        if (persistence != null) {
+            persistence.close();
+        }
+    }
+
+    @Test
+    public void testCoalesceInsertAndUpdate() throws Exception {
+        persistence = new JobExecutionPersistence(dbOperator, properties("ASYNC", 60_000));
+        for (long requestId = 0; requestId < 100; requestId++) {
+            persistence.fireJobExecutionEvent(HodorJobExecution.createRunningJobExecution(requestId, "group", "job", "", "scheduler"));
+            persistence.fireJobExecutionEvent(HodorJobExecution.createSuccessJobExecution(requestId, new byte[] {1}));
+        }
+        // 写入前可以读到合并后的记录
+        Assert.assertEquals(100, persistence.getPendingCount());
+        Assert.assertEquals(JobExecuteStatus.SUCCEEDED, persistence.fetchJobExecution(1L).getStatus());
+
+        persistence.close();
+        Assert.assertEquals(0, persistence.getPendingCount());
+        HodorJobExecution stored = persistence.fetchJobExecution(1L);
+        Assert.assertEquals(JobExecuteStatus.SUCCEEDED, stored.getStatus());
+        Assert.assertEquals("group", stored.getGroupName());
+        Assert.assertNotNull(stored.getCompleteTime());
+        Assert.assertEquals(100L, (long) dbOperator.query("SELECT COUNT(*) FROM hodor_job_execution", rs -> rs.next() ? rs.getLong(1) : 0L));
+    }
+
+    @Test
+    public void testSyncModeWaitForCommit() throws Exception {
+        persistence = new JobExecutionPersistence(dbOperator, properties("SYNC", 60_000));
+        long start = System.nanoTime();
+        persistence.fireJobExecutionEvent(HodorJobExecution.createRunningJobExecution(1L, "group", "job", "", "scheduler"));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        Assert.assertEquals(0, persistence.getPendingCount());
+        HodorJobExecution stored = persistence.fetchJobExecution(1L);
+        Assert.assertEquals(JobExecuteStatus.RUNNING, stored.getStatus());
+
+        persistence.fireJobExecutionEvent(HodorJobExecution.createKilledJobExecution(1L));
+        Assert.assertEquals(0, persistence.getPendingCount());
+        stored = persistence.fetchJobExecution(1L);
+        Assert.assertEquals(JobExecuteStatus.KILLED, stored.getStatus());
+    }
+
+    @Test
+    public void testFetchWhileInsertFlushing() throws Exception {
+        final CountDownLatch flushing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final DBOperator blockingOperator = new DBOperator(dataSource) {
+            @Override
+            public void batchInTransaction(Map<String, Object[][]> batches) throws SQLException {
+                flushing.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.batchInTransaction(batches);
+            }
+        };
+        persistence = new JobExecutionPersistence(blockingOperator, properties("ASYNC", 10));
+        persistence.fireJobExecutionEvent(HodorJobExecution.createRunningJobExecution(1L, "group", "job", "", "scheduler"));
+        Assert.assertTrue(flushing.await(10, TimeUnit.SECONDS));
+        // 插入正在写入时到达的更新，查询需要合并正在写入的插入
+        persistence.fireJobExecutionEvent(HodorJobExecution.createSuccessJobExecution(1L, new byte[] {1}));
+        final HodorJobExecution fetched = persistence.fetchJobExecution(1L);
+        release.countDown();
+        Assert.assertNotNull(fetched);
+        Assert.assertEquals("group", fetched.getGroupName());
+        Assert.assertEquals(JobExecuteStatus.SUCCEEDED, fetched.getStatus());
+    }
+
+    @Test
+    public void testSyncModeReportsFailedWrite() throws Exception {
+        final DBOperator failingOperator = new DBOperator(dataSource) {
+            @Override
+            public void batchInTransaction(Map<String, Object[][]> batches) throws SQLException {
+                throw new SQLException("batch failed");
+            }
+
+            @Override
+            public int update(String updateSql, Object... params) throws SQLException {
+                if (params[0].equals(2L)) {
+                    throw new SQLException("insert failed");
+                }
+                return super.update(updateSql, params);
+            }
+        };
+        persistence = new JobExecutionPersistence(failingOperator, properties("SYNC", 60_000));
+        // 批量失败后逐条写入成功的记录仍然返回成功
+        Assert.assertTrue(persistence.fireJobExecutionEvent(HodorJobExecution.createRunningJobExecution(1L, "group", "job", "", "scheduler")));
+        Assert.assertFalse(persistence.fireJobExecutionEvent(HodorJobExecution.createRunningJobExecution(2L, "group", "job", "", "scheduler")));
+        Assert.assertNotNull(persistence.fetchJobExecution(1L));
+        Assert.assertNull(persistence.fetchJobExecution(2L));
+    }
+
+    @Test
+    public void testMetricsInSharedRegistry() throws Exception {
+        persistence = new JobExecutionPersistence(dbOperator, properties("ASYNC", 60_000));
+        final long rowsBefore = KVMetrics.meter(JobExecutionPersistence.METRIC_ROWS).getCount();
+        persistence.fireJobExecutionEvent(HodorJobExecution.createRunningJobExecution(1L, "group", "job", "", "scheduler"));
+        Assert.assertEquals(1, KVMetrics.metricRegistry().getGauges().get(JobExecutionPersistence.METRIC_PENDING).getValue());
+
+        persistence.close();
+        Assert.assertEquals(rowsBefore + 1, KVMetrics.meter(JobExecutionPersistence.METRIC_ROWS).getCount());
+        Assert.assertTrue(KVMetrics.timer(JobExecutionPersistence.METRIC_FLUSH_TIMER).getCount() > 0);
+        Assert.assertFalse(KVMetrics.metricRegistry().getGauges().containsKey(JobExecutionPersistence.METRIC_PENDING));
+    }
+
+    private HodorProperties properties(String mode, int flushInterval) {
+        HodorProperties properties = new HodorProperties();
+        properties.setExecutionPersistMode(mode);
+        properties.setExecutionPersistBatchSize(500);
+        properties.setExecutionPersistFlushInterval(flushInterval);
+        return properties;
+    }
+
+}
@@ -0,0 +1,243 @@
+package org.dromara.hodor.actuator.api.executor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.dromara.hodor.actuator.api.config.HodorProperties;
+import org.dromara.hodor.actuator.api.core.HodorDatabaseSetup;
+import org.dromara.hodor.actuator.api.utils.JobPathUtils;
+import org.dromara.hodor.common.storage.db.DBOperator;
+import org.dromara.hodor.model.job.JobKey;
+import org.dromara.hodor.remoting.api.HodorChannel;
+import org.dromara.hodor.remoting.api.HodorChannelFuture;
+import org.dromara.hodor.remoting.api.HodorChannelFutureListener;
+import org.dromara.hodor.remoting.api.message.FileRegionMessage;
+import org.dromara.hodor.remoting.api.message.Header;
+import org.dromara.hodor.remoting.api.message.MessageType;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.RequestContext;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteLogStreamRequest;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * job log stream manager test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class JobLogStreamManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RequestHandleManager requestHandleManager;
+
+    private JobLogStreamManager manager;
+
+    private HodorProperties properties;
+
+    @Before
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:job_log_stream_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        DBOperator dbOperator = new DBOperator(dataSource);
+        new HodorDatabaseSetup(dbOperator).initTables();
+        properties = new HodorProperties();
+        properties.setDataPath(folder.getRoot().getAbsolutePath());
+        requestHandleManager = new RequestHandleManager(properties, null, null, ClientChannelManager.getInstance(), dbOperator);
+        manager = new JobLogStreamManager(properties, requestHandleManager);
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+        requestHandleManager.close();
+    }
+
+    @Test
+    public void testFollowUntilJobFinished() throws Exception {
+        final File logFile = JobPathUtils.getJobLogPath(properties.getDataPath(), JobKey.of("group", "job"), 1L).toFile();
+        Assert.assertTrue(logFile.getParentFile().mkdirs());
+        Files.write(logFile.toPath(), repeat('a', 10_000));
+        requestHandleManager.readyExecutableJobContext(1L);
+
+        final RecordingChannel channel = new RecordingChannel();
+        manager.handle(streamContext(channel, 100L, false));
+        channel.awaitLength(10_000);
+        Assert.assertEquals(3, channel.chunks);
+
+        // 任务运行中新写入的日志继续推送
+        Files.write(logFile.toPath(), repeat('b', 500), StandardOpenOption.APPEND);
+        channel.awaitLength(10_500);
+        Assert.assertNull(channel.eofOffset);
+
+        requestHandleManager.removeExecutableJobContext(1L);
+        for (int i = 0; i < 50 && channel.eofOffset == null; i++) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Assert.assertEquals(Long.valueOf(10_500L), channel.eofOffset);
+        Assert.assertEquals(0, manager.getStreamCount());
+        final String data = new String(channel.data.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(data.startsWith("aaaa") && data.endsWith("bbbb"));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        requestHandleManager.readyExecutableJobContext(1L);
+        final RecordingChannel channel = new RecordingChannel();
+        manager.handle(streamContext(channel, 200L, false));
+        Assert.assertEquals(1, manager.getStreamCount());
+        manager.handle(streamContext(channel, 200L, true));
+        Assert.assertEquals(0, manager.getStreamCount());
+    }
+
+    private RequestContext streamContext(HodorChannel channel, long streamId, boolean cancel) {
+        JobExecuteLogStreamRequest request = new JobExecuteLogStreamRequest();
+        request.setRequestId(1L);
+        request.setGroupName("group");
+        request.setJobName("job");
+        request.setChunkSize(4096);
+        request.setCancel(cancel);
+        Header header = Header.builder()
+            .id(streamId)
+            .type(MessageType.FETCH_JOB_LOG_STREAM_REQUEST.getType())
+            .build();
+        return new RequestContext(channel, RemotingMessage.builder().header(header).build(), null, request);
+    }
+
+    private byte[] repeat(char c, int count) {
+        byte[] bytes = new byte[count];
+        Arrays.fill(bytes, (byte) c);
+        return bytes;
+    }
+
+    private static class RecordingChannel implements HodorChannel {
+
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+        private volatile int chunks;
+
+        private volatile Long eofOffset;
+
+        void awaitLength(int length) throws InterruptedException {
+            for (int i = 0; i < 100 && data.size() < length; i++) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            Assert.assertEquals(length, data.size());
+        }
+
+        @Override
+        public synchronized HodorChannelFuture send(Object message) {
+            if (message instanceof FileRegionMessage) {
+                FileRegionMessage region = (FileRegionMessage) message;
+                Assert.assertEquals(data.size(), ((Number) region.getHeader().getAttachment().get(JobExecuteLogStreamRequest.OFFSET_KEY)).longValue());
+                try (RandomAccessFile file = new RandomAccessFile(region.getFile(), "r")) {
+                    byte[] bytes = new byte[region.getCount()];
+                    file.seek(region.getPosition());
+                    file.readFully(bytes);
+                    data.write(bytes);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                chunks++;
+            } else {
+                Map<String, Object> attachment = ((RemotingMessage) message).getHeader().getAttachment();
+                Assert.assertEquals(Boolean.TRUE, attachment.get(JobExecuteLogStreamRequest.EOF_KEY));
+                eofOffset = (Long) attachment.get(JobExecuteLogStreamRequest.OFFSET_KEY);
+            }
+            return new SucceededFuture(this);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public boolean isWritable() {
+            return true;
+        }
+
+        @Override
+        public SocketAddress localAddress() {
+            return null;
+        }
+
+        @Override
+        public SocketAddress remoteAddress() {
+            return null;
+        }
+
+        @Override
+        public boolean isClose() {
+            return false;
+        }
+
+        @Override
+        public HodorChannelFuture close() {
+            return new SucceededFuture(this);
+        }
+
+        @Override
+        public String getId() {
+            return "recording";
+        }
+    }
+
+    private static class SucceededFuture implements HodorChannelFuture {
+
+        private final HodorChannel channel;
+
+        SucceededFuture(HodorChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public HodorChannel channel() {
+            return channel;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public boolean isSuccess() {
+            return true;
+        }
+
+        @Override
+        public Throwable cause() {
+            return null;
+        }
+
+        @Override
+        public Void get() {
+            return null;
+        }
+
+        @Override
+        public void operationComplete(HodorChannelFutureListener<HodorChannelFuture> listener) {
+            try {
+                listener.operationComplete(this);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}
@@ -16,9 +16,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * job exec detail reporter controller
@@ -70,4 +72,15 @@ public class JobExecDetailReporterController {
         return ResultUtil.success(logService.queryLog(request));
     }
 
+    @Operation(summary = "任务执行日志实时查看")
+    @GetMapping("/logs/stream")
+    public SseEmitter streamLog(LogQueryRequest request,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        // 断线重连时浏览器带上最后收到的事件id，即下一次续传的offset
+        if (lastEventId != null && lastEventId.trim().matches("\\d{1,9}")) {
+            request.setOffset(Integer.valueOf(lastEventId.trim()));
+        }
+        return logService.streamLog(request);
+    }
+
 }
@@ -19,6 +19,7 @@ package org.dromara.hodor.admin.service;
 
 import org.dromara.hodor.client.model.LogQueryRequest;
 import org.dromara.hodor.client.model.LogQueryResult;
+import org.dromara.hodor.client.model.LogStreamListener;
 
 /**
  * ActuatorOperatorService
@@ -30,6 +31,10 @@ public interface ActuatorOperatorService {
 
     LogQueryResult queryLog(LogQueryRequest request) throws Exception;
 
+    long streamLog(LogQueryRequest request, LogStreamListener listener);
+
+    void cancelLogStream(String actuatorEndpoint, long streamId);
+
     void binding(String clusterName, String group) throws Exception;
 
     void unbinding(String clusterName, String group) throws Exception;
@@ -19,6 +19,7 @@ package org.dromara.hodor.admin.service;
 
 import org.dromara.hodor.client.model.LogQueryRequest;
 import org.dromara.hodor.client.model.LogQueryResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * LogService
@@ -29,4 +30,6 @@ import org.dromara.hodor.client.model.LogQueryResult;
 public interface LogService {
 
     LogQueryResult queryLog(LogQueryRequest request) throws Exception;
+
+    SseEmitter streamLog(LogQueryRequest request);
 }
@@ -22,6 +22,7 @@ import org.dromara.hodor.client.HodorApiClient;
 import org.dromara.hodor.client.api.ActuatorApi;
 import org.dromara.hodor.client.model.LogQueryRequest;
 import org.dromara.hodor.client.model.LogQueryResult;
+import org.dromara.hodor.client.model.LogStreamListener;
 import org.springframework.stereotype.Service;
 
 /**
@@ -44,6 +45,16 @@ public class ActuatorOperatorServiceImpl implements ActuatorOperatorService {
         return actuatorApi.queryLog(request);
     }
 
+    @Override
+    public long streamLog(LogQueryRequest request, LogStreamListener listener) {
+        return actuatorApi.streamLog(request, listener);
+    }
+
+    @Override
+    public void cancelLogStream(String actuatorEndpoint, long streamId) {
+        actuatorApi.cancelLogStream(actuatorEndpoint, streamId);
+    }
+
     @Override
     public void binding(String clusterName, String group) throws Exception {
         actuatorApi.binding(clusterName, group);
@@ -17,12 +17,26 @@
 
 package org.dromara.hodor.admin.service.impl;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.admin.service.ActuatorOperatorService;
 import org.dromara.hodor.admin.service.LogService;
 import org.dromara.hodor.client.model.LogQueryRequest;
 import org.dromara.hodor.client.model.LogQueryResult;
+import org.dromara.hodor.client.model.LogStreamListener;
+import org.dromara.hodor.common.executor.HodorExecutorFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * LogServiceImpl
@@ -30,15 +44,188 @@ import org.springframework.stereotype.Service;
  * @author tomgs
  * @since 1.0
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class LogServiceImpl implements LogService {
 
     private final ActuatorOperatorService actuatorOperatorService;
 
+    /**
+     * 日志块在netty IO线程回调，SseEmitter.send会阻塞，交给单独的线程池发送，避免慢客户端阻塞共享连接上的其他请求
+     */
+    private final ThreadPoolExecutor sseSendExecutor = HodorExecutorFactory.createThreadPoolExecutor("log-stream-sse",
+        Runtime.getRuntime().availableProcessors(), 1024, true);
+
     @Override
     public LogQueryResult queryLog(LogQueryRequest request) throws Exception {
         return actuatorOperatorService.queryLog(request);
     }
 
+    /**
+     * 订阅执行端的日志流并转为SSE推送，每个事件的id是下一次续传的offset
+     */
+    @Override
+    public SseEmitter streamLog(LogQueryRequest request) {
+        SseEmitter emitter = new SseEmitter(0L);
+        SseLogStreamListener listener = new SseLogStreamListener(emitter, sseSendExecutor);
+        long streamId = actuatorOperatorService.streamLog(request, listener);
+        Runnable cancel = () -> {
+            if (listener.close()) {
+                actuatorOperatorService.cancelLogStream(request.getActuatorEndpoint(), streamId);
+            }
+        };
+        listener.setCancel(cancel);
+        emitter.onCompletion(cancel);
+        emitter.onTimeout(cancel);
+        emitter.onError(e -> cancel.run());
+        return emitter;
+    }
+
+    private static class SseLogStreamListener implements LogStreamListener {
+
+        /**
+         * 单个日志流最多堆积的待发送事件数，超过时认为客户端过慢，断开后由客户端按事件id续传
+         */
+        private static final int MAX_PENDING_EVENTS = 256;
+
+        private final SseEmitter emitter;
+
+        private final Executor sendExecutor;
+
+        private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger pendingEvents = new AtomicInteger();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private volatile Runnable cancel;
+
+        /**
+         * 上一个日志块末尾不完整的UTF-8字符，拼到下一块
+         */
+        private byte[] pending = new byte[0];
+
+        SseLogStreamListener(SseEmitter emitter, Executor sendExecutor) {
+            this.emitter = emitter;
+            this.sendExecutor = sendExecutor;
+        }
+
+        void setCancel(Runnable cancel) {
+            this.cancel = cancel;
+        }
+
+        boolean close() {
+            return closed.compareAndSet(false, true);
+        }
+
+        @Override
+        public synchronized void onChunk(long offset, byte[] data) {
+            if (closed.get()) {
+                return;
+            }
+            byte[] bytes = pending.length == 0 ? data : concat(pending, data);
+            int complete = completeUtf8Length(bytes);
+            pending = Arrays.copyOfRange(bytes, complete, bytes.length);
+            SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .id(String.valueOf(offset + data.length - pending.length))
+                .data(new String(bytes, 0, complete, StandardCharsets.UTF_8));
+            if (pendingEvents.get() >= MAX_PENDING_EVENTS) {
+                log.warn("log stream client is too slow, {} events pending, cancel it.", pendingEvents.get());
+                cancel();
+                enqueue(() -> emitter.completeWithError(new IOException("Log stream client is too slow.")));
+                return;
+            }
+            enqueue(() -> {
+                try {
+                    emitter.send(event);
+                } catch (IOException e) {
+                    log.debug("send log stream event failed, msg: {}", e.getMessage());
+                    cancel();
+                }
+            });
+        }
+
+        @Override
+        public void onComplete(long offset) {
+            if (close()) {
+                enqueue(emitter::complete);
+            }
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            if (close()) {
+                enqueue(() -> emitter.completeWithError(cause));
+            }
+        }
+
+        private void cancel() {
+            Runnable cancel = this.cancel;
+            if (cancel != null) {
+                cancel.run();
+            }
+        }
+
+        /**
+         * 同一个日志流的事件按顺序在发送线程池中执行，同一时刻只有一个线程发送
+         */
+        private void enqueue(Runnable event) {
+            events.offer(event);
+            pendingEvents.incrementAndGet();
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sendExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    log.warn("log stream send executor is busy, cancel the stream.");
+                    events.clear();
+                    pendingEvents.set(0);
+                    cancel();
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                Runnable event;
+                while ((event = events.poll()) != null) {
+                    pendingEvents.decrementAndGet();
+                    try {
+                        event.run();
+                    } catch (Exception e) {
+                        log.debug("log stream event failed, msg: {}", e.getMessage());
+                    }
+                }
+                draining.set(false);
+            } while (!events.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private static byte[] concat(byte[] first, byte[] second) {
+            byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, bytes, first.length, second.length);
+            return bytes;
+        }
+
+        /**
+         * 去掉末尾不完整的多字节字符后的长度
+         */
+        private static int completeUtf8Length(byte[] bytes) {
+            for (int i = bytes.length - 1; i >= Math.max(0, bytes.length - 4); i--) {
+                int b = bytes[i] & 0xff;
+                if (b < 0x80) {
+                    return bytes.length;
+                }
+                if (b >= 0xc0) {
+                    int charLength = b >= 0xf0 ? 4 : b >= 0xe0 ? 3 : 2;
+                    return bytes.length - i >= charLength ? bytes.length : i;
+                }
+            }
+            return bytes.length;
+        }
+    }
+
 }
@@ -18,6 +18,7 @@
 package org.dromara.hodor.client.api;
 
 import cn.hutool.http.HttpResponse;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
@@ -25,8 +26,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.client.exception.HodorClientException;
 import org.dromara.hodor.client.model.LogQueryRequest;
 import org.dromara.hodor.client.model.LogQueryResult;
+import org.dromara.hodor.client.model.LogStreamListener;
 import org.dromara.hodor.common.Host;
+import org.dromara.hodor.common.IdGenerator;
 import org.dromara.hodor.common.connect.ConnectStringParser;
+import org.dromara.hodor.common.concurrent.FutureCallback;
 import org.dromara.hodor.common.connect.TrySender;
 import org.dromara.hodor.common.extension.ExtensionLoader;
 import org.dromara.hodor.common.utils.GsonUtils;
@@ -35,10 +39,12 @@ import org.dromara.hodor.model.actuator.BindingInfo;
 import org.dromara.hodor.remoting.api.RemotingClient;
 import org.dromara.hodor.remoting.api.RemotingConst;
 import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.exception.RemotingException;
 import org.dromara.hodor.remoting.api.message.Header;
 import org.dromara.hodor.remoting.api.message.MessageType;
 import org.dromara.hodor.remoting.api.message.RemotingMessage;
 import org.dromara.hodor.remoting.api.message.request.JobExecuteLogRequest;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteLogStreamRequest;
 import org.dromara.hodor.remoting.api.message.response.JobExecuteLogResponse;
 
 /**
@@ -95,7 +101,11 @@ public class ActuatorApi {
             .body(bodyBytes)
             .build();
         final RemotingMessage remotingMessage = remotingClient.sendSyncRequest(host, requestMessage, timeout);
-        return serializer.deserialize(remotingMessage.getBody(), JobExecuteLogResponse.class);
+        try {
+            return serializer.deserialize(remotingMessage.bodyBuffer(), JobExecuteLogResponse.class);
+        } finally {
+            remotingMessage.release();
+        }
     }
 
     private Header buildJobLogHeader(int bodyLength, JobExecuteLogRequest request) {
@@ -107,6 +117,83 @@ public class ActuatorApi {
             .build();
     }
 
+    /**
+     * 订阅任务日志流，执行端从offset开始持续推送日志直到任务结束，length为每个日志块的最大字节数
+     *
+     * @param request  日志查询请求
+     * @param listener 日志流监听
+     * @return 订阅id，用于取消订阅
+     */
+    public long streamLog(LogQueryRequest request, LogStreamListener listener) {
+        Host host = Host.of(request.getActuatorEndpoint());
+        long streamId = IdGenerator.defaultGenerator().nextId();
+        JobExecuteLogStreamRequest streamRequest = new JobExecuteLogStreamRequest();
+        streamRequest.setRequestId(request.getRequestId());
+        streamRequest.setGroupName(request.getGroupName());
+        streamRequest.setJobName(request.getJobName());
+        streamRequest.setOffset(request.getOffset() == null ? 0L : request.getOffset().longValue());
+        streamRequest.setChunkSize(request.getLength());
+        remotingClient.sendBidiRequest(host, buildLogStreamMessage(streamId, streamRequest), new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage message) {
+                Map<String, Object> attachment = message.getHeader().getAttachment();
+                long offset = ((Number) attachment.get(JobExecuteLogStreamRequest.OFFSET_KEY)).longValue();
+                if (!Boolean.TRUE.equals(attachment.get(JobExecuteLogStreamRequest.EOF_KEY))) {
+                    listener.onChunk(offset, message.getBody());
+                    return;
+                }
+                remotingClient.completeBidiRequest(streamId);
+                Object error = attachment.get(JobExecuteLogStreamRequest.ERROR_KEY);
+                if (error != null) {
+                    listener.onError(new RemotingException(String.valueOf(error)));
+                } else {
+                    listener.onComplete(offset);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                if (cause instanceof TimeoutException) {
+                    // 长时间没有新日志时回调过期，通知执行端停止推送，订阅方可从最后的offset重新订阅
+                    try {
+                        cancelLogStream(request.getActuatorEndpoint(), streamId);
+                    } catch (Exception e) {
+                        log.warn("cancel expired log stream {} failed, msg: {}", streamId, e.getMessage());
+                    }
+                }
+                listener.onError(cause);
+            }
+        });
+        return streamId;
+    }
+
+    /**
+     * 取消订阅任务日志流
+     *
+     * @param actuatorEndpoint 执行端地址
+     * @param streamId         订阅id
+     */
+    public void cancelLogStream(String actuatorEndpoint, long streamId) {
+        remotingClient.completeBidiRequest(streamId);
+        JobExecuteLogStreamRequest streamRequest = new JobExecuteLogStreamRequest();
+        streamRequest.setCancel(true);
+        remotingClient.getOrCreateBidiChannel(Host.of(actuatorEndpoint)).send(buildLogStreamMessage(streamId, streamRequest));
+    }
+
+    private RemotingMessage buildLogStreamMessage(long streamId, JobExecuteLogStreamRequest streamRequest) {
+        final byte[] bodyBytes = serializer.serialize(streamRequest);
+        Header header = Header.builder()
+            .id(streamId)
+            .version(RemotingConst.DEFAULT_VERSION)
+            .type(MessageType.FETCH_JOB_LOG_STREAM_REQUEST.getType())
+            .length(bodyBytes.length)
+            .build();
+        return RemotingMessage.builder()
+            .header(header)
+            .body(bodyBytes)
+            .build();
+    }
+
     public void binding(String clusterName, String group) throws Exception {
         BindingInfo bindingInfo = new BindingInfo()
             .setClusterName(clusterName)
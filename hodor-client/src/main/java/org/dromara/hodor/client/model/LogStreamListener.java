@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hodor.client.model;
+
+/**
+ * 任务日志流监听，回调在网络线程中执行，处理较慢时会反压到执行端的推送
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public interface LogStreamListener {
+
+    /**
+     * 日志块
+     *
+     * @param offset 日志块在文件中的起始位置
+     * @param data   日志原始字节，多字节字符可能跨两个日志块
+     */
+    void onChunk(long offset, byte[] data);
+
+    /**
+     * 任务结束且日志已全部推送
+     *
+     * @param offset 日志文件结束位置
+     */
+    void onComplete(long offset);
+
+    /**
+     * 订阅失败
+     *
+     * @param cause 异常
+     */
+    void onError(Throwable cause);
+
+}
@@ -0,0 +1,218 @@
+package org.dromara.hodor.common.executor;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按key串行执行器<br/>
+ *
+ * 1、相同key的任务按提交顺序串行执行，不同key的任务在共享线程池中并行执行
+ * 2、每个key一个无锁邮箱，只有存在待执行任务时才存在，任务执行完后邮箱自行回收，不需要定时清理
+ * 3、单个key待执行任务超过上限时，执行线程丢弃最旧的任务
+ * 4、异步任务返回的future完成后才执行同一个key的下一个任务，等待期间不占用线程
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class KeyedSerialExecutor<K> {
+
+    private static final int CLOSED = -1;
+
+    private final Map<K, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+
+    private final int maxPendingPerKey;
+
+    private final int throughput;
+
+    /**
+     * @param executor         执行任务的线程池
+     * @param maxPendingPerKey 单个key最大待执行任务数
+     * @param throughput       邮箱每次占用线程最多执行的任务数，之后重新提交到线程池以保证不同key之间的公平性
+     */
+    public KeyedSerialExecutor(final Executor executor, final int maxPendingPerKey, final int throughput) {
+        this.executor = executor;
+        this.maxPendingPerKey = Math.max(1, maxPendingPerKey);
+        this.throughput = Math.max(1, throughput);
+    }
+
+    /**
+     * 任务串行执行，按照相同key的提交顺序执行
+     *
+     * @param key  串行key
+     * @param task 待执行任务
+     */
+    public void execute(final K key, final Runnable task) {
+        for (;;) {
+            final Mailbox mailbox = mailboxes.computeIfAbsent(key, Mailbox::new);
+            if (mailbox.enqueue(task)) {
+                return;
+            }
+            // 邮箱已关闭但还未从map中删除，重新获取
+            Thread.yield();
+        }
+    }
+
+    /**
+     * 异步任务串行执行，任务返回的future完成后才执行相同key的下一个任务
+     *
+     * @param key  串行key
+     * @param task 待执行异步任务
+     */
+    public void executeAsync(final K key, final Supplier<? extends CompletionStage<?>> task) {
+        execute(key, new AsyncTask(task));
+    }
+
+    /**
+     * 当前有待执行任务的key数量
+     */
+    public int size() {
+        return mailboxes.size();
+    }
+
+    /**
+     * key待执行（包括正在执行）的任务数
+     */
+    public int pendingCount(final K key) {
+        final Mailbox mailbox = mailboxes.get(key);
+        return mailbox == null ? 0 : Math.max(0, mailbox.pending.get());
+    }
+
+    private class Mailbox implements Runnable {
+
+        private final K key;
+
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 未完成的任务数，CLOSED表示邮箱已回收
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Mailbox(final K key) {
+            this.key = key;
+        }
+
+        boolean enqueue(final Runnable task) {
+            int current;
+            do {
+                current = pending.get();
+                if (current == CLOSED) {
+                    return false;
+                }
+            } while (!pending.compareAndSet(current, current + 1));
+            queue.offer(task);
+            if (current == 0) {
+                if (!trySchedule()) {
+                    // 线程池满时由提交线程执行，保证邮箱不会因为没有调度而停止
+                    log.warn("key [{}] mailbox rejected by executor, run in caller thread.", key);
+                    run();
+                }
+            }
+            return true;
+        }
+
+        private boolean trySchedule() {
+            try {
+                executor.execute(this);
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int executed = 1; ; executed++) {
+                final Runnable task = poll();
+                // 只有执行线程出队，超过上限时由执行线程丢弃最旧的任务
+                if (pending.get() > maxPendingPerKey) {
+                    log.warn("key [{}] pending tasks exceed {}, discard the oldest task.", key, maxPendingPerKey);
+                } else {
+                    runTask(task);
+                    final CompletableFuture<?> future = task instanceof AsyncTask ? ((AsyncTask) task).future : null;
+                    if (future != null && !future.isDone()) {
+                        // 异步任务完成后再继续，释放当前线程
+                        future.whenComplete((r, e) -> resume());
+                        return;
+                    }
+                }
+                if (complete()) {
+                    return;
+                }
+                // 线程池满时继续在当前线程执行
+                if (executed >= throughput && trySchedule()) {
+                    return;
+                }
+            }
+        }
+
+        private void resume() {
+            if (!complete() && !trySchedule()) {
+                run();
+            }
+        }
+
+        /**
+         * 完成一个任务，邮箱中没有待执行任务时回收邮箱
+         *
+         * @return 邮箱是否已经没有待执行任务
+         */
+        private boolean complete() {
+            if (pending.decrementAndGet() == 0) {
+                // 与提交线程竞争，失败说明有新任务进入，由对应的提交线程重新调度
+                if (pending.compareAndSet(0, CLOSED)) {
+                    mailboxes.remove(key, this);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        private Runnable poll() {
+            Runnable task;
+            // pending已经增加但任务还未入队时短暂自旋
+            while ((task = queue.poll()) == null) {
+                Thread.yield();
+            }
+            return task;
+        }
+
+        private void runTask(final Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable unexpected) {
+                log.error("key [{}] task execute unexpected exception {}.", key, unexpected.getMessage(), unexpected);
+            }
+        }
+    }
+
+    private static class AsyncTask implements Runnable {
+
+        private final Supplier<? extends CompletionStage<?>> supplier;
+
+        private CompletableFuture<?> future;
+
+        AsyncTask(final Supplier<? extends CompletionStage<?>> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            final CompletionStage<?> stage = supplier.get();
+            future = stage == null ? null : stage.toCompletableFuture();
+        }
+    }
+
+}
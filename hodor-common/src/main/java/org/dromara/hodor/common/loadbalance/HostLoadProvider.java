@@ -0,0 +1,44 @@
+package org.dromara.hodor.common.loadbalance;
+
+import org.dromara.hodor.common.Host;
+
+/**
+ * 节点负载信息，由调度端根据执行端心跳和已派发的请求提供
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public interface HostLoadProvider {
+
+    /**
+     * 没有负载信息时所有节点负载相同
+     */
+    HostLoadProvider NONE = new HostLoadProvider() {
+        @Override
+        public int getOutstanding(Host host) {
+            return 0;
+        }
+
+        @Override
+        public double getLoad(Host host) {
+            return 0;
+        }
+    };
+
+    /**
+     * 已派发到节点但还未完成的请求数
+     *
+     * @param host 节点
+     * @return 未完成请求数
+     */
+    int getOutstanding(Host host);
+
+    /**
+     * 节点综合负载，值越大越繁忙
+     *
+     * @param host 节点
+     * @return 负载值
+     */
+    double getLoad(Host host);
+
+}
@@ -0,0 +1,45 @@
+package org.dromara.hodor.common.loadbalance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.dromara.hodor.common.Host;
+
+/**
+ * 最少未完成请求，未完成请求数相同的节点随机选择
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class LeastOutstandingLoadBalance implements LoadBalance {
+
+    private final HostLoadProvider hostLoadProvider;
+
+    public LeastOutstandingLoadBalance(final HostLoadProvider hostLoadProvider) {
+        this.hostLoadProvider = hostLoadProvider;
+    }
+
+    @Override
+    public Host select(Collection<Host> nodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("Empty source.");
+        }
+        final List<Host> hosts = nodes instanceof List ? (List<Host>) nodes : new ArrayList<>(nodes);
+        final int size = hosts.size();
+        // 从随机位置开始遍历，避免并发选择时都落到第一个最小节点上
+        final int start = ThreadLocalRandom.current().nextInt(size);
+        Host selected = null;
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            final Host host = hosts.get((start + i) % size);
+            final int outstanding = hostLoadProvider.getOutstanding(host);
+            if (outstanding < least) {
+                least = outstanding;
+                selected = host;
+            }
+        }
+        return selected;
+    }
+
+}
@@ -11,7 +11,11 @@ public enum LoadBalanceEnum {
 
     ROUND_ROBIN("轮询"),
 
-	WEIGHT_ROUND_ROBIN("加权轮询");
+	WEIGHT_ROUND_ROBIN("加权轮询"),
+
+    LEAST_OUTSTANDING("最少未完成请求"),
+
+    POWER_OF_TWO_CHOICES("负载加权二选一");
 
     String desc;
 
@@ -1,7 +1,8 @@
 package org.dromara.hodor.common.loadbalance;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.dromara.hodor.common.Host;
 
 /**
  * load balance factory
@@ -10,7 +11,24 @@ import java.util.Map;
  */
 public final class LoadBalanceFactory {
 
-    private static final Map<String, LoadBalance> loadBalanceMap = new HashMap<>();
+    private static final Map<String, LoadBalance> loadBalanceMap = new ConcurrentHashMap<>();
+
+    private static volatile HostLoadProvider hostLoadProvider = HostLoadProvider.NONE;
+
+    /**
+     * 负载感知的策略通过该代理读取当前注册的负载信息
+     */
+    private static final HostLoadProvider hostLoadDelegate = new HostLoadProvider() {
+        @Override
+        public int getOutstanding(Host host) {
+            return hostLoadProvider.getOutstanding(host);
+        }
+
+        @Override
+        public double getLoad(Host host) {
+            return hostLoadProvider.getLoad(host);
+        }
+    };
 
     public static LoadBalance getLoadBalance(String type) {
         return loadBalanceMap.computeIfAbsent(type, k -> {
@@ -18,10 +36,23 @@ public final class LoadBalanceFactory {
             if (lb == LoadBalanceEnum.RANDOM) {
                 return new RandomLoadBalance();
             }
+            if (lb == LoadBalanceEnum.LEAST_OUTSTANDING) {
+                return new LeastOutstandingLoadBalance(hostLoadDelegate);
+            }
+            if (lb == LoadBalanceEnum.POWER_OF_TWO_CHOICES) {
+                return new PowerOfTwoChoicesLoadBalance(hostLoadDelegate);
+            }
             return new RoundRobinLoadBalance();
         });
     }
 
+    /**
+     * 注册节点负载信息
+     */
+    public static void registerHostLoadProvider(HostLoadProvider provider) {
+        hostLoadProvider = provider == null ? HostLoadProvider.NONE : provider;
+    }
+
     /**
      * 默认为轮询方式
      */
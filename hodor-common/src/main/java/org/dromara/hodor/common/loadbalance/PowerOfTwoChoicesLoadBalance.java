@@ -0,0 +1,45 @@
+package org.dromara.hodor.common.loadbalance;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.dromara.hodor.common.Host;
+
+/**
+ * 负载加权二选一（power of two choices）<br/>
+ *
+ * 随机选取两个节点，选择综合负载较低的一个。相比总是选择负载最低的节点，
+ * 在负载信息存在延迟时不会让所有调度同时压到同一个节点上
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class PowerOfTwoChoicesLoadBalance implements LoadBalance {
+
+    private final HostLoadProvider hostLoadProvider;
+
+    public PowerOfTwoChoicesLoadBalance(final HostLoadProvider hostLoadProvider) {
+        this.hostLoadProvider = hostLoadProvider;
+    }
+
+    @Override
+    public Host select(Collection<Host> nodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("Empty source.");
+        }
+        final List<Host> hosts = nodes instanceof List ? (List<Host>) nodes : new ArrayList<>(nodes);
+        final int size = hosts.size();
+        if (size == 1) {
+            return hosts.get(0);
+        }
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        // 第二个节点不与第一个重复
+        final int second = (first + 1 + random.nextInt(size - 1)) % size;
+        final Host a = hosts.get(first);
+        final Host b = hosts.get(second);
+        return hostLoadProvider.getLoad(b) < hostLoadProvider.getLoad(a) ? b : a;
+    }
+
+}
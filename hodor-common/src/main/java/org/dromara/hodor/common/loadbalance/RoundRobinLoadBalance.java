@@ -1,17 +1,28 @@
 package org.dromara.hodor.common.loadbalance;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.dromara.hodor.common.Host;
 
 /**
+ * 无锁轮询
+ *
  * @author tomgs
  * @since 1.0
  */
 public class RoundRobinLoadBalance implements LoadBalance {
 
+    private final AtomicInteger sequence = new AtomicInteger();
+
     @Override
     public Host select(Collection<Host> nodes) {
-        return null;
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("Empty source.");
+        }
+        final List<Host> hosts = nodes instanceof List ? (List<Host>) nodes : new ArrayList<>(nodes);
+        return hosts.get(Math.floorMod(sequence.getAndIncrement(), hosts.size()));
     }
 
 }
@@ -0,0 +1,284 @@
+package org.dromara.hodor.common.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 共享的异步日志文件写入线程池<br/>
+ *
+ * 1、每个日志文件在创建时固定路由到一个写线程，同一个文件的写入与关闭按顺序执行
+ * 2、写线程每次批量取出队列中的记录写入文件缓冲区，队列空闲时把缓冲区刷入文件
+ * 3、队列有界，写满时调用线程等待；每个打开的文件一个固定大小的缓冲区，关闭后释放
+ * 4、文件在第一次写入数据时才创建
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class LogFileWriterPool {
+
+    private static final int MAX_DRAIN_RECORDS = 1024;
+
+    private final Writer[] writers;
+
+    private final AtomicInteger routeSequence = new AtomicInteger();
+
+    private final int bufferSize;
+
+    private volatile boolean running;
+
+    /**
+     * @param name          写线程名称前缀
+     * @param writerCount   写线程数
+     * @param queueCapacity 每个写线程的队列长度
+     * @param bufferSize    每个文件的写缓冲区大小
+     */
+    public LogFileWriterPool(final String name, final int writerCount, final int queueCapacity, final int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.writers = new Writer[Math.max(1, writerCount)];
+        this.running = true;
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Writer(name + "-" + i, queueCapacity);
+            writers[i].start();
+        }
+    }
+
+    /**
+     * 打开日志文件，实际文件在第一次写入时创建
+     */
+    public LogFile open(final File file) {
+        return new LogFile(file, writers[Math.floorMod(routeSequence.getAndIncrement(), writers.length)]);
+    }
+
+    public void write(final LogFile logFile, final byte[] data) {
+        logFile.writer.put(new Record(logFile, data, null));
+    }
+
+    /**
+     * 关闭日志文件，之前写入的数据全部写入文件后完成
+     */
+    public CompletableFuture<Void> close(final LogFile logFile) {
+        final CompletableFuture<Void> closed = new CompletableFuture<>();
+        logFile.writer.put(new Record(logFile, null, closed));
+        return closed;
+    }
+
+    /**
+     * 停止写线程，队列中的记录写完后退出
+     */
+    public void shutdown() {
+        running = false;
+        for (Writer writer : writers) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int pendingRecords() {
+        int pending = 0;
+        for (Writer writer : writers) {
+            pending += writer.queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * 日志文件句柄，除创建外只由路由的写线程访问
+     */
+    public static class LogFile {
+
+        private final File file;
+
+        private final Writer writer;
+
+        private FileChannel channel;
+
+        private ByteBuffer buffer;
+
+        private boolean dirty;
+
+        private boolean closed;
+
+        LogFile(final File file, final Writer writer) {
+            this.file = file;
+            this.writer = writer;
+        }
+
+        public File getFile() {
+            return file;
+        }
+    }
+
+    private static class Record {
+
+        private final LogFile logFile;
+
+        private final byte[] data;
+
+        private final CompletableFuture<Void> closed;
+
+        Record(final LogFile logFile, final byte[] data, final CompletableFuture<Void> closed) {
+            this.logFile = logFile;
+            this.data = data;
+            this.closed = closed;
+        }
+    }
+
+    private class Writer extends Thread {
+
+        private final BlockingQueue<Record> queue;
+
+        private final List<LogFile> dirtyFiles = new ArrayList<>();
+
+        Writer(final String name, final int queueCapacity) {
+            super(name);
+            setDaemon(true);
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void put(final Record record) {
+            try {
+                queue.put(record);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while writing log file " + record.logFile.file, e);
+            }
+        }
+
+        @Override
+        public void run() {
+            final List<Record> batch = new ArrayList<>(MAX_DRAIN_RECORDS);
+            while (running || !queue.isEmpty()) {
+                try {
+                    final Record first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_DRAIN_RECORDS - 1);
+                    for (Record record : batch) {
+                        handle(record);
+                    }
+                    batch.clear();
+                    // 一批处理完后刷入文件，日志在任务运行期间也可以被读取
+                    flushDirtyFiles();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Throwable e) {
+                    log.error("log file writer {} error, msg: {}", getName(), e.getMessage(), e);
+                    batch.clear();
+                }
+            }
+            flushDirtyFiles();
+        }
+
+        private void handle(final Record record) {
+            final LogFile logFile = record.logFile;
+            if (record.closed != null) {
+                closeFile(logFile);
+                record.closed.complete(null);
+                return;
+            }
+            if (logFile.closed) {
+                return;
+            }
+            try {
+                append(logFile, record.data);
+            } catch (IOException e) {
+                log.error("write log file {} error, msg: {}", logFile.file, e.getMessage());
+            }
+        }
+
+        private void append(final LogFile logFile, final byte[] data) throws IOException {
+            if (logFile.buffer == null) {
+                logFile.buffer = ByteBuffer.allocate(bufferSize);
+            }
+            if (!logFile.dirty) {
+                logFile.dirty = true;
+                dirtyFiles.add(logFile);
+            }
+            final ByteBuffer buffer = logFile.buffer;
+            if (data.length > buffer.remaining()) {
+                flush(logFile);
+            }
+            if (data.length > buffer.capacity()) {
+                // 大于缓冲区的记录直接写入
+                writeFully(logFile, ByteBuffer.wrap(data));
+                return;
+            }
+            buffer.put(data);
+        }
+
+        private void flushDirtyFiles() {
+            for (LogFile logFile : dirtyFiles) {
+                try {
+                    flush(logFile);
+                } catch (IOException e) {
+                    log.error("flush log file {} error, msg: {}", logFile.file, e.getMessage());
+                }
+                logFile.dirty = false;
+            }
+            dirtyFiles.clear();
+        }
+
+        private void flush(final LogFile logFile) throws IOException {
+            final ByteBuffer buffer = logFile.buffer;
+            if (buffer == null || buffer.position() == 0) {
+                return;
+            }
+            buffer.flip();
+            try {
+                writeFully(logFile, buffer);
+            } finally {
+                buffer.clear();
+            }
+        }
+
+        private void writeFully(final LogFile logFile, final ByteBuffer data) throws IOException {
+            if (logFile.channel == null) {
+                final File parent = logFile.file.getParentFile();
+                if (parent != null && !parent.exists() && !parent.mkdirs() && !parent.exists()) {
+                    throw new IOException("create log dir " + parent + " failed.");
+                }
+                logFile.channel = FileChannel.open(logFile.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            while (data.hasRemaining()) {
+                logFile.channel.write(data);
+            }
+        }
+
+        private void closeFile(final LogFile logFile) {
+            try {
+                flush(logFile);
+                if (logFile.channel != null) {
+                    logFile.channel.close();
+                }
+            } catch (IOException e) {
+                log.error("close log file {} error, msg: {}", logFile.file, e.getMessage());
+            }
+            if (logFile.dirty) {
+                dirtyFiles.remove(logFile);
+                logFile.dirty = false;
+            }
+            logFile.channel = null;
+            logFile.buffer = null;
+            logFile.closed = true;
+        }
+    }
+
+}
@@ -1,6 +1,9 @@
 package org.dromara.hodor.common.log;
 
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -29,9 +32,23 @@ public class LogUtil {
 
     public static final String DEFAULT_LAYOUT = "[%d{yyyy-MM-dd HH:mm:ss}] [%thread] %-5level %class{40}:%L %msg%n";
 
+    private static final String POOLED_LOGGER_NAME = "hodor-pooled-logger";
+
+    private static final int POOLED_WRITER_COUNT = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private static final int POOLED_QUEUE_CAPACITY = 8192;
+
+    private static final int POOLED_BUFFER_SIZE = 8 * 1024;
+
     private final LoggerContext ctx = (LoggerContext) LogManager.getContext(false);
     private final Configuration config = ctx.getConfiguration();
 
+    private final Map<String, Layout<String>> pooledLayouts = new ConcurrentHashMap<>();
+
+    private volatile LogFileWriterPool writerPool;
+
+    private volatile org.apache.logging.log4j.core.Logger pooledLogger;
+
     private LogUtil() {
 
     }
@@ -105,6 +122,48 @@ public class LogUtil {
             .build();
     }
 
+    public Logger createPooledLogger(String loggerName, File logFile) {
+        return createPooledLogger(loggerName, logFile, DEFAULT_LAYOUT);
+    }
+
+    /**
+     * 创建写入共享写线程池的日志，不注册logger和appender，适合大量短生命周期的日志文件
+     */
+    public Logger createPooledLogger(String loggerName, File logFile, String layoutPattern) {
+        initPooledLogger();
+        Layout<String> layout = pooledLayouts.computeIfAbsent(layoutPattern, pattern -> PatternLayout.newBuilder()
+            .withConfiguration(config)
+            .withPattern(pattern)
+            .build());
+        return new PooledFileLogger(pooledLogger, loggerName, layout, writerPool, writerPool.open(logFile));
+    }
+
+    /**
+     * 关闭共享写线程池的日志，已写入的日志全部写入文件后完成
+     */
+    public CompletableFuture<Void> stopPooledLogger(Logger logger) {
+        if (!(logger instanceof PooledFileLogger)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return writerPool.close(((PooledFileLogger) logger).getLogFile());
+    }
+
+    private void initPooledLogger() {
+        if (pooledLogger != null) {
+            return;
+        }
+        synchronized (this) {
+            if (pooledLogger != null) {
+                return;
+            }
+            LoggerConfig loggerConfig = LoggerConfig.createLogger(false, Level.ALL, POOLED_LOGGER_NAME, "true", new AppenderRef[0], null, config, null);
+            config.addLogger(POOLED_LOGGER_NAME, loggerConfig);
+            ctx.updateLoggers();
+            writerPool = new LogFileWriterPool("hodor-log-writer", POOLED_WRITER_COUNT, POOLED_QUEUE_CAPACITY, POOLED_BUFFER_SIZE);
+            pooledLogger = ctx.getLogger(POOLED_LOGGER_NAME);
+        }
+    }
+
     public void stopLogger(String loggerName) {
         config.getAppender(loggerName).stop();
         config.getLoggerConfig(loggerName).removeAppender(loggerName);
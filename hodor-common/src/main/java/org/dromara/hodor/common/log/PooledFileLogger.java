@@ -0,0 +1,63 @@
+package org.dromara.hodor.common.log;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.LocationAware;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+import org.apache.logging.log4j.spi.ExtendedLoggerWrapper;
+
+/**
+ * 写入共享写线程池的日志<br/>
+ *
+ * 级别判断使用共享的logger配置，不为每个日志文件注册logger和appender；
+ * 日志在调用线程格式化（包括位置信息），再交给文件路由的写线程写入
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class PooledFileLogger extends ExtendedLoggerWrapper {
+
+    private static final long serialVersionUID = 4361637049474915405L;
+
+    private final transient LogFileWriterPool writerPool;
+
+    private final transient LogFileWriterPool.LogFile logFile;
+
+    private final transient Layout<?> layout;
+
+    private final boolean includeLocation;
+
+    public PooledFileLogger(final ExtendedLogger sharedLogger, final String name, final Layout<?> layout,
+                            final LogFileWriterPool writerPool, final LogFileWriterPool.LogFile logFile) {
+        super(sharedLogger, name, sharedLogger.getMessageFactory());
+        this.layout = layout;
+        this.includeLocation = layout instanceof LocationAware && ((LocationAware) layout).requiresLocation();
+        this.writerPool = writerPool;
+        this.logFile = logFile;
+    }
+
+    @Override
+    public void logMessage(final String fqcn, final Level level, final Marker marker, final Message message, final Throwable t) {
+        final LogEvent event = Log4jLogEvent.newBuilder()
+            .setLoggerName(getName())
+            .setLoggerFqcn(fqcn)
+            .setLevel(level)
+            .setMarker(marker)
+            .setMessage(message)
+            .setThrown(t)
+            .setIncludeLocation(includeLocation)
+            .setThreadName(Thread.currentThread().getName())
+            .setTimeMillis(System.currentTimeMillis())
+            .build();
+        writerPool.write(logFile, layout.toByteArray(event));
+    }
+
+    public LogFileWriterPool.LogFile getLogFile() {
+        return logFile;
+    }
+
+}
@@ -65,6 +65,10 @@ public class HodorRaftServer {
         //set the port which server listen to in RaftProperty object
         int port = NetUtils.createSocketAddr(currentPeer.getAddress()).getPort();
         GrpcConfigKeys.Server.setPort(raftProperties, port);
+        //set the snapshot policy, the log before the snapshot will be purged
+        RaftServerConfigKeys.Snapshot.setAutoTriggerEnabled(raftProperties, raftOptions.isAutoSnapshotEnabled());
+        RaftServerConfigKeys.Snapshot.setAutoTriggerThreshold(raftProperties, raftOptions.getAutoSnapshotThreshold());
+        RaftServerConfigKeys.Snapshot.setRetentionFileNum(raftProperties, raftOptions.getSnapshotRetention());
         initRaftGroup(raftOptions.getStateMachineMap());
         //create and start the Raft server
         this.server = ServerImplUtils.newRaftServer(currentPeer.getId(), null, registry::get,
@@ -46,4 +46,22 @@ public class RaftOptions {
 
     private Map<HodorRaftGroup, HodorRaftStateMachine> stateMachineMap;
 
+    /**
+     * 是否自动生成快照，生成快照后会清理快照之前的日志
+     */
+    @Builder.Default
+    private boolean autoSnapshotEnabled = true;
+
+    /**
+     * 距离上次快照应用的日志条数达到该值时自动生成快照
+     */
+    @Builder.Default
+    private long autoSnapshotThreshold = 100_000L;
+
+    /**
+     * 保留的快照个数
+     */
+    @Builder.Default
+    private int snapshotRetention = 2;
+
 }
@@ -19,11 +19,17 @@ package org.dromara.hodor.common.raft.kv.core;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ratis.client.RaftClient;
+import org.apache.ratis.protocol.RaftGroup;
+import org.apache.ratis.protocol.RaftPeerId;
+import org.apache.ratis.util.NetUtils;
 import org.dromara.hodor.common.raft.HodorRaftGroup;
+import org.dromara.hodor.common.raft.RaftGroupManager;
 import org.dromara.hodor.common.raft.RaftUtils;
 import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.utils.StringUtils;
 
 /**
  * HodorKVClient
@@ -40,26 +46,62 @@ public class HodorKVClient implements AutoCloseable {
 
     private final String clientId;
 
+    private final ReadConsistency readConsistency;
+
+    private final RaftPeerId localPeerId;
+
+    private final AtomicLong observedIndex;
+
+    private final HodorKVSession session;
+
     public HodorKVClient(final HodorRaftGroup hodorRaftGroup) {
         this.raftClient = RaftUtils.createClient(hodorRaftGroup);
         this.tableNameMap = new HashMap<>();
         this.clientId = hodorRaftGroup.getRaftProperties().get(KVConstant.HODOR_CLIENT_ID);
+        this.readConsistency = ReadConsistency.of(hodorRaftGroup.getRaftProperties().get(KVConstant.HODOR_READ_CONSISTENCY),
+            ReadConsistency.LEASE);
+        this.localPeerId = findLocalPeerId(hodorRaftGroup.getRaftGroup(), clientId);
+        this.observedIndex = new AtomicLong();
+        this.session = new HodorKVSession(this::kvOperator,
+            hodorRaftGroup.getRaftProperties().getLong(KVConstant.HODOR_SESSION_TTL, KVConstant.DEFAULT_SESSION_TTL));
     }
 
-    public KVOperator kvOperator(String tableName) {
-        return tableNameMap.computeIfAbsent(tableName, k -> new HodorKVOperator(clientId, tableName, raftClient));
+    public synchronized KVOperator kvOperator(String tableName) {
+        return tableNameMap.computeIfAbsent(tableName, k -> new HodorKVOperator(clientId, tableName, raftClient,
+            readConsistency, localPeerId, observedIndex, session));
     }
 
     public KVOperator defaultKvOperator() {
         return kvOperator(DBColumnFamily.Default.getName());
     }
 
+    public HodorKVSession getSession() {
+        return this.session;
+    }
+
     public RaftClient getRaftClient() {
         return this.raftClient;
     }
 
+    /**
+     * 客户端与raft节点部署在一起时，clientId即为本地节点的endpoint
+     */
+    private static RaftPeerId findLocalPeerId(RaftGroup raftGroup, String clientId) {
+        if (StringUtils.isBlank(clientId)) {
+            return null;
+        }
+        try {
+            final RaftPeerId peerId = RaftGroupManager.getInstance().buildRaftPeer(NetUtils.createSocketAddr(clientId), 0).getId();
+            return raftGroup.getPeer(peerId) == null ? null : peerId;
+        } catch (IllegalArgumentException e) {
+            log.debug("Client {} is not a raft peer, msg: {}", clientId, e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public void close() throws Exception {
+        this.session.close();
         this.raftClient.close();
         this.tableNameMap.clear();
     }
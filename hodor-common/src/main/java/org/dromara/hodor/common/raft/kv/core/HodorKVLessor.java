@@ -0,0 +1,220 @@
+package org.dromara.hodor.common.raft.kv.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseKey;
+import org.dromara.hodor.common.raft.kv.storage.BatchOperation;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.raft.kv.storage.DBStore;
+import org.dromara.hodor.common.raft.kv.storage.Table;
+import org.dromara.hodor.common.utils.BytesUtil;
+
+/**
+ * 租约管理<br/>
+ *
+ * 1、租约和绑定的key保存在lease列族中，通过raft日志复制，随快照一起恢复
+ * 2、租约的过期时间只保存在内存中，由leader在收到续期请求时刷新，新leader上任时所有租约重新计时
+ * 3、撤销租约时在一个batch中删除租约及其绑定的key，key已被其他租约重新绑定时不删除
+ * 4、不带租约的写入和删除会在同一个batch中解除key与租约的绑定
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class HodorKVLessor {
+
+    // l + leaseId -> ttl
+    private static final byte LEASE_PREFIX = 'l';
+
+    // a + leaseId + table + 0 + key -> empty
+    private static final byte ATTACH_PREFIX = 'a';
+
+    // o + table + 0 + key -> leaseId
+    private static final byte OWNER_PREFIX = 'o';
+
+    private static final byte TABLE_DELIMITER = 0;
+
+    private final DBStore dbStore;
+
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    public HodorKVLessor(final DBStore dbStore) {
+        this.dbStore = dbStore;
+    }
+
+    /**
+     * 从存储中重新加载租约，启动或从快照恢复后调用
+     */
+    public void recover() throws IOException {
+        leases.clear();
+        final byte[] prefix = new byte[] {LEASE_PREFIX};
+        for (KVEntry entry : leaseTable().scan(prefix, prefix, true)) {
+            final long leaseId = ByteBuffer.wrap(entry.getKey(), 1, Long.BYTES).getLong();
+            final long ttl = ByteBuffer.wrap(entry.getValue()).getLong();
+            leases.put(leaseId, new Lease(ttl));
+        }
+        log.info("Recovered {} leases.", leases.size());
+    }
+
+    public void grant(long leaseId, long ttl) throws IOException {
+        leaseTable().put(leaseKey(leaseId), toBytes(ttl));
+        leases.put(leaseId, new Lease(ttl));
+    }
+
+    public boolean exists(long leaseId) {
+        return leases.containsKey(leaseId);
+    }
+
+    /**
+     * 在写入key的同一个batch中把key绑定到租约，key之前绑定的租约会被解除
+     */
+    public void attachWithBatch(BatchOperation batch, long leaseId, String table, byte[] key) throws IOException {
+        final byte[] tableKey = tableKey(table, key);
+        final Table<byte[], byte[]> leaseTable = leaseTable();
+        detachWithBatch(batch, leaseTable, tableKey);
+        leaseTable.putWithBatch(batch, concat(leaseKey(ATTACH_PREFIX, leaseId), tableKey), BytesUtil.EMPTY_BYTES);
+        leaseTable.putWithBatch(batch, concat(new byte[] {OWNER_PREFIX}, tableKey), toBytes(leaseId));
+    }
+
+    /**
+     * 在写入或删除key的同一个batch中解除key与租约的绑定，不带租约的写入和删除都需要调用，
+     * 否则租约过期时会把之后重新写入的持久化key删除
+     */
+    public void detachWithBatch(BatchOperation batch, String table, byte[] key) throws IOException {
+        detachWithBatch(batch, leaseTable(), tableKey(table, key));
+    }
+
+    private void detachWithBatch(BatchOperation batch, Table<byte[], byte[]> leaseTable, byte[] tableKey) throws IOException {
+        final byte[] ownerKey = concat(new byte[] {OWNER_PREFIX}, tableKey);
+        final byte[] owner = leaseTable.get(ownerKey);
+        if (owner == null) {
+            return;
+        }
+        final long ownerLeaseId = ByteBuffer.wrap(owner).getLong();
+        leaseTable.deleteWithBatch(batch, concat(leaseKey(ATTACH_PREFIX, ownerLeaseId), tableKey));
+        leaseTable.deleteWithBatch(batch, ownerKey);
+    }
+
+    /**
+     * 撤销租约，返回被删除的key
+     */
+    public List<LeaseKey> revoke(long leaseId) throws IOException {
+        final Table<byte[], byte[]> leaseTable = leaseTable();
+        final byte[] attachPrefix = leaseKey(ATTACH_PREFIX, leaseId);
+        final List<LeaseKey> revokedKeys = new ArrayList<>();
+        try (BatchOperation batch = dbStore.initBatchOperation()) {
+            for (KVEntry entry : leaseTable.scan(attachPrefix, attachPrefix, false)) {
+                final byte[] tableKey = Arrays.copyOfRange(entry.getKey(), attachPrefix.length, entry.getKey().length);
+                final byte[] ownerKey = concat(new byte[] {OWNER_PREFIX}, tableKey);
+                if (Arrays.equals(toBytes(leaseId), leaseTable.get(ownerKey))) {
+                    final LeaseKey leaseKey = parseTableKey(tableKey);
+                    dbStore.getTable(leaseKey.getTable()).deleteWithBatch(batch, leaseKey.getKey());
+                    leaseTable.deleteWithBatch(batch, ownerKey);
+                    revokedKeys.add(leaseKey);
+                }
+                leaseTable.deleteWithBatch(batch, entry.getKey());
+            }
+            leaseTable.deleteWithBatch(batch, leaseKey(leaseId));
+            dbStore.commitBatchOperation(batch);
+        }
+        leases.remove(leaseId);
+        return revokedKeys;
+    }
+
+    /**
+     * 刷新租约的过期时间，租约不存在时返回null
+     */
+    public Long renew(long leaseId) {
+        final Lease lease = leases.get(leaseId);
+        if (lease == null) {
+            return null;
+        }
+        lease.renew();
+        return lease.ttl;
+    }
+
+    /**
+     * 成为leader时调用，之前的leader收到的续期请求不可见，所有租约重新计时
+     */
+    public void promote() {
+        leases.values().forEach(Lease::renew);
+    }
+
+    public List<Long> expiredLeases() {
+        final long now = now();
+        final List<Long> expired = new ArrayList<>();
+        leases.forEach((leaseId, lease) -> {
+            if (lease.deadline < now) {
+                expired.add(leaseId);
+            }
+        });
+        return expired;
+    }
+
+    public int leaseCount() {
+        return leases.size();
+    }
+
+    private Table<byte[], byte[]> leaseTable() throws IOException {
+        return dbStore.getTable(DBColumnFamily.HodorLease.getName());
+    }
+
+    private static byte[] leaseKey(long leaseId) {
+        return leaseKey(LEASE_PREFIX, leaseId);
+    }
+
+    private static byte[] leaseKey(byte prefix, long leaseId) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(prefix).putLong(leaseId).array();
+    }
+
+    private static byte[] tableKey(String table, byte[] key) {
+        final byte[] tableBytes = table.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(tableBytes.length + 1 + key.length).put(tableBytes).put(TABLE_DELIMITER).put(key).array();
+    }
+
+    private static LeaseKey parseTableKey(byte[] tableKey) {
+        int i = 0;
+        while (tableKey[i] != TABLE_DELIMITER) {
+            i++;
+        }
+        return new LeaseKey(new String(tableKey, 0, i, StandardCharsets.UTF_8), Arrays.copyOfRange(tableKey, i + 1, tableKey.length));
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        return ByteBuffer.allocate(a.length + b.length).put(a).put(b).array();
+    }
+
+    private static byte[] toBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static class Lease {
+
+        private final long ttl;
+
+        private volatile long deadline;
+
+        Lease(long ttl) {
+            this.ttl = ttl;
+            renew();
+        }
+
+        void renew() {
+            this.deadline = now() + ttl;
+        }
+    }
+
+}
@@ -18,30 +18,48 @@
 package org.dromara.hodor.common.raft.kv.core;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.ratis.client.RaftClient;
 import org.apache.ratis.protocol.Message;
 import org.apache.ratis.protocol.RaftClientReply;
+import org.apache.ratis.protocol.RaftPeerId;
 import org.apache.ratis.thirdparty.com.google.protobuf.ByteString;
 import org.dromara.hodor.common.raft.kv.exception.HodorKVClientException;
 import org.dromara.hodor.common.raft.kv.exception.HodorKVConnectException;
+import org.dromara.hodor.common.raft.kv.protocol.BatchWriteRequest;
 import org.dromara.hodor.common.raft.kv.protocol.CmdType;
+import org.dromara.hodor.common.raft.kv.protocol.CompareAndSetRequest;
 import org.dromara.hodor.common.raft.kv.protocol.ContainsKeyRequest;
 import org.dromara.hodor.common.raft.kv.protocol.DeleteRequest;
 import org.dromara.hodor.common.raft.kv.protocol.GetRequest;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVRequest;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVResponse;
 import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseRequest;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseResponse;
+import org.dromara.hodor.common.raft.kv.protocol.MultiGetRequest;
 import org.dromara.hodor.common.raft.kv.protocol.PutRequest;
 import org.dromara.hodor.common.raft.kv.protocol.ScanRequest;
+import org.dromara.hodor.common.raft.kv.protocol.ScanResponse;
 import org.dromara.hodor.common.utils.ProtostuffUtils;
 
 /**
- * HodorKVOperate
+ * HodorKVOperate<br/>
+ *
+ * 1、写请求通过raft日志提交，记录客户端已看到的最大日志索引
+ * 2、读请求按读一致性级别发送，见{@link ReadConsistency}
  *
  * @author tomgs
  * @since 1.0
  */
+@Slf4j
 public class HodorKVOperator implements KVOperator {
 
     private final String clientId;
@@ -50,10 +68,40 @@ public class HodorKVOperator implements KVOperator {
 
     private final RaftClient raftClient;
 
-    HodorKVOperator(String clientId, String tableName, final RaftClient raftClient) {
+    private final ReadConsistency readConsistency;
+
+    private final RaftPeerId localPeerId;
+
+    private final AtomicLong observedIndex;
+
+    private final HodorKVSession session;
+
+    private final Map<ReadConsistency, KVOperator> readConsistencyOperators;
+
+    HodorKVOperator(String clientId, String tableName, final RaftClient raftClient, final ReadConsistency readConsistency,
+                    final RaftPeerId localPeerId, final AtomicLong observedIndex, final HodorKVSession session) {
         this.clientId = clientId;
         this.tableName = tableName;
         this.raftClient = raftClient;
+        this.readConsistency = readConsistency;
+        this.localPeerId = localPeerId;
+        this.observedIndex = observedIndex;
+        this.session = session;
+        this.readConsistencyOperators = new EnumMap<>(ReadConsistency.class);
+    }
+
+    @Override
+    public ReadConsistency getReadConsistency() {
+        return readConsistency;
+    }
+
+    @Override
+    public synchronized KVOperator withReadConsistency(ReadConsistency readConsistency) {
+        if (readConsistency == this.readConsistency) {
+            return this;
+        }
+        return readConsistencyOperators.computeIfAbsent(readConsistency, k -> new HodorKVOperator(clientId, tableName,
+            raftClient, k, localPeerId, observedIndex, session));
     }
 
     @Override
@@ -76,30 +124,24 @@ public class HodorKVOperator implements KVOperator {
 
     @Override
     public void put(byte[] key, byte[] value) {
-        PutRequest putRequest = PutRequest.builder()
+        put(PutRequest.builder()
             .key(key)
             .value(value)
-            .build();
-        HodorKVRequest request = HodorKVRequest.builder()
-            .table(tableName)
-            .cmdType(CmdType.PUT)
-            .putRequest(putRequest)
-            .build();
-        HodorKVResponse response = handleWriteRequest(request);
-        if (!response.getSuccess()) {
-            throw new HodorKVClientException(response.getMessage());
-        }
+            .build());
     }
 
     @Override
-    public void putEphemeral(byte[] key, byte[] value) {
-        PutRequest putRequest = PutRequest.builder()
+    public void put(byte[] key, byte[] value, long leaseId) {
+        put(PutRequest.builder()
             .key(key)
             .value(value)
-            .build();
+            .leaseId(leaseId)
+            .build());
+    }
+
+    private void put(PutRequest putRequest) {
         HodorKVRequest request = HodorKVRequest.builder()
             .table(tableName)
-            .sessionId(clientId)
             .cmdType(CmdType.PUT)
             .putRequest(putRequest)
             .build();
@@ -109,8 +151,14 @@ public class HodorKVOperator implements KVOperator {
         }
     }
 
+    @Override
+    public void putEphemeral(byte[] key, byte[] value) {
+        session.putEphemeral(tableName, key, value);
+    }
+
     @Override
     public void delete(byte[] key) {
+        session.removeEphemeral(tableName, key);
         DeleteRequest deleteRequest = DeleteRequest.builder()
             .key(key)
             .build();
@@ -147,7 +195,28 @@ public class HodorKVOperator implements KVOperator {
         ScanRequest scanRequest = ScanRequest.builder()
             .startKey(startKey)
             .endKey(endKey)
+            .returnValue(returnValue)
             .build();
+        return scan(scanRequest).getValue();
+    }
+
+    @Override
+    public ScanResponse scan(byte[] startKey, byte[] endKey, boolean returnValue, int limit) {
+        ScanRequest scanRequest = ScanRequest.builder()
+            .startKey(startKey)
+            .endKey(endKey)
+            .returnValue(returnValue)
+            .limit(limit)
+            .build();
+        return scan(scanRequest);
+    }
+
+    @Override
+    public Iterator<KVEntry> scanIterator(byte[] startKey, byte[] endKey, boolean returnValue, int pageSize) {
+        return new ScanIterator(startKey, endKey, returnValue, pageSize);
+    }
+
+    private ScanResponse scan(ScanRequest scanRequest) {
         HodorKVRequest request = HodorKVRequest.builder()
             .table(tableName)
             .cmdType(CmdType.SCAN)
@@ -157,7 +226,110 @@ public class HodorKVOperator implements KVOperator {
         if (!response.getSuccess()) {
             throw new HodorKVClientException(response.getMessage());
         }
-        return response.getScanResponse().getValue();
+        return response.getScanResponse();
+    }
+
+    @Override
+    public List<KVEntry> multiGet(List<byte[]> keys) {
+        MultiGetRequest multiGetRequest = MultiGetRequest.builder()
+            .keys(keys)
+            .build();
+        HodorKVRequest request = HodorKVRequest.builder()
+            .table(tableName)
+            .cmdType(CmdType.MULTI_GET)
+            .multiGetRequest(multiGetRequest)
+            .build();
+        HodorKVResponse response = handleReadRequest(request);
+        if (!response.getSuccess()) {
+            throw new HodorKVClientException(response.getMessage());
+        }
+        return response.getMultiGetResponse().getValue();
+    }
+
+    @Override
+    public void batchPut(List<KVEntry> entries) {
+        batch(entries, null);
+    }
+
+    @Override
+    public void batchDelete(List<byte[]> keys) {
+        batch(null, keys);
+    }
+
+    @Override
+    public void batch(List<KVEntry> putEntries, List<byte[]> deleteKeys) {
+        BatchWriteRequest batchWriteRequest = BatchWriteRequest.builder()
+            .putEntries(putEntries)
+            .deleteKeys(deleteKeys)
+            .build();
+        HodorKVRequest request = HodorKVRequest.builder()
+            .table(tableName)
+            .cmdType(CmdType.BATCH_WRITE)
+            .batchWriteRequest(batchWriteRequest)
+            .build();
+        HodorKVResponse response = handleWriteRequest(request);
+        if (!response.getSuccess()) {
+            throw new HodorKVClientException(response.getMessage());
+        }
+    }
+
+    @Override
+    public Boolean compareAndSet(byte[] key, byte[] expect, byte[] update) {
+        CompareAndSetRequest compareAndSetRequest = CompareAndSetRequest.builder()
+            .key(key)
+            .expect(expect)
+            .update(update)
+            .build();
+        HodorKVRequest request = HodorKVRequest.builder()
+            .table(tableName)
+            .cmdType(CmdType.COMPARE_AND_SET)
+            .compareAndSetRequest(compareAndSetRequest)
+            .build();
+        HodorKVResponse response = handleWriteRequest(request);
+        if (!response.getSuccess()) {
+            throw new HodorKVClientException(response.getMessage());
+        }
+        return response.getCompareAndSetResponse().getValue();
+    }
+
+    @Override
+    public long grantLease(long ttl) {
+        return handleLeaseRequest(CmdType.LEASE_GRANT, LeaseRequest.builder().ttl(ttl).build()).getLeaseId();
+    }
+
+    @Override
+    public long keepAliveLease(long leaseId) {
+        return handleLeaseRequest(CmdType.LEASE_KEEPALIVE, LeaseRequest.builder().leaseId(leaseId).build()).getTtl();
+    }
+
+    @Override
+    public void revokeLease(long leaseId) {
+        handleLeaseRequest(CmdType.LEASE_REVOKE, LeaseRequest.builder().leaseId(leaseId).build());
+    }
+
+    private LeaseResponse handleLeaseRequest(CmdType cmdType, LeaseRequest leaseRequest) {
+        HodorKVRequest request = HodorKVRequest.builder()
+            .table(tableName)
+            .cmdType(cmdType)
+            .leaseRequest(leaseRequest)
+            .build();
+        HodorKVResponse response;
+        if (cmdType == CmdType.LEASE_KEEPALIVE) {
+            // 续期只刷新leader内存中的过期时间，不能在follower上读取
+            try {
+                final Message message = Message.valueOf(ByteString.copyFrom(ProtostuffUtils.serialize(request)));
+                final RaftClientReply raftClientReply = raftClient.io().sendReadOnly(message);
+                response = ProtostuffUtils.deserialize(raftClientReply.getMessage().getContent().toByteArray(), HodorKVResponse.class);
+            } catch (Exception e) {
+                throw new HodorKVConnectException(e.getMessage(), e);
+            }
+        } else {
+            response = handleWriteRequest(request);
+        }
+        if (!response.getSuccess()) {
+            throw new HodorKVClientException(response.getMessage());
+        }
+        return response.getLeaseResponse();
     }
 
     @Override
@@ -167,18 +339,92 @@ public class HodorKVOperator implements KVOperator {
 
     private HodorKVResponse handleReadRequest(HodorKVRequest request) {
         try {
-            final byte[] bytes = ProtostuffUtils.serialize(request);
-            final RaftClientReply raftClientReply = raftClient.io().sendReadOnly(Message.valueOf(ByteString.copyFrom(bytes)));
+            final Message message = Message.valueOf(ByteString.copyFrom(ProtostuffUtils.serialize(request)));
+            final RaftClientReply raftClientReply;
+            if (readConsistency == ReadConsistency.LINEARIZABLE) {
+                raftClientReply = observe(raftClient.io().send(message));
+            } else if (readConsistency == ReadConsistency.FOLLOWER && localPeerId != null) {
+                raftClientReply = sendFollowerRead(message);
+            } else {
+                raftClientReply = raftClient.io().sendReadOnly(message);
+            }
             return ProtostuffUtils.deserialize(raftClientReply.getMessage().getContent().toByteArray(), HodorKVResponse.class);
         } catch (Exception e) {
             throw new HodorKVConnectException(e.getMessage(), e);
         }
     }
 
+    /**
+     * 本地节点应用的日志不早于客户端已看到的索引时直接读取，否则回退到leader读取
+     */
+    private RaftClientReply sendFollowerRead(Message message) throws IOException {
+        try {
+            final RaftClientReply reply = raftClient.io().sendStaleRead(message, observedIndex.get(), localPeerId);
+            if (reply.isSuccess()) {
+                return reply;
+            }
+            log.debug("Follower read from {} failed, fallback to leader, exception: {}", localPeerId, reply.getException());
+        } catch (IOException e) {
+            log.debug("Follower read from {} failed, fallback to leader, msg: {}", localPeerId, e.getMessage());
+        }
+        return raftClient.io().sendReadOnly(message);
+    }
+
+    private RaftClientReply observe(RaftClientReply reply) {
+        final long logIndex = reply.getLogIndex();
+        observedIndex.accumulateAndGet(logIndex, Math::max);
+        return reply;
+    }
+
+    /**
+     * 当前页读取完后再请求下一页
+     */
+    private class ScanIterator implements Iterator<KVEntry> {
+
+        private final byte[] endKey;
+
+        private final boolean returnValue;
+
+        private final int pageSize;
+
+        private byte[] nextStartKey;
+
+        private Iterator<KVEntry> page = Collections.emptyIterator();
+
+        private boolean finished;
+
+        ScanIterator(byte[] startKey, byte[] endKey, boolean returnValue, int pageSize) {
+            this.nextStartKey = startKey;
+            this.endKey = endKey;
+            this.returnValue = returnValue;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !finished) {
+                final ScanResponse response = scan(nextStartKey, endKey, returnValue, pageSize);
+                final List<KVEntry> entries = response.getValue();
+                page = entries == null ? Collections.emptyIterator() : entries.iterator();
+                nextStartKey = response.getContinuationToken();
+                finished = nextStartKey == null;
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public KVEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+
     private HodorKVResponse handleWriteRequest(HodorKVRequest request) {
         try {
             final byte[] bytes = ProtostuffUtils.serialize(request);
-            final RaftClientReply raftClientReply = raftClient.io().send(Message.valueOf(ByteString.copyFrom(bytes)));
+            final RaftClientReply raftClientReply = observe(raftClient.io().send(Message.valueOf(ByteString.copyFrom(bytes))));
             return ProtostuffUtils.deserialize(raftClientReply.getMessage().getContent().toByteArray(), HodorKVResponse.class);
         } catch (Exception e) {
             throw new HodorKVConnectException(e.getMessage(), e);
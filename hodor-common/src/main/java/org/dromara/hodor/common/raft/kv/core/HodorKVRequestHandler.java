@@ -18,11 +18,16 @@
 package org.dromara.hodor.common.raft.kv.core;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.dromara.hodor.common.raft.kv.exception.HodorKVException;
+import org.dromara.hodor.common.raft.kv.protocol.BatchWriteRequest;
 import org.dromara.hodor.common.raft.kv.protocol.CmdType;
+import org.dromara.hodor.common.raft.kv.protocol.CompareAndSetRequest;
+import org.dromara.hodor.common.raft.kv.protocol.CompareAndSetResponse;
 import org.dromara.hodor.common.raft.kv.protocol.ContainsKeyRequest;
 import org.dromara.hodor.common.raft.kv.protocol.ContainsKeyResponse;
 import org.dromara.hodor.common.raft.kv.protocol.DeleteRequest;
@@ -31,9 +36,14 @@ import org.dromara.hodor.common.raft.kv.protocol.GetResponse;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVRequest;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVResponse;
 import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseKey;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseRequest;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseResponse;
+import org.dromara.hodor.common.raft.kv.protocol.MultiGetResponse;
 import org.dromara.hodor.common.raft.kv.protocol.PutRequest;
 import org.dromara.hodor.common.raft.kv.protocol.ScanRequest;
 import org.dromara.hodor.common.raft.kv.protocol.ScanResponse;
+import org.dromara.hodor.common.raft.kv.storage.BatchOperation;
 import org.dromara.hodor.common.raft.kv.storage.DBStore;
 import org.dromara.hodor.common.raft.kv.storage.StorageEngine;
 import org.dromara.hodor.common.raft.kv.storage.Table;
@@ -48,10 +58,20 @@ import org.dromara.hodor.common.utils.BytesUtil;
 @Slf4j
 public class HodorKVRequestHandler implements RequestHandler {
 
+    private static final int MAX_SCAN_LIMIT = 10_000;
+
     private final DBStore dbStore;
 
+    private final HodorKVLessor lessor;
+
     public HodorKVRequestHandler(final StorageEngine storageEngine) {
         this.dbStore = storageEngine.getRawDBStore();
+        this.lessor = new HodorKVLessor(dbStore);
+    }
+
+    @Override
+    public HodorKVLessor getLessor() {
+        return lessor;
     }
 
     @Override
@@ -115,11 +135,19 @@ public class HodorKVRequestHandler implements RequestHandler {
                 final byte[] startKey = scanRequest.getStartKey();
                 final byte[] endKey = scanRequest.getEndKey();
                 try {
-                    final List<KVEntry> kvEntries = table.scan(startKey, endKey, scanRequest.isReturnValue());
-                    ScanResponse scanResponse = ScanResponse.builder()
-                        .value(kvEntries)
-                        .build();
-                    builder.scanResponse(scanResponse);
+                    final ScanResponse.ScanResponseBuilder scanResponseBuilder = ScanResponse.builder();
+                    if (scanRequest.getLimit() == null || scanRequest.getLimit() <= 0) {
+                        scanResponseBuilder.value(table.scan(startKey, endKey, scanRequest.isReturnValue()));
+                    } else {
+                        // 多读取一条，用于判断是否还有下一页，并作为下一页的起始key
+                        final int limit = Math.min(scanRequest.getLimit(), MAX_SCAN_LIMIT);
+                        final List<KVEntry> kvEntries = table.scan(startKey, endKey, scanRequest.isReturnValue(), limit + 1);
+                        if (kvEntries.size() > limit) {
+                            scanResponseBuilder.continuationToken(kvEntries.remove(limit).getKey());
+                        }
+                        scanResponseBuilder.value(kvEntries);
+                    }
+                    builder.scanResponse(scanResponseBuilder.build());
                 } catch (Exception e) {
                     log.error("Fail to [SCAN], range: ['[{}, {})'], {}.", BytesUtil.toHex(startKey), BytesUtil.toHex(endKey),
                         ExceptionUtils.getStackTrace(e));
@@ -127,6 +155,37 @@ public class HodorKVRequestHandler implements RequestHandler {
                         .message(e.getMessage());
                 }
                 break;
+            case MULTI_GET:
+                final List<byte[]> keys = kvRequest.getMultiGetRequest().getKeys();
+                try {
+                    final List<byte[]> values = table.multiGet(keys);
+                    final List<KVEntry> kvEntries = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        kvEntries.add(new KVEntry(keys.get(i), values.get(i)));
+                    }
+                    MultiGetResponse multiGetResponse = MultiGetResponse.builder()
+                        .value(kvEntries)
+                        .build();
+                    builder.multiGetResponse(multiGetResponse);
+                } catch (Exception e) {
+                    log.error("MULTI_GET exception: {} keys, {}", keys.size(), e.getMessage(), e);
+                    builder.success(false)
+                        .message(e.getMessage());
+                }
+                break;
+            case LEASE_KEEPALIVE:
+                final Long keepAliveLeaseId = kvRequest.getLeaseRequest().getLeaseId();
+                final Long ttl = lessor.renew(keepAliveLeaseId);
+                if (ttl == null) {
+                    builder.success(false)
+                        .message("Lease " + keepAliveLeaseId + " not found.");
+                } else {
+                    builder.leaseResponse(LeaseResponse.builder()
+                        .leaseId(keepAliveLeaseId)
+                        .ttl(ttl)
+                        .build());
+                }
+                break;
             default:
                 throw new RuntimeException("Unsupported query request type: " + cmdType);
         }
@@ -142,7 +201,22 @@ public class HodorKVRequestHandler implements RequestHandler {
             case PUT:
                 final PutRequest putRequest = kvRequest.getPutRequest();
                 try {
-                    table.put(putRequest.getKey(), putRequest.getValue());
+                    if (putRequest.getLeaseId() == null) {
+                        try (BatchOperation batch = dbStore.initBatchOperation()) {
+                            table.putWithBatch(batch, putRequest.getKey(), putRequest.getValue());
+                            lessor.detachWithBatch(batch, kvRequest.getTable(), putRequest.getKey());
+                            dbStore.commitBatchOperation(batch);
+                        }
+                    } else if (!lessor.exists(putRequest.getLeaseId())) {
+                        builder.success(false)
+                            .message("Lease " + putRequest.getLeaseId() + " not found.");
+                    } else {
+                        try (BatchOperation batch = dbStore.initBatchOperation()) {
+                            table.putWithBatch(batch, putRequest.getKey(), putRequest.getValue());
+                            lessor.attachWithBatch(batch, putRequest.getLeaseId(), kvRequest.getTable(), putRequest.getKey());
+                            dbStore.commitBatchOperation(batch);
+                        }
+                    }
                 } catch (Exception e) {
                     log.error("PUT exception: {}", e.getMessage(), e);
                     builder.success(false)
@@ -151,14 +225,99 @@ public class HodorKVRequestHandler implements RequestHandler {
                 break;
             case DELETE:
                 final DeleteRequest deleteRequest = kvRequest.getDeleteRequest();
-                try {
-                    table.delete(deleteRequest.getKey());
+                try (BatchOperation batch = dbStore.initBatchOperation()) {
+                    table.deleteWithBatch(batch, deleteRequest.getKey());
+                    lessor.detachWithBatch(batch, kvRequest.getTable(), deleteRequest.getKey());
+                    dbStore.commitBatchOperation(batch);
                 } catch (Exception e) {
                     log.error("DELETE exception: {}", e.getMessage(), e);
                     builder.success(false)
                         .message(e.getMessage());
                 }
                 break;
+            case BATCH_WRITE:
+                final BatchWriteRequest batchWriteRequest = kvRequest.getBatchWriteRequest();
+                try (BatchOperation batch = dbStore.initBatchOperation()) {
+                    if (batchWriteRequest.getPutEntries() != null) {
+                        for (KVEntry entry : batchWriteRequest.getPutEntries()) {
+                            table.putWithBatch(batch, entry.getKey(), entry.getValue());
+                            lessor.detachWithBatch(batch, kvRequest.getTable(), entry.getKey());
+                        }
+                    }
+                    if (batchWriteRequest.getDeleteKeys() != null) {
+                        for (byte[] key : batchWriteRequest.getDeleteKeys()) {
+                            table.deleteWithBatch(batch, key);
+                            lessor.detachWithBatch(batch, kvRequest.getTable(), key);
+                        }
+                    }
+                    dbStore.commitBatchOperation(batch);
+                } catch (Exception e) {
+                    log.error("BATCH_WRITE exception: {}", e.getMessage(), e);
+                    builder.success(false)
+                        .message(e.getMessage());
+                }
+                break;
+            case COMPARE_AND_SET:
+                // 写请求在状态机中串行执行，读取与写入之间不会有其他写入
+                final CompareAndSetRequest casRequest = kvRequest.getCompareAndSetRequest();
+                try {
+                    final byte[] current = table.get(casRequest.getKey());
+                    final boolean matched = Arrays.equals(current, casRequest.getExpect());
+                    if (matched) {
+                        try (BatchOperation batch = dbStore.initBatchOperation()) {
+                            if (casRequest.getUpdate() == null) {
+                                table.deleteWithBatch(batch, casRequest.getKey());
+                            } else {
+                                table.putWithBatch(batch, casRequest.getKey(), casRequest.getUpdate());
+                            }
+                            lessor.detachWithBatch(batch, kvRequest.getTable(), casRequest.getKey());
+                            dbStore.commitBatchOperation(batch);
+                        }
+                    }
+                    builder.compareAndSetResponse(CompareAndSetResponse.builder()
+                        .value(matched)
+                        .build());
+                } catch (Exception e) {
+                    log.error("COMPARE_AND_SET exception: key: [{}], {}.", BytesUtil.toHex(casRequest.getKey()), e.getMessage(), e);
+                    builder.success(false)
+                        .message(e.getMessage());
+                }
+                break;
+            case LEASE_GRANT:
+                // 租约id使用日志索引，所有节点上一致
+                final LeaseRequest grantRequest = kvRequest.getLeaseRequest();
+                try {
+                    if (grantRequest.getTtl() == null || grantRequest.getTtl() <= 0) {
+                        builder.success(false)
+                            .message("Lease ttl must be greater than 0.");
+                    } else {
+                        lessor.grant(transactionLogIndex, grantRequest.getTtl());
+                        builder.leaseResponse(LeaseResponse.builder()
+                            .leaseId(transactionLogIndex)
+                            .ttl(grantRequest.getTtl())
+                            .build());
+                    }
+                } catch (Exception e) {
+                    log.error("LEASE_GRANT exception: {}", e.getMessage(), e);
+                    builder.success(false)
+                        .message(e.getMessage());
+                }
+                break;
+            case LEASE_REVOKE:
+                final Long revokeLeaseId = kvRequest.getLeaseRequest().getLeaseId();
+                try {
+                    final List<LeaseKey> revokedKeys = lessor.revoke(revokeLeaseId);
+                    log.info("Lease {} revoked, {} keys deleted.", revokeLeaseId, revokedKeys.size());
+                    builder.leaseResponse(LeaseResponse.builder()
+                        .leaseId(revokeLeaseId)
+                        .revokedKeys(revokedKeys)
+                        .build());
+                } catch (Exception e) {
+                    log.error("LEASE_REVOKE exception: lease {}, {}", revokeLeaseId, e.getMessage(), e);
+                    builder.success(false)
+                        .message(e.getMessage());
+                }
+                break;
             default:
                 throw new RuntimeException("Unsupported write request type: " + cmdType);
         }
@@ -61,7 +61,7 @@ public class HodorKVServer implements HodorLifecycle {
                 .addresses(raftOptions.getServerAddresses())
                 .build();
             RequestHandler requestHandler = new HodorKVRequestHandler(storageEngine);
-            result.putIfAbsent(hodorRaftGroup, new HodorKVStateMachine(requestHandler));
+            result.putIfAbsent(hodorRaftGroup, new HodorKVStateMachine(requestHandler, storageEngine));
             return result;
         });
 
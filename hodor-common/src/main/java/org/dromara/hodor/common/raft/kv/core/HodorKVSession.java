@@ -0,0 +1,124 @@
+package org.dromara.hodor.common.raft.kv.core;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.common.raft.kv.exception.HodorKVClientException;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+
+/**
+ * 客户端会话，临时节点都绑定到会话的租约上<br/>
+ *
+ * 1、第一次写入临时节点时创建租约，之后按ttl的1/3间隔续期
+ * 2、续期时发现租约已过期，重新创建租约并写回会话中的临时节点
+ * 3、客户端关闭时撤销租约，临时节点立即删除
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class HodorKVSession implements AutoCloseable {
+
+    private final Function<String, KVOperator> operators;
+
+    private final long ttl;
+
+    private final Map<String, Map<ByteBuffer, byte[]>> ephemerals = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService keepAliveExecutor;
+
+    private volatile long leaseId;
+
+    HodorKVSession(final Function<String, KVOperator> operators, final long ttl) {
+        this.operators = operators;
+        this.ttl = ttl;
+    }
+
+    public long getLeaseId() {
+        return leaseId;
+    }
+
+    synchronized void putEphemeral(String table, byte[] key, byte[] value) {
+        if (leaseId == 0) {
+            grant();
+        }
+        ephemerals.computeIfAbsent(table, k -> new ConcurrentHashMap<>()).put(ByteBuffer.wrap(key.clone()), value);
+        try {
+            operators.apply(table).put(key, value, leaseId);
+        } catch (HodorKVClientException e) {
+            log.warn("Put ephemeral key with lease {} failed, msg: {}, regrant lease.", leaseId, e.getMessage());
+            regrant();
+        }
+    }
+
+    void removeEphemeral(String table, byte[] key) {
+        final Map<ByteBuffer, byte[]> keys = ephemerals.get(table);
+        if (keys != null) {
+            keys.remove(ByteBuffer.wrap(key));
+        }
+    }
+
+    private void grant() {
+        leaseId = leaseOperator().grantLease(ttl);
+        log.info("Session lease {} granted, ttl {}ms.", leaseId, ttl);
+        if (keepAliveExecutor == null) {
+            keepAliveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "hodor-kv-session-keepalive");
+                thread.setDaemon(true);
+                return thread;
+            });
+            final long interval = Math.max(ttl / 3, 1);
+            keepAliveExecutor.scheduleWithFixedDelay(this::keepAlive, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 租约已过期，临时节点已被删除，使用新的租约重新写入
+     */
+    private synchronized void regrant() {
+        grant();
+        ephemerals.forEach((table, keys) -> keys.forEach((key, value) ->
+            operators.apply(table).put(key.array(), value, leaseId)));
+    }
+
+    private void keepAlive() {
+        try {
+            leaseOperator().keepAliveLease(leaseId);
+        } catch (HodorKVClientException e) {
+            log.warn("Session lease {} keepalive failed, msg: {}, regrant lease.", leaseId, e.getMessage());
+            try {
+                regrant();
+            } catch (Exception ex) {
+                log.error("Session lease regrant failed, msg: {}", ex.getMessage(), ex);
+            }
+        } catch (Exception e) {
+            log.warn("Session lease {} keepalive failed, msg: {}", leaseId, e.getMessage());
+        }
+    }
+
+    private KVOperator leaseOperator() {
+        return operators.apply(DBColumnFamily.Default.getName());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (keepAliveExecutor != null) {
+            keepAliveExecutor.shutdownNow();
+        }
+        if (leaseId != 0) {
+            try {
+                leaseOperator().revokeLease(leaseId);
+            } catch (Exception e) {
+                log.warn("Revoke session lease {} failed, it will be expired after {}ms, msg: {}", leaseId, ttl, e.getMessage());
+            }
+            leaseId = 0;
+        }
+        ephemerals.clear();
+    }
+
+}
@@ -17,6 +17,7 @@
 
 package org.dromara.hodor.common.raft.kv.core;
 
+import java.util.Collections;
 import java.util.List;
 import org.apache.ratis.server.protocol.TermIndex;
 import org.apache.ratis.server.storage.FileInfo;
@@ -26,10 +27,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * This class captures the snapshotIndex and term of the latest snapshot in
- * the server.
+ * the server, together with the RocksDB checkpoint files of the snapshot.
  * Ratis server loads the snapshotInfo during startup and updates the
- * lastApplied index to this snapshotIndex. SnapshotInfo does not contain
- * any files. It is used only to store/ update the last applied index and term.
+ * lastApplied index to this snapshotIndex, the files are sent to the
+ * followers which are lagging behind the purged log.
  */
 public class HodorKVSnapshotInfo implements SnapshotInfo {
 
@@ -39,6 +40,7 @@ public class HodorKVSnapshotInfo implements SnapshotInfo {
 
   private volatile long term = 0;
   private volatile long snapshotIndex = -1;
+  private volatile List<FileInfo> files = Collections.emptyList();
 
   public void updateTerm(long newTerm) {
     term = newTerm;
@@ -56,6 +58,12 @@ public class HodorKVSnapshotInfo implements SnapshotInfo {
     this.snapshotIndex = index;
   }
 
+  public HodorKVSnapshotInfo(long term, long index, List<FileInfo> files) {
+    this.term = term;
+    this.snapshotIndex = index;
+    this.files = Collections.unmodifiableList(files);
+  }
+
   @Override
   public TermIndex getTermIndex() {
     return TermIndex.valueOf(term, snapshotIndex);
@@ -73,7 +81,7 @@ public class HodorKVSnapshotInfo implements SnapshotInfo {
 
   @Override
   public List<FileInfo> getFiles() {
-    return null;
+    return files;
   }
 
   @Override
@@ -0,0 +1,155 @@
+package org.dromara.hodor.common.raft.kv.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.ratis.server.storage.FileInfo;
+import org.apache.ratis.server.storage.RaftStorage;
+import org.apache.ratis.statemachine.SnapshotRetentionPolicy;
+import org.apache.ratis.statemachine.StateMachineStorage;
+
+/**
+ * KV状态机快照存储<br/>
+ *
+ * 1、每个快照是状态机目录下的一个RocksDB checkpoint目录，目录名为snapshot.term_index
+ * 2、checkpoint先生成到临时目录，完成后再重命名，重启时忽略未完成的临时目录
+ * 3、安装快照时ratis会用收到的文件替换整个状态机目录，之后重新加载最新的快照
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class HodorKVSnapshotStorage implements StateMachineStorage {
+
+    private static final String SNAPSHOT_DIR_PREFIX = "snapshot.";
+
+    private static final String TMP_DIR_PREFIX = "tmp.";
+
+    private static final String MD5_FILE_SUFFIX = ".md5";
+
+    private static final Pattern SNAPSHOT_REGEX = Pattern.compile("snapshot\\.(\\d+)_(\\d+)");
+
+    private volatile File smDir;
+
+    private volatile HodorKVSnapshotInfo latestSnapshot;
+
+    @Override
+    public void init(RaftStorage raftStorage) throws IOException {
+        this.smDir = raftStorage.getStorageDir().getStateMachineDir().getAbsoluteFile();
+        FileUtils.forceMkdir(smDir);
+        final File[] tmpDirs = smDir.listFiles(file -> file.getName().startsWith(TMP_DIR_PREFIX));
+        if (tmpDirs != null) {
+            for (File tmpDir : tmpDirs) {
+                FileUtils.deleteQuietly(tmpDir);
+            }
+        }
+        loadLatestSnapshot();
+    }
+
+    /**
+     * 从状态机目录中加载最新的快照
+     */
+    public HodorKVSnapshotInfo loadLatestSnapshot() throws IOException {
+        HodorKVSnapshotInfo latest = null;
+        for (File snapshotDir : listSnapshotDirs()) {
+            final Matcher matcher = SNAPSHOT_REGEX.matcher(snapshotDir.getName());
+            if (!matcher.matches()) {
+                continue;
+            }
+            final long index = Long.parseLong(matcher.group(2));
+            if (latest == null || index > latest.getIndex()) {
+                latest = new HodorKVSnapshotInfo(Long.parseLong(matcher.group(1)), index, listFileInfos(snapshotDir));
+            }
+        }
+        this.latestSnapshot = latest;
+        return latest;
+    }
+
+    public File getTmpSnapshotDir(long term, long index) {
+        return new File(smDir, TMP_DIR_PREFIX + term + "_" + index);
+    }
+
+    public File getSnapshotDir(long term, long index) {
+        return new File(smDir, SNAPSHOT_DIR_PREFIX + term + "_" + index);
+    }
+
+    /**
+     * 把生成完成的临时目录重命名为快照目录，并更新最新快照
+     */
+    public HodorKVSnapshotInfo completeSnapshot(File tmpSnapshotDir, long term, long index) throws IOException {
+        final File snapshotDir = getSnapshotDir(term, index);
+        if (snapshotDir.exists()) {
+            FileUtils.deleteDirectory(tmpSnapshotDir);
+        } else {
+            Files.move(tmpSnapshotDir.toPath(), snapshotDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        final HodorKVSnapshotInfo snapshotInfo = new HodorKVSnapshotInfo(term, index, listFileInfos(snapshotDir));
+        this.latestSnapshot = snapshotInfo;
+        return snapshotInfo;
+    }
+
+    @Override
+    public HodorKVSnapshotInfo getLatestSnapshot() {
+        return latestSnapshot;
+    }
+
+    @Override
+    public void format() throws IOException {
+        // nothing to do
+    }
+
+    @Override
+    public void cleanupOldSnapshots(SnapshotRetentionPolicy snapshotRetentionPolicy) throws IOException {
+        if (snapshotRetentionPolicy == null || snapshotRetentionPolicy.getNumSnapshotsRetained() <= 0) {
+            return;
+        }
+        final List<File> snapshotDirs = listSnapshotDirs();
+        snapshotDirs.sort(Comparator.comparingLong(HodorKVSnapshotStorage::getSnapshotIndex).reversed());
+        for (int i = snapshotRetentionPolicy.getNumSnapshotsRetained(); i < snapshotDirs.size(); i++) {
+            final File snapshotDir = snapshotDirs.get(i);
+            log.info("Deleting old snapshot {}", snapshotDir);
+            FileUtils.deleteQuietly(snapshotDir);
+        }
+    }
+
+    @Override
+    public File getSnapshotDir() {
+        return smDir;
+    }
+
+    private List<File> listSnapshotDirs() {
+        final File[] snapshotDirs = smDir.listFiles(file -> file.isDirectory() && SNAPSHOT_REGEX.matcher(file.getName()).matches());
+        return snapshotDirs == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(snapshotDirs));
+    }
+
+    private static long getSnapshotIndex(File snapshotDir) {
+        final Matcher matcher = SNAPSHOT_REGEX.matcher(snapshotDir.getName());
+        return matcher.matches() ? Long.parseLong(matcher.group(2)) : -1;
+    }
+
+    /**
+     * 快照包含的文件，发送给follower时由ratis计算md5
+     */
+    private static List<FileInfo> listFileInfos(File snapshotDir) throws IOException {
+        final File[] files = snapshotDir.listFiles(file -> file.isFile() && !file.getName().endsWith(MD5_FILE_SUFFIX));
+        if (files == null) {
+            throw new IOException("Snapshot dir " + snapshotDir + " not exists.");
+        }
+        Arrays.sort(files);
+        final List<FileInfo> fileInfos = new ArrayList<>(files.length);
+        for (File file : files) {
+            fileInfos.add(new FileInfo(file.toPath(), null));
+        }
+        return fileInfos;
+    }
+
+}
@@ -1,25 +1,42 @@
 package org.dromara.hodor.common.raft.kv.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.ratis.protocol.ClientId;
 import org.apache.ratis.protocol.Message;
+import org.apache.ratis.protocol.RaftClientRequest;
 import org.apache.ratis.protocol.RaftGroupId;
 import org.apache.ratis.server.RaftServer;
 import org.apache.ratis.server.protocol.TermIndex;
+import org.apache.ratis.server.raftlog.RaftLog;
 import org.apache.ratis.server.storage.RaftStorage;
+import org.apache.ratis.statemachine.SnapshotInfo;
 import org.apache.ratis.statemachine.StateMachineStorage;
 import org.apache.ratis.statemachine.TransactionContext;
-import org.apache.ratis.statemachine.impl.SimpleStateMachineStorage;
 import org.apache.ratis.thirdparty.com.google.protobuf.ByteString;
 import org.apache.ratis.thirdparty.io.netty.handler.codec.CodecException;
 import org.dromara.hodor.common.raft.HodorRaftStateMachine;
+import org.dromara.hodor.common.raft.kv.protocol.CmdType;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVRequest;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVResponse;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseRequest;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.raft.kv.storage.StorageEngine;
 import org.dromara.hodor.common.utils.ProtostuffUtils;
 
 /**
- * RatisServerStateMachine
+ * RatisServerStateMachine<br/>
+ *
+ * 1、快照为RocksDB所有列族的checkpoint，在应用日志的线程中生成，与快照的日志索引一致
+ * 2、启动或follower安装快照后，从最新的快照恢复RocksDB，再由ratis重放快照之后的日志
+ * 3、leader定期检查过期的租约，通过raft日志撤销，各节点在应用日志时删除租约绑定的key
  *
  * @author tomgs
  * @since 1.0
@@ -27,40 +44,76 @@ import org.dromara.hodor.common.utils.ProtostuffUtils;
 @Slf4j
 public class HodorKVStateMachine extends HodorRaftStateMachine {
 
-    private final SimpleStateMachineStorage storage = new SimpleStateMachineStorage();
+    private static final long LESSOR_CHECK_INTERVAL_MS = 500;
+
+    private final HodorKVSnapshotStorage storage = new HodorKVSnapshotStorage();
 
     private RaftGroupId raftGroupId;
 
     private final RequestHandler requestHandler;
 
-    public HodorKVStateMachine(final RequestHandler requestHandler) {
+    private final StorageEngine storageEngine;
+
+    private final ClientId lessorClientId = ClientId.randomId();
+
+    private final AtomicLong lessorCallId = new AtomicLong();
+
+    private RaftServer raftServer;
+
+    private ScheduledExecutorService lessorExecutor;
+
+    private boolean lessorPromoted;
+
+    public HodorKVStateMachine(final RequestHandler requestHandler, final StorageEngine storageEngine) {
         this.requestHandler = requestHandler;
+        this.storageEngine = storageEngine;
     }
 
     @Override
     public void initialize(RaftServer raftServer, RaftGroupId id, RaftStorage raftStorage) throws IOException {
         getLifeCycle().startAndTransition(() -> {
-            super.initialize(raftServer, raftGroupId, raftStorage);
+            super.initialize(raftServer, id, raftStorage);
             this.raftGroupId = id;
+            this.raftServer = raftServer;
             storage.init(raftStorage);
+            restoreFromSnapshot(storage.getLatestSnapshot());
+            requestHandler.getLessor().recover();
+            startLessorChecker();
         });
     }
 
     @Override
     public void reinitialize() throws IOException {
-        super.reinitialize();
-        /*getLifeCycle().startAndTransition(() -> {
-            loadSnapshotInfoFromDB();
-            this.ozoneManagerDoubleBuffer = buildDoubleBufferForRatis();
-            handler.updateDoubleBuffer(ozoneManagerDoubleBuffer);
-        });*/
+        // follower安装完leader发送的快照后调用
+        getLifeCycle().startAndTransition(() -> {
+            restoreFromSnapshot(storage.loadLatestSnapshot());
+            requestHandler.getLessor().recover();
+        });
     }
 
     @Override
     public long takeSnapshot() throws IOException {
         final TermIndex lastAppliedTermIndex = getLastAppliedTermIndex();
-        return lastAppliedTermIndex.getIndex();
-        //return super.takeSnapshot();
+        final HodorKVSnapshotInfo latestSnapshot = storage.getLatestSnapshot();
+        if (lastAppliedTermIndex == null || lastAppliedTermIndex.getIndex() < 0
+            || (latestSnapshot != null && latestSnapshot.getIndex() >= lastAppliedTermIndex.getIndex())) {
+            return latestSnapshot == null ? RaftLog.INVALID_LOG_INDEX : latestSnapshot.getIndex();
+        }
+        final long term = lastAppliedTermIndex.getTerm();
+        final long index = lastAppliedTermIndex.getIndex();
+        final File tmpSnapshotDir = storage.getTmpSnapshotDir(term, index);
+        FileUtils.deleteQuietly(tmpSnapshotDir);
+        final long start = System.currentTimeMillis();
+        storageEngine.getRawDBStore().createCheckpoint(tmpSnapshotDir);
+        final HodorKVSnapshotInfo snapshotInfo = storage.completeSnapshot(tmpSnapshotDir, term, index);
+        log.info("Take snapshot {} of group {}, {} files, cost {}ms.", snapshotInfo, raftGroupId,
+            snapshotInfo.getFiles().size(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    @Override
+    public SnapshotInfo getLatestSnapshot() {
+        return storage.getLatestSnapshot();
     }
 
     @Override
@@ -68,6 +121,15 @@ public class HodorKVStateMachine extends HodorRaftStateMachine {
         return storage;
     }
 
+    private void restoreFromSnapshot(HodorKVSnapshotInfo snapshotInfo) throws IOException {
+        if (snapshotInfo == null) {
+            return;
+        }
+        storageEngine.getRawDBStore().restoreFromCheckpoint(storage.getSnapshotDir(snapshotInfo.getTerm(), snapshotInfo.getIndex()));
+        setLastAppliedTermIndex(snapshotInfo.getTermIndex());
+        log.info("Group {} restored from snapshot {}.", raftGroupId, snapshotInfo);
+    }
+
     @Override
     public CompletableFuture<Message> applyTransaction(TransactionContext trx) {
         try {
@@ -100,13 +162,69 @@ public class HodorKVStateMachine extends HodorRaftStateMachine {
     private Message runCommand(HodorKVRequest kvRequest, TermIndex termIndex) throws CodecException, IOException {
         final long term = termIndex.getTerm();
         final long trxLogIndex = termIndex.getIndex();
-        final HodorKVResponse hodorKVResponse = requestHandler.handleWriteRequest(kvRequest, trxLogIndex);
+        // 线性一致读通过日志执行，读到的是该日志之前所有写入的结果
+        final HodorKVResponse hodorKVResponse = kvRequest.getCmdType() != null && kvRequest.getCmdType().isReadOnly()
+            ? requestHandler.handleReadRequest(kvRequest)
+            : requestHandler.handleWriteRequest(kvRequest, trxLogIndex);
         updateLastAppliedTermIndex(termIndex);
         return Message.valueOf(ByteString.copyFrom(ProtostuffUtils.serialize(hodorKVResponse)));
     }
 
+    private void startLessorChecker() {
+        lessorExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "hodor-kv-lessor-" + raftGroupId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        lessorExecutor.scheduleWithFixedDelay(this::checkExpiredLeases, LESSOR_CHECK_INTERVAL_MS, LESSOR_CHECK_INTERVAL_MS,
+            TimeUnit.MILLISECONDS);
+    }
+
+    private void checkExpiredLeases() {
+        try {
+            final HodorKVLessor lessor = requestHandler.getLessor();
+            if (!raftServer.getDivision(raftGroupId).getInfo().isLeader()) {
+                lessorPromoted = false;
+                return;
+            }
+            if (!lessorPromoted) {
+                lessor.promote();
+                lessorPromoted = true;
+                return;
+            }
+            for (Long leaseId : lessor.expiredLeases()) {
+                log.info("Lease {} expired, revoke it.", leaseId);
+                // 撤销的日志应用之前不再重复提交
+                lessor.renew(leaseId);
+                final HodorKVRequest revokeRequest = HodorKVRequest.builder()
+                    .table(DBColumnFamily.HodorLease.getName())
+                    .cmdType(CmdType.LEASE_REVOKE)
+                    .leaseRequest(LeaseRequest.builder().leaseId(leaseId).build())
+                    .build();
+                raftServer.submitClientRequestAsync(RaftClientRequest.newBuilder()
+                        .setClientId(lessorClientId)
+                        .setServerId(raftServer.getId())
+                        .setGroupId(raftGroupId)
+                        .setCallId(lessorCallId.incrementAndGet())
+                        .setMessage(Message.valueOf(ByteString.copyFrom(ProtostuffUtils.serialize(revokeRequest))))
+                        .setType(RaftClientRequest.writeRequestType())
+                        .build())
+                    .whenComplete((reply, e) -> {
+                        if (e != null || !reply.isSuccess()) {
+                            log.warn("Revoke lease {} failed: {}", leaseId, e != null ? e.getMessage() : reply.getException());
+                        }
+                    });
+            }
+        } catch (Exception e) {
+            log.error("Check expired leases of group {} exception: {}", raftGroupId, e.getMessage(), e);
+        }
+    }
+
     @Override
     public void close() throws IOException {
+        if (lessorExecutor != null) {
+            lessorExecutor.shutdownNow();
+        }
         super.close();
     }
 
@@ -29,4 +29,16 @@ public interface KVConstant {
 
     String HODOR_CLIENT_ID = "hodor.client.id";
 
+    /**
+     * 客户端默认的读一致性级别，见{@link ReadConsistency}
+     */
+    String HODOR_READ_CONSISTENCY = "hodor.read.consistency";
+
+    /**
+     * 客户端会话租约的有效期，单位毫秒，客户端失联超过该时间后临时节点被删除
+     */
+    String HODOR_SESSION_TTL = "hodor.session.ttl";
+
+    long DEFAULT_SESSION_TTL = 10_000;
+
 }
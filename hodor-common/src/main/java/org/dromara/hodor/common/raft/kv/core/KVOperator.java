@@ -17,8 +17,10 @@
 
 package org.dromara.hodor.common.raft.kv.core;
 
+import java.util.Iterator;
 import java.util.List;
 import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.protocol.ScanResponse;
 
 /**
  * KVOperator
@@ -28,10 +30,28 @@ import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
  */
 public interface KVOperator extends AutoCloseable {
 
+    /**
+     * 当前读请求使用的一致性级别
+     */
+    ReadConsistency getReadConsistency();
+
+    /**
+     * 使用指定读一致性级别的operator，与当前operator共享同一个客户端连接
+     */
+    KVOperator withReadConsistency(ReadConsistency readConsistency);
+
     byte[] get(byte[] key);
 
     void put(byte[] key, byte[] value);
 
+    /**
+     * 写入绑定到租约的key，租约过期或撤销时删除
+     */
+    void put(byte[] key, byte[] value, long leaseId);
+
+    /**
+     * 写入绑定到客户端会话租约的key，会话租约由客户端自动续期，客户端关闭或失联后删除
+     */
     void putEphemeral(byte[] key, byte[] value);
 
     void delete(byte[] key);
@@ -39,4 +59,61 @@ public interface KVOperator extends AutoCloseable {
     Boolean containsKey(byte[] key);
 
     List<KVEntry> scan(byte[] startKey, byte[] endKey, boolean returnValue);
+
+    /**
+     * 分页扫描，返回的continuationToken作为下一页的startKey，为空时表示没有更多数据
+     */
+    ScanResponse scan(byte[] startKey, byte[] endKey, boolean returnValue, int limit);
+
+    /**
+     * 按页懒加载的扫描迭代器，内存中只保留一页数据；每页是一次独立的读取，不是同一时刻的快照
+     */
+    Iterator<KVEntry> scanIterator(byte[] startKey, byte[] endKey, boolean returnValue, int pageSize);
+
+    /**
+     * 一次请求读取多个key，按key的顺序返回，key不存在时value为null
+     */
+    List<KVEntry> multiGet(List<byte[]> keys);
+
+    /**
+     * 一次提交写入多个key，所有写入原子生效
+     */
+    void batchPut(List<KVEntry> entries);
+
+    /**
+     * 一次提交删除多个key，所有删除原子生效
+     */
+    void batchDelete(List<byte[]> keys);
+
+    /**
+     * 一次提交写入和删除，先写入putEntries再删除deleteKeys，所有操作原子生效
+     */
+    void batch(List<KVEntry> putEntries, List<byte[]> deleteKeys);
+
+    /**
+     * key的当前值等于expect时更新为update，expect为null表示key不存在，update为null表示删除key
+     *
+     * @return 是否更新成功
+     */
+    Boolean compareAndSet(byte[] key, byte[] expect, byte[] update);
+
+    /**
+     * 创建租约
+     *
+     * @param ttl 有效期，单位毫秒
+     * @return 租约id
+     */
+    long grantLease(long ttl);
+
+    /**
+     * 租约续期，只由leader处理，租约不存在时抛出异常
+     *
+     * @return 租约的有效期
+     */
+    long keepAliveLease(long leaseId);
+
+    /**
+     * 撤销租约，并删除绑定的key
+     */
+    void revokeLease(long leaseId);
 }
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hodor.common.raft.kv.core;
+
+/**
+ * 读一致性级别<br/>
+ *
+ * 1、LINEARIZABLE：读请求写入raft日志，由状态机按日志顺序执行，能读到请求发起前所有已提交的写入
+ * 2、LEASE：即原来的sendReadOnly读，在leader本地读取，不经过日志和心跳确认，并不是基于租约的读，leader切换的短暂期间可能读到旧数据
+ * 3、FOLLOWER：在客户端本地的raft节点读取，该节点可以是follower，保证不早于客户端已看到的日志索引，
+ *    本地节点落后或不可用时回退为LEASE读
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public enum ReadConsistency {
+
+    LINEARIZABLE,
+
+    LEASE,
+
+    FOLLOWER;
+
+    public static ReadConsistency of(String name, ReadConsistency defaultValue) {
+        if (name == null || name.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return ReadConsistency.valueOf(name.trim().toUpperCase());
+    }
+
+}
@@ -56,6 +56,13 @@ public interface RequestHandler {
      */
     HodorKVResponse handleWriteRequest(final HodorKVRequest request, final long transactionLogIndex) throws IOException;
 
+    /**
+     * 租约管理，状态机在恢复数据后重新加载租约，并在leader上检查租约过期
+     *
+     * @return HodorKVLessor
+     */
+    HodorKVLessor getLessor();
+
     /**
      * Update the OzoneManagerDoubleBuffer. This will be called when
      * stateMachine is unpaused and set with new doublebuffer object.
@@ -0,0 +1,24 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * BatchWriteRequest，所有写入在一个WriteBatch中原子提交，先写入putEntries再删除deleteKeys
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class BatchWriteRequest implements Serializable {
+
+    private static final long serialVersionUID = -2634237506288401318L;
+
+    private List<KVEntry> putEntries;
+
+    private List<byte[]> deleteKeys;
+
+}
@@ -11,5 +11,18 @@ public enum CmdType {
     PUT,
     DELETE,
     CONTAINS_KEY,
-    SCAN
+    SCAN,
+    MULTI_GET,
+    BATCH_WRITE,
+    COMPARE_AND_SET,
+    LEASE_GRANT,
+    LEASE_KEEPALIVE,
+    LEASE_REVOKE;
+
+    /**
+     * 只读命令，线性一致读时也可以通过raft日志执行；租约续期只刷新leader内存中的过期时间，不写日志
+     */
+    public boolean isReadOnly() {
+        return this == GET || this == CONTAINS_KEY || this == SCAN || this == MULTI_GET || this == LEASE_KEEPALIVE;
+    }
 }
@@ -0,0 +1,25 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * CompareAndSetRequest，expect为null表示key不存在，update为null表示删除key
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class CompareAndSetRequest implements Serializable {
+
+    private static final long serialVersionUID = 168861305326279203L;
+
+    private byte[] key;
+
+    private byte[] expect;
+
+    private byte[] update;
+
+}
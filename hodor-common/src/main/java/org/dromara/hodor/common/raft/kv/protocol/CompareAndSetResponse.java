@@ -0,0 +1,21 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * CompareAndSetResponse
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class CompareAndSetResponse implements Serializable {
+
+    private static final long serialVersionUID = -142991633185965927L;
+
+    private Boolean value;
+
+}
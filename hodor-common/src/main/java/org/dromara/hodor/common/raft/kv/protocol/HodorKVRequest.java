@@ -25,6 +25,10 @@ public class HodorKVRequest implements Serializable {
 
     private Long traceId;
 
+    /**
+     * 临时节点改为绑定租约，见{@link PutRequest#getLeaseId()}，保留该字段以兼容已写入日志的请求
+     */
+    @Deprecated
     private String sessionId;
 
     private GetRequest getRequest;
@@ -37,4 +41,12 @@ public class HodorKVRequest implements Serializable {
 
     private ScanRequest scanRequest;
 
+    private MultiGetRequest multiGetRequest;
+
+    private BatchWriteRequest batchWriteRequest;
+
+    private CompareAndSetRequest compareAndSetRequest;
+
+    private LeaseRequest leaseRequest;
+
 }
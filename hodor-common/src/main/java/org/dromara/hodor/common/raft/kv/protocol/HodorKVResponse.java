@@ -37,4 +37,10 @@ public class HodorKVResponse implements Serializable {
 
     private ScanResponse scanResponse;
 
+    private MultiGetResponse multiGetResponse;
+
+    private CompareAndSetResponse compareAndSetResponse;
+
+    private LeaseResponse leaseResponse;
+
 }
@@ -0,0 +1,23 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 绑定到租约上的key
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@AllArgsConstructor
+public class LeaseKey implements Serializable {
+
+    private static final long serialVersionUID = 5906281373506130147L;
+
+    private String table;
+
+    private byte[] key;
+
+}
@@ -0,0 +1,26 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * LeaseRequest
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class LeaseRequest implements Serializable {
+
+    private static final long serialVersionUID = 4113096522871632508L;
+
+    private Long leaseId;
+
+    /**
+     * 租约有效期，单位毫秒，创建租约时使用
+     */
+    private Long ttl;
+
+}
@@ -0,0 +1,29 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * LeaseResponse
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class LeaseResponse implements Serializable {
+
+    private static final long serialVersionUID = -6370961364738105470L;
+
+    private Long leaseId;
+
+    private Long ttl;
+
+    /**
+     * 撤销租约时删除的key
+     */
+    private List<LeaseKey> revokedKeys;
+
+}
@@ -0,0 +1,22 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * MultiGetRequest
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class MultiGetRequest implements Serializable {
+
+    private static final long serialVersionUID = 3623506594224625622L;
+
+    private List<byte[]> keys;
+
+}
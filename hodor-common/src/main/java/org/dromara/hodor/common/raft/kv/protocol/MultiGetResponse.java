@@ -0,0 +1,22 @@
+package org.dromara.hodor.common.raft.kv.protocol;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * MultiGetResponse，按请求key的顺序返回，key不存在时value为null
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@Builder
+public class MultiGetResponse implements Serializable {
+
+    private static final long serialVersionUID = -175727446399662204L;
+
+    private List<KVEntry> value;
+
+}
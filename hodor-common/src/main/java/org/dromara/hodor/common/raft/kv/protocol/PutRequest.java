@@ -20,4 +20,9 @@ public class PutRequest implements Serializable {
 
     private byte[] value;
 
+    /**
+     * 绑定的租约，租约过期或撤销时删除该key
+     */
+    private Long leaseId;
+
 }
@@ -39,4 +39,9 @@ public class ScanRequest implements Serializable {
 
     private boolean returnValue;
 
+    /**
+     * 每页最多返回的条数，为空时返回全部
+     */
+    private Integer limit;
+
 }
@@ -35,4 +35,9 @@ public class ScanResponse implements Serializable {
     private static final long serialVersionUID = 3464023115605125703L;
 
     private List<KVEntry> value;
+
+    /**
+     * 下一页的起始key，作为下一次请求的startKey，为空时表示没有更多数据
+     */
+    private byte[] continuationToken;
 }
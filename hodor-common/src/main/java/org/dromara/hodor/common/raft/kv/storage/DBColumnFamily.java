@@ -91,6 +91,20 @@ public enum DBColumnFamily {
             return name;
         }
 
+        @Override
+        public ColumnFamilyDescriptor getColumnFamilyDescriptor(ColumnFamilyOptions cfOptions) {
+            return new ColumnFamilyDescriptor(BytesUtil.writeUtf8(name), cfOptions);
+        }
+    },
+
+    HodorLease {
+        final String name = "hodor_lease";
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
         @Override
         public ColumnFamilyDescriptor getColumnFamilyDescriptor(ColumnFamilyOptions cfOptions) {
             return new ColumnFamilyDescriptor(BytesUtil.writeUtf8(name), cfOptions);
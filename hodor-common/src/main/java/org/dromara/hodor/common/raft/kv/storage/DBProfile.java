@@ -23,10 +23,12 @@ import java.math.BigDecimal;
 import org.dromara.hodor.common.utils.StorageUnit;
 import org.rocksdb.BlockBasedTableConfig;
 import org.rocksdb.BloomFilter;
+import org.rocksdb.Cache;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.CompactionStyle;
 import org.rocksdb.DBOptions;
 import org.rocksdb.LRUCache;
+import org.rocksdb.Statistics;
 
 /**
  * User visible configs based RocksDB tuning page. Documentation for Options.
@@ -46,14 +48,14 @@ public enum DBProfile {
     }
 
     @Override
-    public ColumnFamilyOptions getColumnFamilyOptions() {
+    public ColumnFamilyOptions getColumnFamilyOptions(Cache blockCache) {
       // Write Buffer Size -- set to 128 MB
       final long writeBufferSize = toLong(StorageUnit.MB.toBytes(128));
 
       return new ColumnFamilyOptions()
           .setLevelCompactionDynamicLevelBytes(true)
           .setWriteBufferSize(writeBufferSize)
-          .setTableFormatConfig(getBlockBasedTableConfig());
+          .setTableFormatConfig(getBlockBasedTableConfig(blockCache));
     }
 
     @Override
@@ -71,15 +73,12 @@ public enum DBProfile {
     }
 
     @Override
-    public BlockBasedTableConfig getBlockBasedTableConfig() {
-      // Set BlockCacheSize to 256 MB. This should not be an issue for HADOOP.
-      final long blockCacheSize = toLong(StorageUnit.MB.toBytes(256.00));
-
+    public BlockBasedTableConfig getBlockBasedTableConfig(Cache blockCache) {
       // Set the Default block size to 16KB
       final long blockSize = toLong(StorageUnit.KB.toBytes(16));
 
       return new BlockBasedTableConfig()
-          .setBlockCache(new LRUCache(blockCacheSize))
+          .setBlockCache(blockCache)
           .setBlockSize(blockSize)
           .setPinL0FilterAndIndexBlocksInCache(true)
           .setFilterPolicy(new BloomFilter());
@@ -99,18 +98,23 @@ public enum DBProfile {
     }
 
     @Override
-    public ColumnFamilyOptions getColumnFamilyOptions() {
-      ColumnFamilyOptions columnFamilyOptions = SSD.getColumnFamilyOptions();
+    public ColumnFamilyOptions getColumnFamilyOptions(Cache blockCache) {
+      ColumnFamilyOptions columnFamilyOptions = SSD.getColumnFamilyOptions(blockCache);
       columnFamilyOptions.setCompactionStyle(CompactionStyle.LEVEL);
       return columnFamilyOptions;
     }
 
     @Override
-    public BlockBasedTableConfig getBlockBasedTableConfig() {
-      return SSD.getBlockBasedTableConfig();
+    public BlockBasedTableConfig getBlockBasedTableConfig(Cache blockCache) {
+      return SSD.getBlockBasedTableConfig(blockCache);
     }
   };
 
+  /**
+   * Default block cache size, 256 MB. This should not be an issue for HADOOP.
+   */
+  public static final long DEFAULT_BLOCK_CACHE_SIZE = toLong(StorageUnit.MB.toBytes(256.00));
+
   private static long toLong(double value) {
     BigDecimal temp = BigDecimal.valueOf(value);
     return temp.longValue();
@@ -118,7 +122,35 @@ public enum DBProfile {
 
   public abstract DBOptions getDBOptions();
 
-  public abstract ColumnFamilyOptions getColumnFamilyOptions();
+  /**
+   * DB options with statistics collecting, the statistics is not collected
+   * if it is null.
+   *
+   * @param statistics statistics shared by all column families
+   */
+  public DBOptions getDBOptions(Statistics statistics) {
+    final DBOptions dbOptions = getDBOptions();
+    if (statistics != null) {
+      dbOptions.setStatistics(statistics);
+    }
+    return dbOptions;
+  }
+
+  public ColumnFamilyOptions getColumnFamilyOptions() {
+    return getColumnFamilyOptions(new LRUCache(DEFAULT_BLOCK_CACHE_SIZE));
+  }
+
+  /**
+   * Column family options using the given block cache, pass the same cache
+   * to all column families so that they share the memory budget.
+   *
+   * @param blockCache block cache
+   */
+  public abstract ColumnFamilyOptions getColumnFamilyOptions(Cache blockCache);
+
+  public BlockBasedTableConfig getBlockBasedTableConfig() {
+    return getBlockBasedTableConfig(new LRUCache(DEFAULT_BLOCK_CACHE_SIZE));
+  }
 
-  public abstract BlockBasedTableConfig getBlockBasedTableConfig();
+  public abstract BlockBasedTableConfig getBlockBasedTableConfig(Cache blockCache);
 }
@@ -1,5 +1,6 @@
 package org.dromara.hodor.common.raft.kv.storage;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -9,7 +10,7 @@ import java.util.ArrayList;
  * @author tomgs
  * @since 1.0
  */
-public interface DBStore extends AutoCloseable {
+public interface DBStore extends BatchOperationHandler, AutoCloseable {
 
     void init() throws Exception;
 
@@ -50,4 +51,22 @@ public interface DBStore extends AutoCloseable {
      */
     void compactDB() throws IOException;
 
+    /**
+     * Create a consistent checkpoint of all tables into the given directory,
+     * the directory must not exist.
+     *
+     * @param checkpointDir checkpoint directory
+     * @throws IOException on Failure
+     */
+    void createCheckpoint(File checkpointDir) throws IOException;
+
+    /**
+     * Replace the whole DB with the data of the given checkpoint and reopen it,
+     * reads and writes issued through the store or its tables block until restoring finishes.
+     *
+     * @param checkpointDir checkpoint directory
+     * @throws IOException on Failure
+     */
+    void restoreFromCheckpoint(File checkpointDir) throws IOException;
+
 }
@@ -1,5 +1,6 @@
 package org.dromara.hodor.common.raft.kv.storage;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -32,6 +33,16 @@ public class MemDBStore implements DBStore {
         return null;
     }
 
+    @Override
+    public BatchOperation initBatchOperation() {
+        return null;
+    }
+
+    @Override
+    public void commitBatchOperation(BatchOperation operation) throws IOException {
+
+    }
+
     @Override
     public void flushDB() throws IOException {
 
@@ -47,6 +58,16 @@ public class MemDBStore implements DBStore {
 
     }
 
+    @Override
+    public void createCheckpoint(File checkpointDir) throws IOException {
+        throw new IOException("Memory storage does not support checkpoint.");
+    }
+
+    @Override
+    public void restoreFromCheckpoint(File checkpointDir) throws IOException {
+        throw new IOException("Memory storage does not support checkpoint.");
+    }
+
     @Override
     public void close() {
 
@@ -49,6 +49,21 @@ public class MemDBTable implements Table<byte[], byte[]> {
 
     }
 
+    @Override
+    public void putWithBatch(BatchOperation batch, byte[] key, byte[] value) throws IOException {
+
+    }
+
+    @Override
+    public void deleteWithBatch(BatchOperation batch, byte[] key) throws IOException {
+
+    }
+
+    @Override
+    public List<byte[]> multiGet(List<byte[]> keys) throws IOException {
+        return null;
+    }
+
     @Override
     public TableIterator<byte[], ? extends KeyValue<byte[], byte[]>> iterator() {
         return null;
@@ -69,6 +84,11 @@ public class MemDBTable implements Table<byte[], byte[]> {
         return null;
     }
 
+    @Override
+    public List<KVEntry> scan(byte[] startKey, byte[] endKey, boolean returnValue, int limit) {
+        return null;
+    }
+
     @Override
     public Boolean containsKey(byte[] key) {
         return null;
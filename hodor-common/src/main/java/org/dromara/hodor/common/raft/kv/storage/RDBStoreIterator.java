@@ -38,6 +38,8 @@ public class RDBStoreIterator
 
     private ByteArrayKeyValue currentEntry;
 
+    private Runnable closeHook;
+
     public RDBStoreIterator(RocksIterator iterator) {
         this.rocksDBIterator = iterator;
         seekToFirst();
@@ -48,6 +50,14 @@ public class RDBStoreIterator
         this.rocksDBTable = table;
     }
 
+    /**
+     * 迭代器持有数据库实例的引用，关闭时通过closeHook释放
+     */
+    public RDBStoreIterator(RocksIterator iterator, RocksDBTable table, Runnable closeHook) {
+        this(iterator, table);
+        this.closeHook = closeHook;
+    }
+
     @Override
     public void forEachRemaining(
         Consumer<? super ByteArrayKeyValue> action) {
@@ -114,5 +124,9 @@ public class RDBStoreIterator
     @Override
     public void close() throws IOException {
         rocksDBIterator.close();
+        if (closeHook != null) {
+            closeHook.run();
+            closeHook = null;
+        }
     }
 }
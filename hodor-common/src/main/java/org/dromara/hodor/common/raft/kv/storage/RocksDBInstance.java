@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hodor.common.raft.kv.storage;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+
+/**
+ * 一次打开的RocksDB实例及其列族句柄<br/>
+ *
+ * 1、访问native句柄前按线程分段登记引用，各线程落在不同的缓存行上，读写路径不竞争共享锁
+ * 2、关闭时先标记，之后的登记失败由调用方重试，再等已登记的读写和迭代器全部结束才释放native句柄
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+final class RocksDBInstance {
+
+    private static final int STRIPES = 64;
+
+    // 每个分段独占128字节，避免伪共享
+    private static final int PADDING = 16;
+
+    private static final long BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final RocksDB db;
+
+    private final Map<String, ColumnFamilyHandle> handles;
+
+    private final AtomicLongArray refs = new AtomicLongArray(STRIPES * PADDING);
+
+    private volatile boolean closed;
+
+    RocksDBInstance(final RocksDB db, final Map<String, ColumnFamilyHandle> handles) {
+        this.db = db;
+        this.handles = handles;
+    }
+
+    RocksDB db() {
+        return db;
+    }
+
+    Map<String, ColumnFamilyHandle> handles() {
+        return handles;
+    }
+
+    /**
+     * 当前线程的引用分段，迭代器可能在其他线程关闭，需要记下创建时的分段
+     */
+    static int currentSlot() {
+        return (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+    }
+
+    /**
+     * 登记一次访问，实例已关闭时返回false
+     */
+    boolean tryAcquire(final int slot) {
+        refs.incrementAndGet(slot);
+        if (closed) {
+            refs.decrementAndGet(slot);
+            return false;
+        }
+        return true;
+    }
+
+    void release(final int slot) {
+        refs.decrementAndGet(slot);
+    }
+
+    /**
+     * 标记关闭并等待已登记的访问结束后关闭native句柄，只能由一个线程调用
+     */
+    void close() {
+        closed = true;
+        for (int i = 0; i < STRIPES; i++) {
+            while (refs.get(i * PADDING) != 0) {
+                LockSupport.parkNanos(BACKOFF_NANOS);
+            }
+        }
+        for (final ColumnFamilyHandle handle : handles.values()) {
+            handle.close();
+        }
+        db.close();
+    }
+
+    /**
+     * 实例已关闭、新实例尚未打开时调用方短暂等待后重试
+     */
+    static void backoff() {
+        LockSupport.parkNanos(BACKOFF_NANOS);
+    }
+
+}
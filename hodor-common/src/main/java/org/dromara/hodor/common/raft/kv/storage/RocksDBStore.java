@@ -2,27 +2,40 @@ package org.dromara.hodor.common.raft.kv.storage;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.dromara.hodor.common.raft.kv.exception.StorageDBException;
 import org.dromara.hodor.common.utils.BytesUtil;
+import org.rocksdb.Cache;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
 import org.rocksdb.DBOptions;
 import org.rocksdb.FlushOptions;
+import org.rocksdb.LRUCache;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.Statistics;
 import org.rocksdb.WriteOptions;
 
 import static org.dromara.hodor.common.raft.kv.exception.ExceptionHelper.toIOException;
 
 /**
- * RocksDBStore
+ * RocksDBStore<br/>
+ *
+ * 1、每个列族对应一个缓存的RocksDBTable，打开数据库时创建，从快照恢复后重新绑定，关闭store时失效
+ * 2、读写使用的options对象在store内共享，随store一起关闭
+ * 3、所有列族共享同一个块缓存，可选开启统计信息
+ * 4、读写不加锁，只在当前RocksDBInstance上登记引用；从快照恢复和关闭时等已登记的读写结束后再关闭native句柄，避免JVM崩溃
  *
  * @author tomgs
  * @since 1.0
@@ -30,6 +43,10 @@ import static org.dromara.hodor.common.raft.kv.exception.ExceptionHelper.toIOExc
 @Slf4j
 public class RocksDBStore implements DBStore {
 
+    private static final String SST_FILE_SUFFIX = ".sst";
+
+    private static final String MD5_FILE_SUFFIX = ".md5";
+
     static {
         RocksDB.loadLibrary();
     }
@@ -38,30 +55,40 @@ public class RocksDBStore implements DBStore {
 
     private final WriteOptions writeOptions;
 
-    private final Map<String, ColumnFamilyHandle> handleTable;
+    private final ReadOptions readOptions;
+
+    private final ReadOptions iteratorReadOptions;
+
+    private final Cache blockCache;
+
+    private final Statistics statistics;
+
+    private final Map<String, RocksDBTable> tables;
 
     private final ColumnFamilyOptions cfOptions;
 
     private final List<ColumnFamilyDescriptor> cfDescriptors;
 
-    private final List<ColumnFamilyHandle> columnFamilyHandles;
-
     private final File dbPath;
 
-    private RocksDB rocksDB;
+    private volatile RocksDBInstance instance;
 
     public RocksDBStore(final StorageOptions storageOptions) {
-        this.handleTable = new HashMap<>();
+        this.tables = new ConcurrentHashMap<>();
         this.cfDescriptors = new ArrayList<>();
-        this.columnFamilyHandles = new ArrayList<>();
         this.writeOptions = createWriteOptions(storageOptions);
-        this.dbOptions = createDBOptions(storageOptions);
-        this.cfOptions = createColumnFamilyOptions(storageOptions);
+        this.readOptions = new ReadOptions();
+        // 全表遍历不填充块缓存，避免冲掉热点数据
+        this.iteratorReadOptions = new ReadOptions().setFillCache(false);
+        this.blockCache = storageOptions.getBlockCacheSize() > 0 ? new LRUCache(storageOptions.getBlockCacheSize()) : null;
+        this.statistics = storageOptions.isStatisticsEnabled() ? new Statistics() : null;
+        this.dbOptions = createDBOptions(storageOptions, statistics);
+        this.cfOptions = createColumnFamilyOptions(storageOptions, blockCache);
         this.dbPath = storageOptions.getStoragePath();
     }
 
-    private ColumnFamilyOptions createColumnFamilyOptions(StorageOptions storageOptions) {
-        return storageOptions.getStorageProfile().getColumnFamilyOptions();
+    private static ColumnFamilyOptions createColumnFamilyOptions(StorageOptions storageOptions, Cache blockCache) {
+        return storageOptions.getStorageProfile().getColumnFamilyOptions(blockCache);
     }
 
     private static WriteOptions createWriteOptions(StorageOptions opts) {
@@ -74,88 +101,163 @@ public class RocksDBStore implements DBStore {
 
     // Creates the rocksDB options, the user must take care
     // to close it after closing db.
-    private static DBOptions createDBOptions(StorageOptions opts) {
-        return opts.getStorageProfile().getDBOptions();
+    private static DBOptions createDBOptions(StorageOptions opts, Statistics statistics) {
+        return opts.getStorageProfile().getDBOptions(statistics);
     }
 
     @Override
     public void init() {
-        try {
-            createDbPath(this.dbPath);
-            // default column family
-            this.cfDescriptors.add(DBColumnFamily.Default.getColumnFamilyDescriptor(cfOptions));
-            this.cfDescriptors.add(DBColumnFamily.HodorRaft.getColumnFamilyDescriptor(cfOptions));
-            this.cfDescriptors.add(DBColumnFamily.HodorWatch.getColumnFamilyDescriptor(cfOptions));
-            this.cfDescriptors.add(DBColumnFamily.HodorWrite.getColumnFamilyDescriptor(cfOptions));
-            this.cfDescriptors.add(DBColumnFamily.HodorLock.getColumnFamilyDescriptor(cfOptions));
-            this.cfDescriptors.add(DBColumnFamily.HodorSeq.getColumnFamilyDescriptor(cfOptions));
-            // open db
-            this.rocksDB = RocksDB.open(this.dbOptions, dbPath.getPath(), this.cfDescriptors, this.columnFamilyHandles);
+        createDbPath(this.dbPath);
+        // default column family
+        this.cfDescriptors.add(DBColumnFamily.Default.getColumnFamilyDescriptor(cfOptions));
+        this.cfDescriptors.add(DBColumnFamily.HodorRaft.getColumnFamilyDescriptor(cfOptions));
+        this.cfDescriptors.add(DBColumnFamily.HodorWatch.getColumnFamilyDescriptor(cfOptions));
+        this.cfDescriptors.add(DBColumnFamily.HodorWrite.getColumnFamilyDescriptor(cfOptions));
+        this.cfDescriptors.add(DBColumnFamily.HodorLock.getColumnFamilyDescriptor(cfOptions));
+        this.cfDescriptors.add(DBColumnFamily.HodorSeq.getColumnFamilyDescriptor(cfOptions));
+        this.cfDescriptors.add(DBColumnFamily.HodorLease.getColumnFamilyDescriptor(cfOptions));
+        openDB();
 
+        if (log.isDebugEnabled()) {
+            log.debug("RocksDB successfully opened.");
+            log.debug("[Option] dbPath = {}", dbPath.getAbsolutePath());
+            log.debug("[Option] createIfMissing = {}", dbOptions.createIfMissing());
+            log.debug("[Option] maxOpenFiles= {}", dbOptions.maxOpenFiles());
+        }
+    }
+
+    private void openDB() {
+        try {
+            final List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>();
+            final RocksDB rocksDB = RocksDB.open(this.dbOptions, dbPath.getPath(), this.cfDescriptors, columnFamilyHandles);
+            final Map<String, ColumnFamilyHandle> handleTable = new HashMap<>();
             for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
                 handleTable.put(BytesUtil.readUtf8(columnFamilyHandle.getName()), columnFamilyHandle);
             }
+            final RocksDBInstance opened = new RocksDBInstance(rocksDB, handleTable);
+            for (String name : handleTable.keySet()) {
+                tables.computeIfAbsent(name, k -> new RocksDBTable(k, writeOptions, readOptions, iteratorReadOptions))
+                    .bind(opened);
+            }
+            this.instance = opened;
         } catch (RocksDBException e) {
             throw new StorageDBException("Init DB exception: " + e.getMessage(), e);
         }
+    }
 
-        if (log.isDebugEnabled()) {
-            log.debug("RocksDB successfully opened.");
-            log.debug("[Option] dbPath = {}", dbPath.getAbsolutePath());
-            log.debug("[Option] createIfMissing = {}", dbOptions.createIfMissing());
-            log.debug("[Option] maxOpenFiles= {}", dbOptions.maxOpenFiles());
+    /**
+     * 解除绑定并关闭当前实例，恢复快照时保留绑定，读写等待新实例打开
+     */
+    private void closeDB(boolean unbind) {
+        final RocksDBInstance current = instance;
+        if (unbind) {
+            unbindTables();
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void unbindTables() {
+        instance = null;
+        tables.values().forEach(RocksDBTable::unbind);
+    }
+
+    private RocksDBInstance acquire(int slot) throws IOException {
+        for (;;) {
+            final RocksDBInstance current = instance;
+            if (current == null) {
+                throw new IOException("RocksDB " + dbPath + " is closed.");
+            }
+            if (current.tryAcquire(slot)) {
+                return current;
+            }
+            RocksDBInstance.backoff();
         }
     }
 
     @Override
     public Table<byte[], byte[]> getTable(String name) throws IOException {
-        ColumnFamilyHandle handle = handleTable.get(name);
-        if (handle == null) {
+        final RocksDBTable table = tables.get(name);
+        if (table == null) {
             throw new IOException("No such table in this DB. TableName : " + name);
         }
-        return new RocksDBTable(this.rocksDB, handle, this.writeOptions);
+        return table;
     }
 
     @Override
     public ArrayList<Table<byte[], byte[]>> listTables() {
-        ArrayList<Table<byte[], byte[]>> returnList = new ArrayList<>();
-        for (ColumnFamilyHandle handle : handleTable.values()) {
-            returnList.add(new RocksDBTable(rocksDB, handle, writeOptions));
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * 未开启统计时返回null
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public BatchOperation initBatchOperation() {
+        return new RocksDBBatchOperation();
+    }
+
+    @Override
+    public void commitBatchOperation(BatchOperation operation) throws IOException {
+        final int slot = RocksDBInstance.currentSlot();
+        final RocksDBInstance current = acquire(slot);
+        try {
+            ((RocksDBBatchOperation) operation).commit(current.db(), writeOptions);
+        } finally {
+            current.release(slot);
         }
-        return returnList;
     }
 
     @Override
     public void flushDB() throws IOException {
+        final int slot = RocksDBInstance.currentSlot();
+        final RocksDBInstance current = acquire(slot);
         try (FlushOptions flushOptions = new FlushOptions()) {
             flushOptions.setWaitForFlush(true);
-            rocksDB.flush(flushOptions);
+            current.db().flush(flushOptions);
         } catch (RocksDBException e) {
             throw toIOException("Unable to Flush RocksDB data", e);
+        } finally {
+            current.release(slot);
         }
     }
 
     @Override
     public void flushLog(boolean sync) throws IOException {
-        if (rocksDB != null) {
-            try {
-                // for RocksDB it is sufficient to flush the WAL as entire db can
-                // be reconstructed using it.
-                rocksDB.flushWal(sync);
-            } catch (RocksDBException e) {
-                throw toIOException("Failed to flush db", e);
-            }
+        if (instance == null) {
+            return;
+        }
+        final int slot = RocksDBInstance.currentSlot();
+        final RocksDBInstance current = acquire(slot);
+        try {
+            // for RocksDB it is sufficient to flush the WAL as entire db can
+            // be reconstructed using it.
+            current.db().flushWal(sync);
+        } catch (RocksDBException e) {
+            throw toIOException("Failed to flush db", e);
+        } finally {
+            current.release(slot);
         }
     }
 
     @Override
     public void compactDB() throws IOException {
-        if (rocksDB != null) {
-            try {
-                rocksDB.compactRange();
-            } catch (RocksDBException e) {
-                throw toIOException("Failed to compact db", e);
-            }
+        if (instance == null) {
+            return;
+        }
+        final int slot = RocksDBInstance.currentSlot();
+        final RocksDBInstance current = acquire(slot);
+        try {
+            current.db().compactRange();
+        } catch (RocksDBException e) {
+            throw toIOException("Failed to compact db", e);
+        } finally {
+            current.release(slot);
         }
     }
 
@@ -170,17 +272,64 @@ public class RocksDBStore implements DBStore {
     }
 
     @Override
-    public void close() {
-        for (final ColumnFamilyHandle handle : handleTable.values()) {
-            handle.close();
+    public void createCheckpoint(File checkpointDir) throws IOException {
+        // checkpoint会先刷入memtable，关闭WAL时也能得到完整的数据
+        final int slot = RocksDBInstance.currentSlot();
+        final RocksDBInstance current = acquire(slot);
+        try (Checkpoint checkpoint = Checkpoint.create(current.db())) {
+            checkpoint.createCheckpoint(checkpointDir.getAbsolutePath());
+        } catch (RocksDBException e) {
+            throw toIOException("Unable to create RocksDB checkpoint " + checkpointDir, e);
+        } finally {
+            current.release(slot);
         }
+    }
 
-        cfOptions.close();
-
-        if (rocksDB != null) {
-            rocksDB.close();
-            rocksDB = null;
+    @Override
+    public void restoreFromCheckpoint(File checkpointDir) throws IOException {
+        final File[] files = checkpointDir.listFiles(File::isFile);
+        if (files == null) {
+            throw new IOException("Checkpoint dir " + checkpointDir + " not exists.");
         }
+        // 等待进行中的读写和迭代器结束，恢复期间的读写等到新实例打开后重试
+        boolean restored = false;
+        try {
+            closeDB(false);
+            FileUtils.deleteDirectory(dbPath);
+            createDbPath(dbPath);
+            for (File file : files) {
+                final Path target = new File(dbPath, file.getName()).toPath();
+                if (file.getName().endsWith(SST_FILE_SUFFIX)) {
+                    // sst文件不会被修改，使用硬链接避免复制
+                    try {
+                        Files.createLink(target, file.toPath());
+                        continue;
+                    } catch (IOException | UnsupportedOperationException e) {
+                        log.debug("Link {} failed, fallback to copy, msg: {}", file, e.getMessage());
+                    }
+                }
+                // 跳过安装快照时生成的md5校验文件
+                if (!file.getName().endsWith(MD5_FILE_SUFFIX)) {
+                    Files.copy(file.toPath(), target);
+                }
+            }
+            openDB();
+            restored = true;
+        } finally {
+            if (!restored) {
+                // 恢复失败时不再让读写等待已关闭的实例
+                unbindTables();
+            }
+        }
+        log.info("RocksDB {} restored from checkpoint {}.", dbPath, checkpointDir);
+    }
+
+    @Override
+    public void close() {
+        closeDB(true);
+        tables.clear();
+
+        cfOptions.close();
 
         if (dbOptions != null) {
             dbOptions.close();
@@ -189,6 +338,17 @@ public class RocksDBStore implements DBStore {
         if (writeOptions != null) {
             writeOptions.close();
         }
+
+        readOptions.close();
+        iteratorReadOptions.close();
+
+        if (blockCache != null) {
+            blockCache.close();
+        }
+
+        if (statistics != null) {
+            statistics.close();
+        }
     }
 
 }
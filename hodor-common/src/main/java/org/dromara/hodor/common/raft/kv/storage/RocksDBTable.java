@@ -20,13 +20,10 @@ package org.dromara.hodor.common.raft.kv.storage;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import lombok.extern.slf4j.Slf4j;
-import org.dromara.hodor.common.concurrent.LockUtil;
 import org.dromara.hodor.common.raft.kv.exception.StorageDBException;
 import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
 import org.dromara.hodor.common.utils.BytesUtil;
@@ -39,7 +36,10 @@ import org.rocksdb.RocksIterator;
 import org.rocksdb.WriteOptions;
 
 /**
- * RocksDB Table
+ * RocksDB Table<br/>
+ *
+ * 1、RocksDB本身是线程安全的，读写不加锁，只在RocksDBInstance上按线程分段登记引用，防止从快照恢复时访问已关闭的句柄
+ * 2、每个列族只有一个实例，由RocksDBStore缓存，从快照恢复后重新绑定数据库和列族句柄，options对象由store共享和关闭
  *
  * @author tomgs
  * @since 1.0
@@ -47,38 +47,72 @@ import org.rocksdb.WriteOptions;
 @Slf4j
 public class RocksDBTable implements Table<byte[], byte[]> {
 
-    private final RocksDB db;
-
-    private final ColumnFamilyHandle handle;
+    private final String name;
 
     private final WriteOptions writeOptions;
 
-    private final ReadWriteLock readWriteLock;
+    private final ReadOptions readOptions;
 
-    RocksDBTable(final RocksDB db, final ColumnFamilyHandle handle,
-                 final WriteOptions writeOptions) {
-        Objects.requireNonNull(db, "RocksDB instance must be not null.");
-        Objects.requireNonNull(handle, "ColumnFamilyHandle instance must be not null.");
+    private final ReadOptions iteratorReadOptions;
+
+    private volatile Binding binding;
+
+    RocksDBTable(final String name, final WriteOptions writeOptions, final ReadOptions readOptions,
+                 final ReadOptions iteratorReadOptions) {
         Objects.requireNonNull(writeOptions, "Write option must be not null.");
-        this.db = db;
-        this.handle = handle;
+        Objects.requireNonNull(readOptions, "Read option must be not null.");
+        Objects.requireNonNull(iteratorReadOptions, "Iterator read option must be not null.");
+        this.name = name;
         this.writeOptions = writeOptions;
-        this.readWriteLock = new ReentrantReadWriteLock();
+        this.readOptions = readOptions;
+        this.iteratorReadOptions = iteratorReadOptions;
+    }
+
+    /**
+     * 绑定到新打开的实例
+     */
+    void bind(final RocksDBInstance instance) {
+        final ColumnFamilyHandle handle = instance.handles().get(name);
+        Objects.requireNonNull(handle, "ColumnFamilyHandle instance must be not null.");
+        this.binding = new Binding(instance, handle);
+    }
+
+    /**
+     * 解除绑定，之后的读写抛出异常
+     */
+    void unbind() {
+        this.binding = null;
+    }
+
+    /**
+     * 登记对当前实例的访问，实例正在恢复时等待新实例绑定
+     */
+    private Binding acquire(final int slot) {
+        for (;;) {
+            final Binding current = binding;
+            if (current == null) {
+                throw new StorageDBException("RocksDB is closed.");
+            }
+            if (current.instance.tryAcquire(slot)) {
+                return current;
+            }
+            RocksDBInstance.backoff();
+        }
     }
 
     @Override
     public void put(byte[] key, byte[] value) throws IOException {
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
         final Timer.Context timeCtx = Table.getTimeContext("PUT");
-        LockUtil.lockMethod(readWriteLock.writeLock(), (k, v) -> {
-            try {
-                db.put(handle, writeOptions, k, v);
-                return null;
-            } catch (RocksDBException e) {
-                throw new StorageDBException("PUT exception: " + e.getMessage(), e);
-            } finally {
-                timeCtx.stop();
-            }
-        }, key, value);
+        try {
+            current.db().put(current.handle, writeOptions, key, value);
+        } catch (RocksDBException e) {
+            throw new StorageDBException("PUT exception: " + e.getMessage(), e);
+        } finally {
+            timeCtx.stop();
+            current.instance.release(slot);
+        }
     }
 
     @Override
@@ -91,74 +125,131 @@ public class RocksDBTable implements Table<byte[], byte[]> {
 
     @Override
     public byte[] get(byte[] key) throws IOException {
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
         final Timer.Context timeCtx = Table.getTimeContext("GET");
-        return LockUtil.lockMethod(readWriteLock.readLock(), k -> {
-            try {
-                return db.get(handle, k);
-            } catch (RocksDBException e) {
-                throw new StorageDBException("GET exception: " + e.getMessage(), e);
-            } finally {
-                timeCtx.stop();
-            }
-        }, key);
+        try {
+            return current.db().get(current.handle, readOptions, key);
+        } catch (RocksDBException e) {
+            throw new StorageDBException("GET exception: " + e.getMessage(), e);
+        } finally {
+            timeCtx.stop();
+            current.instance.release(slot);
+        }
     }
 
     @Override
     public void delete(byte[] key) throws IOException {
-        final Timer.Context timeCtx = Table.getTimeContext("GET");
-        LockUtil.lockMethod(readWriteLock.readLock(), k -> {
-            try {
-                db.delete(handle, key);
-                return null;
-            } catch (RocksDBException e) {
-                throw new StorageDBException("DELETE exception: " + e.getMessage(), e);
-            } finally {
-                timeCtx.stop();
-            }
-        }, key);
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
+        final Timer.Context timeCtx = Table.getTimeContext("DELETE");
+        try {
+            current.db().delete(current.handle, writeOptions, key);
+        } catch (RocksDBException e) {
+            throw new StorageDBException("DELETE exception: " + e.getMessage(), e);
+        } finally {
+            timeCtx.stop();
+            current.instance.release(slot);
+        }
     }
 
     @Override
-    public TableIterator<byte[], ByteArrayKeyValue> iterator() {
-        ReadOptions readOptions = new ReadOptions();
-        readOptions.setFillCache(false);
-        return new RDBStoreIterator(db.newIterator(handle, readOptions), this);
+    public void putWithBatch(BatchOperation batch, byte[] key, byte[] value) throws IOException {
+        if (!(batch instanceof RocksDBBatchOperation)) {
+            throw new IllegalArgumentException("batch should be RocksDBBatchOperation");
+        }
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
+        try {
+            ((RocksDBBatchOperation) batch).put(current.handle, key, value);
+        } finally {
+            current.instance.release(slot);
+        }
     }
 
     @Override
-    public String getName() throws IOException {
+    public void deleteWithBatch(BatchOperation batch, byte[] key) throws IOException {
+        if (!(batch instanceof RocksDBBatchOperation)) {
+            throw new IllegalArgumentException("batch should be RocksDBBatchOperation");
+        }
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
+        try {
+            ((RocksDBBatchOperation) batch).delete(current.handle, key);
+        } finally {
+            current.instance.release(slot);
+        }
+    }
+
+    @Override
+    public List<byte[]> multiGet(List<byte[]> keys) throws IOException {
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
+        final Timer.Context timeCtx = Table.getTimeContext("MULTI_GET");
         try {
-            return BytesUtil.readUtf8(this.handle.getName());
+            return current.db().multiGetAsList(readOptions, Collections.nCopies(keys.size(), current.handle), keys);
         } catch (RocksDBException e) {
-            throw new StorageDBException("Get table name exception: " + e.getMessage(), e);
+            throw new StorageDBException("MULTI_GET exception: " + e.getMessage(), e);
+        } finally {
+            timeCtx.stop();
+            current.instance.release(slot);
+        }
+    }
+
+    @Override
+    public TableIterator<byte[], ByteArrayKeyValue> iterator() {
+        // 引用在迭代器关闭时释放，关闭可能发生在其他线程，使用创建时的分段
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
+        try {
+            return new RDBStoreIterator(current.db().newIterator(current.handle, iteratorReadOptions), this,
+                () -> current.instance.release(slot));
+        } catch (RuntimeException e) {
+            current.instance.release(slot);
+            throw e;
         }
     }
 
+    @Override
+    public String getName() throws IOException {
+        return name;
+    }
+
     @Override
     public long getEstimatedKeyCount() {
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
         try {
-            return db.getLongProperty(handle, "rocksdb.estimate-num-keys");
+            return current.db().getLongProperty(current.handle, "rocksdb.estimate-num-keys");
         } catch (RocksDBException e) {
             throw new StorageDBException("Get estimated key count exception: " + e.getMessage(), e);
+        } finally {
+            current.instance.release(slot);
         }
     }
 
     @Override
     public List<KVEntry> scan(byte[] startKey, byte[] endKey, boolean returnValue) {
+        return scan(startKey, endKey, returnValue, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<KVEntry> scan(byte[] startKey, byte[] endKey, boolean returnValue, int limit) {
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
         final Timer.Context timeCtx = Table.getTimeContext("SCAN");
         final List<KVEntry> entries = Lists.newArrayList();
-        final Lock readLock = this.readWriteLock.readLock();
-        readLock.lock();
-        try (final RocksIterator it = this.db.newIterator(handle)) {
+        // 范围扫描与迭代器一样不填充块缓存，避免冲掉热点数据
+        try (final RocksIterator it = current.db().newIterator(current.handle, iteratorReadOptions)) {
             if (startKey == null) {
                 it.seekToFirst();
             } else {
                 it.seek(startKey);
             }
-            for (; it.isValid(); it.next()) {
+            for (; it.isValid() && entries.size() < limit; it.next()) {
                 final byte[] key = it.key();
                 if (endKey != null && BytesUtil.getDefaultByteArrayComparator()
-                    .compare(key, 0, endKey.length, endKey, 0, endKey.length) > 0) {
+                    .compare(key, 0, Math.min(key.length, endKey.length), endKey, 0, endKey.length) > 0) {
                     break;
                 }
                 entries.add(new KVEntry(key, returnValue ? it.value() : null));
@@ -166,30 +257,48 @@ public class RocksDBTable implements Table<byte[], byte[]> {
         } catch (final Exception e) {
             throw new StorageDBException("Scan exception: " + e.getMessage(), e);
         } finally {
-            readLock.unlock();
             timeCtx.stop();
+            current.instance.release(slot);
         }
         return entries;
     }
 
     @Override
     public Boolean containsKey(byte[] key) {
+        final int slot = RocksDBInstance.currentSlot();
+        final Binding current = acquire(slot);
         final Timer.Context timeCtx = Table.getTimeContext("CONTAINS_KEY");
-        final Lock readLock = this.readWriteLock.readLock();
-        readLock.lock();
         try {
+            final RocksDB db = current.db();
             boolean exists = false;
             Holder<byte[]> valueHolder = new Holder<>();
-            if (db.keyMayExist(handle, key, valueHolder)) {
-                exists = ((valueHolder.getValue() != null) || (db.get(handle, key) != null));
+            if (db.keyMayExist(current.handle, readOptions, key, valueHolder)) {
+                exists = ((valueHolder.getValue() != null) || (db.get(current.handle, readOptions, key) != null));
             }
             return exists;
         } catch (final Exception e) {
             throw new StorageDBException("ContainsKey exception: " + e.getMessage(), e);
         } finally {
-            readLock.unlock();
             timeCtx.stop();
+            current.instance.release(slot);
         }
     }
 
+    private static final class Binding {
+
+        private final RocksDBInstance instance;
+
+        private final ColumnFamilyHandle handle;
+
+        private Binding(final RocksDBInstance instance, final ColumnFamilyHandle handle) {
+            this.instance = instance;
+            this.handle = handle;
+        }
+
+        private RocksDB db() {
+            return instance.db();
+        }
+
+    }
+
 }
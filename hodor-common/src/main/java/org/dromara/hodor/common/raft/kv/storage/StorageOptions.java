@@ -39,4 +39,12 @@ public class StorageOptions {
     @Builder.Default
     private boolean disableWAL = true;
 
+    // 所有列族共享的块缓存大小，小于等于0时使用RocksDB默认的块缓存
+    @Builder.Default
+    private long blockCacheSize = DBProfile.DEFAULT_BLOCK_CACHE_SIZE;
+
+    // 是否收集RocksDB的统计信息，开启后约有5%~10%的性能损耗
+    @Builder.Default
+    private boolean statisticsEnabled = false;
+
 }
@@ -92,8 +92,48 @@ public interface Table<KEY, VALUE> {
    */
   long getEstimatedKeyCount() throws IOException;
 
+  /**
+   * Puts a key-value pair into the store as part of a batch operation.
+   *
+   * @param batch the batch operation
+   * @param key metadata key
+   * @param value metadata value
+   */
+  void putWithBatch(BatchOperation batch, KEY key, VALUE value) throws IOException;
+
+  /**
+   * Deletes a key from the metadata store as part of a batch operation.
+   *
+   * @param batch the batch operation
+   * @param key metadata key
+   * @throws IOException on Failure
+   */
+  void deleteWithBatch(BatchOperation batch, KEY key) throws IOException;
+
+  /**
+   * Returns the values of the given keys in one call, the value is null
+   * if the key is not found.
+   *
+   * @param keys metadata keys
+   * @return values in the order of the keys
+   * @throws IOException on Failure
+   */
+  List<VALUE> multiGet(List<KEY> keys) throws IOException;
+
   List<KVEntry> scan(VALUE startKey, VALUE endKey, boolean returnValue);
 
+  /**
+   * Returns at most limit entries from startKey (inclusive) whose prefix of
+   * endKey length is not greater than endKey.
+   *
+   * @param startKey start key, null means from the first key
+   * @param endKey end key prefix, null means to the last key
+   * @param returnValue whether copy the values
+   * @param limit max entries
+   * @return entries in key order
+   */
+  List<KVEntry> scan(VALUE startKey, VALUE endKey, boolean returnValue, int limit);
+
   Boolean containsKey(VALUE key);
 
   /**
@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 import javax.sql.DataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.dbutils.BasicRowProcessor;
@@ -87,4 +88,29 @@ public class DBOperator {
     return update;
   }
 
+  /**
+   * 在同一个事务中按顺序执行多组批量语句，全部成功后提交
+   *
+   * @param batches sql -> 批量参数，需要保证顺序时使用LinkedHashMap
+   */
+  public void batchInTransaction(Map<String, Object[][]> batches) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      final boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        for (Map.Entry<String, Object[][]> entry : batches.entrySet()) {
+          if (entry.getValue().length > 0) {
+            queryRunner.batch(connection, entry.getKey(), entry.getValue());
+          }
+        }
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    }
+  }
+
 }
@@ -32,6 +32,7 @@ import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.net.URLDecoder;
@@ -151,6 +152,17 @@ public class GsonUtils {
     public <T> T fromJson(final String json, final Type typeOfT) {
         return GSON.fromJson(json, typeOfT);
     }
+
+    /**
+     * From json reader t type
+     * @param reader json reader
+     * @param typeOfT type of T
+     * @param <T> the type parameter
+     * @return the t
+     */
+    public <T> T fromJson(final Reader reader, final Type typeOfT) {
+        return GSON.fromJson(reader, typeOfT);
+    }
     
     /**
      * From list list.
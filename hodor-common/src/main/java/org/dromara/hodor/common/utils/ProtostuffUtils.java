@@ -17,10 +17,13 @@
 
 package org.dromara.hodor.common.utils;
 
+import io.protostuff.ByteBufferInput;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtobufIOUtil;
 import io.protostuff.Schema;
 import io.protostuff.runtime.RuntimeSchema;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -62,6 +65,22 @@ public class ProtostuffUtils {
         return obj;
     }
 
+    /**
+     * 直接从ByteBuffer反序列化，支持堆外内存，不产生拷贝
+     */
+    public static <T> T deserialize(ByteBuffer data, Class<T> clazz) {
+        Schema<T> schema = getSchema(clazz);
+        T obj = schema.newMessage();
+        ByteBufferInput input = new ByteBufferInput(data, false);
+        try {
+            schema.mergeFrom(input, obj);
+            input.checkLastTagWas(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Reading from a ByteBuffer threw an IOException (should never happen).", e);
+        }
+        return obj;
+    }
+
     @SuppressWarnings("unchecked")
     private static <T> Schema<T> getSchema(Class<T> clazz) {
         Schema<T> schema = (Schema<T>) schemaCache.get(clazz);
@@ -1,5 +1,7 @@
 package org.dromara.hodor.common.utils;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 
@@ -25,4 +27,8 @@ public class SerializeUtils {
         return INSTANCE.fromJson(new String(byteData, StandardCharsets.UTF_8), typeOfT);
     }
 
+    public static <T> T deserialize(InputStream in, Type typeOfT) {
+        return INSTANCE.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), typeOfT);
+    }
+
 }
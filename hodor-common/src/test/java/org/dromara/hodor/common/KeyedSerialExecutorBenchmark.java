@@ -0,0 +1,155 @@
+package org.dromara.hodor.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.dromara.hodor.common.executor.HodorExecutor;
+import org.dromara.hodor.common.executor.HodorRunnable;
+import org.dromara.hodor.common.executor.KeyedSerialExecutor;
+import org.dromara.hodor.common.queue.CircleQueue;
+import org.dromara.hodor.common.queue.DiscardOldestElementPolicy;
+
+/**
+ * 按key串行分发的基准测试，对比每个key一个HodorExecutor的方式与KeyedSerialExecutor<br/>
+ *
+ * 模拟调度：每一轮每个key提交一次任务，多个线程并发提交，统计吞吐、丢失的任务数和分发完成后仍被持有的执行器数及堆内存。
+ * 运行：java -cp ... org.dromara.hodor.common.KeyedSerialExecutorBenchmark [keys] [rounds] [iterations]
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class KeyedSerialExecutorBenchmark {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final int PRODUCERS = 4;
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    public static void main(String[] args) throws Exception {
+        final int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        System.out.printf("keys: %s, rounds: %s, threads: %s, producers: %s%n", keys, rounds, THREADS, PRODUCERS);
+        for (int i = 0; i < iterations; i++) {
+            run("hodorExecutorMap", new HodorExecutorMapDispatcher(newPool()), keys, rounds);
+            run("keyedSerialExecutor", new KeyedSerialDispatcher(newPool()), keys, rounds);
+        }
+    }
+
+    private static void run(String name, Dispatcher dispatcher, int keys, int rounds) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(keys * rounds);
+        final Runnable task = latch::countDown;
+        final ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        final long start = System.nanoTime();
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            producers.execute(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int k = producer; k < keys; k += PRODUCERS) {
+                        dispatcher.dispatch(k, task);
+                    }
+                }
+            });
+        }
+        // HodorExecutor并发提交时可能丢失调度，超时后统计未执行的任务数
+        latch.await(60, TimeUnit.SECONDS);
+        final long costNanos = System.nanoTime() - start;
+        producers.shutdown();
+        dispatcher.shutdown();
+
+        System.gc();
+        final Runtime runtime = Runtime.getRuntime();
+        final long usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%-20s ops/s: %12.0f, cost: %6d ms, lost: %7d, retained executors: %7d, used heap: %5d MB%n",
+            name, (keys * rounds - latch.getCount()) * 1e9 / costNanos, TimeUnit.NANOSECONDS.toMillis(costNanos),
+            latch.getCount(), dispatcher.retained(), usedHeap >> 20);
+    }
+
+    private static ThreadPoolExecutor newPool() {
+        return new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private interface Dispatcher {
+
+        void dispatch(Integer key, Runnable task);
+
+        int retained();
+
+        void shutdown();
+    }
+
+    /**
+     * 原JobDispatcher的方式
+     */
+    private static class HodorExecutorMapDispatcher implements Dispatcher {
+
+        private final Map<Integer, HodorExecutor> executorMap = new ConcurrentHashMap<>();
+
+        private final ThreadPoolExecutor pool;
+
+        HodorExecutorMapDispatcher(ThreadPoolExecutor pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void dispatch(Integer key, Runnable task) {
+            executorMap.computeIfAbsent(key, k -> {
+                HodorExecutor executor = new HodorExecutor();
+                executor.setCircleQueue(new CircleQueue<>(QUEUE_CAPACITY));
+                executor.setExecutor(pool);
+                executor.setRejectEnqueuePolicy(new DiscardOldestElementPolicy<>());
+                return executor;
+            }).serialExecute(new HodorRunnable() {
+                @Override
+                public void execute() {
+                    task.run();
+                }
+            });
+        }
+
+        @Override
+        public int retained() {
+            return executorMap.size();
+        }
+
+        @Override
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+    private static class KeyedSerialDispatcher implements Dispatcher {
+
+        private final KeyedSerialExecutor<Integer> executor;
+
+        private final ThreadPoolExecutor pool;
+
+        KeyedSerialDispatcher(ThreadPoolExecutor pool) {
+            this.pool = pool;
+            this.executor = new KeyedSerialExecutor<>(pool, QUEUE_CAPACITY, 8);
+        }
+
+        @Override
+        public void dispatch(Integer key, Runnable task) {
+            executor.execute(key, task);
+        }
+
+        @Override
+        public int retained() {
+            return executor.size();
+        }
+
+        @Override
+        public void shutdown() {
+            pool.shutdown();
+        }
+    }
+
+}
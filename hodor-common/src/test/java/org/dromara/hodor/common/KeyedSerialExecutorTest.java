@@ -0,0 +1,142 @@
+package org.dromara.hodor.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dromara.hodor.common.executor.KeyedSerialExecutor;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * keyed serial executor test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class KeyedSerialExecutorTest {
+
+    @Test
+    public void testSerialExecuteByKey() throws InterruptedException {
+        final int keys = 64;
+        final int tasksPerKey = 2000;
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        final KeyedSerialExecutor<Integer> executor = new KeyedSerialExecutor<>(pool, Integer.MAX_VALUE, 4);
+        final ConcurrentHashMap<Integer, List<Integer>> executed = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Integer, AtomicInteger> running = new ConcurrentHashMap<>();
+        final AtomicInteger overlapped = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(keys * tasksPerKey);
+        for (int k = 0; k < keys; k++) {
+            executed.put(k, new ArrayList<>());
+            running.put(k, new AtomicInteger());
+        }
+
+        // 每个key由单独的线程提交，保证提交顺序确定
+        final ExecutorService producers = Executors.newFixedThreadPool(4);
+        for (int k = 0; k < keys; k++) {
+            final int key = k;
+            producers.execute(() -> {
+                for (int i = 0; i < tasksPerKey; i++) {
+                    final int seq = i;
+                    executor.execute(key, () -> {
+                        if (running.get(key).incrementAndGet() > 1) {
+                            overlapped.incrementAndGet();
+                        }
+                        executed.get(key).add(seq);
+                        running.get(key).decrementAndGet();
+                        latch.countDown();
+                    });
+                }
+            });
+        }
+
+        Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(0, overlapped.get());
+        for (int k = 0; k < keys; k++) {
+            List<Integer> seqs = executed.get(k);
+            Assert.assertEquals(tasksPerKey, seqs.size());
+            for (int i = 0; i < tasksPerKey; i++) {
+                Assert.assertEquals(i, seqs.get(i).intValue());
+            }
+        }
+        // 执行完成后邮箱自动回收
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, executor.size());
+        producers.shutdown();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDiscardOldestWhenExceedMaxPending() throws InterruptedException {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final KeyedSerialExecutor<String> executor = new KeyedSerialExecutor<>(pool, 2, 16);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final List<Integer> executed = new ArrayList<>();
+        executor.execute("job", () -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 5; i++) {
+            final int seq = i;
+            executor.execute("job", () -> executed.add(seq));
+        }
+        Assert.assertEquals(6, executor.pendingCount("job"));
+        blocked.countDown();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, executor.pendingCount("job"));
+        pool.shutdown();
+        Assert.assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, executed.size());
+        Assert.assertEquals(3, executed.get(0).intValue());
+        Assert.assertEquals(4, executed.get(1).intValue());
+    }
+
+    @Test
+    public void testAsyncTaskNotBlockThread() throws InterruptedException {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final KeyedSerialExecutor<String> executor = new KeyedSerialExecutor<>(pool, 16, 16);
+        final CompletableFuture<Void> probe = new CompletableFuture<>();
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        executor.executeAsync("job1", () -> {
+            executed.add("job1-1");
+            return probe;
+        });
+        executor.execute("job1", () -> executed.add("job1-2"));
+        final CountDownLatch job2Executed = new CountDownLatch(1);
+        executor.execute("job2", () -> {
+            executed.add("job2-1");
+            job2Executed.countDown();
+        });
+
+        // 唯一的线程没有被job1的异步任务占用
+        Assert.assertTrue(job2Executed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("job1-1", "job2-1"), executed);
+        Assert.assertEquals(2, executor.pendingCount("job1"));
+
+        probe.complete(null);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Arrays.asList("job1-1", "job2-1", "job1-2"), executed);
+        pool.shutdown();
+    }
+
+}
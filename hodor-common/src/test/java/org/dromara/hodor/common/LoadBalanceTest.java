@@ -0,0 +1,72 @@
+package org.dromara.hodor.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.dromara.hodor.common.loadbalance.HostLoadProvider;
+import org.dromara.hodor.common.loadbalance.LeastOutstandingLoadBalance;
+import org.dromara.hodor.common.loadbalance.LoadBalance;
+import org.dromara.hodor.common.loadbalance.PowerOfTwoChoicesLoadBalance;
+import org.dromara.hodor.common.loadbalance.RoundRobinLoadBalance;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * load balance test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class LoadBalanceTest {
+
+    private final List<Host> hosts = Arrays.asList(Host.of("127.0.0.1:8081"), Host.of("127.0.0.1:8082"), Host.of("127.0.0.1:8083"));
+
+    @Test
+    public void testRoundRobin() {
+        LoadBalance loadBalance = new RoundRobinLoadBalance();
+        for (int i = 0; i < 9; i++) {
+            Assert.assertEquals(hosts.get(i % hosts.size()), loadBalance.select(hosts));
+        }
+    }
+
+    @Test
+    public void testLeastOutstanding() {
+        Map<Host, Integer> outstanding = new HashMap<>();
+        outstanding.put(hosts.get(0), 5);
+        outstanding.put(hosts.get(1), 1);
+        outstanding.put(hosts.get(2), 3);
+        LoadBalance loadBalance = new LeastOutstandingLoadBalance(provider(outstanding, new HashMap<>()));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(hosts.get(1), loadBalance.select(hosts));
+        }
+    }
+
+    @Test
+    public void testPowerOfTwoChoicesAvoidHotNode() {
+        Map<Host, Double> load = new HashMap<>();
+        load.put(hosts.get(0), 100.0);
+        load.put(hosts.get(1), 1.0);
+        load.put(hosts.get(2), 2.0);
+        LoadBalance loadBalance = new PowerOfTwoChoicesLoadBalance(provider(new HashMap<>(), load));
+        for (int i = 0; i < 1000; i++) {
+            // 最繁忙的节点总会在比较中落选
+            Assert.assertNotEquals(hosts.get(0), loadBalance.select(hosts));
+        }
+    }
+
+    private HostLoadProvider provider(Map<Host, Integer> outstanding, Map<Host, Double> load) {
+        return new HostLoadProvider() {
+            @Override
+            public int getOutstanding(Host host) {
+                return outstanding.getOrDefault(host, 0);
+            }
+
+            @Override
+            public double getLoad(Host host) {
+                return load.getOrDefault(host, 0.0);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.dromara.hodor.common;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.Logger;
+import org.dromara.hodor.common.log.LogUtil;
+
+/**
+ * 任务日志的基准测试，对比每次执行创建log4j logger与共享写线程池的日志<br/>
+ *
+ * 模拟大量短任务：每个任务创建日志、写几行后关闭，统计吞吐和堆内存。
+ * 运行：java -cp ... org.dromara.hodor.common.LogUtilBenchmark [jobs] [lines] [iterations]
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class LogUtilBenchmark {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    public static void main(String[] args) throws Exception {
+        final int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final int lines = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        final File root = Files.createTempDirectory("hodor-log-benchmark").toFile();
+        System.out.printf("jobs: %s, lines: %s, threads: %s, dir: %s%n", jobs, lines, THREADS, root);
+        for (int i = 0; i < iterations; i++) {
+            run("log4jLoggerPerJob", new File(root, "log4j-" + i), jobs, lines, false);
+            run("pooledLogger", new File(root, "pooled-" + i), jobs, lines, true);
+        }
+    }
+
+    private static void run(String name, File dir, int jobs, int lines, boolean pooled) throws Exception {
+        final LogUtil logUtil = LogUtil.getInstance();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch latch = new CountDownLatch(jobs);
+        final List<CompletableFuture<Void>> closed = new ArrayList<>(jobs);
+        final long start = System.nanoTime();
+        for (int i = 0; i < jobs; i++) {
+            final String loggerName = name + "_" + dir.getName() + "_" + i;
+            final File logFile = new File(dir, "_job." + i + ".log");
+            executor.execute(() -> {
+                try {
+                    final Logger logger = pooled ? logUtil.createPooledLogger(loggerName, logFile) : logUtil.createLogger(loggerName, logFile);
+                    for (int j = 0; j < lines; j++) {
+                        logger.info("job {} line {}", loggerName, j);
+                    }
+                    if (pooled) {
+                        synchronized (closed) {
+                            closed.add(logUtil.stopPooledLogger(logger));
+                        }
+                    } else {
+                        logUtil.stopLogger(loggerName);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        CompletableFuture.allOf(closed.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+        final long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("%-20s %8d ms %10.0f jobs/s, heap used: %d MB%n", name, TimeUnit.NANOSECONDS.toMillis(elapsed),
+            jobs * 1_000_000_000.0 / elapsed, (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024);
+    }
+
+}
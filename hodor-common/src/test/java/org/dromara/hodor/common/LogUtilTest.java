@@ -2,11 +2,16 @@ package org.dromara.hodor.common;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.Logger;
 import org.dromara.hodor.common.log.LogUtil;
 import org.dromara.hodor.common.utils.ThreadUtils;
+import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * log util test
@@ -16,6 +21,9 @@ import org.junit.Test;
  */
 public class LogUtilTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testCreateLogFile() {
         File logFile = new File(System.getProperty("user.dir") + "/log/test.log");
@@ -41,4 +49,32 @@ public class LogUtilTest {
         byte[] bytes = "1231312312".getBytes(StandardCharsets.UTF_8);
         logger.info(bytes);
     }
+
+    @Test
+    public void testPooledLogger() throws Exception {
+        File logFile = new File(folder.getRoot(), "pooled/test-pooled.log");
+        Logger logger = LogUtil.getInstance().createPooledLogger("pooled-test", logFile, "%-5level %msg%n");
+        Assert.assertFalse(logFile.exists());
+        for (int i = 0; i < 2000; i++) {
+            logger.info("line {}", i);
+        }
+        logger.debug("debug");
+        logger.error("error", new IllegalStateException("failed"));
+        LogUtil.getInstance().stopPooledLogger(logger).get(10, TimeUnit.SECONDS);
+
+        List<String> lines = Files.readAllLines(logFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals("INFO  line 0", lines.get(0));
+        Assert.assertEquals("INFO  line 1999", lines.get(1999));
+        Assert.assertEquals("DEBUG debug", lines.get(2000));
+        Assert.assertEquals("ERROR error", lines.get(2001));
+        Assert.assertTrue(lines.get(2002).contains("IllegalStateException: failed"));
+    }
+
+    @Test
+    public void testPooledLoggerWithoutWriteNotCreateFile() throws Exception {
+        File logFile = new File(folder.getRoot(), "test-empty.log");
+        Logger logger = LogUtil.getInstance().createPooledLogger("pooled-empty", logFile);
+        LogUtil.getInstance().stopPooledLogger(logger).get(10, TimeUnit.SECONDS);
+        Assert.assertFalse(logFile.exists());
+    }
 }
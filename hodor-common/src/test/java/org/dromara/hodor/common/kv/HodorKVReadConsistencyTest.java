@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hodor.common.kv;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import org.apache.ratis.conf.RaftProperties;
+import org.dromara.hodor.common.raft.HodorRaftGroup;
+import org.dromara.hodor.common.raft.RaftOptions;
+import org.dromara.hodor.common.raft.kv.core.HodorKVClient;
+import org.dromara.hodor.common.raft.kv.core.HodorKVOptions;
+import org.dromara.hodor.common.raft.kv.core.HodorKVServer;
+import org.dromara.hodor.common.raft.kv.core.KVConstant;
+import org.dromara.hodor.common.raft.kv.core.KVOperator;
+import org.dromara.hodor.common.raft.kv.core.ReadConsistency;
+import org.dromara.hodor.common.raft.kv.storage.StorageOptions;
+import org.dromara.hodor.common.raft.kv.storage.StorageType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 各读一致性级别的读写测试，单节点集群，客户端与raft节点部署在一起
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class HodorKVReadConsistencyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HodorKVServer kvServer;
+
+    private HodorKVClient kvClient;
+
+    @Before
+    public void setUp() throws Exception {
+        final String endpoint = "127.0.0.1:" + freePort();
+        kvServer = new HodorKVServer(HodorKVOptions.builder()
+            .clusterName("test_read_consistency")
+            .raftOptions(RaftOptions.builder()
+                .endpoint(endpoint)
+                .storageDir(folder.newFolder("raft"))
+                .serverAddresses(endpoint)
+                .raftProperties(new RaftProperties())
+                .build())
+            .storageOptions(StorageOptions.builder()
+                .storageType(StorageType.RocksDB)
+                .storagePath(folder.newFolder("db"))
+                .build())
+            .build());
+        kvServer.start();
+
+        // clientId为本地节点的endpoint，FOLLOWER读发往本地节点
+        final RaftProperties raftProperties = new RaftProperties();
+        raftProperties.set(KVConstant.HODOR_CLIENT_ID, endpoint);
+        kvClient = new HodorKVClient(HodorRaftGroup.builder()
+            .raftGroupName(KVConstant.HODOR_KV_GROUP_NAME)
+            .addresses(endpoint)
+            .raftProperties(raftProperties)
+            .build());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        kvClient.close();
+        kvServer.stop();
+    }
+
+    @Test
+    public void testDefaultIsLeaderRead() {
+        Assert.assertEquals(ReadConsistency.LEASE, kvClient.defaultKvOperator().getReadConsistency());
+    }
+
+    @Test
+    public void testLinearizableReadSeesLatestWrite() {
+        final KVOperator kvOperator = kvClient.defaultKvOperator();
+        final KVOperator linearizable = kvOperator.withReadConsistency(ReadConsistency.LINEARIZABLE);
+        Assert.assertEquals(ReadConsistency.LINEARIZABLE, linearizable.getReadConsistency());
+
+        kvOperator.put(bytes("a"), bytes("1"));
+        Assert.assertArrayEquals(bytes("1"), linearizable.get(bytes("a")));
+        kvOperator.put(bytes("a"), bytes("2"));
+        Assert.assertArrayEquals(bytes("2"), linearizable.get(bytes("a")));
+        kvOperator.delete(bytes("a"));
+        Assert.assertNull(linearizable.get(bytes("a")));
+        Assert.assertFalse(linearizable.containsKey(bytes("a")));
+    }
+
+    @Test
+    public void testLeaseReadSeesLatestWrite() {
+        final KVOperator kvOperator = kvClient.defaultKvOperator();
+        final KVOperator lease = kvOperator.withReadConsistency(ReadConsistency.LEASE);
+
+        kvOperator.put(bytes("b"), bytes("1"));
+        Assert.assertArrayEquals(bytes("1"), lease.get(bytes("b")));
+        kvOperator.put(bytes("b"), bytes("2"));
+        Assert.assertArrayEquals(bytes("2"), lease.get(bytes("b")));
+    }
+
+    @Test
+    public void testFollowerReadSeesOwnWrite() {
+        final KVOperator kvOperator = kvClient.defaultKvOperator();
+        final KVOperator follower = kvOperator.withReadConsistency(ReadConsistency.FOLLOWER);
+        Assert.assertEquals(ReadConsistency.FOLLOWER, follower.getReadConsistency());
+
+        // 写入后observedIndex前移，本地读取不会早于自己的写入
+        for (int i = 0; i < 10; i++) {
+            final byte[] value = bytes(String.valueOf(i));
+            kvOperator.put(bytes("c"), value);
+            Assert.assertArrayEquals(value, follower.get(bytes("c")));
+        }
+        kvOperator.delete(bytes("c"));
+        Assert.assertNull(follower.get(bytes("c")));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,259 @@
+package org.dromara.hodor.common.kv;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.dromara.hodor.common.raft.kv.core.HodorKVLessor;
+import org.dromara.hodor.common.raft.kv.core.HodorKVRequestHandler;
+import org.dromara.hodor.common.raft.kv.protocol.BatchWriteRequest;
+import org.dromara.hodor.common.raft.kv.protocol.CmdType;
+import org.dromara.hodor.common.raft.kv.protocol.CompareAndSetRequest;
+import org.dromara.hodor.common.raft.kv.protocol.DeleteRequest;
+import org.dromara.hodor.common.raft.kv.protocol.HodorKVRequest;
+import org.dromara.hodor.common.raft.kv.protocol.HodorKVResponse;
+import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseKey;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseRequest;
+import org.dromara.hodor.common.raft.kv.protocol.MultiGetRequest;
+import org.dromara.hodor.common.raft.kv.protocol.PutRequest;
+import org.dromara.hodor.common.raft.kv.protocol.ScanRequest;
+import org.dromara.hodor.common.raft.kv.protocol.ScanResponse;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.raft.kv.storage.StorageEngine;
+import org.dromara.hodor.common.raft.kv.storage.StorageOptions;
+import org.dromara.hodor.common.raft.kv.storage.StorageType;
+import org.dromara.hodor.common.raft.kv.storage.Table;
+import org.dromara.hodor.common.utils.ProtostuffUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * kv request handler test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class HodorKVRequestHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StorageEngine storageEngine;
+
+    private HodorKVRequestHandler requestHandler;
+
+    @Before
+    public void setUp() throws Exception {
+        storageEngine = new StorageEngine(StorageOptions.builder()
+            .storageType(StorageType.RocksDB)
+            .storagePath(folder.getRoot())
+            .build());
+        storageEngine.init();
+        requestHandler = new HodorKVRequestHandler(storageEngine);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        storageEngine.close();
+    }
+
+    @Test
+    public void testBatchWriteAndMultiGet() throws Exception {
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.BATCH_WRITE)
+            .batchWriteRequest(BatchWriteRequest.builder()
+                .putEntries(Arrays.asList(new KVEntry(bytes("a"), bytes("1")), new KVEntry(bytes("b"), bytes("2")),
+                    new KVEntry(bytes("c"), bytes("3"))))
+                .build()));
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.BATCH_WRITE)
+            .batchWriteRequest(BatchWriteRequest.builder()
+                .putEntries(Arrays.asList(new KVEntry(bytes("a"), bytes("4")), new KVEntry(bytes("d"), bytes("5"))))
+                .deleteKeys(Arrays.asList(bytes("b"), bytes("d")))
+                .build()));
+
+        final HodorKVResponse response = read(HodorKVRequest.builder()
+            .cmdType(CmdType.MULTI_GET)
+            .multiGetRequest(MultiGetRequest.builder()
+                .keys(Arrays.asList(bytes("a"), bytes("b"), bytes("c"), bytes("d")))
+                .build()));
+        final List<KVEntry> entries = response.getMultiGetResponse().getValue();
+        Assert.assertEquals(4, entries.size());
+        Assert.assertArrayEquals(bytes("a"), entries.get(0).getKey());
+        Assert.assertArrayEquals(bytes("4"), entries.get(0).getValue());
+        Assert.assertNull(entries.get(1).getValue());
+        Assert.assertArrayEquals(bytes("3"), entries.get(2).getValue());
+        Assert.assertNull(entries.get(3).getValue());
+    }
+
+    @Test
+    public void testCompareAndSet() throws Exception {
+        Assert.assertTrue(compareAndSet("lock", null, "node1"));
+        Assert.assertFalse(compareAndSet("lock", null, "node2"));
+        Assert.assertFalse(compareAndSet("lock", "node2", "node3"));
+        Assert.assertTrue(compareAndSet("lock", "node1", "node2"));
+        Assert.assertArrayEquals(bytes("node2"), storageEngine.getRawDBStore().getTable(DBColumnFamily.Default.getName()).get(bytes("lock")));
+        Assert.assertTrue(compareAndSet("lock", "node2", null));
+        Assert.assertNull(storageEngine.getRawDBStore().getTable(DBColumnFamily.Default.getName()).get(bytes("lock")));
+    }
+
+    @Test
+    public void testPagedScan() throws Exception {
+        final List<KVEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            entries.add(new KVEntry(bytes(String.format("/nodes/%02d", i)), bytes("v" + i)));
+        }
+        entries.add(new KVEntry(bytes("/nodes"), bytes("root")));
+        entries.add(new KVEntry(bytes("/other"), bytes("x")));
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.BATCH_WRITE)
+            .batchWriteRequest(BatchWriteRequest.builder().putEntries(entries).build()));
+
+        final byte[] prefix = bytes("/nodes/");
+        final List<String> keys = new ArrayList<>();
+        byte[] startKey = prefix;
+        int pages = 0;
+        do {
+            final ScanResponse page = read(HodorKVRequest.builder()
+                .cmdType(CmdType.SCAN)
+                .scanRequest(ScanRequest.builder()
+                    .startKey(startKey)
+                    .endKey(prefix)
+                    .limit(10)
+                    .build()))
+                .getScanResponse();
+            Assert.assertTrue(page.getValue().size() <= 10);
+            for (KVEntry entry : page.getValue()) {
+                Assert.assertNull(entry.getValue());
+                keys.add(new String(entry.getKey(), StandardCharsets.UTF_8));
+            }
+            startKey = page.getContinuationToken();
+            pages++;
+        } while (startKey != null);
+        Assert.assertEquals(3, pages);
+        Assert.assertEquals(25, keys.size());
+        Assert.assertEquals("/nodes/00", keys.get(0));
+        Assert.assertEquals("/nodes/24", keys.get(24));
+    }
+
+    @Test
+    public void testLeaseRevoke() throws Exception {
+        Assert.assertEquals(Long.valueOf(5L), grantLease(5L));
+        Assert.assertEquals(Long.valueOf(6L), grantLease(6L));
+        putWithLease("a", 5L);
+        putWithLease("b", 5L);
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.PUT)
+            .putRequest(PutRequest.builder().key(bytes("c")).value(bytes("v")).build()));
+        // b重新绑定到租约6，撤销租约5时不删除
+        putWithLease("b", 6L);
+
+        Assert.assertEquals(Long.valueOf(10_000L), read(leaseRequest(CmdType.LEASE_KEEPALIVE, 5L)).getLeaseResponse().getTtl());
+        Assert.assertFalse(requestHandler.handleReadRequest(roundTrip(leaseRequest(CmdType.LEASE_KEEPALIVE, 99L))).getSuccess());
+
+        final List<LeaseKey> revokedKeys = write(leaseRequest(CmdType.LEASE_REVOKE, 5L)).getLeaseResponse().getRevokedKeys();
+        Assert.assertEquals(1, revokedKeys.size());
+        Assert.assertEquals(DBColumnFamily.Default.getName(), revokedKeys.get(0).getTable());
+        Assert.assertArrayEquals(bytes("a"), revokedKeys.get(0).getKey());
+        final Table<byte[], byte[]> table = storageEngine.getRawDBStore().getTable(DBColumnFamily.Default.getName());
+        Assert.assertNull(table.get(bytes("a")));
+        Assert.assertArrayEquals(bytes("v"), table.get(bytes("b")));
+        Assert.assertArrayEquals(bytes("v"), table.get(bytes("c")));
+        Assert.assertFalse(requestHandler.handleWriteRequest(roundTrip(HodorKVRequest.builder()
+            .cmdType(CmdType.PUT)
+            .putRequest(PutRequest.builder().key(bytes("a")).value(bytes("v")).leaseId(5L).build())), 8L).getSuccess());
+
+        // 重启后从存储中恢复租约
+        final HodorKVLessor lessor = new HodorKVLessor(storageEngine.getRawDBStore());
+        lessor.recover();
+        Assert.assertEquals(1, lessor.leaseCount());
+        Assert.assertTrue(lessor.exists(6L));
+    }
+
+    @Test
+    public void testPlainWriteDetachesLease() throws Exception {
+        grantLease(5L);
+        putWithLease("a", 5L);
+        putWithLease("b", 5L);
+        // a被不带租约的写入覆盖为持久化key，b被删除后重新创建为持久化key
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.PUT)
+            .putRequest(PutRequest.builder().key(bytes("a")).value(bytes("p")).build()));
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.DELETE)
+            .deleteRequest(DeleteRequest.builder().key(bytes("b")).build()));
+        Assert.assertTrue(compareAndSet("b", null, "p"));
+
+        final List<LeaseKey> revokedKeys = write(leaseRequest(CmdType.LEASE_REVOKE, 5L)).getLeaseResponse().getRevokedKeys();
+        Assert.assertTrue(revokedKeys.isEmpty());
+        final Table<byte[], byte[]> table = storageEngine.getRawDBStore().getTable(DBColumnFamily.Default.getName());
+        Assert.assertArrayEquals(bytes("p"), table.get(bytes("a")));
+        Assert.assertArrayEquals(bytes("p"), table.get(bytes("b")));
+        // 租约列族中不残留绑定记录
+        final Table<byte[], byte[]> leaseTable = storageEngine.getRawDBStore().getTable(DBColumnFamily.HodorLease.getName());
+        Assert.assertTrue(leaseTable.scan(new byte[] {'a'}, new byte[] {'a'}, false).isEmpty());
+        Assert.assertTrue(leaseTable.scan(new byte[] {'o'}, new byte[] {'o'}, false).isEmpty());
+    }
+
+    private Long grantLease(long logIndex) throws IOException {
+        final HodorKVResponse response = requestHandler.handleWriteRequest(roundTrip(HodorKVRequest.builder()
+            .cmdType(CmdType.LEASE_GRANT)
+            .leaseRequest(LeaseRequest.builder().ttl(10_000L).build())), logIndex);
+        Assert.assertTrue(response.getMessage(), response.getSuccess());
+        return response.getLeaseResponse().getLeaseId();
+    }
+
+    private void putWithLease(String key, long leaseId) throws Exception {
+        write(HodorKVRequest.builder()
+            .cmdType(CmdType.PUT)
+            .putRequest(PutRequest.builder().key(bytes(key)).value(bytes("v")).leaseId(leaseId).build()));
+    }
+
+    private static HodorKVRequest.HodorKVRequestBuilder leaseRequest(CmdType cmdType, long leaseId) {
+        return HodorKVRequest.builder()
+            .cmdType(cmdType)
+            .leaseRequest(LeaseRequest.builder().leaseId(leaseId).build());
+    }
+
+    private boolean compareAndSet(String key, String expect, String update) throws Exception {
+        return write(HodorKVRequest.builder()
+            .cmdType(CmdType.COMPARE_AND_SET)
+            .compareAndSetRequest(CompareAndSetRequest.builder()
+                .key(bytes(key))
+                .expect(expect == null ? null : bytes(expect))
+                .update(update == null ? null : bytes(update))
+                .build()))
+            .getCompareAndSetResponse().getValue();
+    }
+
+    private HodorKVResponse write(HodorKVRequest.HodorKVRequestBuilder builder) throws Exception {
+        final HodorKVResponse response = requestHandler.handleWriteRequest(roundTrip(builder), 1L);
+        Assert.assertTrue(response.getMessage(), response.getSuccess());
+        return response;
+    }
+
+    private HodorKVResponse read(HodorKVRequest.HodorKVRequestBuilder builder) throws Exception {
+        final HodorKVResponse response = requestHandler.handleReadRequest(roundTrip(builder));
+        Assert.assertTrue(response.getMessage(), response.getSuccess());
+        return ProtostuffUtils.deserialize(ProtostuffUtils.serialize(response), HodorKVResponse.class);
+    }
+
+    /**
+     * 请求经过序列化后再处理，与通过raft日志传输的请求一致
+     */
+    private HodorKVRequest roundTrip(HodorKVRequest.HodorKVRequestBuilder builder) {
+        final HodorKVRequest request = builder.table(DBColumnFamily.Default.getName()).build();
+        return ProtostuffUtils.deserialize(ProtostuffUtils.serialize(request), HodorKVRequest.class);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
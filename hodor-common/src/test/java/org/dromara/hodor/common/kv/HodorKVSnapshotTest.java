@@ -0,0 +1,191 @@
+package org.dromara.hodor.common.kv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.ratis.server.RaftServerConfigKeys;
+import org.apache.ratis.server.storage.RaftStorage;
+import org.apache.ratis.server.storage.RaftStorageDirectory;
+import org.apache.ratis.server.storage.RaftStorageMetadataFile;
+import org.apache.ratis.statemachine.SnapshotRetentionPolicy;
+import org.dromara.hodor.common.raft.kv.core.HodorKVSnapshotInfo;
+import org.dromara.hodor.common.raft.kv.core.HodorKVSnapshotStorage;
+import org.dromara.hodor.common.raft.kv.storage.ByteArrayKeyValue;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.raft.kv.storage.DBStore;
+import org.dromara.hodor.common.raft.kv.storage.StorageEngine;
+import org.dromara.hodor.common.raft.kv.storage.StorageOptions;
+import org.dromara.hodor.common.raft.kv.storage.StorageType;
+import org.dromara.hodor.common.raft.kv.storage.Table;
+import org.dromara.hodor.common.raft.kv.storage.TableIterator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * kv snapshot test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class HodorKVSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StorageEngine storageEngine;
+
+    private HodorKVSnapshotStorage snapshotStorage;
+
+    @Before
+    public void setUp() throws Exception {
+        storageEngine = new StorageEngine(StorageOptions.builder()
+            .storageType(StorageType.RocksDB)
+            .storagePath(folder.newFolder("db"))
+            .build());
+        storageEngine.init();
+        snapshotStorage = new HodorKVSnapshotStorage();
+        snapshotStorage.init(new TestRaftStorage(folder.newFolder("raft")));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        storageEngine.close();
+    }
+
+    @Test
+    public void testRestoreFromSnapshot() throws Exception {
+        final DBStore dbStore = storageEngine.getRawDBStore();
+        dbStore.getTable(DBColumnFamily.Default.getName()).put(bytes("a"), bytes("1"));
+        dbStore.getTable(DBColumnFamily.HodorWatch.getName()).put(bytes("/watch"), bytes("2"));
+        final HodorKVSnapshotInfo snapshotInfo = takeSnapshot(1, 10);
+        Assert.assertFalse(snapshotInfo.getFiles().isEmpty());
+
+        dbStore.getTable(DBColumnFamily.Default.getName()).put(bytes("b"), bytes("3"));
+        dbStore.getTable(DBColumnFamily.HodorWatch.getName()).delete(bytes("/watch"));
+
+        dbStore.restoreFromCheckpoint(snapshotStorage.getSnapshotDir(1, 10));
+        final Table<byte[], byte[]> table = dbStore.getTable(DBColumnFamily.Default.getName());
+        Assert.assertArrayEquals(bytes("1"), table.get(bytes("a")));
+        Assert.assertNull(table.get(bytes("b")));
+        Assert.assertArrayEquals(bytes("2"), dbStore.getTable(DBColumnFamily.HodorWatch.getName()).get(bytes("/watch")));
+
+        // 恢复后的数据库可以继续写入，不影响快照
+        table.put(bytes("c"), bytes("4"));
+        dbStore.restoreFromCheckpoint(snapshotStorage.getSnapshotDir(1, 10));
+        Assert.assertNull(dbStore.getTable(DBColumnFamily.Default.getName()).get(bytes("c")));
+    }
+
+    @Test
+    public void testRestoreWaitsForReaders() throws Exception {
+        final DBStore dbStore = storageEngine.getRawDBStore();
+        final Table<byte[], byte[]> table = dbStore.getTable(DBColumnFamily.Default.getName());
+        table.put(bytes("a"), bytes("1"));
+        takeSnapshot(1, 10);
+        table.put(bytes("a"), bytes("2"));
+
+        // 迭代器未关闭时恢复需要等待
+        final TableIterator<byte[], ByteArrayKeyValue> iterator = table.iterator();
+        final CompletableFuture<Void> restored = CompletableFuture.runAsync(() -> {
+            try {
+                dbStore.restoreFromCheckpoint(snapshotStorage.getSnapshotDir(1, 10));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Thread.sleep(200);
+        Assert.assertFalse(restored.isDone());
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertArrayEquals(bytes("2"), iterator.next().getValue());
+        iterator.close();
+        restored.get(10, TimeUnit.SECONDS);
+
+        // 恢复前获取的table重新绑定到恢复后的数据库
+        Assert.assertArrayEquals(bytes("1"), table.get(bytes("a")));
+    }
+
+    @Test
+    public void testLoadLatestAndCleanup() throws Exception {
+        takeSnapshot(1, 10);
+        takeSnapshot(1, 20);
+        takeSnapshot(2, 30);
+        // 安装快照时生成的md5文件不属于快照
+        final File snapshotDir = snapshotStorage.getSnapshotDir(2, 30);
+        Files.write(new File(snapshotDir, "CURRENT.md5").toPath(), bytes("md5"));
+
+        final HodorKVSnapshotInfo latest = snapshotStorage.loadLatestSnapshot();
+        Assert.assertEquals(2, latest.getTerm());
+        Assert.assertEquals(30, latest.getIndex());
+        Assert.assertTrue(latest.getFiles().stream().noneMatch(fileInfo -> fileInfo.getPath().toString().endsWith(".md5")));
+
+        snapshotStorage.cleanupOldSnapshots(new SnapshotRetentionPolicy() {
+            @Override
+            public int getNumSnapshotsRetained() {
+                return 2;
+            }
+        });
+        Assert.assertFalse(snapshotStorage.getSnapshotDir(1, 10).exists());
+        Assert.assertTrue(snapshotStorage.getSnapshotDir(1, 20).exists());
+        Assert.assertTrue(snapshotDir.exists());
+    }
+
+    private HodorKVSnapshotInfo takeSnapshot(long term, long index) throws IOException {
+        final File tmpSnapshotDir = snapshotStorage.getTmpSnapshotDir(term, index);
+        storageEngine.getRawDBStore().createCheckpoint(tmpSnapshotDir);
+        return snapshotStorage.completeSnapshot(tmpSnapshotDir, term, index);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class TestRaftStorage implements RaftStorage {
+
+        private final File root;
+
+        TestRaftStorage(File root) {
+            this.root = root;
+        }
+
+        @Override
+        public void initialize() {
+        }
+
+        @Override
+        public RaftStorageDirectory getStorageDir() {
+            return new RaftStorageDirectory() {
+                @Override
+                public File getRoot() {
+                    return root;
+                }
+
+                @Override
+                public boolean isHealthy() {
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public RaftStorageMetadataFile getMetadataFile() {
+            return null;
+        }
+
+        @Override
+        public RaftServerConfigKeys.Log.CorruptionPolicy getLogCorruptionPolicy() {
+            return RaftServerConfigKeys.Log.CorruptionPolicy.getDefault();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
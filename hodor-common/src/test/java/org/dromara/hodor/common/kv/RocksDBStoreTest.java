@@ -0,0 +1,95 @@
+package org.dromara.hodor.common.kv;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.raft.kv.storage.RocksDBStore;
+import org.dromara.hodor.common.raft.kv.storage.StorageOptions;
+import org.dromara.hodor.common.raft.kv.storage.StorageType;
+import org.dromara.hodor.common.raft.kv.storage.Table;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.TickerType;
+
+/**
+ * rocksdb store test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class RocksDBStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RocksDBStore dbStore;
+
+    @Before
+    public void setUp() throws Exception {
+        dbStore = new RocksDBStore(StorageOptions.builder()
+            .storageType(StorageType.RocksDB)
+            .storagePath(folder.newFolder("db"))
+            .statisticsEnabled(true)
+            .build());
+        dbStore.init();
+    }
+
+    @After
+    public void tearDown() {
+        dbStore.close();
+    }
+
+    @Test
+    public void testCachedTable() throws Exception {
+        final Table<byte[], byte[]> table = dbStore.getTable(DBColumnFamily.Default.getName());
+        Assert.assertSame(table, dbStore.getTable(DBColumnFamily.Default.getName()));
+        Assert.assertEquals(DBColumnFamily.values().length, dbStore.listTables().size());
+
+        // 恢复快照会重新打开数据库，之前缓存的table随之失效
+        final File checkpointDir = new File(folder.getRoot(), "checkpoint");
+        table.put(bytes("a"), bytes("1"));
+        dbStore.createCheckpoint(checkpointDir);
+        dbStore.restoreFromCheckpoint(checkpointDir);
+        final Table<byte[], byte[]> restored = dbStore.getTable(DBColumnFamily.Default.getName());
+        Assert.assertNotSame(table, restored);
+        Assert.assertArrayEquals(bytes("1"), restored.get(bytes("a")));
+    }
+
+    @Test
+    public void testConcurrentReadWrite() throws Exception {
+        final Table<byte[], byte[]> table = dbStore.getTable(DBColumnFamily.Default.getName());
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    final byte[] key = bytes(thread + "-" + i);
+                    table.put(key, key);
+                    Assert.assertArrayEquals(key, table.get(key));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assert.assertEquals(4000, table.scan(null, null, false).size());
+        Assert.assertTrue(dbStore.getStatistics().getTickerCount(TickerType.NUMBER_KEYS_WRITTEN) >= 4000);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
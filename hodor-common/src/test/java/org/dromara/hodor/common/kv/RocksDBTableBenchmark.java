@@ -0,0 +1,121 @@
+package org.dromara.hodor.common.kv;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.apache.commons.io.FileUtils;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
+import org.dromara.hodor.common.raft.kv.storage.RocksDBStore;
+import org.dromara.hodor.common.raft.kv.storage.StorageOptions;
+import org.dromara.hodor.common.raft.kv.storage.StorageType;
+import org.dromara.hodor.common.raft.kv.storage.Table;
+import org.rocksdb.TickerType;
+
+/**
+ * RocksDBTable读写吞吐的基准测试，对比无锁访问、每次操作加共享读锁以及原来每次操作加读写锁的方式<br/>
+ *
+ * 多个线程按读写比例随机访问预先写入的key，统计ops/s以及块缓存命中率。
+ * 运行：java -cp ... org.dromara.hodor.common.kv.RocksDBTableBenchmark [keys] [threads] [readPercent] [seconds]
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class RocksDBTableBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final int readPercent = args.length > 2 ? Integer.parseInt(args[2]) : 90;
+        final int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        System.out.printf("keys: %s, threads: %s, read: %s%%, seconds: %s%n", keys, threads, readPercent, seconds);
+
+        final File dbPath = Files.createTempDirectory("hodor-rocksdb-bench").toFile();
+        final RocksDBStore dbStore = new RocksDBStore(StorageOptions.builder()
+            .storageType(StorageType.RocksDB)
+            .storagePath(dbPath)
+            .statisticsEnabled(true)
+            .build());
+        try {
+            dbStore.init();
+            final Table<byte[], byte[]> table = dbStore.getTable(DBColumnFamily.Default.getName());
+            final byte[] value = new byte[128];
+            for (int i = 0; i < keys; i++) {
+                table.put(key(i), value);
+            }
+            dbStore.flushDB();
+            final ReadWriteLock lock = new ReentrantReadWriteLock();
+            for (int i = 0; i < 3; i++) {
+                run("lockFree", dbStore, keys, threads, readPercent, seconds, value, null, false);
+                run("sharedReadLock", dbStore, keys, threads, readPercent, seconds, value, lock, false);
+                run("readWriteLock", dbStore, keys, threads, readPercent, seconds, value, lock, true);
+            }
+        } finally {
+            dbStore.close();
+            FileUtils.deleteQuietly(dbPath);
+        }
+    }
+
+    private static void run(String name, RocksDBStore dbStore, int keys, int threads, int readPercent, int seconds,
+                            byte[] value, ReadWriteLock lock, boolean exclusiveWrite) throws Exception {
+        final Table<byte[], byte[]> table = dbStore.getTable(DBColumnFamily.Default.getName());
+        final long hitBefore = dbStore.getStatistics().getTickerCount(TickerType.BLOCK_CACHE_HIT);
+        final long missBefore = dbStore.getStatistics().getTickerCount(TickerType.BLOCK_CACHE_MISS);
+        final AtomicLong ops = new AtomicLong();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                long count = 0;
+                try {
+                    while (System.nanoTime() < deadline) {
+                        final byte[] key = key(random.nextInt(keys));
+                        final boolean read = random.nextInt(100) < readPercent;
+                        // 原实现中每个table一个读写锁，写操作持有写锁；共享读锁模式下读写都只持有读锁
+                        final boolean shared = read || !exclusiveWrite;
+                        if (lock != null) {
+                            (shared ? lock.readLock() : lock.writeLock()).lock();
+                        }
+                        try {
+                            if (read) {
+                                table.get(key);
+                            } else {
+                                table.put(key, value);
+                            }
+                        } finally {
+                            if (lock != null) {
+                                (shared ? lock.readLock() : lock.writeLock()).unlock();
+                            }
+                        }
+                        count++;
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    ops.addAndGet(count);
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+        final long hit = dbStore.getStatistics().getTickerCount(TickerType.BLOCK_CACHE_HIT) - hitBefore;
+        final long miss = dbStore.getStatistics().getTickerCount(TickerType.BLOCK_CACHE_MISS) - missBefore;
+        System.out.printf("%-14s ops/s: %12.0f, block cache hit rate: %5.1f%%%n",
+            name, ops.get() / (double) seconds, hit + miss == 0 ? 0 : hit * 100.0 / (hit + miss));
+    }
+
+    private static byte[] key(int i) {
+        return String.format("/hodor/key/%08d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -2,28 +2,32 @@ package org.dromara.hodor.core.recoder;
 
 import cn.hutool.core.date.DateUtil;
 import java.io.File;
-import java.io.FileFilter;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.NameFileFilter;
-import org.apache.commons.io.filefilter.NotFileFilter;
-import org.apache.logging.log4j.Logger;
-import org.dromara.hodor.common.log.LogUtil;
+import org.apache.commons.io.LineIterator;
 import org.dromara.hodor.common.storage.cache.CacheClient;
 import org.dromara.hodor.common.storage.cache.HodorCacheSource;
 import org.dromara.hodor.common.utils.StringUtils;
 import org.dromara.hodor.common.utils.ThreadUtils;
 import org.dromara.hodor.common.utils.Utils.Assert;
 import org.dromara.hodor.core.entity.JobExecDetail;
+import org.dromara.hodor.core.recoder.journal.JobExecuteJournal;
+import org.dromara.hodor.core.recoder.journal.JournalCheckpoint;
+import org.dromara.hodor.core.recoder.journal.JournalRecord;
+import org.dromara.hodor.core.recoder.journal.JournalSegmentReader;
 import org.dromara.hodor.core.service.JobExecDetailService;
 import org.dromara.hodor.model.job.JobKey;
 
 /**
- * LogJobExecuteRecord
+ * LogJobExecuteRecord<br/>
+ *
+ * 任务执行明细先追加到二进制日志，再由回放线程流式读取已封存的分段，按JDBC批量写入数据库，
+ * 每批写入后保存检查点，重启后从检查点继续回放
  *
  * @author tomgs
  * @version 1.0
@@ -31,18 +35,24 @@ import org.dromara.hodor.model.job.JobKey;
 @Slf4j
 public class LogJobExecuteRecorder implements JobExecuteRecorder {
 
-    private final Logger jobExecuteDetailLogger;
+    private static final long SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    private static final int REPLAY_BATCH_SIZE = 500;
+
+    private final JobExecuteJournal journal;
+
+    private final JournalCheckpoint checkpoint;
 
     private final CacheClient<JobKey, JobExecDetail> cacheClient;
 
+    private final File journalDir;
+
     private final File logsDir;
 
     private final File backUpDir;
 
     private final JobExecDetailService jobExecDetailService;
 
-    private final String loggerName = "hodor-job-execute-record.log";
-
     private final int interval = 3;
 
     private volatile boolean isStart = false;
@@ -53,16 +63,30 @@ public class LogJobExecuteRecorder implements JobExecuteRecorder {
         Assert.notNull(jobExecDetailService, "jobExecDetailService must be not null.");
         Assert.notNull(hodorCacheSource, "hodorCacheSource must be not null.");
 
-        String logLayout = "%msg%n";
-        this.logsDir = new File((StringUtils.isBlank(logDir) ? System.getProperty("user.dir") : logDir) + "/logs/");
-        this.backUpDir = new File((StringUtils.isBlank(logDir) ? System.getProperty("user.dir") : logDir) + "/backup/");
-        this.jobExecuteDetailLogger = LogUtil.getInstance().createRollingLogger(loggerName, new File(logsDir, loggerName), logLayout, interval);
+        final String baseDir = StringUtils.isBlank(logDir) ? System.getProperty("user.dir") : logDir;
+        this.journalDir = new File(baseDir + "/journal/");
+        this.logsDir = new File(baseDir + "/logs/");
+        this.backUpDir = new File(baseDir + "/backup/");
+        this.journal = new JobExecuteJournal(journalDir, SEGMENT_BYTES, TimeUnit.SECONDS.toMillis(interval));
+        this.checkpoint = new JournalCheckpoint(journalDir);
         this.cacheClient = hodorCacheSource.getCacheClient("job-execute-recorder");
         this.jobExecDetailService = jobExecDetailService;
     }
 
     public void recordJobExecDetail(String op, JobExecDetail jobExecDetail) {
-        jobExecuteDetailLogger.info(toDetailString(op, jobExecDetail));
+        if (journal.append(op, jobExecDetail)) {
+            return;
+        }
+        // 日志未启动或已停止，例如停机过程中返回的任务结果，直接写入数据库
+        try {
+            if (OP_INSERT.equals(op)) {
+                jobExecDetailService.createIfAbsent(jobExecDetail);
+            } else if (OP_UPDATE.equals(op)) {
+                jobExecDetailService.update(jobExecDetail);
+            }
+        } catch (Exception e) {
+            log.error("record job exec detail {} error, journal is not running, msg: {}", jobExecDetail.getId(), e.getMessage(), e);
+        }
     }
 
     @Override
@@ -82,39 +106,18 @@ public class LogJobExecuteRecorder implements JobExecuteRecorder {
 
     @Override
     public void startReporterJobExecDetail() {
+        try {
+            journal.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("start job execute journal failed, " + e.getMessage(), e);
+        }
         isStart = true;
-        final FileFilter fileFilter = new NotFileFilter(new NameFileFilter(loggerName));
         final Thread reporterThread = new Thread(() -> {
             while (isStart) {
                 try {
-                    if (!logsDir.exists() || !logsDir.isDirectory()) {
-                        return;
-                    }
-                    File[] files = logsDir.listFiles(fileFilter);
-                    if (files != null && files.length == 0) {
-                        File loggerFile = new File(logsDir, loggerName);
-                        long length = loggerFile.length();
-                        if (length > 2) {
-                            jobExecuteDetailLogger.info("");
-                        }
-                    }
-                    File backUpCurrentDayRecordFile = new File(backUpDir, DateUtil.today());
-                    for (File file : Objects.requireNonNull(files)) {
-                        List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
-                        lines.stream()
-                            .filter(StringUtils::isNotBlank)
-                            .forEach(line -> {
-                                if (line.startsWith(OP_INSERT)) {
-                                    JobExecDetail jobExecDetail = toRawJobExecDetail(line);
-                                    jobExecDetailService.createIfAbsent(jobExecDetail);
-                                    return;
-                                }
-                                if (line.startsWith(OP_UPDATE)) {
-                                    JobExecDetail jobExecDetail = toRawJobExecDetail(line);
-                                    jobExecDetailService.update(jobExecDetail);
-                                }
-                            });
-                        FileUtils.moveFile(file, new File(backUpCurrentDayRecordFile, file.getName()));
+                    replayLegacyLogs();
+                    for (File segment : JobExecuteJournal.listSegments(journalDir)) {
+                        replaySegment(segment);
                     }
                 } catch (Exception e) {
                     log.error("reporter job recorder file error, msg: {}", e.getMessage(), e);
@@ -126,10 +129,79 @@ public class LogJobExecuteRecorder implements JobExecuteRecorder {
         reporterThread.start();
     }
 
+    private void replaySegment(final File segment) throws IOException {
+        final List<JournalRecord> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+        try (JournalSegmentReader reader = new JournalSegmentReader(segment, checkpoint.position(segment))) {
+            JournalRecord record;
+            while ((record = reader.next()) != null) {
+                batch.add(record);
+                if (batch.size() >= REPLAY_BATCH_SIZE) {
+                    apply(batch);
+                    checkpoint.save(segment, reader.position());
+                }
+            }
+            apply(batch);
+        }
+        FileUtils.moveFile(segment, new File(new File(backUpDir, DateUtil.today()), segment.getName()));
+        checkpoint.clear();
+    }
+
+    /**
+     * 升级前文本格式的明细日志
+     */
+    private void replayLegacyLogs() throws IOException {
+        final File[] files = logsDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        final List<JournalRecord> batch = new ArrayList<>(REPLAY_BATCH_SIZE);
+        for (File file : files) {
+            try (LineIterator lines = FileUtils.lineIterator(file, StandardCharsets.UTF_8.name())) {
+                while (lines.hasNext()) {
+                    final String line = lines.next();
+                    if (line.startsWith(OP_INSERT) || line.startsWith(OP_UPDATE)) {
+                        batch.add(new JournalRecord(line.substring(0, 1), toRawJobExecDetail(line)));
+                    }
+                    if (batch.size() >= REPLAY_BATCH_SIZE) {
+                        apply(batch);
+                    }
+                }
+            }
+            apply(batch);
+            FileUtils.moveFile(file, new File(new File(backUpDir, DateUtil.today()), file.getName()));
+        }
+    }
+
+    /**
+     * 插入先于同一任务的更新写入日志，所以批量插入后再按顺序批量更新
+     */
+    private void apply(final List<JournalRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final List<JobExecDetail> inserts = new ArrayList<>();
+        final List<JobExecDetail> updates = new ArrayList<>();
+        for (JournalRecord record : batch) {
+            if (OP_INSERT.equals(record.getOp())) {
+                inserts.add(record.getDetail());
+            } else if (OP_UPDATE.equals(record.getOp())) {
+                updates.add(record.getDetail());
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jobExecDetailService.batchCreateIfAbsent(inserts);
+        }
+        if (!updates.isEmpty()) {
+            jobExecDetailService.batchUpdate(updates);
+        }
+        batch.clear();
+    }
+
     @Override
     public void stopReporterJobExecDetail() {
         log.info("stop reporter job exec detail record ....");
         this.isStart = false;
+        journal.stop();
     }
 
 }
@@ -0,0 +1,220 @@
+package org.dromara.hodor.core.recoder.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.core.entity.JobExecDetail;
+
+/**
+ * 任务执行明细追加日志<br/>
+ *
+ * 1、记录在调用线程编码后入队，由单个写线程批量写入当前分段，每批写入只做一次fsync（group commit）
+ * 2、分段达到大小上限或存在数据超过滚动间隔时封存，封存的分段由回放线程写入数据库
+ * 3、正在写入的分段后缀为.writing，封存后重命名为.seg，启动时未封存的分段直接封存
+ * 4、未启动或已停止时不再接收记录，由调用方直接写入
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class JobExecuteJournal {
+
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String WRITING_SUFFIX = ".writing";
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final int MAX_BATCH_RECORDS = 4096;
+
+    private final File journalDir;
+
+    private final long segmentBytes;
+
+    private final long rollIntervalMillis;
+
+    private final BlockingQueue<ByteBuffer> pendingRecords;
+
+    private final Thread writerThread;
+
+    private volatile boolean running;
+
+    private long nextSegmentId;
+
+    private File writingFile;
+
+    private FileChannel writingChannel;
+
+    private long writingBytes;
+
+    private long writingStartTime;
+
+    public JobExecuteJournal(final File journalDir, final long segmentBytes, final long rollIntervalMillis) {
+        this.journalDir = journalDir;
+        this.segmentBytes = segmentBytes;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.pendingRecords = new LinkedBlockingQueue<>();
+        this.writerThread = new Thread(this::writeLoop, "job-exec-journal-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        if (!journalDir.exists() && !journalDir.mkdirs()) {
+            throw new IOException("create journal dir " + journalDir + " failed.");
+        }
+        // 上次未正常封存的分段，已写入的完整记录仍然有效
+        final File[] writingFiles = journalDir.listFiles((dir, name) -> name.endsWith(WRITING_SUFFIX));
+        for (File file : writingFiles == null ? new File[0] : writingFiles) {
+            seal(file);
+        }
+        final List<File> segments = listSegments(journalDir);
+        nextSegmentId = segments.isEmpty() ? 0 : segmentId(segments.get(segments.size() - 1)) + 1;
+        running = true;
+        writerThread.start();
+    }
+
+    /**
+     * 追加记录，不等待落盘
+     *
+     * @param op     操作
+     * @param detail 任务明细
+     * @return 日志未启动或已停止时返回false，记录没有写入
+     */
+    public boolean append(final String op, final JobExecDetail detail) {
+        final ByteBuffer record = JournalRecordCodec.encode(op, detail);
+        // 与stop互斥，停止后写线程退出前一定能取到已入队的记录
+        synchronized (this) {
+            if (!running) {
+                return false;
+            }
+            pendingRecords.add(record);
+        }
+        return true;
+    }
+
+    /**
+     * 停止写入，已入队的记录写入并封存当前分段
+     */
+    public void stop() {
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        final List<ByteBuffer> batch = new ArrayList<>();
+        while (running || !pendingRecords.isEmpty()) {
+            try {
+                final ByteBuffer first = pendingRecords.poll(Math.max(1, rollIntervalMillis / 2), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pendingRecords.drainTo(batch, MAX_BATCH_RECORDS - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                if (writingChannel != null && (writingBytes >= segmentBytes
+                    || System.currentTimeMillis() - writingStartTime >= rollIntervalMillis)) {
+                    closeWriting();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // 写入失败的批次丢弃，切换到新分段继续写入
+                log.error("write job execute journal error, {} records lost, msg: {}", batch.size(), e.getMessage(), e);
+                batch.clear();
+                closeQuietly();
+            }
+        }
+        closeQuietly();
+    }
+
+    private void writeBatch(final List<ByteBuffer> batch) throws IOException {
+        if (writingChannel == null) {
+            openWriting();
+        }
+        final ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        final long total = remaining;
+        while (remaining > 0) {
+            remaining -= writingChannel.write(buffers);
+        }
+        // group commit：一批记录一次fsync
+        writingChannel.force(false);
+        writingBytes += total;
+    }
+
+    private void openWriting() throws IOException {
+        writingFile = new File(journalDir, SEGMENT_PREFIX + String.format("%019d", nextSegmentId++) + WRITING_SUFFIX);
+        writingChannel = FileChannel.open(writingFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writingBytes = 0;
+        writingStartTime = System.currentTimeMillis();
+    }
+
+    private void closeWriting() throws IOException {
+        writingChannel.close();
+        writingChannel = null;
+        seal(writingFile);
+    }
+
+    private void closeQuietly() {
+        if (writingChannel == null) {
+            return;
+        }
+        try {
+            closeWriting();
+        } catch (IOException e) {
+            log.error("close job execute journal segment {} error, msg: {}", writingFile, e.getMessage(), e);
+        }
+    }
+
+    private static void seal(final File writing) throws IOException {
+        final String name = writing.getName();
+        final File sealed = new File(writing.getParentFile(), name.substring(0, name.length() - WRITING_SUFFIX.length()) + SEGMENT_SUFFIX);
+        if (!writing.renameTo(sealed)) {
+            throw new IOException("seal journal segment " + writing + " failed.");
+        }
+    }
+
+    /**
+     * 按写入顺序列出已封存的分段
+     */
+    public static List<File> listSegments(final File journalDir) {
+        final File[] files = journalDir.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null || files.length == 0) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    private static long segmentId(final File segment) {
+        final String name = segment.getName();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+}
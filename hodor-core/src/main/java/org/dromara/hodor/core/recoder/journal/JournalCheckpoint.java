@@ -0,0 +1,58 @@
+package org.dromara.hodor.core.recoder.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import org.dromara.hodor.common.utils.StringUtils;
+
+/**
+ * 日志回放检查点，记录正在回放的分段已写入数据库的位置
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class JournalCheckpoint {
+
+    private final File checkpointFile;
+
+    private final File tempFile;
+
+    public JournalCheckpoint(final File journalDir) {
+        this.checkpointFile = new File(journalDir, "checkpoint");
+        this.tempFile = new File(journalDir, "checkpoint.tmp");
+    }
+
+    /**
+     * 获取分段的回放位置
+     *
+     * @param segment 分段文件
+     * @return 已回放位置，没有检查点时为0
+     */
+    public long position(final File segment) throws IOException {
+        if (!checkpointFile.exists()) {
+            return 0;
+        }
+        final String content = new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim();
+        final List<String> values = StringUtils.splitToList(content, " ");
+        if (values.size() != 2 || !values.get(0).equals(segment.getName())) {
+            return 0;
+        }
+        return Long.parseLong(values.get(1));
+    }
+
+    /**
+     * 原子更新检查点
+     */
+    public void save(final File segment, final long position) throws IOException {
+        Files.write(tempFile.toPath(), (segment.getName() + " " + position).getBytes(StandardCharsets.UTF_8));
+        Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void clear() throws IOException {
+        Files.deleteIfExists(checkpointFile.toPath());
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.dromara.hodor.core.recoder.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dromara.hodor.core.entity.JobExecDetail;
+
+/**
+ * 任务执行明细日志记录
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Getter
+@AllArgsConstructor
+public class JournalRecord {
+
+    private final String op;
+
+    private final JobExecDetail detail;
+
+}
@@ -0,0 +1,210 @@
+package org.dromara.hodor.core.recoder.journal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.CRC32;
+import org.dromara.hodor.core.entity.JobExecDetail;
+import org.dromara.hodor.model.enums.JobExecuteStatus;
+
+/**
+ * 任务执行明细日志记录编解码<br/>
+ *
+ * 记录格式：payloadLength(int) | crc32(int) | payload<br/>
+ * payload：op(byte) | id(long) | fieldMask(short) | 非空字段按顺序写入
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public final class JournalRecordCodec {
+
+    public static final int HEADER_LENGTH = 8;
+
+    /**
+     * 单条记录最大长度，超过时认为记录已损坏
+     */
+    public static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    private static final int GROUP_NAME = 1;
+
+    private static final int JOB_NAME = 1 << 1;
+
+    private static final int SCHEDULER_ENDPOINT = 1 << 2;
+
+    private static final int ACTUATOR_ENDPOINT = 1 << 3;
+
+    private static final int SCHEDULE_START = 1 << 4;
+
+    private static final int SCHEDULE_END = 1 << 5;
+
+    private static final int EXECUTE_START = 1 << 6;
+
+    private static final int EXECUTE_END = 1 << 7;
+
+    private static final int EXECUTE_STATUS = 1 << 8;
+
+    private static final int ELAPSED_TIME = 1 << 9;
+
+    private static final int IS_TIMEOUT = 1 << 10;
+
+    private static final int COMMENTS = 1 << 11;
+
+    private static final int JOB_EXEC_DATA = 1 << 12;
+
+    private JournalRecordCodec() {
+    }
+
+    /**
+     * 编码为完整记录，包括记录头
+     */
+    public static ByteBuffer encode(final String op, final JobExecDetail detail) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(op.charAt(0));
+            out.writeLong(detail.getId());
+            out.writeShort(fieldMask(detail));
+            writeString(out, detail.getGroupName());
+            writeString(out, detail.getJobName());
+            writeString(out, detail.getSchedulerEndpoint());
+            writeString(out, detail.getActuatorEndpoint());
+            writeDate(out, detail.getScheduleStart());
+            writeDate(out, detail.getScheduleEnd());
+            writeDate(out, detail.getExecuteStart());
+            writeDate(out, detail.getExecuteEnd());
+            writeString(out, detail.getExecuteStatus() == null ? null : detail.getExecuteStatus().name());
+            if (detail.getElapsedTime() != null) {
+                out.writeLong(detail.getElapsedTime());
+            }
+            if (detail.getIsTimeout() != null) {
+                out.writeBoolean(detail.getIsTimeout());
+            }
+            writeString(out, detail.getComments());
+            writeBytes(out, detail.getJobExecData());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        final int payloadLength = record.remaining() - HEADER_LENGTH;
+        final CRC32 crc32 = new CRC32();
+        crc32.update(record.array(), HEADER_LENGTH, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc32.getValue());
+        return record;
+    }
+
+    /**
+     * 校验记录内容
+     */
+    public static boolean checksum(final byte[] payload, final int crc) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(payload, 0, payload.length);
+        return (int) crc32.getValue() == crc;
+    }
+
+    /**
+     * 解码记录内容
+     *
+     * @param in payload输入
+     * @return 操作与任务明细
+     */
+    public static JournalRecord decode(final DataInput in) throws IOException {
+        final String op = String.valueOf((char) in.readByte());
+        final JobExecDetail detail = new JobExecDetail();
+        detail.setId(in.readLong());
+        final int mask = in.readShort();
+        if ((mask & GROUP_NAME) != 0) {
+            detail.setGroupName(readString(in));
+        }
+        if ((mask & JOB_NAME) != 0) {
+            detail.setJobName(readString(in));
+        }
+        if ((mask & SCHEDULER_ENDPOINT) != 0) {
+            detail.setSchedulerEndpoint(readString(in));
+        }
+        if ((mask & ACTUATOR_ENDPOINT) != 0) {
+            detail.setActuatorEndpoint(readString(in));
+        }
+        if ((mask & SCHEDULE_START) != 0) {
+            detail.setScheduleStart(new Date(in.readLong()));
+        }
+        if ((mask & SCHEDULE_END) != 0) {
+            detail.setScheduleEnd(new Date(in.readLong()));
+        }
+        if ((mask & EXECUTE_START) != 0) {
+            detail.setExecuteStart(new Date(in.readLong()));
+        }
+        if ((mask & EXECUTE_END) != 0) {
+            detail.setExecuteEnd(new Date(in.readLong()));
+        }
+        if ((mask & EXECUTE_STATUS) != 0) {
+            detail.setExecuteStatus(JobExecuteStatus.ofName(readString(in)));
+        }
+        if ((mask & ELAPSED_TIME) != 0) {
+            detail.setElapsedTime(in.readLong());
+        }
+        if ((mask & IS_TIMEOUT) != 0) {
+            detail.setIsTimeout(in.readBoolean());
+        }
+        if ((mask & COMMENTS) != 0) {
+            detail.setComments(readString(in));
+        }
+        if ((mask & JOB_EXEC_DATA) != 0) {
+            detail.setJobExecData(readBytes(in));
+        }
+        return new JournalRecord(op, detail);
+    }
+
+    private static int fieldMask(final JobExecDetail detail) {
+        int mask = 0;
+        mask |= detail.getGroupName() != null ? GROUP_NAME : 0;
+        mask |= detail.getJobName() != null ? JOB_NAME : 0;
+        mask |= detail.getSchedulerEndpoint() != null ? SCHEDULER_ENDPOINT : 0;
+        mask |= detail.getActuatorEndpoint() != null ? ACTUATOR_ENDPOINT : 0;
+        mask |= detail.getScheduleStart() != null ? SCHEDULE_START : 0;
+        mask |= detail.getScheduleEnd() != null ? SCHEDULE_END : 0;
+        mask |= detail.getExecuteStart() != null ? EXECUTE_START : 0;
+        mask |= detail.getExecuteEnd() != null ? EXECUTE_END : 0;
+        mask |= detail.getExecuteStatus() != null ? EXECUTE_STATUS : 0;
+        mask |= detail.getElapsedTime() != null ? ELAPSED_TIME : 0;
+        mask |= detail.getIsTimeout() != null ? IS_TIMEOUT : 0;
+        mask |= detail.getComments() != null ? COMMENTS : 0;
+        mask |= detail.getJobExecData() != null ? JOB_EXEC_DATA : 0;
+        return mask;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value != null) {
+            writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] value) throws IOException {
+        if (value != null) {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static void writeDate(final DataOutputStream out, final Date value) throws IOException {
+        if (value != null) {
+            out.writeLong(value.getTime());
+        }
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final DataInput in) throws IOException {
+        final byte[] value = new byte[in.readInt()];
+        in.readFully(value);
+        return value;
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.dromara.hodor.core.recoder.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 流式读取日志分段，不一次加载整个文件
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class JournalSegmentReader implements Closeable {
+
+    private final File segment;
+
+    private final FileChannel channel;
+
+    private final DataInputStream in;
+
+    private long position;
+
+    public JournalSegmentReader(final File segment, final long position) throws IOException {
+        this.segment = segment;
+        this.channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ);
+        this.channel.position(position);
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+        this.position = position;
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 记录，读到分段末尾或不完整的记录时返回null
+     */
+    public JournalRecord next() throws IOException {
+        final int length;
+        final int crc;
+        final byte[] payload;
+        try {
+            length = in.readInt();
+            crc = in.readInt();
+            if (length <= 0 || length > JournalRecordCodec.MAX_RECORD_LENGTH) {
+                log.warn("journal segment {} has illegal record length {} at {}, skip the rest.", segment.getName(), length, position);
+                return null;
+            }
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            // 写入时中断的记录
+            return null;
+        }
+        if (!JournalRecordCodec.checksum(payload, crc)) {
+            log.warn("journal segment {} record checksum mismatch at {}, skip the rest.", segment.getName(), position);
+            return null;
+        }
+        position += JournalRecordCodec.HEADER_LENGTH + length;
+        return JournalRecordCodec.decode(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    /**
+     * 已读取记录的结束位置
+     */
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+        channel.close();
+    }
+
+}
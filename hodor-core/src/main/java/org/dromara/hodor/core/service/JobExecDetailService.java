@@ -1,5 +1,6 @@
 package org.dromara.hodor.core.service;
 
+import java.util.List;
 import org.dromara.hodor.core.PageInfo;
 import org.dromara.hodor.core.entity.JobExecDetail;
 
@@ -17,6 +18,16 @@ public interface JobExecDetailService {
 
     void createIfAbsent(JobExecDetail jobExecDetail);
 
+    /**
+     * JDBC批量插入，已存在的忽略
+     */
+    void batchCreateIfAbsent(List<JobExecDetail> jobExecDetails);
+
+    /**
+     * JDBC批量按id更新非空字段
+     */
+    void batchUpdate(List<JobExecDetail> jobExecDetails);
+
     Boolean deleteById(Long id);
 
     PageInfo<JobExecDetail> queryByPage(JobExecDetail jobExecDetail, Integer pageNo, Integer pageSize);
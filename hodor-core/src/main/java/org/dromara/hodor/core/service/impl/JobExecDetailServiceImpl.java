@@ -1,10 +1,18 @@
 package org.dromara.hodor.core.service.impl;
 
+import com.baomidou.mybatisplus.core.enums.SqlMethod;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.baomidou.mybatisplus.core.toolkit.StringPool;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.dromara.hodor.core.PageInfo;
 import org.dromara.hodor.core.entity.JobExecDetail;
 import org.dromara.hodor.core.entity.JobGroup;
@@ -22,6 +30,10 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class JobExecDetailServiceImpl implements JobExecDetailService {
 
+    private static final int BATCH_SIZE = 500;
+
+    private static final Log BATCH_LOG = LogFactory.getLog(JobExecDetailServiceImpl.class);
+
     private final @NonNull JobExecDetailMapper jobExecDetailMapper;
 
     @Override
@@ -39,6 +51,23 @@ public class JobExecDetailServiceImpl implements JobExecDetailService {
         jobExecDetailMapper.insertIgnore(jobExecDetail);
     }
 
+    @Override
+    public void batchCreateIfAbsent(List<JobExecDetail> jobExecDetails) {
+        final String statement = JobExecDetailMapper.class.getName() + StringPool.DOT + "insertIgnore";
+        SqlHelper.executeBatch(JobExecDetail.class, BATCH_LOG, jobExecDetails, BATCH_SIZE,
+            (sqlSession, jobExecDetail) -> sqlSession.insert(statement, jobExecDetail));
+    }
+
+    @Override
+    public void batchUpdate(List<JobExecDetail> jobExecDetails) {
+        final String statement = SqlHelper.getSqlStatement(JobExecDetailMapper.class, SqlMethod.UPDATE_BY_ID);
+        SqlHelper.executeBatch(JobExecDetail.class, BATCH_LOG, jobExecDetails, BATCH_SIZE, (sqlSession, jobExecDetail) -> {
+            MapperMethod.ParamMap<JobExecDetail> param = new MapperMethod.ParamMap<>();
+            param.put(Constants.ENTITY, jobExecDetail);
+            sqlSession.update(statement, param);
+        });
+    }
+
     @Override
     public Boolean deleteById(Long id) {
         return jobExecDetailMapper.deleteById(id) > 0;
@@ -0,0 +1,159 @@
+package org.dromara.hodor.core.recoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.dromara.hodor.core.entity.JobExecDetail;
+import org.dromara.hodor.core.recoder.journal.JobExecuteJournal;
+import org.dromara.hodor.core.recoder.journal.JournalCheckpoint;
+import org.dromara.hodor.core.recoder.journal.JournalRecord;
+import org.dromara.hodor.core.recoder.journal.JournalSegmentReader;
+import org.dromara.hodor.model.enums.JobExecuteStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * job execute journal test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class JobExecuteJournalTest {
+
+    private File journalDir;
+
+    @Before
+    public void setUp() throws IOException {
+        journalDir = Files.createTempDirectory("hodor-journal").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(journalDir);
+    }
+
+    @Test
+    public void testAppendAfterStop() throws IOException {
+        JobExecuteJournal journal = new JobExecuteJournal(journalDir, 1024, 60_000);
+        Assert.assertFalse(journal.append(JobExecuteRecorder.OP_INSERT, detail(0)));
+        journal.start();
+        Assert.assertTrue(journal.append(JobExecuteRecorder.OP_INSERT, detail(1)));
+        journal.stop();
+        // 停止后不再接收记录，不抛异常
+        Assert.assertFalse(journal.append(JobExecuteRecorder.OP_INSERT, detail(2)));
+
+        List<JournalRecord> records = readAll(JobExecuteJournal.listSegments(journalDir));
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals(Long.valueOf(1), records.get(0).getDetail().getId());
+    }
+
+    @Test
+    public void testAppendAndReplay() throws IOException {
+        JobExecuteJournal journal = new JobExecuteJournal(journalDir, 1024, 60_000);
+        journal.start();
+        for (long i = 0; i < 100; i++) {
+            journal.append(JobExecuteRecorder.OP_INSERT, detail(i));
+        }
+        JobExecDetail finished = new JobExecDetail();
+        finished.setId(99L);
+        finished.setExecuteStatus(JobExecuteStatus.SUCCEEDED);
+        finished.setExecuteEnd(new Date(2000L));
+        finished.setComments("done");
+        finished.setJobExecData(new byte[] {1, 2});
+        journal.append(JobExecuteRecorder.OP_UPDATE, finished);
+        journal.stop();
+
+        List<File> segments = JobExecuteJournal.listSegments(journalDir);
+        List<JournalRecord> records = readAll(segments);
+        Assert.assertEquals(101, records.size());
+        for (int i = 0; i < 100; i++) {
+            JournalRecord record = records.get(i);
+            Assert.assertEquals(JobExecuteRecorder.OP_INSERT, record.getOp());
+            Assert.assertEquals(Long.valueOf(i), record.getDetail().getId());
+            Assert.assertEquals("job" + i, record.getDetail().getJobName());
+            Assert.assertEquals(JobExecuteStatus.READY, record.getDetail().getExecuteStatus());
+            Assert.assertNull(record.getDetail().getActuatorEndpoint());
+        }
+        JobExecDetail update = records.get(100).getDetail();
+        Assert.assertEquals(JobExecuteRecorder.OP_UPDATE, records.get(100).getOp());
+        Assert.assertNull(update.getGroupName());
+        Assert.assertEquals(JobExecuteStatus.SUCCEEDED, update.getExecuteStatus());
+        Assert.assertEquals(new Date(2000L), update.getExecuteEnd());
+        Assert.assertEquals("done", update.getComments());
+        Assert.assertArrayEquals(new byte[] {1, 2}, update.getJobExecData());
+    }
+
+    @Test
+    public void testTornTailAndCheckpoint() throws IOException {
+        JobExecuteJournal journal = new JobExecuteJournal(journalDir, 64 * 1024, 60_000);
+        journal.start();
+        for (long i = 0; i < 10; i++) {
+            journal.append(JobExecuteRecorder.OP_INSERT, detail(i));
+        }
+        journal.stop();
+        File segment = JobExecuteJournal.listSegments(journalDir).get(0);
+        // 模拟写入中断，最后一条记录不完整
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        JournalCheckpoint checkpoint = new JournalCheckpoint(journalDir);
+        long position;
+        try (JournalSegmentReader reader = new JournalSegmentReader(segment, checkpoint.position(segment))) {
+            for (int i = 0; i < 4; i++) {
+                Assert.assertNotNull(reader.next());
+            }
+            position = reader.position();
+            checkpoint.save(segment, position);
+        }
+        Assert.assertEquals(position, checkpoint.position(segment));
+        try (JournalSegmentReader reader = new JournalSegmentReader(segment, checkpoint.position(segment))) {
+            List<Long> ids = new ArrayList<>();
+            JournalRecord record;
+            while ((record = reader.next()) != null) {
+                ids.add(record.getDetail().getId());
+            }
+            Assert.assertEquals(5, ids.size());
+            Assert.assertEquals(Long.valueOf(4L), ids.get(0));
+        }
+
+        // 重启后新的记录写入新的分段
+        journal = new JobExecuteJournal(journalDir, 64 * 1024, 60_000);
+        journal.start();
+        journal.append(JobExecuteRecorder.OP_INSERT, detail(10));
+        journal.stop();
+        Assert.assertEquals(2, JobExecuteJournal.listSegments(journalDir).size());
+    }
+
+    private List<JournalRecord> readAll(List<File> segments) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        for (File segment : segments) {
+            try (JournalSegmentReader reader = new JournalSegmentReader(segment, 0)) {
+                JournalRecord record;
+                while ((record = reader.next()) != null) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    private JobExecDetail detail(long id) {
+        JobExecDetail detail = new JobExecDetail();
+        detail.setId(id);
+        detail.setGroupName("group");
+        detail.setJobName("job" + id);
+        detail.setSchedulerEndpoint("127.0.0.1:8081");
+        detail.setScheduleStart(new Date(1000L));
+        detail.setExecuteStatus(JobExecuteStatus.READY);
+        return detail;
+    }
+
+}
@@ -74,6 +74,11 @@ public class JobDesc {
 
   private Integer retryCount;
 
+  /**
+   * 执行节点负载均衡策略：RANDOM、ROUND_ROBIN、LEAST_OUTSTANDING、POWER_OF_TWO_CHOICES，为空时随机
+   */
+  private String loadBalance;
+
   private Integer version;
 
 }
@@ -39,6 +39,11 @@ public class NodeInfo {
      */
     private String version;
 
+    /**
+     * 执行端支持的最高通信协议版本
+     */
+    private Byte protocolVersion;
+
     /**
      * 执行端节点hostname
      */
@@ -22,6 +22,13 @@ public interface RegistryCenter {
 
     List<String> getChildren(String key);
 
+    /**
+     * 允许读到旧数据时由注册中心选择更廉价的读方式，只用于结果偏旧也无害的场景
+     */
+    default List<String> getChildren(String key, boolean staleReadable) {
+        return getChildren(key);
+    }
+
     void createPersistent(String key, String value);
 
     void createEphemeral(String key, String value);
@@ -18,6 +18,8 @@ public class ActuatorNode {
 
     public static final String ACTUATOR_BINDING_PATH = "/actuator/binding";
 
+    public static final String ACTUATOR_HEARTBEATS_PATH = "/actuator/heartbeats";
+
     public static boolean isGroupPath(String path) {
         return StringUtils.isNotBlank(path) && path.startsWith(ACTUATOR_GROUPS_PATH + StringUtils.PATH_SEPARATOR);
     }
@@ -34,6 +36,10 @@ public class ActuatorNode {
         return StringUtils.isNotBlank(path) && path.startsWith(ACTUATOR_BINDING_PATH + StringUtils.PATH_SEPARATOR);
     }
 
+    public static boolean isHeartbeatPath(String path) {
+        return StringUtils.isNotBlank(path) && path.startsWith(ACTUATOR_HEARTBEATS_PATH + StringUtils.PATH_SEPARATOR);
+    }
+
     public static String createNodePath(String endpoint) {
         return StringUtils.format("{}/{}", ACTUATOR_NODES_PATH, endpoint);
     }
@@ -50,4 +56,8 @@ public class ActuatorNode {
         return StringUtils.format("{}/{}/{}", ACTUATOR_BINDING_PATH, clusterName, groupName);
     }
 
+    public static String createHeartbeatPath(String serverEndpoint) {
+        return StringUtils.format("{}/{}", ACTUATOR_HEARTBEATS_PATH, serverEndpoint);
+    }
+
 }
@@ -17,10 +17,9 @@
 
 package org.dromara.hodor.register.embedded;
 
-import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ratis.conf.Parameters;
 import org.apache.ratis.conf.RaftProperties;
@@ -28,6 +27,8 @@ import org.dromara.hodor.common.exception.HodorException;
 import org.dromara.hodor.common.extension.Join;
 import org.dromara.hodor.common.raft.HodorRaftGroup;
 import org.dromara.hodor.common.raft.kv.core.KVConstant;
+import org.dromara.hodor.common.raft.kv.core.KVOperator;
+import org.dromara.hodor.common.raft.kv.core.ReadConsistency;
 import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
 import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
 import org.dromara.hodor.common.utils.BytesUtil;
@@ -51,6 +52,8 @@ import org.dromara.hodor.register.embedded.watch.HodorWatchClient;
 @Slf4j
 public class EmbeddedRegistryCenter implements RegistryCenter {
 
+    private static final int SCAN_PAGE_SIZE = 1000;
+
     private EmbeddedRegistryServer embeddedRegistryServer;
 
     private HodorWatchClient watchClient;
@@ -65,6 +68,8 @@ public class EmbeddedRegistryCenter implements RegistryCenter {
         final Parameters parameters = new Parameters();
         final RaftProperties raftProperties = new RaftProperties();
         raftProperties.set(KVConstant.HODOR_CLIENT_ID, config.getEndpoint());
+        // 默认在leader读取，本地读取只保证不早于本客户端自己的写入，需要的调用处单独开启
+        raftProperties.set(KVConstant.HODOR_READ_CONSISTENCY, ReadConsistency.LEASE.name());
         HodorRaftGroup hodorRaftGroup = HodorRaftGroup.builder()
             .raftGroupName(KVConstant.HODOR_KV_GROUP_NAME)
             .addresses(config.getServers())
@@ -72,7 +77,7 @@ public class EmbeddedRegistryCenter implements RegistryCenter {
             .parameters(parameters)
             .build();
         this.tableName = DBColumnFamily.HodorWatch.getName();
-        this.watchManager = new WatchManager(hodorRaftGroup, tableName);
+        this.watchManager = new WatchManager(tableName);
         embeddedRegistryServer = new EmbeddedRegistryServer(config, watchManager);
         embeddedRegistryServer.init();
         embeddedRegistryServer.start();
@@ -105,18 +110,22 @@ public class EmbeddedRegistryCenter implements RegistryCenter {
 
     @Override
     public List<String> getChildren(String key) {
+        return getChildren(key, false);
+    }
+
+    @Override
+    public List<String> getChildren(String key, boolean staleReadable) {
         final byte[] keyBytes = BytesUtil.writeUtf8(key);
-        List<KVEntry> result = this.watchClient.getKvClient()
-            .kvOperator(tableName)
-            .scan(keyBytes, keyBytes, false);
-        return Optional.ofNullable(result)
-            .orElse(Lists.newArrayList())
-            .stream()
-            .map(e -> {
-                final String fullKey = BytesUtil.readUtf8(e.getKey());
-                return StringUtils.removeStart(StringUtils.removeStart(fullKey, key), "/");
-            })
-            .collect(Collectors.toList());
+        final KVOperator kvOperator = this.watchClient.getKvClient().kvOperator(tableName);
+        // 每个节点都内嵌了raft节点，允许旧数据时在本地读取
+        final Iterator<KVEntry> iterator = (staleReadable ? kvOperator.withReadConsistency(ReadConsistency.FOLLOWER) : kvOperator)
+            .scanIterator(keyBytes, keyBytes, false, SCAN_PAGE_SIZE);
+        final List<String> children = new ArrayList<>();
+        while (iterator.hasNext()) {
+            final String fullKey = BytesUtil.readUtf8(iterator.next().getKey());
+            children.add(StringUtils.removeStart(StringUtils.removeStart(fullKey, key), "/"));
+        }
+        return children;
     }
 
     @Override
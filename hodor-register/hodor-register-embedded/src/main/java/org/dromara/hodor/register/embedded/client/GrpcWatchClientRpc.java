@@ -15,7 +15,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -51,7 +50,12 @@ import org.dromara.hodor.common.utils.BytesUtil;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * GrpcWatchClientRpc
+ * GrpcWatchClientRpc<br/>
+ *
+ * 1、每个watch记录收到的最后一个事件的revision，重连后从该revision开始重放，避免断线期间丢失事件，
+ *    还没有收到事件时从创建watch时服务端返回的revision之后开始重放
+ * 2、重放是至少一次的，revision小于已收到的事件，或同一revision中已收到的事件会被丢弃
+ * 3、服务端历史中已不包含该revision时回调{@link WatchCallback#compacted(long)}，由调用方全量同步
  *
  * @author tomgs
  * @version 1.0
@@ -63,7 +67,7 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
 
     private static final BytesUtil.ByteArrayComparator byteArrayComparator = BytesUtil.getDefaultByteArrayComparator();
 
-    private static final Map<byte[], WatchCallback> watchClientCallBackMap = Maps.newTreeMap(byteArrayComparator);
+    private static final Map<byte[], WatchState> watchStates = Maps.newTreeMap(byteArrayComparator);
 
     private static final Lock lock = new ReentrantLock();
 
@@ -85,8 +89,6 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
 
     private final String endpoint;
 
-    private final List<WatchRequest> watchRequests;
-
     public GrpcWatchClientRpc(ClientId clientId, RaftProperties properties) {
         this.clientId = clientId;
         this.grpcExecutor = ThreadUtil.newExecutor(4, 4);
@@ -95,16 +97,15 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
         this.channelKeepAlive = properties.getLong("hodor.watch.keepalive", 60 * 1000);
         this.maxInboundMessageSize = properties.getInt("hodor.watch.max.messageSize", 4096);
         this.endpoint = properties.get(KVConstant.HODOR_CLIENT_ID);
-        this.watchRequests = new ArrayList<>();
     }
 
     @Override
     public void watch(WatchRequest watchRequest, WatchCallback watchCallback) {
         LockUtil.lockMethod(lock, k -> {
             startHandleWatchStream();
+            // 先记录状态，创建watch的响应可能先于put返回
+            watchStates.put(watchRequest.getCreateRequest().getKey().toByteArray(), new WatchState(watchRequest, watchCallback));
             watchRequestStreamObserver.onNext(watchRequest);
-            watchRequests.add(watchRequest);
-            watchClientCallBackMap.put(watchRequest.getCreateRequest().getKey().toByteArray(), watchCallback);
             return null;
         }, null);
     }
@@ -113,8 +114,7 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
     public void unwatch(WatchRequest watchRequest) {
         LockUtil.lockMethod(lock, k -> {
             watchRequestStreamObserver.onNext(watchRequest);
-            watchRequests.add(watchRequest);
-            watchClientCallBackMap.remove(watchRequest.getCancelRequest().getKey().toByteArray());
+            watchStates.remove(watchRequest.getCancelRequest().getKey().toByteArray());
             return null;
         }, null);
     }
@@ -129,7 +129,7 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
             if (channel != null) {
                 GrpcUtil.shutdownManagedChannel(channel);
             }
-            watchClientCallBackMap.clear();
+            watchStates.clear();
         }
     }
 
@@ -180,17 +180,10 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
                     @Override
                     public void onNext(WatchResponse response) {
                         try {
-                            final DataChangeEvent event = response.getEvent();
-                            log.info("watch event received, {}", event);
-
-                            final Optional<byte[]> watchKeyOptional = getWatchKey(event.getKey().toByteArray());
-                            watchKeyOptional.ifPresent(watchKey -> {
-                                final WatchCallback watchCallback = watchClientCallBackMap.getOrDefault(watchKey,
-                                    changeEvent -> log.warn("not found event key, {}.", changeEvent.getKey()));
-                                watchCallback.callback(event);
-                            });
+                            log.info("watch response received, {}", response);
+                            LockUtil.lockMethod(lock, GrpcWatchClientRpc.this::handleResponse, response);
                         } catch (Exception e) {
-                            log.error("[{}] Error to process server push response: {}", clientId, response.getEvent().toString());
+                            log.error("[{}] Error to process server push response: {}", clientId, response.toString());
                         }
                     }
 
@@ -209,9 +202,13 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
                             executor.schedule(() -> {
                                 watchStreamSendHandler();
                                 log.info("Resend registry watch request ...");
-                                for (WatchRequest watchRequest : watchRequests) {
-                                    watchRequestStreamObserver.onNext(watchRequest);
-                                }
+                                LockUtil.lockMethod(lock, k -> {
+                                    // 按key升序发送，前缀的watch先于被它包含的watch注册并重放
+                                    for (WatchState watchState : watchStates.values()) {
+                                        watchRequestStreamObserver.onNext(watchState.resumeRequest());
+                                    }
+                                    return null;
+                                }, null);
                             }, 500, TimeUnit.MILLISECONDS),
                             "Scheduled startHandleWatchStream failed"
                         );
@@ -247,13 +244,45 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
         return list;
     }
 
+    /**
+     * 包含给定key的最短的watch key，与服务端匹配的watch一致
+     */
     public Optional<byte[]> getWatchKey(byte[] key) {
-        final Set<byte[]> keySet = watchClientCallBackMap.keySet();
-        return keySet.stream().filter(k -> byteArrayComparator
-                .compare(k, 0, k.length, key, 0, k.length) >= 0)
+        return watchStates.keySet().stream()
+            .filter(k -> k.length <= key.length && byteArrayComparator.compare(k, 0, k.length, key, 0, k.length) == 0)
             .findFirst();
     }
 
+    private Void handleResponse(WatchResponse response) {
+        final byte[] replayWatchKey = response.getWatchKey().toByteArray();
+        if (response.getCompacted()) {
+            final WatchState watchState = watchStates.get(replayWatchKey);
+            if (watchState != null) {
+                watchState.compacted(response.getCompactRevision());
+            }
+            return null;
+        }
+        if (response.getCreated()) {
+            final WatchState watchState = watchStates.get(replayWatchKey);
+            if (watchState != null) {
+                watchState.created(response.getRevision());
+            }
+            return null;
+        }
+        final DataChangeEvent event = response.getEvent();
+        final Optional<byte[]> watchKey = getWatchKey(event.getKey().toByteArray());
+        if (!watchKey.isPresent()) {
+            log.warn("not found event key, {}.", event.getKey());
+            return null;
+        }
+        // 重放的事件只交给请求重放的watch处理
+        if (replayWatchKey.length > 0 && byteArrayComparator.compare(replayWatchKey, watchKey.get()) != 0) {
+            return null;
+        }
+        watchStates.get(watchKey.get()).onEvent(event);
+        return null;
+    }
+
     /**
      * create a new channel with specific server address.
      *
@@ -292,4 +321,77 @@ public class GrpcWatchClientRpc implements WatchClientRpc {
             executor
         );
     }
+
+    private static class WatchState {
+
+        private final WatchRequest watchRequest;
+
+        private final WatchCallback callback;
+
+        private long lastRevision;
+
+        private int seenInLastRevision;
+
+        private int skip;
+
+        // 创建watch时服务端已分发的revision，未收到创建响应时为-1
+        private long createdRevision = -1;
+
+        WatchState(WatchRequest watchRequest, WatchCallback callback) {
+            this.watchRequest = watchRequest;
+            this.callback = callback;
+        }
+
+        void onEvent(DataChangeEvent event) {
+            final long revision = event.getRevision();
+            if (revision < lastRevision) {
+                return;
+            }
+            if (revision == lastRevision) {
+                // 同一个batch中的事件revision相同，跳过重连前已经收到的部分
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                seenInLastRevision++;
+            } else {
+                lastRevision = revision;
+                seenInLastRevision = 1;
+                skip = 0;
+            }
+            callback.callback(event);
+        }
+
+        void compacted(long compactRevision) {
+            log.warn("watch {} start revision {} is compacted, compact revision {}.",
+                watchRequest.getCreateRequest().getKey().toStringUtf8(), lastRevision, compactRevision);
+            lastRevision = Math.max(lastRevision, compactRevision);
+            seenInLastRevision = 0;
+            skip = 0;
+            callback.compacted(compactRevision);
+        }
+
+        void created(long revision) {
+            createdRevision = revision;
+        }
+
+        /**
+         * 从最后收到的revision开始重新watch，还没有收到过事件时从创建watch时的revision之后开始，
+         * 创建watch的响应也没有收到时服务端还未注册该watch，不重放历史
+         */
+        WatchRequest resumeRequest() {
+            final long startRevision;
+            if (lastRevision > 0) {
+                skip = seenInLastRevision;
+                startRevision = lastRevision;
+            } else {
+                skip = 0;
+                startRevision = createdRevision >= 0 ? createdRevision + 1 : 0;
+            }
+            return watchRequest.toBuilder()
+                .setCreateRequest(watchRequest.getCreateRequest().toBuilder()
+                    .setStartRevision(startRevision))
+                .build();
+        }
+    }
 }
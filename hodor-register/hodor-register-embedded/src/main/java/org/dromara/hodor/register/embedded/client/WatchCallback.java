@@ -12,4 +12,12 @@ public interface WatchCallback {
 
     void callback(DataChangeEvent event);
 
+    /**
+     * 重连时需要重放的事件已不在服务端的历史中，compactRevision及之前的事件已丢失
+     *
+     * @param compactRevision 服务端历史中已移除的最大revision
+     */
+    default void compacted(long compactRevision) {
+    }
+
 }
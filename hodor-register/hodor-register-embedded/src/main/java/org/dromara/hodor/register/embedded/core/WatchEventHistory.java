@@ -0,0 +1,109 @@
+package org.dromara.hodor.register.embedded.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.dromara.hodor.common.proto.DataChangeEvent;
+
+/**
+ * 数据变更事件的历史记录<br/>
+ *
+ * 1、每个列族一个固定大小的环形缓冲区，按revision（raft日志索引）顺序保存最近的事件
+ * 2、客户端重连后从最后收到的revision开始重放，缓冲区已不包含该revision时需要全量同步
+ * 3、启动或安装快照后，快照之前的事件不在缓冲区中，以快照的日志索引作为已压缩的revision
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class WatchEventHistory {
+
+    private final int capacity;
+
+    private final Map<String, Ring> rings = new HashMap<>();
+
+    private long baseRevision;
+
+    public WatchEventHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0.");
+        }
+        this.capacity = capacity;
+    }
+
+    public synchronized void append(String table, DataChangeEvent event) {
+        rings.computeIfAbsent(table, k -> new Ring(capacity, baseRevision)).add(event);
+    }
+
+    /**
+     * 给定列族中revision不小于startRevision的事件，历史记录已不包含startRevision时返回null
+     */
+    public synchronized List<DataChangeEvent> since(String table, long startRevision) {
+        final Ring ring = rings.get(table);
+        if (ring == null) {
+            return startRevision > baseRevision ? new ArrayList<>() : null;
+        }
+        return ring.since(startRevision);
+    }
+
+    /**
+     * 已从历史记录中移除的最大revision
+     */
+    public synchronized long getCompactRevision(String table) {
+        final Ring ring = rings.get(table);
+        return ring == null ? baseRevision : ring.compactRevision;
+    }
+
+    /**
+     * 清空历史记录，revision不大于baseRevision的事件都视为已压缩
+     */
+    public synchronized void reset(long baseRevision) {
+        this.baseRevision = Math.max(baseRevision, 0);
+        rings.clear();
+    }
+
+    private static class Ring {
+
+        private final DataChangeEvent[] events;
+
+        private int head;
+
+        private int size;
+
+        private long compactRevision;
+
+        Ring(int capacity, long compactRevision) {
+            this.events = new DataChangeEvent[capacity];
+            this.compactRevision = compactRevision;
+        }
+
+        void add(DataChangeEvent event) {
+            if (event.getRevision() <= compactRevision) {
+                return;
+            }
+            if (size == events.length) {
+                compactRevision = events[head].getRevision();
+                events[head] = event;
+                head = (head + 1) % events.length;
+            } else {
+                events[(head + size) % events.length] = event;
+                size++;
+            }
+        }
+
+        List<DataChangeEvent> since(long startRevision) {
+            if (startRevision <= compactRevision) {
+                return null;
+            }
+            final List<DataChangeEvent> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                final DataChangeEvent event = events[(head + i) % events.length];
+                if (event.getRevision() >= startRevision) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+    }
+
+}
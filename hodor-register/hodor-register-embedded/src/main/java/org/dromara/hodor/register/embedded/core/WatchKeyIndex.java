@@ -0,0 +1,269 @@
+package org.dromara.hodor.register.embedded.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按key前缀索引的watch订阅关系<br/>
+ *
+ * 1、watch的key作为前缀，写入的key以它开头时命中，一个连接可以watch多个key
+ * 2、使用字节前缀树保存watch的key到订阅连接的关系，匹配一次写入只需沿key走一遍树，与watch的数量无关
+ * 3、同时记录每个连接watch的key，连接断开时一次性移除
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class WatchKeyIndex {
+
+    private final Node root = new Node();
+
+    private final Map<String, Set<Key>> subscriberKeys = new HashMap<>();
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    public void add(byte[] key, String subscriber) {
+        readWriteLock.writeLock().lock();
+        try {
+            Node node = root;
+            for (byte b : key) {
+                node = node.getOrCreateChild(b);
+            }
+            if (node.subscribers == null) {
+                node.subscribers = new HashSet<>();
+            }
+            node.subscribers.add(subscriber);
+            subscriberKeys.computeIfAbsent(subscriber, k -> new HashSet<>()).add(new Key(key));
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    public void remove(byte[] key, String subscriber) {
+        readWriteLock.writeLock().lock();
+        try {
+            removeFromTree(key, subscriber);
+            final Set<Key> keys = subscriberKeys.get(subscriber);
+            if (keys != null) {
+                keys.remove(new Key(key));
+                if (keys.isEmpty()) {
+                    subscriberKeys.remove(subscriber);
+                }
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除连接的所有watch
+     */
+    public void removeSubscriber(String subscriber) {
+        readWriteLock.writeLock().lock();
+        try {
+            final Set<Key> keys = subscriberKeys.remove(subscriber);
+            if (keys != null) {
+                for (Key key : keys) {
+                    removeFromTree(key.bytes, subscriber);
+                }
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 是否有watch的key是给定key的前缀
+     */
+    public boolean contains(byte[] key) {
+        readWriteLock.readLock().lock();
+        try {
+            return firstMatch(key) != null;
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 最短的匹配给定key的watch key，没有时返回null
+     */
+    public byte[] getWatchKey(byte[] key) {
+        readWriteLock.readLock().lock();
+        try {
+            final Node node = firstMatch(key);
+            return node == null ? null : Arrays.copyOf(key, node.depth);
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 所有watch了给定key或其前缀的连接
+     */
+    public Set<String> match(byte[] key) {
+        readWriteLock.readLock().lock();
+        try {
+            Set<String> result = null;
+            Node node = root;
+            for (int i = 0; ; i++) {
+                if (node.subscribers != null) {
+                    if (result == null) {
+                        result = new HashSet<>(node.subscribers);
+                    } else {
+                        result.addAll(node.subscribers);
+                    }
+                }
+                if (i == key.length || (node = node.getChild(key[i])) == null) {
+                    break;
+                }
+            }
+            return result == null ? Collections.emptySet() : result;
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    public int subscriberCount() {
+        readWriteLock.readLock().lock();
+        try {
+            return subscriberKeys.size();
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    private Node firstMatch(byte[] key) {
+        Node node = root;
+        for (int i = 0; ; i++) {
+            if (node.subscribers != null) {
+                return node;
+            }
+            if (i == key.length || (node = node.getChild(key[i])) == null) {
+                return null;
+            }
+        }
+    }
+
+    private void removeFromTree(byte[] key, String subscriber) {
+        final Node[] path = new Node[key.length + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length; i++) {
+            node = node.getChild(key[i]);
+            if (node == null) {
+                return;
+            }
+            path[i + 1] = node;
+        }
+        if (node.subscribers == null || !node.subscribers.remove(subscriber)) {
+            return;
+        }
+        if (node.subscribers.isEmpty()) {
+            node.subscribers = null;
+        }
+        // 回收不再有watch的分支
+        for (int i = key.length; i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(key[i - 1]);
+        }
+    }
+
+    private static class Node {
+
+        private static final byte[] EMPTY_LABELS = new byte[0];
+
+        private static final Node[] EMPTY_CHILDREN = new Node[0];
+
+        private final int depth;
+
+        // 子节点按字节有序存放，二分查找
+        private byte[] labels = EMPTY_LABELS;
+
+        private Node[] children = EMPTY_CHILDREN;
+
+        private Set<String> subscribers;
+
+        Node() {
+            this(0);
+        }
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        Node getChild(byte label) {
+            final int index = indexOf(label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node getOrCreateChild(byte label) {
+            int index = indexOf(label);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -(index + 1);
+            final Node child = new Node(depth + 1);
+            final byte[] newLabels = new byte[labels.length + 1];
+            final Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newLabels[index] = label;
+            newChildren[index] = child;
+            System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(byte label) {
+            final int index = indexOf(label);
+            if (index < 0) {
+                return;
+            }
+            final byte[] newLabels = new byte[labels.length - 1];
+            final Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return subscribers == null && children.length == 0;
+        }
+
+        private int indexOf(byte label) {
+            return Arrays.binarySearch(labels, label);
+        }
+    }
+
+    private static class Key {
+
+        private final byte[] bytes;
+
+        private final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
@@ -1,18 +1,13 @@
 package org.dromara.hodor.register.embedded.core;
 
-import cn.hutool.core.thread.ThreadUtil;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ratis.thirdparty.com.google.protobuf.ByteString;
@@ -21,12 +16,15 @@ import org.dromara.hodor.common.proto.DataChangeEvent;
 import org.dromara.hodor.common.proto.WatchCancelRequest;
 import org.dromara.hodor.common.proto.WatchCreateRequest;
 import org.dromara.hodor.common.proto.WatchResponse;
-import org.dromara.hodor.common.raft.HodorRaftGroup;
-import org.dromara.hodor.common.raft.kv.core.HodorKVClient;
-import org.dromara.hodor.common.utils.BytesUtil;
 
 /**
- * WatchManager
+ * WatchManager<br/>
+ *
+ * 1、watch的key由{@link WatchKeyIndex}按前缀索引到订阅的连接
+ * 2、数据变更事件只推送给watch了该key或其前缀的连接
+ * 3、事件、历史重放都由单个分发线程按revision顺序处理，队列满时阻塞状态机而不是丢弃事件
+ * 4、最近的事件保存在{@link WatchEventHistory}中，带start_revision的watch先重放历史再接收新事件
+ * 5、不带start_revision的watch创建后返回当前已分发的revision，客户端重连时从该revision之后重放
  *
  * @author tomgs
  * @since 1.0
@@ -34,94 +32,97 @@ import org.dromara.hodor.common.utils.BytesUtil;
 @Slf4j
 public class WatchManager extends AbstractAsyncEventPublisher<DataChangeEvent> {
 
-    private final BlockingQueue<DataChangeEvent> events;
+    private static final int MAX_PENDING_TASKS = 65536;
 
-    private static final int MAX_WAIT_EVENT_TIME = 100;
+    private static final int DEFAULT_HISTORY_CAPACITY = 10_000;
 
-    private static final byte[] EMPTY_BYTE = new byte[0];
+    private final BlockingQueue<Runnable> tasks;
 
-    private static final BytesUtil.ByteArrayComparator byteArrayComparator = BytesUtil.getDefaultByteArrayComparator();
+    private static final Map<String, AbstractConnection<WatchResponse>> connections = new ConcurrentHashMap<>(16);
 
-    private static final Map<byte[], byte[]> watchKeyMap = new TreeMap<>(byteArrayComparator);
+    private static final AtomicBoolean isLeader = new AtomicBoolean(false);
 
-    private static final Map<String, AbstractConnection<WatchResponse>> connections = new ConcurrentHashMap<>(16);
+    private final String tableName;
 
-    private static final Map<String, HashSet<byte[]>> ephemerals = new ConcurrentHashMap<>();
+    private final WatchKeyIndex watchKeyIndex = new WatchKeyIndex();
 
-    private static final AtomicBoolean isLeader = new AtomicBoolean(false);
+    private final WatchEventHistory eventHistory;
 
-    private final HodorRaftGroup hodorRaftGroup;
+    // 只在分发线程中读写
+    private long dispatchedRevision;
 
-    private final String tableName;
+    public WatchManager(final String tableName) {
+        this(tableName, DEFAULT_HISTORY_CAPACITY);
+    }
 
-    public WatchManager(final HodorRaftGroup hodorRaftGroup, final String tableName) {
-        this.hodorRaftGroup = hodorRaftGroup;
-        this.events = new ArrayBlockingQueue<>(16);
+    public WatchManager(final String tableName, final int historyCapacity) {
+        this.tasks = new LinkedBlockingQueue<>(MAX_PENDING_TASKS);
         this.tableName = tableName;
+        this.eventHistory = new WatchEventHistory(historyCapacity);
     }
 
+    /**
+     * 状态机应用watch表的修改后调用，event的revision为该修改的raft日志索引
+     */
     public void notify(DataChangeEvent event) {
+        submit(() -> handleEvent(event));
+    }
+
+    /**
+     * 状态机启动或安装快照后调用，之前的事件不再可重放
+     */
+    public void resetHistory(long lastAppliedIndex) {
+        submit(() -> {
+            eventHistory.reset(lastAppliedIndex);
+            dispatchedRevision = lastAppliedIndex;
+        });
+    }
+
+    private void submit(Runnable task) {
         try {
-            events.put(event);
+            tasks.put(task);
         } catch (InterruptedException e) {
-            log.warn("There are too many events, this event {} will be ignored.", event.getType());
+            log.warn("Interrupted while waiting to submit watch task.");
             // set the interrupted flag
             Thread.currentThread().interrupt();
         }
     }
 
-    public DataChangeEvent watchEventPoll(int maxWaitEventTime, TimeUnit milliseconds) throws InterruptedException {
-        return events.poll(maxWaitEventTime, milliseconds);
-    }
-
     public boolean containsWatchKey(String key) {
         final ByteString watchKey = ByteString.copyFromUtf8(key);
         return containsWatchKey(watchKey.toByteArray());
     }
 
     public boolean containsWatchKey(byte[] key) {
-        final Set<byte[]> keySet = watchKeyMap.keySet();
-        final long count = keySet.stream().filter(k -> byteArrayComparator
-            .compare(k, 0, k.length, key, 0, k.length) >= 0).count();
-        return count > 0;
+        return watchKeyIndex.contains(key);
     }
 
     public Optional<byte[]> getWatchKey(byte[] key) {
-        final Set<byte[]> keySet = watchKeyMap.keySet();
-        return keySet.stream().filter(k -> byteArrayComparator
-                .compare(k, 0, k.length, key, 0, k.length) >= 0)
-            .findFirst();
-    }
-
-    public void addWatchRequest(String connectionId, WatchCreateRequest createRequest) {
-        final ByteString key = createRequest.getKey();
-        watchKeyMap.put(key.toByteArray(), EMPTY_BYTE);
+        return Optional.ofNullable(watchKeyIndex.getWatchKey(key));
     }
 
-    public void addEphemeralSession(String sessionId, byte[] key) {
-        HashSet<byte[]> list = ephemerals.computeIfAbsent(sessionId, k -> new HashSet<>());
-        list.add(key);
+    /**
+     * watch了给定key或其前缀的连接
+     */
+    public Set<String> getWatchConnectionIds(byte[] key) {
+        return watchKeyIndex.match(key);
     }
 
-    public void killSession(String sessionId) {
-        log.info("Kill session {}, all session: {}", sessionId, ephemerals.keySet());
-        final HodorKVClient hodorKVClient = new HodorKVClient(hodorRaftGroup);
-        final HashSet<byte[]> list = ephemerals.remove(sessionId);
-        if (list != null) {
-            for (byte[] key : list) {
-                try {
-                    hodorKVClient.kvOperator(tableName)
-                        .delete(key);
-                } catch (Exception e) {
-                    log.error("kill session [{}#{}] exception: {}", sessionId, BytesUtil.readUtf8(key), e.getMessage(), e);
-                }
-            }
+    public void addWatchRequest(String connectionId, WatchCreateRequest createRequest) {
+        final ByteString key = createRequest.getKey();
+        if (createRequest.getStartRevision() <= 0) {
+            watchKeyIndex.add(key.toByteArray(), connectionId);
+            // 在分发线程中返回，注册之后分发的事件先于该响应推送
+            submit(() -> created(connectionId, key));
+            return;
         }
+        // 与事件分发在同一线程中执行，重放的历史和之后推送的事件之间不会有遗漏
+        submit(() -> replay(connectionId, key, createRequest.getStartRevision()));
     }
 
     public void cancelWatchRequest(String connectionId, WatchCancelRequest cancelRequest) {
         final ByteString key = cancelRequest.getKey();
-        watchKeyMap.remove(key.toByteArray());
+        watchKeyIndex.remove(key.toByteArray(), connectionId);
     }
 
     public void addWatchConnection(String connectionId, AbstractConnection<WatchResponse> watchStreamConnection) {
@@ -134,6 +135,7 @@ public class WatchManager extends AbstractAsyncEventPublisher<DataChangeEvent> {
 
     public void removeWatchConnection(String connectionId) {
         connections.remove(connectionId);
+        watchKeyIndex.removeSubscriber(connectionId);
     }
 
     public Collection<AbstractConnection<WatchResponse>> getWatchConnections() {
@@ -141,9 +143,9 @@ public class WatchManager extends AbstractAsyncEventPublisher<DataChangeEvent> {
     }
 
     public void startWatchEvent(String eventName) {
-        final Consumer consumer = new Consumer(eventName);
-        consumer.setDaemon(true);
-        consumer.start();
+        final Dispatcher dispatcher = new Dispatcher(eventName);
+        dispatcher.setDaemon(true);
+        dispatcher.start();
     }
 
     public boolean isLeader() {
@@ -154,74 +156,96 @@ public class WatchManager extends AbstractAsyncEventPublisher<DataChangeEvent> {
         this.isLeader.set(isLeader);
     }
 
-    private class Consumer extends Thread {
+    private class Dispatcher extends Thread {
 
-        Consumer(String name) {
+        Dispatcher(String name) {
             setName(name);
         }
 
         @Override
-        @SuppressWarnings("InfiniteLoopStatement")
         public void run() {
-            Future<Void> task = null;
-            boolean hasNewEvent = false;
-            DataChangeEvent lastEvent = null;
-            while (true) {
+            while (!Thread.currentThread().isInterrupted()) {
                 try {
-                    // Today we only care about service event,
-                    // so we simply ignore event until the last task has been completed.
-                    DataChangeEvent event = watchEventPoll(MAX_WAIT_EVENT_TIME, TimeUnit.MILLISECONDS);
-                    if (event != null) {
-                        hasNewEvent = true;
-                        lastEvent = event;
-                    }
-                    if (hasClientConnection() && needNewTask(hasNewEvent, task)) {
-                        task = ThreadUtil.execAsync(new EventHandleTask(lastEvent));
-                        hasNewEvent = false;
-                        lastEvent = null;
-                    }
+                    tasks.take().run();
                 } catch (InterruptedException e) {
                     log.warn("Thread {} is be interrupted.", getName());
                     // set the interrupted flag
                     Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.error("watch: handle task exception: {}", e.getMessage(), e);
                 }
             }
         }
     }
 
-    private boolean needNewTask(boolean hasNewEvent, Future<Void> task) {
-        return hasNewEvent && (task == null || task.isDone());
-    }
-
-    private class EventHandleTask implements Callable<Void> {
-
-        private final DataChangeEvent event;
+    private void handleEvent(DataChangeEvent event) {
+        eventHistory.append(tableName, event);
+        dispatchedRevision = Math.max(dispatchedRevision, event.getRevision());
+        if (!hasClientConnection()) {
+            return;
+        }
 
-        EventHandleTask(DataChangeEvent event) {
-            this.event = event;
+        final Set<String> connectionIds = getWatchConnectionIds(event.getKey().toByteArray());
+        log.debug("watch: event {} trigger push to {} connections.", event.getType(), connectionIds.size());
+        if (connectionIds.isEmpty()) {
+            return;
         }
 
-        @Override
-        public Void call() throws Exception {
-            handleEvent(event);
-            return null;
+        final WatchResponse response = WatchResponse.newBuilder().setEvent(event).build();
+        for (String connectionId : connectionIds) {
+            final AbstractConnection<WatchResponse> connection = connections.get(connectionId);
+            if (connection != null) {
+                connection.push(response, null);
+            }
         }
     }
 
-    private void handleEvent(DataChangeEvent event) {
-        if (!hasClientConnection()) {
+    private void created(String connectionId, ByteString key) {
+        final AbstractConnection<WatchResponse> connection = connections.get(connectionId);
+        if (connection == null) {
             return;
         }
+        connection.push(WatchResponse.newBuilder()
+            .setCreated(true)
+            .setWatchKey(key)
+            .setRevision(dispatchedRevision)
+            .build(), null);
+    }
 
-        log.debug("watch: event {} trigger push.", event.getType());
+    private void replay(String connectionId, ByteString key, long startRevision) {
+        final AbstractConnection<WatchResponse> connection = connections.get(connectionId);
+        if (connection == null) {
+            return;
+        }
+        final byte[] watchKey = key.toByteArray();
+        watchKeyIndex.add(watchKey, connectionId);
+        final List<DataChangeEvent> history = eventHistory.since(tableName, startRevision);
+        if (history == null) {
+            final long compactRevision = eventHistory.getCompactRevision(tableName);
+            log.info("watch: {} start revision {} is compacted, compact revision {}.", connectionId, startRevision, compactRevision);
+            connection.push(WatchResponse.newBuilder()
+                .setCompacted(true)
+                .setWatchKey(key)
+                .setCompactRevision(compactRevision)
+                .build(), null);
+            return;
+        }
+        for (DataChangeEvent event : history) {
+            if (startsWith(event.getKey().toByteArray(), watchKey)) {
+                connection.push(WatchResponse.newBuilder().setEvent(event).setWatchKey(key).build(), null);
+            }
+        }
+    }
 
-        for (AbstractConnection<WatchResponse> connection : getWatchConnections()) {
-            // WatchedStatus watchedStatus = connection.getWatchedStatusByType(SERVICE_ENTRY_COLLECTION);
-            //if (watchedStatus != null) {
-            //    connection.push(, watchedStatus);
-            //}
-            WatchResponse response = WatchResponse.newBuilder().setEvent(event).build();
-            connection.push(response, null);
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
         }
+        return true;
     }
 }
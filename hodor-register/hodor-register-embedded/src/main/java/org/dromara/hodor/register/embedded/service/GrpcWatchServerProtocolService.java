@@ -48,13 +48,14 @@ public class GrpcWatchServerProtocolService extends WatchServiceGrpc.WatchServic
                     initRequest = false;
                 }
 
+                // watch按连接订阅，连接断开时一起移除
                 if (request.hasCreateRequest()) {
                     final WatchCreateRequest createRequest = request.getCreateRequest();
-                    watchManager.addWatchRequest(connectionId, createRequest);
+                    watchManager.addWatchRequest(watchStreamConnection.getConnectionId(), createRequest);
                 }
                 if (request.hasCancelRequest()) {
                     final WatchCancelRequest cancelRequest = request.getCancelRequest();
-                    watchManager.cancelWatchRequest(connectionId, cancelRequest);
+                    watchManager.cancelWatchRequest(watchStreamConnection.getConnectionId(), cancelRequest);
                 }
             }
 
@@ -72,9 +73,6 @@ public class GrpcWatchServerProtocolService extends WatchServiceGrpc.WatchServic
             public void onCompleted() {
                 log.info("watch stream: {} stream close.", watchStreamConnection.getConnectionId());
                 responseObserver.onCompleted();
-                final String connectionId = watchStreamConnection.getConnectionId();
-                final int lastIndexOf = connectionId.lastIndexOf("-");
-                watchManager.killSession(connectionId.substring(0, lastIndexOf));
                 clear();
             }
 
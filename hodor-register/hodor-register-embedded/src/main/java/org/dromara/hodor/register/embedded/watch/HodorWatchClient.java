@@ -33,12 +33,18 @@ import org.dromara.hodor.common.proto.WatchRequest;
 import org.dromara.hodor.common.raft.HodorRaftGroup;
 import org.dromara.hodor.common.raft.kv.core.HodorKVClient;
 import org.dromara.hodor.common.raft.kv.core.KVConstant;
+import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
 import org.dromara.hodor.common.utils.BytesUtil;
 import org.dromara.hodor.register.api.DataChangeEvent;
 import org.dromara.hodor.register.api.DataChangeListener;
+import org.dromara.hodor.register.embedded.client.WatchCallback;
 import org.dromara.hodor.register.embedded.core.WatchRaftClient;
 
 import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -50,6 +56,8 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class HodorWatchClient implements AutoCloseable {
 
+    private static final int RESYNC_PAGE_SIZE = 1000;
+
     private final HodorKVClient kvClient;
 
     private final WatchRaftClient watchRaftClient;
@@ -96,15 +104,48 @@ public class HodorWatchClient implements AutoCloseable {
             .setCreateRequest(createRequest)
             .build();
 
-        watchRaftClient.watchClientRpc().watch(watchRequest, changeEvent -> {
-            try {
+        watchRaftClient.watchClientRpc().watch(watchRequest, new WatchCallback() {
+
+            // 已通知过的key，全量同步时用于找出已被删除的key
+            private final Set<String> knownKeys = new HashSet<>();
+
+            @Override
+            public void callback(org.dromara.hodor.common.proto.DataChangeEvent changeEvent) {
                 final String dataKey = BytesUtil.readUtf8(changeEvent.getKey().toByteArray());
-                final String dataValue = BytesUtil.readUtf8(changeEvent.getData().toByteArray());
-                final org.dromara.hodor.common.proto.DataChangeEvent.Type type = changeEvent.getType();
-                DataChangeEvent dataChangeEvent = new DataChangeEvent(type.name(), dataKey, dataValue.getBytes(StandardCharsets.UTF_8));
-                dataChangeListener.dataChanged(dataChangeEvent);
-            } catch (Exception e) {
-                log.error("[{}]Error to process server push response: {}", createRequest.getWatchId(), changeEvent.toString());
+                if (changeEvent.getType() == org.dromara.hodor.common.proto.DataChangeEvent.Type.NODE_REMOVED) {
+                    knownKeys.remove(dataKey);
+                } else {
+                    knownKeys.add(dataKey);
+                }
+                dataChanged(changeEvent.getType().name(), dataKey, changeEvent.getData().toByteArray());
+            }
+
+            @Override
+            public void compacted(long compactRevision) {
+                final Set<String> removedKeys = new HashSet<>(knownKeys);
+                knownKeys.clear();
+                final Iterator<KVEntry> iterator = kvClient.kvOperator(DBColumnFamily.HodorWatch.getName())
+                    .scanIterator(watchKey, watchKey, true, RESYNC_PAGE_SIZE);
+                while (iterator.hasNext()) {
+                    final KVEntry entry = iterator.next();
+                    final String dataKey = BytesUtil.readUtf8(entry.getKey());
+                    removedKeys.remove(dataKey);
+                    knownKeys.add(dataKey);
+                    dataChanged(DataChangeEvent.Type.NODE_UPDATED.name(), dataKey, entry.getValue());
+                }
+                for (String removedKey : removedKeys) {
+                    dataChanged(DataChangeEvent.Type.NODE_REMOVED.name(), removedKey, new byte[0]);
+                }
+            }
+
+            private void dataChanged(String typeName, String dataKey, byte[] data) {
+                try {
+                    final String dataValue = BytesUtil.readUtf8(data);
+                    DataChangeEvent dataChangeEvent = new DataChangeEvent(typeName, dataKey, dataValue.getBytes(StandardCharsets.UTF_8));
+                    dataChangeListener.dataChanged(dataChangeEvent);
+                } catch (Exception e) {
+                    log.error("[{}]Error to process server push response: {} {}", createRequest.getWatchId(), typeName, dataKey);
+                }
             }
         });
     }
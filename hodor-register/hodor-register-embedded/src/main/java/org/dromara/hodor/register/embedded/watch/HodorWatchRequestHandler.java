@@ -22,10 +22,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.ratis.thirdparty.com.google.protobuf.ByteString;
 import org.dromara.hodor.common.proto.DataChangeEvent;
 import org.dromara.hodor.common.raft.kv.core.HodorKVRequestHandler;
+import org.dromara.hodor.common.raft.kv.protocol.BatchWriteRequest;
 import org.dromara.hodor.common.raft.kv.protocol.CmdType;
-import org.dromara.hodor.common.raft.kv.protocol.DeleteRequest;
+import org.dromara.hodor.common.raft.kv.protocol.CompareAndSetRequest;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVRequest;
 import org.dromara.hodor.common.raft.kv.protocol.HodorKVResponse;
+import org.dromara.hodor.common.raft.kv.protocol.KVEntry;
+import org.dromara.hodor.common.raft.kv.protocol.LeaseKey;
 import org.dromara.hodor.common.raft.kv.protocol.PutRequest;
 import org.dromara.hodor.common.raft.kv.storage.DBColumnFamily;
 import org.dromara.hodor.common.raft.kv.storage.StorageEngine;
@@ -55,42 +58,82 @@ public class HodorWatchRequestHandler extends HodorKVRequestHandler {
     @Override
     public HodorKVResponse handleWriteRequest(HodorKVRequest kvRequest, long transactionLogIndex) throws IOException {
         final HodorKVResponse hodorKVResponse = super.handleWriteRequest(kvRequest, transactionLogIndex);
-        if (!hodorKVResponse.getSuccess()
-            || !DBColumnFamily.HodorWatch.getName().equals(kvRequest.getTable())) {
+        if (!hodorKVResponse.getSuccess()) {
             return hodorKVResponse;
         }
-
-        final String sessionId = kvRequest.getSessionId();
         final CmdType cmdType = kvRequest.getCmdType();
+        if (cmdType == CmdType.LEASE_REVOKE) {
+            // 租约绑定的key可能在任意表中
+            for (LeaseKey leaseKey : hodorKVResponse.getLeaseResponse().getRevokedKeys()) {
+                if (DBColumnFamily.HodorWatch.getName().equals(leaseKey.getTable())) {
+                    notifyDelete(leaseKey.getKey(), transactionLogIndex);
+                }
+            }
+            return hodorKVResponse;
+        }
+        if (!DBColumnFamily.HodorWatch.getName().equals(kvRequest.getTable())) {
+            return hodorKVResponse;
+        }
+
         switch (cmdType) {
             case PUT:
                 final PutRequest putRequest = kvRequest.getPutRequest();
-                if (sessionId != null) {
-                    log.info("add session {}", sessionId);
-                    watchManager.addEphemeralSession(sessionId, putRequest.getKey());
+                notifyPut(putRequest.getKey(), putRequest.getValue(), transactionLogIndex);
+                break;
+            case DELETE:
+                notifyDelete(kvRequest.getDeleteRequest().getKey(), transactionLogIndex);
+                break;
+            case BATCH_WRITE:
+                final BatchWriteRequest batchWriteRequest = kvRequest.getBatchWriteRequest();
+                if (batchWriteRequest.getPutEntries() != null) {
+                    for (KVEntry entry : batchWriteRequest.getPutEntries()) {
+                        notifyPut(entry.getKey(), entry.getValue(), transactionLogIndex);
+                    }
                 }
-                if (watchManager.containsWatchKey(putRequest.getKey())) {
-                    final DataChangeEvent dataChangeEvent = DataChangeEvent.newBuilder()
-                        .setKey(ByteString.copyFrom(putRequest.getKey()))
-                        .setType(DataChangeEvent.Type.NODE_UPDATED)
-                        .setData(ByteString.copyFrom(putRequest.getValue()))
-                        .build();
-                    watchManager.notify(dataChangeEvent);
+                if (batchWriteRequest.getDeleteKeys() != null) {
+                    for (byte[] key : batchWriteRequest.getDeleteKeys()) {
+                        notifyDelete(key, transactionLogIndex);
+                    }
                 }
                 break;
-            case DELETE:
-                final DeleteRequest deleteRequest = kvRequest.getDeleteRequest();
-                if (watchManager.containsWatchKey(deleteRequest.getKey())) {
-                    final DataChangeEvent dataChangeEvent = DataChangeEvent.newBuilder()
-                        .setKey(ByteString.copyFrom(deleteRequest.getKey()))
-                        .setType(DataChangeEvent.Type.NODE_REMOVED)
-                        .setData(ByteString.EMPTY)
-                        .build();
-                    watchManager.notify(dataChangeEvent);
+            case COMPARE_AND_SET:
+                final CompareAndSetRequest casRequest = kvRequest.getCompareAndSetRequest();
+                if (!hodorKVResponse.getCompareAndSetResponse().getValue()) {
+                    break;
                 }
+                if (casRequest.getUpdate() == null) {
+                    notifyDelete(casRequest.getKey(), transactionLogIndex);
+                } else {
+                    notifyPut(casRequest.getKey(), casRequest.getUpdate(), transactionLogIndex);
+                }
+                break;
+            default:
                 break;
         }
         return hodorKVResponse;
     }
 
+    /**
+     * watch表的所有修改都会记录到历史中，断线的客户端重连后可以从历史中补齐
+     */
+    private void notifyPut(final byte[] key, final byte[] value, final long revision) {
+        final DataChangeEvent dataChangeEvent = DataChangeEvent.newBuilder()
+            .setKey(ByteString.copyFrom(key))
+            .setType(DataChangeEvent.Type.NODE_UPDATED)
+            .setData(ByteString.copyFrom(value))
+            .setRevision(revision)
+            .build();
+        watchManager.notify(dataChangeEvent);
+    }
+
+    private void notifyDelete(final byte[] key, final long revision) {
+        final DataChangeEvent dataChangeEvent = DataChangeEvent.newBuilder()
+            .setKey(ByteString.copyFrom(key))
+            .setType(DataChangeEvent.Type.NODE_REMOVED)
+            .setData(ByteString.EMPTY)
+            .setRevision(revision)
+            .build();
+        watchManager.notify(dataChangeEvent);
+    }
+
 }
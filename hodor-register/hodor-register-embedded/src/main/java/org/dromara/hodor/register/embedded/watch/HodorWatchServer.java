@@ -35,7 +35,7 @@ public class HodorWatchServer extends HodorKVServer {
             .build();
         raftOptions.getParameters().put(WatchManager.class.getName(), watchManager, WatchManager.class);
         RequestHandler requestHandler = new HodorWatchRequestHandler(this.storageEngine, watchManager);
-        stateMachineMap.putIfAbsent(hodorRaftGroup, new HodorWatchStateMachine(requestHandler, watchManager));
+        stateMachineMap.putIfAbsent(hodorRaftGroup, new HodorWatchStateMachine(requestHandler, this.storageEngine, watchManager));
         raftOptions.setStateMachineMap(stateMachineMap);
     }
 
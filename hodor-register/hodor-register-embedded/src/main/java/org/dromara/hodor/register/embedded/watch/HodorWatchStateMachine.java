@@ -17,18 +17,24 @@
 
 package org.dromara.hodor.register.embedded.watch;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ratis.proto.RaftProtos;
+import org.apache.ratis.protocol.RaftGroupId;
 import org.apache.ratis.protocol.RaftGroupMemberId;
 import org.apache.ratis.protocol.RaftPeerId;
+import org.apache.ratis.server.RaftServer;
+import org.apache.ratis.server.protocol.TermIndex;
+import org.apache.ratis.server.storage.RaftStorage;
 import org.apache.ratis.statemachine.TransactionContext;
 import org.apache.ratis.thirdparty.com.google.protobuf.ByteString;
 import org.dromara.hodor.common.event.Event;
 import org.dromara.hodor.common.proto.DataChangeEvent;
 import org.dromara.hodor.common.raft.kv.core.HodorKVStateMachine;
 import org.dromara.hodor.common.raft.kv.core.RequestHandler;
+import org.dromara.hodor.common.raft.kv.storage.StorageEngine;
 import org.dromara.hodor.register.api.node.SchedulerNode;
 import org.dromara.hodor.register.embedded.core.WatchManager;
 
@@ -43,11 +49,31 @@ public class HodorWatchStateMachine extends HodorKVStateMachine {
 
     private final WatchManager watchManager;
 
-    public HodorWatchStateMachine(final RequestHandler requestHandler, final WatchManager watchManager) {
-        super(requestHandler);
+    public HodorWatchStateMachine(final RequestHandler requestHandler, final StorageEngine storageEngine, final WatchManager watchManager) {
+        super(requestHandler, storageEngine);
         this.watchManager = watchManager;
     }
 
+    @Override
+    public void initialize(RaftServer raftServer, RaftGroupId id, RaftStorage raftStorage) throws IOException {
+        super.initialize(raftServer, id, raftStorage);
+        resetWatchHistory();
+    }
+
+    @Override
+    public void reinitialize() throws IOException {
+        super.reinitialize();
+        resetWatchHistory();
+    }
+
+    /**
+     * 从快照恢复后，快照之前的修改已无法重放
+     */
+    private void resetWatchHistory() {
+        final TermIndex lastAppliedTermIndex = getLastAppliedTermIndex();
+        watchManager.resetHistory(lastAppliedTermIndex == null ? 0 : lastAppliedTermIndex.getIndex());
+    }
+
     @Override
     public void notifyLeaderChanged(RaftGroupMemberId groupMemberId, RaftPeerId newLeaderId) {
         log.debug("notifyLeaderChanged groupMemberId: {}, newLeaderId: {}.", groupMemberId, newLeaderId);
@@ -18,10 +18,23 @@
 package org.dromara.hodor.register.embedded;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.apache.ratis.thirdparty.com.google.protobuf.ByteString;
+import org.dromara.hodor.common.proto.DataChangeEvent;
+import org.dromara.hodor.common.proto.WatchCancelRequest;
 import org.dromara.hodor.common.proto.WatchCreateRequest;
+import org.dromara.hodor.common.proto.WatchResponse;
+import org.dromara.hodor.register.embedded.core.AbstractConnection;
 import org.dromara.hodor.register.embedded.core.WatchManager;
+import org.dromara.hodor.register.embedded.core.WatchedStatus;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -34,7 +47,7 @@ public class WatchManagerTest {
 
     @Test
     public void testContainsWatchKey() {
-        final WatchManager watchManager = new WatchManager(null, null);
+        final WatchManager watchManager = new WatchManager(null);
         WatchCreateRequest watchCreateRequest = WatchCreateRequest.newBuilder()
             .setKey(ByteString.copyFrom("/a/b".getBytes(StandardCharsets.UTF_8)))
             .build();
@@ -60,4 +73,154 @@ public class WatchManagerTest {
         System.out.println(watchKey);
     }
 
+    @Test
+    public void testPrefixIndex() {
+        final WatchManager watchManager = new WatchManager(null);
+        watchManager.addWatchRequest("connectionId", createRequest("/a/b"));
+
+        Assert.assertTrue(watchManager.containsWatchKey("/a/b"));
+        Assert.assertTrue(watchManager.containsWatchKey("/a/b/c"));
+        Assert.assertTrue(watchManager.containsWatchKey("/a/b/d"));
+        Assert.assertTrue(watchManager.containsWatchKey("/a/b/b"));
+        Assert.assertFalse(watchManager.containsWatchKey("/b/d/d"));
+        Assert.assertFalse(watchManager.containsWatchKey("/a/d/d"));
+        Assert.assertFalse(watchManager.containsWatchKey("/a"));
+
+        final ByteString watchKeyByteString = ByteString.copyFromUtf8("/a/b/c");
+        final Optional<byte[]> watchKey = watchManager.getWatchKey(watchKeyByteString.toByteArray());
+        Assert.assertArrayEquals(bytes("/a/b"), watchKey.orElse(null));
+    }
+
+    @Test
+    public void testWatchConnectionIds() {
+        final WatchManager watchManager = new WatchManager(null);
+        watchManager.addWatchRequest("c1", createRequest("/hodor/nodes"));
+        watchManager.addWatchRequest("c1", createRequest("/hodor/jobs"));
+        watchManager.addWatchRequest("c2", createRequest("/hodor/nodes/actuator"));
+        watchManager.addWatchRequest("c3", createRequest("/hodor"));
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("c1", "c2", "c3")),
+            watchManager.getWatchConnectionIds(bytes("/hodor/nodes/actuator/127.0.0.1")));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("c1", "c3")),
+            watchManager.getWatchConnectionIds(bytes("/hodor/jobs/group")));
+        Assert.assertTrue(watchManager.getWatchConnectionIds(bytes("/other")).isEmpty());
+
+        watchManager.cancelWatchRequest("c1", WatchCancelRequest.newBuilder().setKey(ByteString.copyFromUtf8("/hodor/nodes")).build());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("c2", "c3")),
+            watchManager.getWatchConnectionIds(bytes("/hodor/nodes/actuator/127.0.0.1")));
+
+        watchManager.removeWatchConnection("c3");
+        Assert.assertEquals(Collections.singleton("c1"), watchManager.getWatchConnectionIds(bytes("/hodor/jobs/group")));
+        watchManager.removeWatchConnection("c1");
+        watchManager.removeWatchConnection("c2");
+        Assert.assertFalse(watchManager.containsWatchKey("/hodor/nodes/actuator/127.0.0.1"));
+    }
+
+    @Test
+    public void testReplayFromRevision() throws Exception {
+        final WatchManager watchManager = new WatchManager(null, 3);
+        watchManager.startWatchEvent("watch-manager-test");
+        watchManager.resetHistory(10);
+        for (int i = 11; i <= 15; i++) {
+            watchManager.notify(event("/hodor/nodes/" + i, i));
+        }
+        watchManager.notify(event("/hodor/jobs/16", 16));
+
+        final RecordingConnection resumed = new RecordingConnection();
+        watchManager.addWatchConnection("resumed", resumed);
+        watchManager.addWatchRequest("resumed", createRequest("/hodor/nodes", 14));
+        final RecordingConnection compacted = new RecordingConnection();
+        watchManager.addWatchConnection("compacted", compacted);
+        watchManager.addWatchRequest("compacted", createRequest("/hodor/nodes", 13));
+        watchManager.notify(event("/hodor/nodes/17", 17));
+
+        resumed.await(3);
+        Assert.assertEquals(Arrays.asList(14L, 15L, 17L), resumed.revisions());
+        Assert.assertEquals("/hodor/nodes", resumed.responses.get(0).getWatchKey().toStringUtf8());
+        Assert.assertTrue(resumed.responses.get(2).getWatchKey().isEmpty());
+
+        // 容量为3，历史中只保留了14、15、16
+        compacted.await(2);
+        Assert.assertTrue(compacted.responses.get(0).getCompacted());
+        Assert.assertEquals(13, compacted.responses.get(0).getCompactRevision());
+        Assert.assertEquals(17, compacted.responses.get(1).getEvent().getRevision());
+
+        watchManager.removeWatchConnection("resumed");
+        watchManager.removeWatchConnection("compacted");
+    }
+
+    @Test
+    public void testCreatedRevision() throws Exception {
+        final WatchManager watchManager = new WatchManager(null, 3);
+        watchManager.startWatchEvent("watch-manager-created-test");
+        watchManager.resetHistory(20);
+        watchManager.notify(event("/hodor/nodes/21", 21));
+        watchManager.notify(event("/hodor/jobs/22", 22));
+
+        final RecordingConnection created = new RecordingConnection();
+        watchManager.addWatchConnection("created", created);
+        watchManager.addWatchRequest("created", createRequest("/hodor/nodes"));
+        watchManager.notify(event("/hodor/nodes/23", 23));
+
+        // 创建响应返回已分发的revision，之后的事件从该revision之后开始
+        created.await(2);
+        Assert.assertTrue(created.responses.get(0).getCreated());
+        Assert.assertEquals("/hodor/nodes", created.responses.get(0).getWatchKey().toStringUtf8());
+        Assert.assertEquals(22, created.responses.get(0).getRevision());
+        Assert.assertEquals(23, created.responses.get(1).getEvent().getRevision());
+
+        watchManager.removeWatchConnection("created");
+    }
+
+    private static DataChangeEvent event(String key, long revision) {
+        return DataChangeEvent.newBuilder()
+            .setType(DataChangeEvent.Type.NODE_UPDATED)
+            .setKey(ByteString.copyFromUtf8(key))
+            .setData(ByteString.copyFromUtf8("data"))
+            .setRevision(revision)
+            .build();
+    }
+
+    private static WatchCreateRequest createRequest(String key, long startRevision) {
+        return WatchCreateRequest.newBuilder()
+            .setKey(ByteString.copyFrom(bytes(key)))
+            .setStartRevision(startRevision)
+            .build();
+    }
+
+    private static WatchCreateRequest createRequest(String key) {
+        return WatchCreateRequest.newBuilder()
+            .setKey(ByteString.copyFrom(bytes(key)))
+            .build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class RecordingConnection extends AbstractConnection<WatchResponse> {
+
+        private final List<WatchResponse> responses = new CopyOnWriteArrayList<>();
+
+        RecordingConnection() {
+            super(null);
+        }
+
+        @Override
+        public void push(WatchResponse response, WatchedStatus watchedStatus) {
+            responses.add(response);
+        }
+
+        void await(int count) throws InterruptedException {
+            for (int i = 0; i < 100 && responses.size() < count; i++) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+            Assert.assertEquals(count, responses.size());
+        }
+
+        List<Long> revisions() {
+            return responses.stream().map(response -> response.getEvent().getRevision()).collect(Collectors.toList());
+        }
+    }
+
 }
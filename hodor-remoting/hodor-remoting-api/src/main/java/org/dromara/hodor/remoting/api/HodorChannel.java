@@ -34,6 +34,13 @@ public interface HodorChannel {
      */
     boolean isOpen();
 
+    /**
+     * Is writable boolean, false when the outbound buffer exceeds the high water mark.
+     *
+     * @return the boolean
+     */
+    boolean isWritable();
+
     /**
      * Local address socket address.
      *
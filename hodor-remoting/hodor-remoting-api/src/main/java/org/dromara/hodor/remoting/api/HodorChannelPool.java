@@ -0,0 +1,95 @@
+package org.dromara.hodor.remoting.api;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.common.Host;
+
+/**
+ * 单个host的连接池，请求通过消息id复用连接，所以连接不需要借出归还<br/>
+ * 连接数小于minChannels时新建连接，所有连接都不可写时扩容到maxChannels
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class HodorChannelPool {
+
+    private final Host host;
+
+    private final int minChannels;
+
+    private final int maxChannels;
+
+    private final Supplier<HodorChannel> channelFactory;
+
+    private final List<HodorChannel> channels;
+
+    private final AtomicInteger index;
+
+    public HodorChannelPool(final Host host, final int minChannels, final int maxChannels, final Supplier<HodorChannel> channelFactory) {
+        if (minChannels < 1 || maxChannels < minChannels) {
+            throw new IllegalArgumentException(String.format("illegal channel pool size, min %s, max %s.", minChannels, maxChannels));
+        }
+        this.host = host;
+        this.minChannels = minChannels;
+        this.maxChannels = maxChannels;
+        this.channelFactory = channelFactory;
+        this.channels = new CopyOnWriteArrayList<>();
+        this.index = new AtomicInteger();
+    }
+
+    public HodorChannel acquire() {
+        channels.removeIf(HodorChannel::isClose);
+        final HodorChannel[] snapshot = channels.toArray(new HodorChannel[0]);
+        if (snapshot.length < minChannels) {
+            return createChannel();
+        }
+        HodorChannel openChannel = null;
+        for (int i = 0; i < snapshot.length; i++) {
+            HodorChannel channel = snapshot[Math.abs(index.getAndIncrement() % snapshot.length)];
+            if (!channel.isOpen()) {
+                continue;
+            }
+            if (channel.isWritable()) {
+                return channel;
+            }
+            openChannel = channel;
+        }
+        if (snapshot.length < maxChannels) {
+            return createChannel();
+        }
+        if (openChannel == null) {
+            return createChannel();
+        }
+        // 连接数已达上限，由底层写缓冲区承担背压
+        return openChannel;
+    }
+
+    private synchronized HodorChannel createChannel() {
+        channels.removeIf(HodorChannel::isClose);
+        if (channels.size() >= maxChannels) {
+            return channels.get(Math.abs(index.getAndIncrement() % channels.size()));
+        }
+        HodorChannel channel = channelFactory.get();
+        channels.add(channel);
+        log.debug("host {} channel pool create channel {}, size {}.", host, channel.getId(), channels.size());
+        return channel;
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    public void close() {
+        for (HodorChannel channel : channels) {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        }
+        channels.clear();
+    }
+
+}
@@ -29,4 +29,9 @@ import org.dromara.hodor.common.extension.SPI;
 public interface NetClientTransport {
 
     NetClient build(Attribute attribute, HodorChannelHandler handler);
+
+    /**
+     * Close the shared resources held by transport, e.g. io thread pool.
+     */
+    default void close() {}
 }
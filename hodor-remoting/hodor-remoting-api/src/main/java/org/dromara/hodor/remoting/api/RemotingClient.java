@@ -1,9 +1,14 @@
 package org.dromara.hodor.remoting.api;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 import java.net.ConnectException;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -11,11 +16,15 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.common.Host;
 import org.dromara.hodor.common.concurrent.FutureCallback;
+import org.dromara.hodor.common.concurrent.HodorThreadFactory;
 import org.dromara.hodor.common.extension.ExtensionLoader;
+import org.dromara.hodor.common.utils.SystemPropertyUtil;
 import org.dromara.hodor.remoting.api.exception.RemotingException;
+import org.dromara.hodor.remoting.api.message.Header;
 import org.dromara.hodor.remoting.api.message.RemotingMessage;
 
 /**
@@ -27,39 +36,95 @@ import org.dromara.hodor.remoting.api.message.RemotingMessage;
 @Slf4j
 public class RemotingClient {
 
-    private static final RemotingClient INSTANCE = new RemotingClient();
+    private static final Map<Long, InflightRequest> FUTURE_MAP = new ConcurrentHashMap<>();
+
+    private static final Meter REQUEST_METER = RemotingMetrics.meter(RemotingMetrics.REQUEST_QPS);
+
+    private static final Meter TIMEOUT_METER = RemotingMetrics.meter(RemotingMetrics.REQUEST_TIMEOUT);
+
+    private static final Meter REJECTED_METER = RemotingMetrics.meter(RemotingMetrics.REQUEST_REJECTED);
 
-    private static final Map<Long, CompletableFuture<RemotingMessage>> FUTURE_MAP = new ConcurrentHashMap<>();
+    private static final RemotingClient INSTANCE = new RemotingClient();
 
     private final Cache<Host, HodorChannel> bidiActiveChannels;
-    //private final Map<Host, HodorChannel> bidiActiveChannels = new ConcurrentHashMap<>();
 
-    private final Cache<Host, HodorChannel> commonActiveChannels;
-    //private final Map<Host, HodorChannel> commonActiveChannels = new ConcurrentHashMap<>();
+    private final Cache<Long, FutureCallback<RemotingMessage>> bidiCallbacks;
+
+    private final Map<Byte, FutureCallback<RemotingMessage>> pushHandlers = new ConcurrentHashMap<>();
+
+    private final Cache<Host, HodorChannelPool> commonChannelPools;
 
     private final NetClientTransport clientTransport;
 
+    private final int ioThreads;
+
+    private final int minChannels;
+
+    private final int maxChannels;
+
+    private final int requestTimeout;
+
+    private final int maxInflightRequests;
+
+    private final Map<Host, AtomicInteger> hostInflightRequests = new ConcurrentHashMap<>();
+
+    private final HashedWheelTimer timeoutTimer;
+
+    private final long bidiCallbackExpire;
+
     private RemotingClient() {
+        this.ioThreads = SystemPropertyUtil.getInt(RemotingConst.CLIENT_IO_THREADS, Runtime.getRuntime().availableProcessors() << 1);
+        this.minChannels = SystemPropertyUtil.getInt(RemotingConst.CLIENT_MIN_CHANNELS, 1);
+        this.maxChannels = Math.max(minChannels, SystemPropertyUtil.getInt(RemotingConst.CLIENT_MAX_CHANNELS, 4));
+        this.requestTimeout = SystemPropertyUtil.getInt(RemotingConst.CLIENT_REQUEST_TIMEOUT, 30000);
+        this.maxInflightRequests = SystemPropertyUtil.getInt(RemotingConst.CLIENT_MAX_INFLIGHT_REQUESTS, 2048);
+        this.timeoutTimer = new HashedWheelTimer(HodorThreadFactory.create("remoting-request-timeout", true), 10, TimeUnit.MILLISECONDS, 512);
         this.bidiActiveChannels = CacheBuilder.newBuilder()
             .initialCapacity(30)
             .expireAfterAccess(30, TimeUnit.MINUTES)
             .removalListener(new ChannelRemoveListener())
             .build();
-        this.commonActiveChannels = CacheBuilder.newBuilder()
+        // 超过请求超时时间没有收到消息的回调过期，回调onFailure
+        this.bidiCallbackExpire = SystemPropertyUtil.getInt(RemotingConst.CLIENT_BIDI_CALLBACK_EXPIRE, requestTimeout);
+        this.bidiCallbacks = CacheBuilder.newBuilder()
+            .expireAfterAccess(bidiCallbackExpire, TimeUnit.MILLISECONDS)
+            .removalListener(new BidiCallbackRemoveListener())
+            .build();
+        this.commonChannelPools = CacheBuilder.newBuilder()
             .initialCapacity(30)
             .expireAfterAccess(30, TimeUnit.MINUTES)
-            .removalListener(new ChannelRemoveListener())
+            .removalListener(new ChannelPoolRemoveListener())
             .build();
         this.clientTransport = ExtensionLoader.getExtensionLoader(NetClientTransport.class).getDefaultJoin();
+        RemotingMetrics.metricRegistry().register(RemotingMetrics.INFLIGHT_REQUESTS, (Gauge<Integer>) FUTURE_MAP::size);
+        scheduleBidiCallbackCleanUp();
     }
 
     public static RemotingClient getInstance() {
         return INSTANCE;
     }
 
+    /**
+     * send request over the host's long-lived bidi channel, every message with the same header id is routed to
+     * responseCallback until {@link #completeBidiRequest(long)} is called, messages without registered callback are
+     * routed to the push handler of its type
+     *
+     * @param host             server host
+     * @param request          request message
+     * @param responseCallback callback of this request
+     * @throws RemotingException remoting exception
+     */
     public void sendBidiRequest(final Host host, final RemotingMessage request, final FutureCallback<RemotingMessage> responseCallback) throws RemotingException {
-        HodorChannel channel = getOrCreateBidiChannel(host, responseCallback);
-        HodorChannelFuture hodorChannelFuture = channel.send(request);
+        final long requestId = request.getHeader().getId();
+        final HodorChannel channel = getOrCreateBidiChannel(host);
+        bidiCallbacks.put(requestId, responseCallback);
+        HodorChannelFuture hodorChannelFuture;
+        try {
+            hodorChannelFuture = channel.send(request);
+        } catch (Exception e) {
+            bidiCallbacks.invalidate(requestId);
+            throw e;
+        }
         hodorChannelFuture.operationComplete(future -> {
             if (future.isSuccess()) {
                 log.debug("send request [{}]::[{}] success.", host.getEndpoint(), request);
@@ -67,13 +132,44 @@ public class RemotingClient {
                 // 异常节点
                 channel.close();
                 bidiActiveChannels.invalidate(host);
-                throw new RemotingException(String.format("send request [%s]::[%s] failed.", host.getEndpoint(), request), future.cause());
+                bidiCallbacks.invalidate(requestId);
+                responseCallback.onFailure(new RemotingException(String.format("send request [%s]::[%s] failed.", host.getEndpoint(), request), future.cause()));
             }
         });
     }
 
     /**
-     * send async request
+     * register callback of the request id carried in a batch bidi request
+     *
+     * @param requestId        request id
+     * @param responseCallback callback of this request
+     */
+    public void registerBidiCallback(final long requestId, final FutureCallback<RemotingMessage> responseCallback) {
+        bidiCallbacks.put(requestId, responseCallback);
+    }
+
+    /**
+     * remove the callback of bidi request, later messages of the request go to push handler
+     *
+     * @param requestId request id
+     */
+    public void completeBidiRequest(final long requestId) {
+        bidiCallbacks.invalidate(requestId);
+    }
+
+    /**
+     * register handler for bidi channel messages which have no request callback, e.g. resent responses of
+     * expired requests or server push messages
+     *
+     * @param messageType message type
+     * @param handler     push handler
+     */
+    public void registerPushHandler(final byte messageType, final FutureCallback<RemotingMessage> handler) {
+        pushHandlers.put(messageType, handler);
+    }
+
+    /**
+     * send async request, the response message is released after callback
      *
      * @param host    server host
      * @param request request message
@@ -81,7 +177,13 @@ public class RemotingClient {
      */
     public void sendAsyncRequest(final Host host, final RemotingMessage request, final FutureCallback<RemotingMessage> callback) throws RemotingException {
         final CompletableFuture<RemotingMessage> future = sendRequest(host, request);
-        future.thenAcceptAsync(callback::onSuccess)
+        future.thenAcceptAsync(response -> {
+                try {
+                    callback.onSuccess(response);
+                } finally {
+                    response.release();
+                }
+            })
             .exceptionally(e -> {
                 callback.onFailure(e);
                 return null;
@@ -89,7 +191,7 @@ public class RemotingClient {
     }
 
     /**
-     * send sync request
+     * send sync request, caller must {@link RemotingMessage#release()} the response message
      *
      * @param host    server host
      * @param request request message
@@ -98,47 +200,124 @@ public class RemotingClient {
      */
     public RemotingMessage sendSyncRequest(final Host host, final RemotingMessage request, final int timeout)
         throws InterruptedException, ExecutionException, TimeoutException {
-        final CompletableFuture<RemotingMessage> future = sendRequest(host, request);
-        return future.get(timeout, TimeUnit.MILLISECONDS);
+        final CompletableFuture<RemotingMessage> future = sendRequest(host, request, timeout);
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 超时后到达的响应无人消费
+            future.thenAccept(RemotingMessage::release);
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     public CompletableFuture<RemotingMessage> sendRequest(final Host host, final RemotingMessage request) {
+        return sendRequest(host, request, requestTimeout);
+    }
+
+    /**
+     * send request, the future is completed exceptionally with {@link TimeoutException} if no response in timeout,
+     * or with {@link RemotingException} if the host in-flight requests exceed the limit, caller must release the response
+     *
+     * @param host    server host
+     * @param request request message
+     * @param timeout timeout milliseconds
+     * @return response future
+     */
+    public CompletableFuture<RemotingMessage> sendRequest(final Host host, final RemotingMessage request, final int timeout) {
         final CompletableFuture<RemotingMessage> future = new CompletableFuture<>();
-        FUTURE_MAP.put(request.getHeader().getId(), future);
+        final AtomicInteger inflight = hostInflightRequests.computeIfAbsent(host, k -> new AtomicInteger());
+        if (inflight.incrementAndGet() > maxInflightRequests) {
+            inflight.decrementAndGet();
+            REJECTED_METER.mark();
+            future.completeExceptionally(new RemotingException(String.format("host %s in-flight requests exceed %s, request [%s] rejected.",
+                host.getEndpoint(), maxInflightRequests, request)));
+            return future;
+        }
+        REQUEST_METER.mark();
+        final long requestId = request.getHeader().getId();
+        final InflightRequest inflightRequest = new InflightRequest(future, inflight);
+        FUTURE_MAP.put(requestId, inflightRequest);
+        inflightRequest.setTimeout(timeoutTimer.newTimeout(t -> {
+            final InflightRequest expired = removeInflightRequest(requestId);
+            if (expired != null) {
+                TIMEOUT_METER.mark();
+                expired.getFuture().completeExceptionally(new TimeoutException(String.format("request [%s]::[%s] timeout %sms.",
+                    host.getEndpoint(), requestId, timeout)));
+            }
+        }, timeout, TimeUnit.MILLISECONDS));
         try {
-            //final HodorChannel channel = createChannel(host, new CommonResponseHandler());
             final HodorChannel channel = getOrCreateCommonChannel(host);
             channel.send(request).operationComplete(e -> {
-                if (!e.isSuccess()) {
-                    FUTURE_MAP.remove(request.getHeader().getId());
+                if (!e.isSuccess() && removeInflightRequest(requestId) != null) {
                     future.completeExceptionally(e.cause());
                 }
             });
         } catch (Exception e) {
-            FUTURE_MAP.remove(request.getHeader().getId());
-            future.completeExceptionally(e);
+            if (removeInflightRequest(requestId) != null) {
+                future.completeExceptionally(e);
+            }
         }
         return future;
     }
 
-    public HodorChannel getOrCreateBidiChannel(final Host host, FutureCallback<RemotingMessage> responseCallback) {
+    /**
+     * 缓存只在读写时清理过期项，没有新消息时也要按时回调过期的请求
+     */
+    private void scheduleBidiCallbackCleanUp() {
+        try {
+            timeoutTimer.newTimeout(t -> {
+                try {
+                    bidiCallbacks.cleanUp();
+                } finally {
+                    scheduleBidiCallbackCleanUp();
+                }
+            }, Math.max(bidiCallbackExpire / 10, 100), TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            log.debug("remoting client closed, stop cleaning up bidi callbacks.");
+        }
+    }
+
+    public int getInflightRequests(final Host host) {
+        final AtomicInteger inflight = hostInflightRequests.get(host);
+        return inflight == null ? 0 : inflight.get();
+    }
+
+    private static InflightRequest removeInflightRequest(final long requestId) {
+        final InflightRequest inflightRequest = FUTURE_MAP.remove(requestId);
+        if (inflightRequest != null) {
+            inflightRequest.release();
+        }
+        return inflightRequest;
+    }
+
+    public HodorChannel getOrCreateBidiChannel(final Host host) {
         HodorChannel hodorChannel = bidiActiveChannels.getIfPresent(host);
         if (hodorChannel != null && hodorChannel.isOpen()) {
             return hodorChannel;
         }
-        final HodorChannel activeChannel = createChannel(host, new KeepAliveChannelResponseHandler(responseCallback));
-        bidiActiveChannels.put(host, activeChannel);
-        return activeChannel;
+        synchronized (bidiActiveChannels) {
+            hodorChannel = bidiActiveChannels.getIfPresent(host);
+            if (hodorChannel != null && hodorChannel.isOpen()) {
+                return hodorChannel;
+            }
+            final HodorChannel activeChannel = createChannel(host, new MultiplexedChannelHandler());
+            bidiActiveChannels.put(host, activeChannel);
+            return activeChannel;
+        }
     }
 
     public HodorChannel getOrCreateCommonChannel(final Host host) {
-        HodorChannel hodorChannel = commonActiveChannels.getIfPresent(host);
-        if (hodorChannel != null && hodorChannel.isOpen()) {
-            return hodorChannel;
+        try {
+            return commonChannelPools.get(host, () -> new HodorChannelPool(host, minChannels, maxChannels,
+                () -> createChannel(host, new CommonResponseHandler()))).acquire();
+        } catch (ExecutionException e) {
+            throw new RemotingException(String.format("host %s create channel pool exception", host), e.getCause());
         }
-        final HodorChannel activeChannel = createChannel(host, new CommonResponseHandler());
-        commonActiveChannels.put(host, activeChannel);
-        return activeChannel;
     }
 
     public HodorChannel createChannel(final Host host, final HodorChannelHandler handler) {
@@ -157,9 +336,68 @@ public class RemotingClient {
         attribute.put(RemotingConst.PORT_KEY, host.getPort());
         attribute.put(RemotingConst.TCP_PROTOCOL, true);
         attribute.put(RemotingConst.NET_TIMEOUT_KEY, 1000); // connect timeout 1000ms
+        attribute.put(RemotingConst.IO_THREADS_KEY, ioThreads);
+        attribute.put(RemotingConst.FLUSH_CONSOLIDATION_KEY, true);
         return attribute;
     }
 
+    /**
+     * close all channels and release the shared io threads
+     */
+    public void close() {
+        for (Long requestId : FUTURE_MAP.keySet()) {
+            final InflightRequest inflightRequest = removeInflightRequest(requestId);
+            if (inflightRequest != null) {
+                inflightRequest.getFuture().completeExceptionally(new RemotingException("remoting client closed."));
+            }
+        }
+        timeoutTimer.stop();
+        bidiCallbacks.invalidateAll();
+        bidiActiveChannels.invalidateAll();
+        commonChannelPools.invalidateAll();
+        clientTransport.close();
+    }
+
+    /**
+     * 在途请求，完成、失败或超时只会有一方从FUTURE_MAP中移除并释放
+     */
+    private static class InflightRequest {
+
+        private final CompletableFuture<RemotingMessage> future;
+
+        private final AtomicInteger hostInflight;
+
+        private volatile Timeout timeout;
+
+        private volatile boolean released;
+
+        InflightRequest(final CompletableFuture<RemotingMessage> future, final AtomicInteger hostInflight) {
+            this.future = future;
+            this.hostInflight = hostInflight;
+        }
+
+        CompletableFuture<RemotingMessage> getFuture() {
+            return future;
+        }
+
+        void setTimeout(final Timeout timeout) {
+            this.timeout = timeout;
+            if (released) {
+                timeout.cancel();
+            }
+        }
+
+        void release() {
+            released = true;
+            hostInflight.decrementAndGet();
+            final Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+    }
+
     /**
      * 这种是适应于一应一答的方式
      */
@@ -171,11 +409,15 @@ public class RemotingClient {
                 throw new IllegalArgumentException("response message is illegal, " + message);
             }
             final RemotingMessage remotingMessage = (RemotingMessage) message;
-            try {
-                CompletableFuture<RemotingMessage> future = FUTURE_MAP.get(remotingMessage.getHeader().getId());
-                future.complete(remotingMessage);
-            } finally {
-                FUTURE_MAP.remove(remotingMessage.getHeader().getId());
+            final InflightRequest inflightRequest = removeInflightRequest(remotingMessage.getHeader().getId());
+            if (inflightRequest == null) {
+                log.warn("response [{}] discarded, request is timeout or not found.", remotingMessage.getHeader().getId());
+                return;
+            }
+            // body在received返回后释放，异步消费的响应需要保留
+            remotingMessage.retain();
+            if (!inflightRequest.getFuture().complete(remotingMessage)) {
+                remotingMessage.release();
             }
         }
 
@@ -188,32 +430,54 @@ public class RemotingClient {
     }
 
     /**
-     * 这种适应于长连接，双向通信
+     * 这种适应于长连接，双向通信，按消息id路由到请求回调，没有回调的消息按类型路由到推送处理器
      */
-    private static class KeepAliveChannelResponseHandler implements HodorChannelHandler {
-
-        private final FutureCallback<RemotingMessage> callback;
-
-        public KeepAliveChannelResponseHandler(FutureCallback<RemotingMessage> callback) {
-            this.callback = callback;
-        }
+    private class MultiplexedChannelHandler implements HodorChannelHandler {
 
         @Override
         public void received(HodorChannel channel, Object message) {
             if (!(message instanceof RemotingMessage)) {
                 throw new IllegalArgumentException("response message is illegal, " + message);
             }
-            callback.onSuccess((RemotingMessage) message);
+            final RemotingMessage remotingMessage = (RemotingMessage) message;
+            final Header header = remotingMessage.getHeader();
+            FutureCallback<RemotingMessage> callback = bidiCallbacks.getIfPresent(header.getId());
+            if (callback == null) {
+                callback = pushHandlers.get(header.getType());
+            }
+            if (callback == null) {
+                log.warn("bidi channel [{}] message [{}] discarded, no callback or push handler found.", channel.getId(), remotingMessage);
+                return;
+            }
+            callback.onSuccess(remotingMessage);
         }
 
         @Override
         public void exceptionCaught(HodorChannel channel, Throwable cause) {
+            // 请求回调保留，执行端会通过新的连接重发结果
+            log.error("hodor bidi channel [{}] exception caught, msg: {}", channel.getId(), cause.getMessage(), cause);
             channel.close();
-            callback.onFailure(cause);
         }
 
     }
 
+    private class BidiCallbackRemoveListener implements RemovalListener<Long, FutureCallback<RemotingMessage>> {
+
+        @Override
+        public void onRemoval(RemovalNotification<Long, FutureCallback<RemotingMessage>> event) {
+            if (event.getCause() != RemovalCause.EXPIRED) {
+                return;
+            }
+            TIMEOUT_METER.mark();
+            try {
+                event.getValue().onFailure(new TimeoutException(String.format("bidi request [%s] has no message in %sms.",
+                    event.getKey(), bidiCallbackExpire)));
+            } catch (Exception e) {
+                log.error("bidi request [{}] expire callback exception, msg: {}", event.getKey(), e.getMessage(), e);
+            }
+        }
+    }
+
     private static class ChannelRemoveListener implements RemovalListener<Host, HodorChannel> {
 
         @Override
@@ -232,4 +496,17 @@ public class RemotingClient {
         }
     }
 
+    private static class ChannelPoolRemoveListener implements RemovalListener<Host, HodorChannelPool> {
+
+        @Override
+        public void onRemoval(RemovalNotification<Host, HodorChannelPool> event) {
+            final HodorChannelPool channelPool = event.getValue();
+            if (channelPool == null) {
+                return;
+            }
+            channelPool.close();
+            log.info("ChannelPoolRemoveListener host {} remove", event.getKey());
+        }
+    }
+
 }
@@ -44,6 +44,47 @@ public class RemotingConst  {
      */
     public static final String IO_THREADS_KEY = "io_threads";
 
+    /**
+     * The constant CLIENT_IO_THREADS, system property of client shared io threads.
+     */
+    public static final String CLIENT_IO_THREADS = "hodor.remoting.client.ioThreads";
+
+    /**
+     * The constant CLIENT_MIN_CHANNELS, system property of min channels per host.
+     */
+    public static final String CLIENT_MIN_CHANNELS = "hodor.remoting.client.minChannels";
+
+    /**
+     * The constant CLIENT_MAX_CHANNELS, system property of max channels per host.
+     */
+    public static final String CLIENT_MAX_CHANNELS = "hodor.remoting.client.maxChannels";
+
+    /**
+     * The constant CLIENT_REQUEST_TIMEOUT, system property of default request timeout milliseconds.
+     */
+    public static final String CLIENT_REQUEST_TIMEOUT = "hodor.remoting.client.requestTimeout";
+
+    /**
+     * The constant CLIENT_MAX_INFLIGHT_REQUESTS, system property of max in-flight requests per host.
+     */
+    public static final String CLIENT_MAX_INFLIGHT_REQUESTS = "hodor.remoting.client.maxInflightRequests";
+
+    /**
+     * The constant CLIENT_BIDI_CALLBACK_EXPIRE, system property of bidi request callback expire milliseconds after last message,
+     * defaults to the request timeout, the expired callback fails with {@link java.util.concurrent.TimeoutException}.
+     */
+    public static final String CLIENT_BIDI_CALLBACK_EXPIRE = "hodor.remoting.client.bidiCallbackExpire";
+
+    /**
+     * The constant FLUSH_CONSOLIDATION_KEY, merge flushes of the same event loop iteration into one syscall.
+     */
+    public static final String FLUSH_CONSOLIDATION_KEY = "flush_consolidation";
+
+    /**
+     * The constant EXPLICIT_FLUSH_AFTER_FLUSHES_KEY, max flushes merged before an explicit flush.
+     */
+    public static final String EXPLICIT_FLUSH_AFTER_FLUSHES_KEY = "explicit_flush_after_flushes";
+
     /**
      * The constant NET_TIMEOUT_KEY.
      */
@@ -69,6 +110,16 @@ public class RemotingConst  {
      */
     public static final byte DEFAULT_VERSION = 1;
 
+    /**
+     * The constant BINARY_VERSION, message body and attachment use binary encoding
+     */
+    public static final byte BINARY_VERSION = 2;
+
+    /**
+     * The constant LATEST_VERSION, the highest protocol version supported by this node
+     */
+    public static final byte LATEST_VERSION = BINARY_VERSION;
+
     /**
      * The constant MAX_FRAME_LENGTH
      */
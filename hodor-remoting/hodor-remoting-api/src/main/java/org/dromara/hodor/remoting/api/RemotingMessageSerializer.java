@@ -2,6 +2,7 @@ package org.dromara.hodor.remoting.api;
 
 import java.lang.reflect.Type;
 import org.dromara.hodor.common.extension.SPI;
+import org.dromara.hodor.remoting.api.message.MessageBuffer;
 
 /**
  *  remoting message serializer
@@ -27,4 +28,18 @@ public interface RemotingMessageSerializer {
      */
     <T> T deserialize(byte[] byteData, Type typeOfT);
 
+    /**
+     * 直接从消息体缓冲区反序列化，默认拷贝后反序列化
+     */
+    default <T> T deserialize(MessageBuffer buffer, Class<T> cls) {
+        return deserialize(buffer.toBytes(), cls);
+    }
+
+    /**
+     * 直接从消息体缓冲区反序列化，默认拷贝后反序列化
+     */
+    default <T> T deserialize(MessageBuffer buffer, Type typeOfT) {
+        return deserialize(buffer.toBytes(), typeOfT);
+    }
+
 }
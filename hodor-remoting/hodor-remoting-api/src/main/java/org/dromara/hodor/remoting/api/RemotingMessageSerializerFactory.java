@@ -0,0 +1,45 @@
+package org.dromara.hodor.remoting.api;
+
+import org.dromara.hodor.common.extension.ExtensionLoader;
+
+/**
+ * remoting message serializer factory, select serializer by protocol version
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public final class RemotingMessageSerializerFactory {
+
+    private static final String BINARY_SERIALIZER = "protostuff";
+
+    private RemotingMessageSerializerFactory() {
+    }
+
+    /**
+     * 根据协议版本获取序列化器，版本1使用默认的json序列化器，版本2及以上使用二进制序列化器
+     *
+     * @param version header version
+     * @return serializer
+     */
+    public static RemotingMessageSerializer getSerializer(byte version) {
+        ExtensionLoader<RemotingMessageSerializer> extensionLoader = ExtensionLoader.getExtensionLoader(RemotingMessageSerializer.class);
+        if (version >= RemotingConst.BINARY_VERSION) {
+            return extensionLoader.getJoin(BINARY_SERIALIZER);
+        }
+        return extensionLoader.getDefaultJoin();
+    }
+
+    /**
+     * 与对端协商协议版本，对端未上报版本时使用默认版本，保证新旧版本节点混合部署时可以正常通信
+     *
+     * @param remoteVersion the highest version supported by remote node
+     * @return negotiated version
+     */
+    public static byte negotiateVersion(Byte remoteVersion) {
+        if (remoteVersion == null || remoteVersion < RemotingConst.DEFAULT_VERSION) {
+            return RemotingConst.DEFAULT_VERSION;
+        }
+        return (byte) Math.min(remoteVersion, RemotingConst.LATEST_VERSION);
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hodor.remoting.api;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import java.util.Objects;
+
+/**
+ * 通信层指标，与KV存储的指标分开注册
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public final class RemotingMetrics {
+
+    // for remoting client
+    public static final String INFLIGHT_REQUESTS = "hodor-remoting-inflight-requests";
+    public static final String REQUEST_QPS       = "hodor-remoting-request-qps";
+    public static final String REQUEST_TIMEOUT   = "hodor-remoting-request-timeout";
+    public static final String REQUEST_REJECTED  = "hodor-remoting-request-rejected";
+
+    // for netty channel
+    public static final String WRITE_QPS         = "hodor-remoting-write-qps";
+    public static final String FLUSH_QPS         = "hodor-remoting-flush-qps";
+
+    private static final MetricRegistry metricRegistry = new MetricRegistry();
+
+    /**
+     * Return the registry of remoting metric instances.
+     */
+    public static MetricRegistry metricRegistry() {
+        return metricRegistry;
+    }
+
+    /**
+     * Return the {@link Meter} registered under this name; or create
+     * and register a new {@link Meter} if none is registered.
+     */
+    public static Meter meter(final String name) {
+        return metricRegistry.meter(Objects.requireNonNull(name, "name"));
+    }
+
+    private RemotingMetrics() {
+    }
+}
@@ -0,0 +1,55 @@
+package org.dromara.hodor.remoting.api.message;
+
+import java.io.File;
+
+/**
+ * 消息体为文件片段的消息，网络层直接把文件内容写入连接，不经过堆内存拷贝，接收端按普通消息解码
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class FileRegionMessage {
+
+    private final Header header;
+
+    private final File file;
+
+    private final long position;
+
+    private final int count;
+
+    public FileRegionMessage(final Header header, final File file, final long position, final int count) {
+        this.header = header;
+        this.file = file;
+        this.position = position;
+        this.count = count;
+        header.setLength(count);
+    }
+
+    public Header getHeader() {
+        return header;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "FileRegionMessage {" +
+            "header=" + header +
+            ", file=" + file +
+            ", position=" + position +
+            ", count=" + count +
+            '}';
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.dromara.hodor.remoting.api.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 字节数组消息体，不需要释放
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class HeapMessageBuffer implements MessageBuffer {
+
+    private final byte[] data;
+
+    public HeapMessageBuffer(final byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public int readableBytes() {
+        return data.length;
+    }
+
+    @Override
+    public ByteBuffer nioBuffer() {
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
+    @Override
+    public InputStream inputStream() {
+        return new ByteArrayInputStream(data);
+    }
+
+    @Override
+    public byte[] toBytes() {
+        return data;
+    }
+
+    @Override
+    public MessageBuffer retain() {
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return false;
+    }
+
+}
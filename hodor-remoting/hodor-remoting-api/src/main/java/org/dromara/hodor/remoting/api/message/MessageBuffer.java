@@ -0,0 +1,44 @@
+package org.dromara.hodor.remoting.api.message;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 消息体缓冲区，由网络层解码时直接引用接收缓冲区，避免拷贝。<br/>
+ * 使用引用计数管理，读取完成后需要release
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public interface MessageBuffer {
+
+    /**
+     * 可读字节数
+     */
+    int readableBytes();
+
+    /**
+     * 不拷贝的只读视图，position为0
+     */
+    ByteBuffer nioBuffer();
+
+    /**
+     * 不拷贝的输入流
+     */
+    InputStream inputStream();
+
+    /**
+     * 拷贝为字节数组
+     */
+    byte[] toBytes();
+
+    MessageBuffer retain();
+
+    /**
+     * 释放引用
+     *
+     * @return 引用计数为0时返回true
+     */
+    boolean release();
+
+}
@@ -2,7 +2,9 @@ package org.dromara.hodor.remoting.api.message;
 
 import org.dromara.hodor.remoting.api.exception.RemotingException;
 import org.dromara.hodor.remoting.api.message.request.HeartbeatRequest;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteBatchRequest;
 import org.dromara.hodor.remoting.api.message.request.JobExecuteLogRequest;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteLogStreamRequest;
 import org.dromara.hodor.remoting.api.message.request.JobExecuteRequest;
 import org.dromara.hodor.remoting.api.message.request.JobExecuteStatusRequest;
 import org.dromara.hodor.remoting.api.message.request.KillRunningJobRequest;
@@ -23,7 +25,11 @@ public enum MessageType {
 
     FETCH_JOB_LOG_REQUEST((byte) 3, JobExecuteLogRequest.class),
 
-    KILL_JOB_REQUEST((byte) 4, KillRunningJobRequest.class);
+    KILL_JOB_REQUEST((byte) 4, KillRunningJobRequest.class),
+
+    JOB_EXEC_BATCH_REQUEST((byte) 5, JobExecuteBatchRequest.class),
+
+    FETCH_JOB_LOG_STREAM_REQUEST((byte) 6, JobExecuteLogStreamRequest.class);
 
     private final byte type;
 
@@ -60,6 +66,12 @@ public enum MessageType {
             case (byte) 4:
                 requestType = KILL_JOB_REQUEST;
                 break;
+            case (byte) 5:
+                requestType = JOB_EXEC_BATCH_REQUEST;
+                break;
+            case (byte) 6:
+                requestType = FETCH_JOB_LOG_STREAM_REQUEST;
+                break;
             default:
                 throw new RemotingException("not found message type, " + type);
         }
@@ -4,9 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.dromara.hodor.remoting.api.RemotingConst;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 
 /**
  * rpc message
@@ -24,12 +24,71 @@ public class RemotingMessage {
 
     private byte[] body;
 
+    /**
+     * 解码时引用的接收缓冲区，处理完成后由网络层释放
+     */
+    private transient MessageBuffer buffer;
+
+    /**
+     * 消息体，由接收缓冲区解码的消息第一次调用时拷贝一次
+     */
+    public byte[] getBody() {
+        if (body == null && buffer != null) {
+            body = buffer.toBytes();
+        }
+        return body;
+    }
+
+    /**
+     * 消息体缓冲区，反序列化时可直接读取，不产生拷贝
+     */
+    public MessageBuffer bodyBuffer() {
+        if (buffer != null) {
+            return buffer;
+        }
+        return body == null ? null : new HeapMessageBuffer(body);
+    }
+
+    public int bodyLength() {
+        if (body != null) {
+            return body.length;
+        }
+        return buffer == null ? 0 : buffer.readableBytes();
+    }
+
+    /**
+     * 在网络层释放前保留消息体缓冲区，用于异步处理，处理完成后调用{@link #release()}
+     */
+    public RemotingMessage retain() {
+        if (buffer != null) {
+            buffer.retain();
+        }
+        return this;
+    }
+
+    public void release() {
+        final MessageBuffer buffer = this.buffer;
+        if (buffer != null && buffer.release()) {
+            this.buffer = null;
+        }
+    }
+
     @Override
     public String toString() {
         return "RemotingMessage {" +
                 "header=" + header +
-                ", body=" + (body == null ? "null" : new String(body, StandardCharsets.UTF_8)) +
+                ", body=" + bodyString() +
                 '}';
     }
 
+    private String bodyString() {
+        if (body == null && buffer == null) {
+            return "null";
+        }
+        if (body == null || (header != null && header.getVersion() >= RemotingConst.BINARY_VERSION)) {
+            return "binary[" + bodyLength() + "]";
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
 }
@@ -21,12 +21,22 @@ public class RequestContext {
 
     private final Class<? extends RequestBody> requestType;
 
+    private final RequestBody requestBody;
+
     public RequestContext(HodorChannel channel, RemotingMessage remotingMessage, final RemotingMessageSerializer serializer) {
+        this(channel, remotingMessage, serializer, null);
+    }
+
+    /**
+     * 请求体已经反序列化，如接收时从缓冲区直接解码的请求或批量请求拆分出的单个请求
+     */
+    public RequestContext(HodorChannel channel, RemotingMessage remotingMessage, final RemotingMessageSerializer serializer, final RequestBody requestBody) {
         this.channel = channel;
         this.remotingMessage = remotingMessage;
         this.serializer = serializer;
         this.messageType = MessageType.to(remotingMessage.getHeader().getType());
         this.requestType = messageType.getMessageClass();
+        this.requestBody = requestBody;
     }
 
     public HodorChannel channel() {
@@ -45,6 +55,10 @@ public class RequestContext {
         return remotingMessage.getBody();
     }
 
+    public RequestBody requestBody() {
+        return requestBody;
+    }
+
     public Class<? extends RequestBody> getRequestType() {
         return requestType;
     }
@@ -0,0 +1,42 @@
+package org.dromara.hodor.remoting.api.message.request;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量任务执行请求，一帧中携带同一执行节点的多个任务
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class JobExecuteBatchRequest extends AbstractRequestBody {
+
+    private static final long serialVersionUID = 2846387512361297542L;
+
+    private List<Item> requests = new ArrayList<>();
+
+    /**
+     * 单个任务请求，attachment等同于单个请求时的header attachment
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item implements Serializable {
+
+        private static final long serialVersionUID = -6352169386937651487L;
+
+        private Map<String, Object> attachment;
+
+        private JobExecuteRequest request;
+
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.dromara.hodor.remoting.api.message.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * job execute log stream request<br/>
+ *
+ * 执行端从offset开始把日志分块推送给订阅方，任务运行中持续推送新写入的日志，任务结束且读到文件末尾后发送结束消息。
+ * 日志块消息与请求的消息id相同，消息体是日志原始字节，偏移量和结束标识放在header扩展参数中
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class JobExecuteLogStreamRequest extends AbstractRequestBody {
+
+    private static final long serialVersionUID = 2190486046826127435L;
+
+    /**
+     * 日志块在文件中的起始位置
+     */
+    public static final String OFFSET_KEY = "logOffset";
+
+    /**
+     * 结束消息标识，结束消息没有消息体
+     */
+    public static final String EOF_KEY = "logEof";
+
+    /**
+     * 异常结束时的错误信息
+     */
+    public static final String ERROR_KEY = "logError";
+
+    private String groupName;
+
+    private String jobName;
+
+    private Long offset;
+
+    /**
+     * 每个日志块的最大字节数
+     */
+    private Integer chunkSize;
+
+    /**
+     * 取消订阅，消息id与订阅请求相同
+     */
+    private boolean cancel;
+
+}
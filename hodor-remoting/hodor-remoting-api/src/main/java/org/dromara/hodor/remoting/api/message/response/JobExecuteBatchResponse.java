@@ -0,0 +1,33 @@
+package org.dromara.hodor.remoting.api.message.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 批量任务执行请求确认，执行结果仍按单个任务请求id返回
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Getter
+@Setter
+public class JobExecuteBatchResponse extends AbstractResponseBody {
+
+    private static final long serialVersionUID = -2107386245473917065L;
+
+    private List<Long> acceptedRequestIds = new ArrayList<>();
+
+    private List<Long> rejectedRequestIds = new ArrayList<>();
+
+    @Override
+    public String toString() {
+        return "JobExecuteBatchResponse{" +
+            "requestId=" + getRequestId() +
+            ", accepted=" + acceptedRequestIds.size() +
+            ", rejectedRequestIds=" + rejectedRequestIds +
+            '}';
+    }
+
+}
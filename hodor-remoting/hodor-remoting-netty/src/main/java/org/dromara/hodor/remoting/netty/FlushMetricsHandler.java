@@ -0,0 +1,40 @@
+package org.dromara.hodor.remoting.netty;
+
+import com.codahale.metrics.Meter;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import org.dromara.hodor.remoting.api.RemotingMetrics;
+
+/**
+ * 统计真正写到socket的write和flush次数，放在pipeline最靠近head的位置
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@ChannelHandler.Sharable
+public class FlushMetricsHandler extends ChannelOutboundHandlerAdapter {
+
+    public static final FlushMetricsHandler INSTANCE = new FlushMetricsHandler();
+
+    private final Meter writeMeter = RemotingMetrics.meter(RemotingMetrics.WRITE_QPS);
+
+    private final Meter flushMeter = RemotingMetrics.meter(RemotingMetrics.FLUSH_QPS);
+
+    private FlushMetricsHandler() {
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        writeMeter.mark();
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        flushMeter.mark();
+        ctx.flush();
+    }
+
+}
@@ -41,6 +41,11 @@ public class NettyChannel implements HodorChannel {
         return this.channel.isOpen();
     }
 
+    @Override
+    public boolean isWritable() {
+        return this.channel.isWritable();
+    }
+
     @Override
     public SocketAddress localAddress() {
         return channel.localAddress();
@@ -35,6 +35,7 @@ import org.dromara.hodor.remoting.api.RemotingConst;
 import org.dromara.hodor.remoting.api.exception.RemotingException;
 import org.dromara.hodor.remoting.api.http.HodorHttpRequest;
 import org.dromara.hodor.remoting.api.http.HodorHttpResponse;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
 import org.dromara.hodor.remoting.netty.http.HttpMessageWrapper;
 
 /**
@@ -70,6 +71,14 @@ public class NettyChannelHandler extends ChannelDuplexHandler {
         return attribute.getProperty(RemotingConst.TCP_PROTOCOL, false);
     }
 
+    public boolean isFlushConsolidation() {
+        return attribute.getProperty(RemotingConst.FLUSH_CONSOLIDATION_KEY, false);
+    }
+
+    public int getExplicitFlushAfterFlushes() {
+        return attribute.getProperty(RemotingConst.EXPLICIT_FLUSH_AFTER_FLUSHES_KEY, 256);
+    }
+
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         super.channelActive(ctx);
@@ -89,7 +98,14 @@ public class NettyChannelHandler extends ChannelDuplexHandler {
         HodorChannel channel = new NettyChannel(ctx.channel());
         if (isTcpProtocol()) {
             super.channelRead(ctx, msg);
-            channelHandler.received(channel, msg);
+            try {
+                channelHandler.received(channel, msg);
+            } finally {
+                // 异步处理的消息需要在received中retain
+                if (msg instanceof RemotingMessage) {
+                    ((RemotingMessage) msg).release();
+                }
+            }
             return;
         }
         if (isHttpProtocol() && msg instanceof FullHttpRequest) {
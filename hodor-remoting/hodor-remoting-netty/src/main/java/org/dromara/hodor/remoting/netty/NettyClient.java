@@ -5,14 +5,11 @@ import io.netty.channel.AdaptiveRecvByteBufAllocator;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import java.net.ConnectException;
-import org.dromara.hodor.common.utils.OSInfo;
 import org.dromara.hodor.remoting.api.AbstractNetClient;
 import org.dromara.hodor.remoting.api.Attribute;
 import org.dromara.hodor.remoting.api.HodorChannel;
@@ -29,9 +26,12 @@ public class NettyClient extends AbstractNetClient {
 
     private final Bootstrap bootstrap;
 
-    public NettyClient(final Attribute attribute, final HodorChannelHandler channelHandler) {
+    private final EventLoopGroup eventLoopGroup;
+
+    public NettyClient(final Attribute attribute, final HodorChannelHandler channelHandler, final EventLoopGroup eventLoopGroup) {
         super(attribute, channelHandler);
         this.bootstrap = new Bootstrap();
+        this.eventLoopGroup = eventLoopGroup;
         init();
     }
 
@@ -51,16 +51,14 @@ public class NettyClient extends AbstractNetClient {
     }
 
     private void init() {
-        EventLoopGroup eventLoopGroup;
         Class<? extends SocketChannel> socketChannelClass;
         NettyChannelHandler channelHandler = new NettyChannelHandler(getAttribute(), this);
         Integer connectTimeout = getAttribute().getProperty(RemotingConst.NET_TIMEOUT_KEY, 1000);
 
-        if (useEpoll()) {
-            eventLoopGroup = new EpollEventLoopGroup();
+        // channel type must match the shared event loop group
+        if (eventLoopGroup instanceof EpollEventLoopGroup) {
             socketChannelClass = EpollSocketChannel.class;
         } else {
-            eventLoopGroup = new NioEventLoopGroup();
             socketChannelClass = NioSocketChannel.class;
         }
 
@@ -74,8 +72,4 @@ public class NettyClient extends AbstractNetClient {
         bootstrap.handler(new NettyClientInitializer(channelHandler));
     }
 
-    private boolean useEpoll() {
-        return Epoll.isAvailable() && OSInfo.isLinux() && getUseEpollNative();
-    }
-
 }
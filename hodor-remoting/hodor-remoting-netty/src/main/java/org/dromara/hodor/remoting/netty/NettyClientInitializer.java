@@ -5,7 +5,9 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import org.dromara.hodor.remoting.netty.rpc.codec.FileRegionMessageEncoder;
 import org.dromara.hodor.remoting.netty.rpc.codec.RemotingMessageCodec;
 
 /**
@@ -31,7 +33,13 @@ public class NettyClientInitializer extends ChannelInitializer<SocketChannel> {
             pipeline.addLast("http-aggregator", new HttpObjectAggregator(1024 * 1024 * 64));
             pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
         } else if (channelHandler.isTcpProtocol()) {
+            pipeline.addLast("flushMetrics", FlushMetricsHandler.INSTANCE);
+            if (channelHandler.isFlushConsolidation()) {
+                // 读循环或同一轮事件循环中的多次flush合并为一次，空闲时在下一个任务中立即flush
+                pipeline.addLast("flushConsolidation", new FlushConsolidationHandler(channelHandler.getExplicitFlushAfterFlushes(), true));
+            }
             pipeline.addLast(new RemotingMessageCodec());
+            pipeline.addLast("fileRegionEncoder", FileRegionMessageEncoder.INSTANCE);
         } else {
             throw new UnsupportedOperationException("unsupported protocol.");
         }
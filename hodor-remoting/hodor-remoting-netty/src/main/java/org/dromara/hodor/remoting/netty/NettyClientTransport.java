@@ -1,23 +1,64 @@
 package org.dromara.hodor.remoting.netty;
 
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.common.concurrent.HodorThreadFactory;
 import org.dromara.hodor.common.extension.Join;
+import org.dromara.hodor.common.utils.OSInfo;
 import org.dromara.hodor.remoting.api.Attribute;
 import org.dromara.hodor.remoting.api.HodorChannelHandler;
 import org.dromara.hodor.remoting.api.NetClient;
 import org.dromara.hodor.remoting.api.NetClientTransport;
+import org.dromara.hodor.remoting.api.RemotingConst;
 
 /**
- *  netty client transport
+ *  netty client transport<br/>
+ *  所有client共享同一个io线程池，连接再多的执行端线程数也是固定的
  *
  * @author tomgs
  * @version 2020/9/6 1.0 
  */
+@Slf4j
 @Join
 public class NettyClientTransport implements NetClientTransport {
 
+    private volatile EventLoopGroup eventLoopGroup;
+
     @Override
     public NetClient build(Attribute attribute, HodorChannelHandler handler) {
-        return new NettyClient(attribute, handler);
+        return new NettyClient(attribute, handler, getOrCreateEventLoopGroup(attribute));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdownGracefully();
+            eventLoopGroup = null;
+            log.info("netty client event loop group shutdown.");
+        }
+    }
+
+    private EventLoopGroup getOrCreateEventLoopGroup(Attribute attribute) {
+        EventLoopGroup group = eventLoopGroup;
+        if (group != null) {
+            return group;
+        }
+        synchronized (this) {
+            if (eventLoopGroup == null) {
+                int ioThreads = attribute.getProperty(RemotingConst.IO_THREADS_KEY, Runtime.getRuntime().availableProcessors() << 1);
+                boolean useEpollNative = attribute.getProperty(RemotingConst.USE_EPOLL_NATIVE, true);
+                if (Epoll.isAvailable() && OSInfo.isLinux() && useEpollNative) {
+                    eventLoopGroup = new EpollEventLoopGroup(ioThreads, HodorThreadFactory.create("netty-epoll-ClientWork", true));
+                } else {
+                    eventLoopGroup = new NioEventLoopGroup(ioThreads, HodorThreadFactory.create("netty-nio-ClientWork", true));
+                }
+                log.info("netty client event loop group created, io threads {}.", ioThreads);
+            }
+            return eventLoopGroup;
+        }
     }
 
 }
@@ -24,7 +24,9 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.flush.FlushConsolidationHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import org.dromara.hodor.remoting.netty.rpc.codec.FileRegionMessageEncoder;
 import org.dromara.hodor.remoting.netty.rpc.codec.RemotingMessageCodec;
 
 /**
@@ -56,7 +58,13 @@ public class NettyServerInitializer extends ChannelInitializer<SocketChannel> {
             pipeline.addLast("http-aggregator", new HttpObjectAggregator(1024 * 1024 * 64));
             pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
         } else if (serverHandler.isTcpProtocol()) {
+            pipeline.addLast("flushMetrics", FlushMetricsHandler.INSTANCE);
+            if (serverHandler.isFlushConsolidation()) {
+                // 读循环或同一轮事件循环中的多次flush合并为一次，空闲时在下一个任务中立即flush
+                pipeline.addLast("flushConsolidation", new FlushConsolidationHandler(serverHandler.getExplicitFlushAfterFlushes(), true));
+            }
             pipeline.addLast(new RemotingMessageCodec());
+            pipeline.addLast("fileRegionEncoder", FileRegionMessageEncoder.INSTANCE);
         } else {
             throw new UnsupportedOperationException("unsupported protocol.");
         }
@@ -0,0 +1,118 @@
+package org.dromara.hodor.remoting.netty.rpc.codec;
+
+import com.google.common.collect.Maps;
+import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.dromara.hodor.remoting.api.exception.RemotingException;
+
+/**
+ * 二进制header扩展参数编解码，协议版本2及以上使用<br/>
+ * 格式：entry数量(int) + [key长度(short) + key(utf8) + 类型(byte) + value]...
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public final class BinaryAttachmentCodec {
+
+    private static final byte TYPE_NULL = 0;
+
+    private static final byte TYPE_STRING = 1;
+
+    private static final byte TYPE_INT = 2;
+
+    private static final byte TYPE_LONG = 3;
+
+    private static final byte TYPE_BOOLEAN = 4;
+
+    private static final byte TYPE_DOUBLE = 5;
+
+    private static final byte TYPE_BYTES = 6;
+
+    private BinaryAttachmentCodec() {
+    }
+
+    public static void encode(ByteBuf out, Map<String, Object> attachment) {
+        out.writeInt(attachment.size());
+        for (Map.Entry<String, Object> entry : attachment.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(key.length);
+            out.writeBytes(key);
+            writeValue(out, entry.getKey(), entry.getValue());
+        }
+    }
+
+    public static Map<String, Object> decode(ByteBuf in) {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new RemotingException("attachment entry size must >= 0.");
+        }
+        Map<String, Object> attachment = Maps.newHashMapWithExpectedSize(size);
+        for (int i = 0; i < size; i++) {
+            String key = readString(in, in.readUnsignedShort());
+            attachment.put(key, readValue(in));
+        }
+        return attachment;
+    }
+
+    private static void writeValue(ByteBuf out, String key, Object value) {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(TYPE_STRING);
+            out.writeInt(bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(TYPE_BYTES);
+            out.writeInt(bytes.length);
+            out.writeBytes(bytes);
+        } else {
+            throw new RemotingException(String.format("unsupported attachment value type %s, key: %s.", value.getClass().getName(), key));
+        }
+    }
+
+    private static Object readValue(ByteBuf in) {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in, in.readInt());
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_BYTES:
+                byte[] bytes = new byte[in.readInt()];
+                in.readBytes(bytes);
+                return bytes;
+            default:
+                throw new RemotingException("unknown attachment value type " + type);
+        }
+    }
+
+    private static String readString(ByteBuf in, int length) {
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.dromara.hodor.remoting.netty.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.dromara.hodor.remoting.api.message.MessageBuffer;
+
+/**
+ * 引用接收缓冲区的消息体
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class ByteBufMessageBuffer implements MessageBuffer {
+
+    private final ByteBuf buf;
+
+    public ByteBufMessageBuffer(final ByteBuf buf) {
+        this.buf = buf;
+    }
+
+    @Override
+    public int readableBytes() {
+        return buf.readableBytes();
+    }
+
+    @Override
+    public ByteBuffer nioBuffer() {
+        return buf.nioBuffer().asReadOnlyBuffer();
+    }
+
+    @Override
+    public InputStream inputStream() {
+        return new ByteBufInputStream(buf.duplicate());
+    }
+
+    @Override
+    public byte[] toBytes() {
+        return ByteBufUtil.getBytes(buf, buf.readerIndex(), buf.readableBytes(), false);
+    }
+
+    @Override
+    public MessageBuffer retain() {
+        buf.retain();
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return buf.release();
+    }
+
+}
@@ -24,13 +24,16 @@ public class CodecUtils {
     private static final RemotingMessageSerializer serializer = ExtensionLoader.getExtensionLoader(RemotingMessageSerializer.class).getDefaultJoin();
 
     @SuppressWarnings("unchecked")
-    public static Map<String, Object> parseAttachment(ByteBuf in, int attachmentSize) throws ResetReaderIndexException {
+    public static Map<String, Object> parseAttachment(ByteBuf in, byte version, int attachmentSize) throws ResetReaderIndexException {
         Map<String, Object> attachment = Maps.newHashMap();
         if (attachmentSize != 0) {
             if (in.readableBytes() < attachmentSize) {
                 in.resetReaderIndex();
                 throw new ResetReaderIndexException("reader attachment index reset");
             }
+            if (version >= RemotingConst.BINARY_VERSION) {
+                return BinaryAttachmentCodec.decode(in.readSlice(attachmentSize));
+            }
             byte[] req = new byte[attachmentSize];
             in.readBytes(req);
             attachment = (Map<String, Object>) serializer.deserialize(req, Map.class);
@@ -50,6 +53,11 @@ public class CodecUtils {
         // write attachment
         if (MapUtils.isEmpty(header.getAttachment())) {
             out.writeInt(0);
+        } else if (header.getVersion() >= RemotingConst.BINARY_VERSION) {
+            int sizeIndex = out.writerIndex();
+            out.writeInt(0);
+            BinaryAttachmentCodec.encode(out, header.getAttachment());
+            out.setInt(sizeIndex, out.writerIndex() - sizeIndex - 4);
         } else {
             byte[] attachmentByte = serializer.serialize(header.getAttachment());
             out.writeInt(attachmentByte.length);
@@ -68,8 +76,8 @@ public class CodecUtils {
 
         long id = in.readLong();
         byte version = in.readByte();
-        if (version < RemotingConst.DEFAULT_VERSION) {
-            throw new RemotingException("Server receive message version is illegal.");
+        if (version < RemotingConst.DEFAULT_VERSION || version > RemotingConst.LATEST_VERSION) {
+            throw new RemotingException("Server receive message version is illegal, " + version);
         }
 
         byte type = in.readByte();
@@ -79,7 +87,7 @@ public class CodecUtils {
 
         // attachment
         int attachmentSize = in.readInt();
-        Map<String, Object> attachment = CodecUtils.parseAttachment(in, attachmentSize);
+        Map<String, Object> attachment = CodecUtils.parseAttachment(in, version, attachmentSize);
 
         // body length
         int length = in.readInt();
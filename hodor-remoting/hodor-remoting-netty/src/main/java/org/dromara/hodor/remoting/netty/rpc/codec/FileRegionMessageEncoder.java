@@ -0,0 +1,35 @@
+package org.dromara.hodor.remoting.netty.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import java.util.List;
+import org.dromara.hodor.remoting.api.message.FileRegionMessage;
+
+/**
+ * 文件片段消息编码，header写入缓冲区，消息体使用FileRegion由内核直接从文件发送到socket
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@ChannelHandler.Sharable
+public class FileRegionMessageEncoder extends MessageToMessageEncoder<FileRegionMessage> {
+
+    public static final FileRegionMessageEncoder INSTANCE = new FileRegionMessageEncoder();
+
+    private FileRegionMessageEncoder() {
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, FileRegionMessage message, List<Object> out) {
+        final ByteBuf header = ctx.alloc().buffer();
+        CodecUtils.writeHeader(header, message.getHeader());
+        out.add(header);
+        if (message.getCount() > 0) {
+            out.add(new DefaultFileRegion(message.getFile(), message.getPosition(), message.getCount()));
+        }
+    }
+
+}
@@ -18,6 +18,23 @@ import java.util.List;
  */
 public class RemotingMessageCodec extends ByteToMessageCodec<RemotingMessage> {
 
+    private static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    // magic(2) + id(8) + version(1) + type(1)
+    private static final int ATTACHMENT_SIZE_OFFSET = 12;
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final int maxFrameLength;
+
+    public RemotingMessageCodec() {
+        this(DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public RemotingMessageCodec(final int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, RemotingMessage message, ByteBuf out) {
         Header header = message.getHeader();
@@ -40,22 +57,47 @@ public class RemotingMessageCodec extends ByteToMessageCodec<RemotingMessage> {
         if (in.readableBytes() < RemotingConst.LENGTH_OF_HEADER) {
             return;
         }
-        in.markReaderIndex();
-        Header header;
-        try {
-            header = CodecUtils.parseHeader(in);
-        } catch (ResetReaderIndexException e) {
+        // 只读取长度字段计算帧长度，帧未接收完整时不解析header
+        final int start = in.readerIndex();
+        final short magic = in.getShort(start);
+        if (RemotingConst.MAGIC != magic) {
+            throw new RemotingException("magic number is illegal, " + magic);
+        }
+        final int attachmentSize = in.getInt(start + ATTACHMENT_SIZE_OFFSET);
+        if (attachmentSize < 0 || attachmentSize > maxFrameLength) {
+            throw new RemotingException("Server receive message attachment size is illegal, " + attachmentSize);
+        }
+        if (in.readableBytes() < RemotingConst.LENGTH_OF_HEADER + attachmentSize) {
             return;
         }
-        // parse body
-        int bodyLength = header.getLength();
-        if (in.readableBytes() < bodyLength) {
-            in.resetReaderIndex();
+        final int bodyLength = in.getInt(start + RemotingConst.LENGTH_OF_HEADER - 4 + attachmentSize);
+        if (bodyLength < 0) {
+            throw new RemotingException("Server receive message length must >= 0.");
+        }
+        final long frameLength = (long) RemotingConst.LENGTH_OF_HEADER + attachmentSize + bodyLength;
+        if (frameLength > maxFrameLength) {
+            throw new RemotingException(String.format("message frame length %s exceeds %s.", frameLength, maxFrameLength));
+        }
+        if (in.readableBytes() < frameLength) {
             return;
         }
-        byte[] requestBody = new byte[bodyLength];
-        in.readBytes(requestBody);
-        out.add(RemotingMessage.builder().header(header).body(requestBody).build());
+
+        final ByteBuf frame = in.readSlice((int) frameLength);
+        final Header header;
+        try {
+            header = CodecUtils.parseHeader(frame);
+        } catch (ResetReaderIndexException e) {
+            throw new RemotingException("message frame is incomplete.", e);
+        }
+        final RemotingMessage message = new RemotingMessage();
+        message.setHeader(header);
+        if (bodyLength == 0) {
+            message.setBody(EMPTY_BODY);
+        } else {
+            // 引用接收缓冲区，消息处理完成后释放
+            message.setBuffer(new ByteBufMessageBuffer(frame.readRetainedSlice(bodyLength)));
+        }
+        out.add(message);
     }
 
 }
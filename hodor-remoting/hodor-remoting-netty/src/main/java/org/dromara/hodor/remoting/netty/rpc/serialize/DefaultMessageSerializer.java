@@ -4,6 +4,7 @@ import java.lang.reflect.Type;
 import org.dromara.hodor.common.extension.Join;
 import org.dromara.hodor.common.utils.SerializeUtils;
 import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.message.MessageBuffer;
 
 /**
  *  默认消息序列化器
@@ -29,4 +30,14 @@ public class DefaultMessageSerializer implements RemotingMessageSerializer {
         return SerializeUtils.deserialize(byteData, typeOfT);
     }
 
+    @Override
+    public <T> T deserialize(MessageBuffer buffer, Class<T> cls) {
+        return SerializeUtils.deserialize(buffer.inputStream(), cls);
+    }
+
+    @Override
+    public <T> T deserialize(MessageBuffer buffer, Type typeOfT) {
+        return SerializeUtils.deserialize(buffer.inputStream(), typeOfT);
+    }
+
 }
@@ -0,0 +1,61 @@
+package org.dromara.hodor.remoting.netty.rpc.serialize;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import org.dromara.hodor.common.extension.Join;
+import org.dromara.hodor.common.utils.ProtostuffUtils;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.exception.RemotingException;
+import org.dromara.hodor.remoting.api.message.MessageBuffer;
+
+/**
+ *  二进制消息序列化器，协议版本2及以上使用
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Join
+public class ProtostuffMessageSerializer implements RemotingMessageSerializer {
+
+    @Override
+    public byte[] serialize(Object requestBody) {
+        if (requestBody == null) {
+            throw new RemotingException("binary serializer can not serialize null object.");
+        }
+        return ProtostuffUtils.serialize(requestBody);
+    }
+
+    @Override
+    public <T> T deserialize(byte[] byteData, Class<T> cls) {
+        return ProtostuffUtils.deserialize(byteData, cls);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(byte[] byteData, Type typeOfT) {
+        // 泛型参数的实际类型已写入二进制数据中，这里只需要原始类型
+        return (T) ProtostuffUtils.deserialize(byteData, rawClass(typeOfT));
+    }
+
+    @Override
+    public <T> T deserialize(MessageBuffer buffer, Class<T> cls) {
+        return ProtostuffUtils.deserialize(buffer.nioBuffer(), cls);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(MessageBuffer buffer, Type typeOfT) {
+        return (T) ProtostuffUtils.deserialize(buffer.nioBuffer(), rawClass(typeOfT));
+    }
+
+    private Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        throw new RemotingException("unsupported deserialize type " + type);
+    }
+
+}
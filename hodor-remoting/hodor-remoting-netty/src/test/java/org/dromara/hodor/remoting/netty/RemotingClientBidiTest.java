@@ -0,0 +1,170 @@
+package org.dromara.hodor.remoting.netty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dromara.hodor.common.Host;
+import org.dromara.hodor.common.concurrent.FutureCallback;
+import org.dromara.hodor.common.extension.ExtensionLoader;
+import org.dromara.hodor.remoting.api.Attribute;
+import org.dromara.hodor.remoting.api.HodorChannel;
+import org.dromara.hodor.remoting.api.HodorChannelHandler;
+import org.dromara.hodor.remoting.api.NetServer;
+import org.dromara.hodor.remoting.api.NetServerTransport;
+import org.dromara.hodor.remoting.api.RemotingClient;
+import org.dromara.hodor.remoting.api.RemotingConst;
+import org.dromara.hodor.remoting.api.RemotingMetrics;
+import org.dromara.hodor.remoting.api.message.Header;
+import org.dromara.hodor.remoting.api.message.MessageType;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * multiplexed bidi channel test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class RemotingClientBidiTest {
+
+    private static final int PORT = 28761;
+
+    private static final long PUSH_ID_OFFSET = 1_000_000L;
+
+    @Test
+    public void testRouteByRequestIdAndPushType() throws Exception {
+        startEchoServer();
+        final Host host = Host.of("127.0.0.1:" + PORT);
+        final RemotingClient client = RemotingClient.getInstance();
+        waitConnected(client, host);
+
+        final int requests = 50;
+        // 每个请求两个响应 + 一个无回调的推送消息
+        final CountDownLatch responseLatch = new CountDownLatch(requests * 2);
+        final CountDownLatch pushLatch = new CountDownLatch(requests);
+        final Map<Long, AtomicInteger> received = new ConcurrentHashMap<>();
+        final AtomicInteger misrouted = new AtomicInteger();
+        client.registerPushHandler(MessageType.HEARTBEAT_REQUEST.getType(), new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage result) {
+                if (result.getHeader().getId() < PUSH_ID_OFFSET) {
+                    misrouted.incrementAndGet();
+                }
+                pushLatch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+            }
+        });
+
+        for (long id = 1; id <= requests; id++) {
+            final long requestId = id;
+            client.sendBidiRequest(host, message(requestId), new FutureCallback<RemotingMessage>() {
+                @Override
+                public void onSuccess(RemotingMessage result) {
+                    if (result.getHeader().getId() != requestId) {
+                        misrouted.incrementAndGet();
+                    }
+                    received.computeIfAbsent(requestId, k -> new AtomicInteger()).incrementAndGet();
+                    responseLatch.countDown();
+                }
+
+                @Override
+                public void onFailure(Throwable cause) {
+                    misrouted.incrementAndGet();
+                }
+            });
+        }
+
+        Assert.assertTrue(responseLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(pushLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, misrouted.get());
+        Assert.assertEquals(requests, received.size());
+        received.values().forEach(count -> Assert.assertEquals(2, count.get()));
+        // 服务端在同一次读事件中写出的三条消息只flush一次
+        long writes = RemotingMetrics.meter(RemotingMetrics.WRITE_QPS).getCount();
+        long flushes = RemotingMetrics.meter(RemotingMetrics.FLUSH_QPS).getCount();
+        Assert.assertTrue(flushes > 0);
+        Assert.assertTrue(flushes < writes);
+
+        // 单个请求：客户端1次write，服务端同一轮事件循环3次write，不合并时flush次数等于write次数
+        final CountDownLatch burstLatch = new CountDownLatch(2);
+        client.sendBidiRequest(host, message(requests + 1), new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage result) {
+                burstLatch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+            }
+        });
+        Assert.assertTrue(burstLatch.await(5, TimeUnit.SECONDS));
+        long burstWrites = RemotingMetrics.meter(RemotingMetrics.WRITE_QPS).getCount() - writes;
+        long burstFlushes = RemotingMetrics.meter(RemotingMetrics.FLUSH_QPS).getCount() - flushes;
+        Assert.assertEquals(4, burstWrites);
+        Assert.assertTrue("flushes: " + burstFlushes, burstFlushes < burstWrites);
+    }
+
+    private static RemotingMessage message(final long id) {
+        byte[] body = String.valueOf(id).getBytes();
+        return RemotingMessage.builder()
+            .header(Header.builder()
+                .id(id)
+                .type(MessageType.HEARTBEAT_REQUEST.getType())
+                .version(RemotingConst.DEFAULT_VERSION)
+                .length(body.length)
+                .build())
+            .body(body)
+            .build();
+    }
+
+    private static void waitConnected(final RemotingClient client, final Host host) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            try {
+                client.getOrCreateBidiChannel(host);
+                return;
+            } catch (Exception e) {
+                Thread.sleep(100);
+            }
+        }
+        Assert.fail("server not started");
+    }
+
+    private static void startEchoServer() {
+        Attribute attribute = new Attribute();
+        attribute.put(RemotingConst.HOST_KEY, "127.0.0.1");
+        attribute.put(RemotingConst.PORT_KEY, PORT);
+        attribute.put(RemotingConst.TCP_PROTOCOL, true);
+        attribute.put(RemotingConst.FLUSH_CONSOLIDATION_KEY, true);
+        NetServer netServer = ExtensionLoader.getExtensionLoader(NetServerTransport.class).getDefaultJoin()
+            .build(attribute, new HodorChannelHandler() {
+                @Override
+                public void received(HodorChannel channel, Object message) {
+                    long id = ((RemotingMessage) message).getHeader().getId();
+                    channel.send(message(id));
+                    channel.send(message(id));
+                    channel.send(message(id + PUSH_ID_OFFSET));
+                }
+
+                @Override
+                public void exceptionCaught(HodorChannel channel, Throwable cause) {
+                    channel.close();
+                }
+            });
+        Thread serverThread = new Thread(() -> {
+            try {
+                netServer.bind();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+}
@@ -0,0 +1,208 @@
+package org.dromara.hodor.remoting.netty.rpc;
+
+import cn.hutool.core.lang.TypeReference;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.dromara.hodor.model.enums.JobExecuteStatus;
+import org.dromara.hodor.model.job.JobKey;
+import org.dromara.hodor.remoting.api.RemotingConst;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializerFactory;
+import org.dromara.hodor.remoting.api.message.FileRegionMessage;
+import org.dromara.hodor.remoting.api.message.Header;
+import org.dromara.hodor.remoting.api.message.MessageType;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.RemotingResponse;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteBatchRequest;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteRequest;
+import org.dromara.hodor.remoting.api.message.response.JobExecuteResponse;
+import org.dromara.hodor.remoting.netty.rpc.codec.ByteBufMessageBuffer;
+import org.dromara.hodor.remoting.netty.rpc.codec.FileRegionMessageEncoder;
+import org.dromara.hodor.remoting.netty.rpc.codec.RemotingMessageCodec;
+import org.dromara.hodor.remoting.netty.rpc.serialize.ProtostuffMessageSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * remoting message codec test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class RemotingMessageCodecTest {
+
+    @Test
+    public void testJsonVersionRoundTrip() {
+        RemotingMessage decoded = roundTrip(RemotingConst.DEFAULT_VERSION);
+        Assert.assertEquals("scheduler_127.0.0.1:8081", decoded.getHeader().getAttachment().get("schedulerName"));
+    }
+
+    @Test
+    public void testBinaryVersionRoundTrip() {
+        RemotingMessage decoded = roundTrip(RemotingConst.BINARY_VERSION);
+        Map<String, Object> attachment = decoded.getHeader().getAttachment();
+        Assert.assertEquals("scheduler_127.0.0.1:8081", attachment.get("schedulerName"));
+        Assert.assertEquals(100L, attachment.get("long"));
+        Assert.assertEquals(1, attachment.get("int"));
+        Assert.assertEquals(Boolean.TRUE, attachment.get("bool"));
+        Assert.assertNull(attachment.get("null"));
+        Assert.assertTrue(attachment.containsKey("null"));
+
+        RemotingMessageSerializer serializer = RemotingMessageSerializerFactory.getSerializer(decoded.getHeader().getVersion());
+        Assert.assertTrue(serializer instanceof ProtostuffMessageSerializer);
+        RemotingResponse<JobExecuteResponse> response = serializer.deserialize(decoded.getBody(),
+            new TypeReference<RemotingResponse<JobExecuteResponse>>() {}.getType());
+        Assert.assertTrue(response.isSuccess());
+        Assert.assertEquals(Long.valueOf(1L), response.getData().getRequestId());
+        Assert.assertEquals(JobExecuteStatus.SUCCEEDED, response.getData().getStatus());
+        Assert.assertEquals(JobKey.of("group", "job"), response.getData().getJobKey());
+    }
+
+    @Test
+    public void testDecodeBodyWithoutCopy() {
+        for (byte version : new byte[] {RemotingConst.DEFAULT_VERSION, RemotingConst.BINARY_VERSION}) {
+            EmbeddedChannel channel = new EmbeddedChannel(new RemotingMessageCodec());
+            ByteBuf encoded = encode(channel, version);
+            ByteBuf direct = Unpooled.directBuffer(encoded.readableBytes()).writeBytes(encoded);
+            encoded.release();
+            channel.writeInbound(direct);
+            RemotingMessage decoded = channel.readInbound();
+            Assert.assertTrue(decoded.bodyBuffer() instanceof ByteBufMessageBuffer);
+
+            RemotingMessageSerializer serializer = RemotingMessageSerializerFactory.getSerializer(version);
+            RemotingResponse<JobExecuteResponse> response = serializer.deserialize(decoded.bodyBuffer(),
+                new TypeReference<RemotingResponse<JobExecuteResponse>>() {}.getType());
+            Assert.assertEquals(Long.valueOf(1L), response.getData().getRequestId());
+            Assert.assertEquals(JobExecuteStatus.SUCCEEDED, response.getData().getStatus());
+            Assert.assertArrayEquals(new byte[] {1, 2, 3}, response.getData().getResult());
+
+            // the body is a retained slice of the frame, the frame is freed once the message is released
+            Assert.assertEquals(1, direct.refCnt());
+            decoded.release();
+            Assert.assertEquals(0, direct.refCnt());
+            Assert.assertFalse(channel.finish());
+        }
+    }
+
+    @Test
+    public void testNegotiateVersion() {
+        Assert.assertEquals(RemotingConst.DEFAULT_VERSION, RemotingMessageSerializerFactory.negotiateVersion(null));
+        Assert.assertEquals(RemotingConst.DEFAULT_VERSION, RemotingMessageSerializerFactory.negotiateVersion((byte) 1));
+        Assert.assertEquals(RemotingConst.BINARY_VERSION, RemotingMessageSerializerFactory.negotiateVersion((byte) 2));
+        Assert.assertEquals(RemotingConst.LATEST_VERSION, RemotingMessageSerializerFactory.negotiateVersion(Byte.MAX_VALUE));
+    }
+
+    @Test
+    public void testBatchRequestBinaryBody() {
+        JobExecuteBatchRequest batchRequest = new JobExecuteBatchRequest();
+        batchRequest.setRequestId(100L);
+        for (long i = 1; i <= 3; i++) {
+            Map<String, Object> attachment = new HashMap<>();
+            attachment.put("schedulerName", "scheduler_" + i);
+            JobExecuteRequest request = JobExecuteRequest.builder()
+                .requestId(i)
+                .groupName("group")
+                .jobName("job" + i)
+                .build();
+            batchRequest.getRequests().add(new JobExecuteBatchRequest.Item(attachment, request));
+        }
+        RemotingMessageSerializer serializer = RemotingMessageSerializerFactory.getSerializer(RemotingConst.BINARY_VERSION);
+        JobExecuteBatchRequest decoded = serializer.deserialize(serializer.serialize(batchRequest),
+            JobExecuteBatchRequest.class);
+        Assert.assertEquals(Long.valueOf(100L), decoded.getRequestId());
+        Assert.assertEquals(3, decoded.getRequests().size());
+        JobExecuteBatchRequest.Item item = decoded.getRequests().get(1);
+        Assert.assertEquals("scheduler_2", item.getAttachment().get("schedulerName"));
+        Assert.assertEquals(Long.valueOf(2L), item.getRequest().getRequestId());
+        Assert.assertEquals("job2", item.getRequest().getJobName());
+    }
+
+    @Test
+    public void testFileRegionMessage() throws Exception {
+        File file = File.createTempFile("hodor-codec", ".log");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> attachment = new HashMap<>();
+        attachment.put("logOffset", 4L);
+        Header header = Header.builder()
+            .id(1L)
+            .version(RemotingConst.BINARY_VERSION)
+            .type(MessageType.FETCH_JOB_LOG_STREAM_REQUEST.getType())
+            .attachment(attachment)
+            .build();
+        EmbeddedChannel channel = new EmbeddedChannel(new RemotingMessageCodec(), FileRegionMessageEncoder.INSTANCE);
+        Assert.assertTrue(channel.writeOutbound(new FileRegionMessage(header, file, 4, 8)));
+
+        // header in a buffer, body transferred from the file
+        ByteBuf headerBuf = channel.readOutbound();
+        FileRegion region = channel.readOutbound();
+        ByteArrayOutputStream bodyOut = new ByteArrayOutputStream();
+        region.transferTo(Channels.newChannel(bodyOut), 0);
+        region.release();
+        Assert.assertFalse(channel.finish());
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new RemotingMessageCodec());
+        decoder.writeInbound(Unpooled.wrappedBuffer(headerBuf, Unpooled.wrappedBuffer(bodyOut.toByteArray())));
+        RemotingMessage decoded = decoder.readInbound();
+        Assert.assertEquals(4L, decoded.getHeader().getAttachment().get("logOffset"));
+        Assert.assertEquals("456789ab", new String(decoded.getBody(), StandardCharsets.UTF_8));
+        decoded.release();
+        Assert.assertFalse(decoder.finish());
+    }
+
+    private RemotingMessage roundTrip(byte version) {
+        EmbeddedChannel channel = new EmbeddedChannel(new RemotingMessageCodec());
+        ByteBuf encoded = encode(channel, version);
+        // split the frame to verify the decoder waits for the rest of it
+        channel.writeInbound(encoded.readRetainedSlice(10));
+        Assert.assertNull(channel.readInbound());
+        channel.writeInbound(encoded);
+        RemotingMessage decoded = channel.readInbound();
+        Assert.assertNotNull(decoded);
+        Assert.assertEquals(version, decoded.getHeader().getVersion());
+        Assert.assertArrayEquals(responseBody(version), decoded.getBody());
+        decoded.release();
+        channel.finishAndReleaseAll();
+        return decoded;
+    }
+
+    private ByteBuf encode(EmbeddedChannel channel, byte version) {
+        byte[] body = responseBody(version);
+        Map<String, Object> attachment = new HashMap<>();
+        attachment.put("schedulerName", "scheduler_127.0.0.1:8081");
+        if (version >= RemotingConst.BINARY_VERSION) {
+            attachment.put("long", 100L);
+            attachment.put("int", 1);
+            attachment.put("bool", true);
+            attachment.put("null", null);
+        }
+        Header header = Header.builder()
+            .id(1L)
+            .version(version)
+            .type(MessageType.JOB_EXEC_REQUEST.getType())
+            .attachment(attachment)
+            .length(body.length)
+            .build();
+        Assert.assertTrue(channel.writeOutbound(RemotingMessage.builder().header(header).body(body).build()));
+        return channel.readOutbound();
+    }
+
+    private byte[] responseBody(byte version) {
+        JobExecuteResponse jobExecuteResponse = new JobExecuteResponse();
+        jobExecuteResponse.setRequestId(1L);
+        jobExecuteResponse.setJobKey(JobKey.of("group", "job"));
+        jobExecuteResponse.setStatus(JobExecuteStatus.SUCCEEDED);
+        jobExecuteResponse.setResult(new byte[] {1, 2, 3});
+        return RemotingMessageSerializerFactory.getSerializer(version).serialize(RemotingResponse.succeeded(jobExecuteResponse));
+    }
+
+}
@@ -19,6 +19,9 @@ public final class SchedulerManager {
 
     private static final SchedulerManager INSTANCE = new SchedulerManager();
 
+    // 调度引擎，默认为quartz，-Dhodor.scheduler.type=timewheel时使用时间轮
+    private static final String SCHEDULER_TYPE = System.getProperty("hodor.scheduler.type", "scheduler");
+
     private final ReentrantLock lock;
 
     private final Map<String, HodorScheduler> activeSchedulerMap;
@@ -42,7 +45,7 @@ public final class SchedulerManager {
     }
 
     public HodorScheduler createScheduler(SchedulerConfig config) {
-        return extensionLoader.getProtoJoin("scheduler", config);
+        return extensionLoader.getProtoJoin(SCHEDULER_TYPE, config);
     }
 
     public HodorScheduler createScheduler(String schedulerName, SchedulerConfig config) {
@@ -0,0 +1,168 @@
+package org.dromara.hodor.scheduler.timewheel;
+
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮<br/>
+ *
+ * 1、共4层，每层256个槽，第0层一个槽为1个tick，第n层一个槽为256^n个tick
+ * 2、槽内是双向链表，任务记录自己所在的槽，添加和删除都是O(1)
+ * 3、第0层转完一圈时把上一层当前槽的任务重新分配到下层，到期的任务都在第0层的当前槽
+ * 4、非线程安全，由调用方加锁
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+class TimingWheel {
+
+    private static final int LEVEL_BITS = 8;
+
+    private static final int LEVELS = 4;
+
+    private static final int SLOTS = 1 << LEVEL_BITS;
+
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // 超过最大延时的任务先放在最高层，重新分配时再计算
+    private static final long MAX_DELAY = (1L << (LEVEL_BITS * LEVELS)) - 1;
+
+    private final Bucket[][] buckets = new Bucket[LEVELS][SLOTS];
+
+    // 下一个要处理的tick
+    private long nextTick;
+
+    private int size;
+
+    TimingWheel(long startTick) {
+        this.nextTick = startTick;
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                buckets[level][slot] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * 添加任务，已经到期的任务在下一个tick触发
+     */
+    void add(TimingWheelJob job, long deadlineTick) {
+        job.deadlineTick = deadlineTick;
+        long delay = Math.min(Math.max(deadlineTick - nextTick, 0), MAX_DELAY);
+        final long expires = nextTick + delay;
+        final int level = delay < SLOTS ? 0 : (63 - Long.numberOfLeadingZeros(delay)) / LEVEL_BITS;
+        buckets[level][(int) (expires >>> (level * LEVEL_BITS)) & SLOT_MASK].add(job);
+        size++;
+    }
+
+    boolean remove(TimingWheelJob job) {
+        if (job.bucket == null) {
+            return false;
+        }
+        job.bucket.remove(job);
+        size--;
+        return true;
+    }
+
+    /**
+     * 推进到指定的tick（包含），到期的任务从时间轮中移除后交给consumer
+     */
+    void advance(long targetTick, Consumer<TimingWheelJob> expired) {
+        while (nextTick <= targetTick) {
+            final int slot = (int) nextTick & SLOT_MASK;
+            if (slot == 0) {
+                cascade();
+            }
+            TimingWheelJob job = buckets[0][slot].detach();
+            while (job != null) {
+                final TimingWheelJob next = job.next;
+                job.next = null;
+                size--;
+                expired.accept(job);
+                job = next;
+            }
+            nextTick++;
+        }
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            final int slot = (int) (nextTick >>> (level * LEVEL_BITS)) & SLOT_MASK;
+            TimingWheelJob job = buckets[level][slot].detach();
+            while (job != null) {
+                final TimingWheelJob next = job.next;
+                job.next = null;
+                size--;
+                add(job, job.deadlineTick);
+                job = next;
+            }
+            if (slot != 0) {
+                return;
+            }
+        }
+    }
+
+    long getNextTick() {
+        return nextTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (Bucket[] levelBuckets : buckets) {
+            for (Bucket bucket : levelBuckets) {
+                TimingWheelJob job = bucket.detach();
+                while (job != null) {
+                    final TimingWheelJob next = job.next;
+                    job.next = null;
+                    job = next;
+                }
+            }
+        }
+        size = 0;
+    }
+
+    static class Bucket {
+
+        private TimingWheelJob head;
+
+        void add(TimingWheelJob job) {
+            job.bucket = this;
+            job.prev = null;
+            job.next = head;
+            if (head != null) {
+                head.prev = job;
+            }
+            head = job;
+        }
+
+        void remove(TimingWheelJob job) {
+            if (job.prev != null) {
+                job.prev.next = job.next;
+            } else {
+                head = job.next;
+            }
+            if (job.next != null) {
+                job.next.prev = job.prev;
+            }
+            job.bucket = null;
+            job.prev = null;
+            job.next = null;
+        }
+
+        /**
+         * 取出槽内所有任务，返回的链表只保留next
+         */
+        TimingWheelJob detach() {
+            final TimingWheelJob first = head;
+            head = null;
+            for (TimingWheelJob job = first; job != null; job = job.next) {
+                job.bucket = null;
+                job.prev = null;
+            }
+            return first;
+        }
+    }
+
+}
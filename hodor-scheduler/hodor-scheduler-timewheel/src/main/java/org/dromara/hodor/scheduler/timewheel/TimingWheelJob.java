@@ -0,0 +1,43 @@
+package org.dromara.hodor.scheduler.timewheel;
+
+import org.dromara.hodor.model.job.JobDesc;
+import org.dromara.hodor.scheduler.api.JobExecutor;
+import org.quartz.CronExpression;
+
+/**
+ * 时间轮中的任务，只保存下一次触发时间，触发后再计算下一次
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+class TimingWheelJob {
+
+    final JobDesc jobDesc;
+
+    final JobExecutor jobExecutor;
+
+    // 相同cron的任务共用一个表达式
+    final CronExpression cronExpression;
+
+    long nextFireTime;
+
+    long deadlineTick;
+
+    // 在锁内修改，触发线程执行前不加锁检查
+    volatile boolean paused;
+
+    volatile boolean deleted;
+
+    TimingWheelJob prev;
+
+    TimingWheelJob next;
+
+    TimingWheel.Bucket bucket;
+
+    TimingWheelJob(final JobDesc jobDesc, final JobExecutor jobExecutor, final CronExpression cronExpression) {
+        this.jobDesc = jobDesc;
+        this.jobExecutor = jobExecutor;
+        this.cronExpression = cronExpression;
+    }
+
+}
@@ -0,0 +1,425 @@
+package org.dromara.hodor.scheduler.timewheel;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.common.concurrent.HodorThreadFactory;
+import org.dromara.hodor.common.extension.Join;
+import org.dromara.hodor.model.job.JobDesc;
+import org.dromara.hodor.model.job.JobKey;
+import org.dromara.hodor.scheduler.api.HodorJobExecutionContext;
+import org.dromara.hodor.scheduler.api.HodorScheduler;
+import org.dromara.hodor.scheduler.api.JobExecutor;
+import org.dromara.hodor.scheduler.api.common.SchedulerConfig;
+import org.dromara.hodor.scheduler.api.exception.HodorSchedulerException;
+import org.quartz.CronExpression;
+
+/**
+ * implements scheduler by hierarchical timing wheel<br/>
+ *
+ * 1、每个任务只在时间轮中保存下一次触发时间，触发时再根据cron计算下一次，添加和删除都是O(1)
+ * 2、tick线程每100ms推进一次，同一个tick到期的任务按优先级排序后分批提交到线程池
+ * 3、超过misfireThreshold未触发的任务不再执行，直接计算下一次触发时间，与quartz的DoNothing策略一致
+ * 4、只使用quartz的CronExpression解析cron，相同的cron共用一个表达式
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+@Join
+public class TimingWheelScheduler implements HodorScheduler {
+
+    private static final long TICK_MILLIS = 100;
+
+    private static final int FIRE_BATCH_SIZE = 256;
+
+    private static final Comparator<TimingWheelJob> PRIORITY_COMPARATOR =
+        Comparator.comparingInt((TimingWheelJob job) -> job.jobDesc.getPriority() == null ? 0 : job.jobDesc.getPriority().getValue()).reversed();
+
+    private final Map<JobKey, TimingWheelJob> jobs = new ConcurrentHashMap<>();
+
+    private final Map<String, CronExpression> cronExpressions = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final TimingWheel timingWheel = new TimingWheel(toTick(System.currentTimeMillis()));
+
+    private String schedulerName;
+
+    private int misfireThreshold;
+
+    private ExecutorService fireExecutor;
+
+    private Thread tickThread;
+
+    private volatile boolean started;
+
+    private volatile boolean standby = true;
+
+    private volatile boolean shutdown;
+
+    public TimingWheelScheduler() {
+
+    }
+
+    public TimingWheelScheduler(SchedulerConfig config) {
+        this();
+        config(config);
+    }
+
+    @Override
+    public void config(SchedulerConfig config) {
+        this.schedulerName = config.getSchedulerName();
+        this.misfireThreshold = config.getMisfireThreshold();
+        final int threadCount = Math.max(config.getThreadCount(), 1);
+        this.fireExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), HodorThreadFactory.create(schedulerName + "-worker", true));
+    }
+
+    @Override
+    public String getSchedulerName() {
+        return schedulerName;
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new HodorSchedulerException("The Scheduler cannot be restarted after shutdown().");
+            }
+            if (tickThread == null) {
+                tickThread = HodorThreadFactory.create(schedulerName + "-tick", true).newThread(this::tick);
+                tickThread.start();
+            }
+            started = true;
+            standby = false;
+        } finally {
+            lock.unlock();
+        }
+        LockSupport.unpark(tickThread);
+    }
+
+    @Override
+    public void standby() {
+        standby = true;
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            standby = true;
+            if (tickThread != null) {
+                tickThread.interrupt();
+            }
+            if (fireExecutor != null) {
+                fireExecutor.shutdown();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void startDelayed(int seconds) {
+        HodorThreadFactory.create(schedulerName + "-delayed-starter", true).newThread(() -> {
+            try {
+                TimeUnit.SECONDS.sleep(seconds);
+                start();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).start();
+    }
+
+    @Override
+    public void addJob(JobDesc jobDesc, JobExecutor jobExecutor) {
+        if (checkExists(jobDesc)) {
+            return;
+        }
+        final TimingWheelJob job = new TimingWheelJob(jobDesc, jobExecutor, getCronExpression(jobDesc.getCron()));
+        final Date firstFireTime = getFireTimeAfter(job, new Date());
+        if (firstFireTime == null) {
+            throw new HodorSchedulerException("Based on configured schedule, the given trigger '%s' will never fire.",
+                jobKey(jobDesc));
+        }
+        lock.lock();
+        try {
+            if (jobs.putIfAbsent(jobKey(jobDesc), job) != null) {
+                return;
+            }
+            job.nextFireTime = firstFireTime.getTime();
+            timingWheel.add(job, toDeadlineTick(job.nextFireTime));
+        } finally {
+            lock.unlock();
+        }
+        if (Boolean.TRUE.equals(jobDesc.getFireNow())) {
+            fire(job, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public boolean deleteJob(JobDesc jobDesc) {
+        lock.lock();
+        try {
+            final TimingWheelJob job = jobs.remove(jobKey(jobDesc));
+            if (job == null) {
+                return false;
+            }
+            job.deleted = true;
+            timingWheel.remove(job);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteJobs(List<JobDesc> jobDescList) {
+        boolean result = true;
+        for (JobDesc jobDesc : jobDescList) {
+            result &= deleteJob(jobDesc);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean checkExists(JobDesc jobDesc) {
+        return jobs.containsKey(jobKey(jobDesc));
+    }
+
+    @Override
+    public void pauseJob(JobDesc jobDesc) {
+        lock.lock();
+        try {
+            final TimingWheelJob job = jobs.get(jobKey(jobDesc));
+            if (job != null) {
+                job.paused = true;
+                timingWheel.remove(job);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isPaused(JobDesc jobDesc) {
+        final TimingWheelJob job = jobs.get(jobKey(jobDesc));
+        return job != null && job.paused;
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            jobs.values().forEach(job -> job.deleted = true);
+            jobs.clear();
+            timingWheel.clear();
+            cronExpressions.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void resumeJob(JobDesc jobDesc) {
+        final TimingWheelJob job = jobs.get(jobKey(jobDesc));
+        if (job == null || !job.paused) {
+            return;
+        }
+        // 暂停期间错过的触发不再执行
+        final Date nextFireTime = getFireTimeAfter(job, new Date());
+        lock.lock();
+        try {
+            if (!job.paused || job.deleted) {
+                return;
+            }
+            job.paused = false;
+            if (nextFireTime == null) {
+                jobs.remove(jobKey(jobDesc), job);
+                job.deleted = true;
+                return;
+            }
+            job.nextFireTime = nextFireTime.getTime();
+            timingWheel.add(job, toDeadlineTick(job.nextFireTime));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void triggerJob(JobDesc jobDesc) {
+        final TimingWheelJob job = jobs.get(jobKey(jobDesc));
+        if (job != null) {
+            fire(job, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isStandby() {
+        return standby;
+    }
+
+    @Override
+    public int getNumberOfJobs() {
+        return jobs.size();
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    private void tick() {
+        while (!shutdown) {
+            if (standby) {
+                LockSupport.park(this);
+                continue;
+            }
+            final long now = System.currentTimeMillis();
+            try {
+                fireExpiredJobs(toTick(now), now);
+            } catch (Exception e) {
+                log.error("scheduler {} fire jobs exception, msg: {}", schedulerName, e.getMessage(), e);
+            }
+            final long nextTickTime = (toTick(now) + 1) * TICK_MILLIS;
+            LockSupport.parkUntil(this, nextTickTime);
+        }
+    }
+
+    /**
+     * 推进时间轮，到期的任务分批触发，再放回时间轮等待下一次触发
+     */
+    private void fireExpiredJobs(long targetTick, long now) {
+        final List<TimingWheelJob> expiredJobs = new ArrayList<>();
+        lock.lock();
+        try {
+            timingWheel.advance(targetTick, expiredJobs::add);
+        } finally {
+            lock.unlock();
+        }
+        if (expiredJobs.isEmpty()) {
+            return;
+        }
+        if (expiredJobs.size() > 1) {
+            expiredJobs.sort(PRIORITY_COMPARATOR);
+        }
+
+        final TimingWheelJob[] firedJobs = new TimingWheelJob[expiredJobs.size()];
+        final long[] fireTimes = new long[expiredJobs.size()];
+        final long[] nextFireTimes = new long[expiredJobs.size()];
+        int fired = 0;
+        for (int i = 0; i < expiredJobs.size(); i++) {
+            final TimingWheelJob job = expiredJobs.get(i);
+            final long fireTime = job.nextFireTime;
+            final boolean misfired = now - fireTime > misfireThreshold;
+            if (misfired) {
+                log.debug("job {} misfired, fire time {}", jobKey(job.jobDesc), fireTime);
+            } else {
+                firedJobs[fired] = job;
+                fireTimes[fired++] = fireTime;
+            }
+            final Date nextFireTime = getFireTimeAfter(job, new Date(misfired ? now : fireTime));
+            nextFireTimes[i] = nextFireTime == null ? -1 : nextFireTime.getTime();
+        }
+
+        lock.lock();
+        try {
+            for (int i = 0; i < expiredJobs.size(); i++) {
+                final TimingWheelJob job = expiredJobs.get(i);
+                // 两次加锁之间暂停又恢复的任务已由resumeJob放回时间轮，不能重复添加
+                if (job.deleted || job.paused || job.bucket != null) {
+                    continue;
+                }
+                if (nextFireTimes[i] < 0) {
+                    // 已过结束时间，与quartz一样删除任务
+                    jobs.remove(jobKey(job.jobDesc), job);
+                    job.deleted = true;
+                    continue;
+                }
+                job.nextFireTime = nextFireTimes[i];
+                timingWheel.add(job, toDeadlineTick(job.nextFireTime));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (int from = 0; from < fired; from += FIRE_BATCH_SIZE) {
+            final int start = from;
+            final int end = Math.min(from + FIRE_BATCH_SIZE, fired);
+            fireExecutor.execute(() -> {
+                for (int i = start; i < end; i++) {
+                    // 到期后被暂停或删除的任务不再执行
+                    if (!firedJobs[i].paused && !firedJobs[i].deleted) {
+                        execute(firedJobs[i], fireTimes[i]);
+                    }
+                }
+            });
+        }
+    }
+
+    private void fire(TimingWheelJob job, long fireTime) {
+        fireExecutor.execute(() -> execute(job, fireTime));
+    }
+
+    private void execute(TimingWheelJob job, long fireTime) {
+        try {
+            job.jobExecutor.execute(new HodorJobExecutionContext(null, job.jobDesc, schedulerName, new Date(fireTime)));
+        } catch (Exception e) {
+            log.error("job {} execute exception, msg: {}", jobKey(job.jobDesc), e.getMessage(), e);
+        }
+    }
+
+    private Date getFireTimeAfter(TimingWheelJob job, Date afterTime) {
+        final Date fireTime = job.cronExpression.getTimeAfter(afterTime);
+        final Date endTime = job.jobDesc.getEndTime();
+        if (fireTime == null || (endTime != null && fireTime.after(endTime))) {
+            return null;
+        }
+        return fireTime;
+    }
+
+    private CronExpression getCronExpression(String cron) {
+        return cronExpressions.computeIfAbsent(cron, k -> {
+            try {
+                return new CronExpression(k);
+            } catch (ParseException e) {
+                throw new HodorSchedulerException(e);
+            }
+        });
+    }
+
+    private static JobKey jobKey(JobDesc jobDesc) {
+        return JobKey.of(jobDesc.getGroupName(), jobDesc.getJobName());
+    }
+
+    private static long toTick(long timeMillis) {
+        return timeMillis / TICK_MILLIS;
+    }
+
+    /**
+     * 向上取整，保证不会早于触发时间执行
+     */
+    private static long toDeadlineTick(long fireTime) {
+        return (fireTime + TICK_MILLIS - 1) / TICK_MILLIS;
+    }
+
+}
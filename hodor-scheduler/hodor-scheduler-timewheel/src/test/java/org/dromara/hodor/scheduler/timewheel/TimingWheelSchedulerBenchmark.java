@@ -0,0 +1,125 @@
+package org.dromara.hodor.scheduler.timewheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.dromara.hodor.model.enums.Priority;
+import org.dromara.hodor.model.job.JobDesc;
+import org.dromara.hodor.scheduler.api.HodorScheduler;
+import org.dromara.hodor.scheduler.api.JobExecutor;
+import org.dromara.hodor.scheduler.api.common.SchedulerConfig;
+import org.dromara.hodor.scheduler.quartz.QuartzScheduler;
+
+/**
+ * 时间轮调度与quartz调度的基准测试<br/>
+ *
+ * 每个任务每分钟触发一次，触发的秒数均匀分布，统计添加耗时、每个任务占用的堆内存、运行期间的触发次数和触发延迟。
+ * quartz上下文中的触发时间是实际触发的时间，延迟按任务cron中的秒数计算，启动前错过的触发不统计延迟。
+ * 运行：java -Xmx4g -cp ... org.dromara.hodor.scheduler.timewheel.TimingWheelSchedulerBenchmark [jobs] [seconds] [engines]
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class TimingWheelSchedulerBenchmark {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    // 延迟按毫秒统计，超过的记在最后一个桶
+    private static final int MAX_LATENCY_MS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        final int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        final String[] engines = args.length > 2 ? args[2].split(",") : new String[] {"timewheel", "quartz"};
+        System.out.printf("jobs: %s, seconds: %s, threads: %s%n", jobs, seconds, THREADS);
+        final List<JobDesc> jobDescList = createJobs(jobs);
+        for (String engine : engines) {
+            run(engine, jobDescList, seconds);
+        }
+    }
+
+    private static void run(String engine, List<JobDesc> jobDescList, int seconds) throws Exception {
+        final AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MS + 1);
+        final LongAdder fired = new LongAdder();
+        final LongAdder measured = new LongAdder();
+        final long[] startTime = new long[1];
+        final JobExecutor jobExecutor = context -> {
+            fired.increment();
+            final long now = System.currentTimeMillis();
+            final long secondOfMinute = now / 1000 % 60;
+            final long latency = (secondOfMinute - context.getJobDesc().getId() + 60) % 60 * 1000 + now % 1000;
+            if (now - latency >= startTime[0]) {
+                latencies.incrementAndGet((int) Math.min(latency, MAX_LATENCY_MS));
+                measured.increment();
+            }
+        };
+
+        final long baseHeap = usedHeap();
+        final HodorScheduler scheduler = createScheduler(engine);
+        final long addStart = System.nanoTime();
+        for (JobDesc jobDesc : jobDescList) {
+            scheduler.addJob(jobDesc, jobExecutor);
+        }
+        final long addCost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - addStart);
+        final long heap = usedHeap() - baseHeap;
+
+        startTime[0] = System.currentTimeMillis();
+        scheduler.start();
+        TimeUnit.SECONDS.sleep(seconds);
+        scheduler.shutdown();
+
+        // 每个任务每分钟触发一次
+        final long expected = (long) jobDescList.size() * seconds / 60;
+        System.out.printf("%-10s jobs: %8d, add: %6d ms, heap/job: %5d B, fired: %8d/%8d, latency p50: %5d ms, p99: %5d ms, max: %5d ms%n",
+            engine, scheduler.getNumberOfJobs(), addCost, heap / jobDescList.size(), fired.sum(), expected,
+            percentile(latencies, measured.sum(), 0.5), percentile(latencies, measured.sum(), 0.99), percentile(latencies, measured.sum(), 1));
+    }
+
+    private static HodorScheduler createScheduler(String engine) {
+        final SchedulerConfig config = SchedulerConfig.builder()
+            .schedulerName("benchmark-" + engine)
+            .threadCount(THREADS)
+            .misfireThreshold(3000)
+            .build();
+        return "quartz".equals(engine) ? new QuartzScheduler(config) : new TimingWheelScheduler(config);
+    }
+
+    private static List<JobDesc> createJobs(int jobs) {
+        final List<JobDesc> jobDescList = new ArrayList<>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            jobDescList.add(JobDesc.builder()
+                .id((long) (i % 60))
+                .groupName("group_" + (i % 1000))
+                .jobName("job_" + i)
+                .cron((i % 60) + " * * * * ?")
+                .priority(Priority.MEDIUM)
+                .fireNow(false)
+                .build());
+        }
+        return jobDescList;
+    }
+
+    private static long percentile(AtomicLongArray latencies, long total, double percentile) {
+        final long target = Math.max(1, (long) Math.ceil(total * percentile));
+        long count = 0;
+        for (int i = 0; i < latencies.length(); i++) {
+            count += latencies.get(i);
+            if (count >= target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.dromara.hodor.scheduler.timewheel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.dromara.hodor.model.enums.Priority;
+import org.dromara.hodor.model.job.JobDesc;
+import org.dromara.hodor.scheduler.api.common.SchedulerConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * timing wheel test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void testExpireAtDeadlineTick() {
+        final long startTick = 1_000_003L;
+        final TimingWheel timingWheel = new TimingWheel(startTick);
+        final Random random = new Random(7);
+        final Map<TimingWheelJob, Long> deadlines = new HashMap<>();
+        final List<TimingWheelJob> removed = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            final TimingWheelJob job = new TimingWheelJob(null, null, null);
+            final long deadline = startTick + random.nextInt(1 << 20);
+            timingWheel.add(job, deadline);
+            if (i % 10 == 0) {
+                timingWheel.remove(job);
+                removed.add(job);
+            } else {
+                deadlines.put(job, deadline);
+            }
+        }
+        Assert.assertEquals(deadlines.size(), timingWheel.size());
+        Assert.assertFalse(timingWheel.remove(removed.get(0)));
+
+        final Map<TimingWheelJob, Long> expired = new HashMap<>();
+        timingWheel.advance(startTick + (1 << 20), job -> Assert.assertNull(expired.put(job, timingWheel.getNextTick())));
+        Assert.assertEquals(deadlines, expired);
+        Assert.assertEquals(0, timingWheel.size());
+    }
+
+    @Test
+    public void testExpiredJobFiresOnNextTick() {
+        final TimingWheel timingWheel = new TimingWheel(100L);
+        timingWheel.advance(200L, job -> Assert.fail());
+        final TimingWheelJob job = new TimingWheelJob(null, null, null);
+        timingWheel.add(job, 50L);
+        final List<Long> expiredTicks = new ArrayList<>();
+        timingWheel.advance(201L, j -> expiredTicks.add(timingWheel.getNextTick()));
+        Assert.assertEquals(1, expiredTicks.size());
+        Assert.assertEquals(Long.valueOf(201L), expiredTicks.get(0));
+    }
+
+    @Test
+    public void testSchedulerFireAndDelete() throws Exception {
+        final TimingWheelScheduler scheduler = new TimingWheelScheduler(SchedulerConfig.builder()
+            .schedulerName("test-timewheel")
+            .threadCount(2)
+            .misfireThreshold(3000)
+            .build());
+        final JobDesc jobDesc = JobDesc.builder()
+            .groupName("group")
+            .jobName("job")
+            .cron("* * * * * ?")
+            .priority(Priority.MEDIUM)
+            .fireNow(false)
+            .build();
+        final Map<Long, Long> fireTimes = new ConcurrentHashMap<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        scheduler.addJob(jobDesc, context -> {
+            fireTimes.put(context.getFireTime().getTime(), System.currentTimeMillis());
+            latch.countDown();
+        });
+        Assert.assertTrue(scheduler.isStandby());
+        scheduler.start();
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        fireTimes.forEach((fireTime, executeTime) -> {
+            Assert.assertEquals(0, fireTime % 1000);
+            Assert.assertTrue(executeTime >= fireTime);
+        });
+        Assert.assertEquals(1, scheduler.getNumberOfJobs());
+
+        scheduler.pauseJob(jobDesc);
+        Assert.assertTrue(scheduler.isPaused(jobDesc));
+        Assert.assertTrue(scheduler.deleteJob(jobDesc));
+        Assert.assertFalse(scheduler.checkExists(jobDesc));
+        scheduler.shutdown();
+        Assert.assertTrue(scheduler.isShutdown());
+    }
+
+}
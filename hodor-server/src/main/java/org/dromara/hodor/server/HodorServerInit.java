@@ -1,6 +1,7 @@
 package org.dromara.hodor.server;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.remoting.api.RemotingClient;
 import org.dromara.hodor.server.service.HodorService;
 import org.dromara.hodor.server.service.RegistryService;
 import org.dromara.hodor.server.service.RestServerService;
@@ -55,6 +56,7 @@ public class HodorServerInit implements ApplicationRunner, ApplicationContextAwa
             try {
                 restServerService.stop();
                 hodorService.stop();
+                RemotingClient.getInstance().close();
                 registryService.stop();
                 log.info("Hodor server shutdown complete ...");
             } catch (Exception e) {
@@ -5,6 +5,7 @@ import org.dromara.hodor.core.service.ActuatorBindingService;
 import org.dromara.hodor.model.actuator.ActuatorInfo;
 import org.dromara.hodor.model.actuator.BindingInfo;
 import org.dromara.hodor.model.common.HodorResult;
+import org.dromara.hodor.server.manager.ActuatorNodeManager;
 import org.dromara.hodor.server.restservice.HodorRestService;
 import org.dromara.hodor.server.restservice.RestMethod;
 import org.dromara.hodor.server.service.RegistryService;
@@ -23,22 +24,34 @@ public class ActuatorResource {
 
     private final ActuatorBindingService actuatorBindingService;
 
+    private final ActuatorNodeManager actuatorNodeManager;
+
     public ActuatorResource(final RegistryService registryService, final ActuatorBindingService actuatorBindingService) {
         this.registryService = registryService;
         this.actuatorBindingService = actuatorBindingService;
+        this.actuatorNodeManager = ActuatorNodeManager.getInstance();
     }
 
     @RestMethod("heartbeat")
     public HodorResult<String> heartbeat(ActuatorInfo actuatorInfo) {
         checkActuatorInfo(actuatorInfo);
         actuatorInfo.setLastHeartbeat(System.currentTimeMillis());
-        registryService.createActuator(actuatorInfo);
+        // 心跳只更新内存，成员关系变化时才写注册中心
+        if (actuatorNodeManager.receiveHeartbeat(actuatorInfo)) {
+            try {
+                registryService.createActuator(actuatorInfo);
+            } catch (Exception e) {
+                actuatorNodeManager.resetMembership(actuatorInfo.getNodeInfo().getEndpoint());
+                throw e;
+            }
+        }
         return HodorResult.success("success");
     }
 
     @RestMethod("offline")
     public HodorResult<String> offline(ActuatorInfo actuatorInfo) {
         checkActuatorInfo(actuatorInfo);
+        actuatorNodeManager.resetMembership(actuatorInfo.getNodeInfo().getEndpoint());
         registryService.removeActuator(actuatorInfo);
         return HodorResult.success("success");
     }
@@ -212,6 +212,7 @@ public class SchedulerResource {
         jobInfo.setTimeout(job.getTimeout());
         jobInfo.setFireNow(job.getFireNow());
         jobInfo.setIsBroadcast(job.getIsBroadcast());
+        jobInfo.setLoadBalance(job.getLoadBalance());
         jobInfo.setJobType(JobType.TIME_JOB);
         jobInfo.setPriority(Priority.DEFAULT);
         return jobInfo;
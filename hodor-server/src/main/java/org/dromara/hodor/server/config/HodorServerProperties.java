@@ -28,6 +28,8 @@ public class HodorServerProperties {
 
     private CacheSourceConfig cacheSource;
 
+    private DispatchProperties dispatch = new DispatchProperties();
+
     public String getRegistryServers() {
         return registry.getServers();
     }
@@ -62,6 +64,26 @@ public class HodorServerProperties {
         private Integer port;
     }
 
+    @Data
+    public static class DispatchProperties {
+        /**
+         * 同一执行节点任务请求的合并窗口，小于等于0时不合并
+         */
+        private long batchWindowMillis = 5;
+        /**
+         * 单个批量请求最多携带的任务数，达到后立即发送
+         */
+        private int batchMaxSize = 256;
+        /**
+         * 任务运行状态的有效期，超过后调度前会到执行节点查询一次状态
+         */
+        private long runningStateStaleMillis = 30000;
+        /**
+         * 到执行节点查询任务状态的超时时间
+         */
+        private int runningProbeTimeoutMillis = 1500;
+    }
+
     @Data
     static class RegistryProperties {
         private String type;
@@ -27,4 +27,8 @@ public class CommonJobExecutor extends AbstractJobExecutor {
         dispatcher.dispatch(context);
     }
 
+    public void close() {
+        dispatcher.close();
+    }
+
 }
@@ -1,16 +1,10 @@
 package org.dromara.hodor.server.executor;
 
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
-import org.dromara.hodor.common.executor.HodorExecutor;
 import org.dromara.hodor.common.executor.HodorExecutorFactory;
-import org.dromara.hodor.common.executor.HodorRunnable;
-import org.dromara.hodor.common.queue.CircleQueue;
-import org.dromara.hodor.common.queue.DiscardOldestElementPolicy;
+import org.dromara.hodor.common.executor.KeyedSerialExecutor;
 import org.dromara.hodor.model.job.JobKey;
 import org.dromara.hodor.scheduler.api.HodorJobExecutionContext;
 import org.dromara.hodor.server.executor.handler.RequestHandler;
@@ -23,68 +17,80 @@ import org.dromara.hodor.server.executor.handler.RequestHandler;
  */
 public class JobDispatcher {
 
-    private static final Map<JobKey, HodorExecutor> hodorExecutorMap = new ConcurrentHashMap<>();
+    /**
+     * 同一个任务最多堆积的调度次数，超过时丢弃最旧的调度
+     */
+    private static final int MAX_PENDING_PER_JOB = 16;
+
+    /**
+     * 每个任务占用分发线程连续执行的最大次数
+     */
+    private static final int THROUGHPUT = 8;
 
     private final ThreadPoolExecutor threadPoolExecutor;
 
+    private final KeyedSerialExecutor<JobKey> serialExecutor;
+
     private final RequestHandler requestHandler;
 
     public JobDispatcher(final RequestHandler requestHandler) {
         final int threadSize = Runtime.getRuntime().availableProcessors() * 2;
         this.threadPoolExecutor = HodorExecutorFactory.createThreadPoolExecutor("job-dispatcher", threadSize, 500, false);
-        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor = new ScheduledThreadPoolExecutor(2);
-        scheduledThreadPoolExecutor.scheduleWithFixedDelay(this::clearUnavailableExecutor, 1, 1, TimeUnit.HOURS);
+        this.serialExecutor = new KeyedSerialExecutor<>(threadPoolExecutor, MAX_PENDING_PER_JOB, THROUGHPUT);
         this.requestHandler = requestHandler;
     }
 
     /**
-     * 分发任务
+     * 分发任务，同一个任务按调度顺序串行分发<br/>
+     *
+     * 调度前检查异步完成时，分发线程不等待检查结果，检查完成后再回到分发线程池继续分发
      *
      * @param context 任务上下文参数
      */
     public void dispatch(final HodorJobExecutionContext context) {
-        HodorExecutor hodorExecutor = hodorExecutorMap.computeIfAbsent(context.getJobKey(), this::createHodorExecutor);
-        Objects.requireNonNull(hodorExecutor).serialExecute(new HodorRunnable() {
-            @Override
-            public void execute() {
-                try {
-                    requestHandler.preHandle(context);
-                    requestHandler.handle(context);
-                    requestHandler.postHandle(context);
-                } catch (Throwable t) {
-                    requestHandler.exceptionCaught(context, t);
+        serialExecutor.executeAsync(context.getJobKey(), () -> {
+            final CompletableFuture<Void> checked = preHandle(context);
+            final Runnable handleTask = () -> {
+                requestHandler.handle(context);
+                requestHandler.postHandle(context);
+            };
+            final CompletableFuture<Void> handled = checked.isDone()
+                ? checked.thenRun(handleTask)
+                : checked.thenRunAsync(handleTask, threadPoolExecutor);
+            return handled.whenComplete((r, t) -> {
+                if (t != null) {
+                    requestHandler.exceptionCaught(context, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
                 }
-            }
+            });
         });
     }
 
-    private HodorExecutor createHodorExecutor(final JobKey key) {
-        final HodorExecutor hodorExecutor = new HodorExecutor();
-        hodorExecutor.setCircleQueue(new CircleQueue<>());
-        hodorExecutor.setExecutor(threadPoolExecutor);
-        hodorExecutor.setRejectEnqueuePolicy(new DiscardOldestElementPolicy<>());
-        return hodorExecutor;
+    private CompletableFuture<Void> preHandle(final HodorJobExecutionContext context) {
+        try {
+            return requestHandler.preHandleAsync(context);
+        } catch (Throwable t) {
+            final CompletableFuture<Void> future = new CompletableFuture<>();
+            future.completeExceptionally(t);
+            return future;
+        }
     }
 
     /**
-     * 获取正在运行的任务执行器
+     * 获取任务待分发的调度次数
      *
      * @param key 任务key
-     * @return HodorExecutor
+     * @return 待分发次数
      */
-    public HodorExecutor getHodorExecutor(final JobKey key) {
-        return hodorExecutorMap.get(key);
+    public int getPendingCount(final JobKey key) {
+        return serialExecutor.pendingCount(key);
     }
 
     /**
-     * 删除未使用的队列
+     * 停止分发，已提交的分发任务继续执行，之后关闭请求处理器
      */
-    public void clearUnavailableExecutor() {
-        for (Map.Entry<JobKey, HodorExecutor> item : hodorExecutorMap.entrySet()) {
-            if (item.getValue().getQueue().isEmpty()) {
-                hodorExecutorMap.remove(item.getKey());
-            }
-        }
+    public void close() {
+        threadPoolExecutor.shutdown();
+        requestHandler.close();
     }
 
 }
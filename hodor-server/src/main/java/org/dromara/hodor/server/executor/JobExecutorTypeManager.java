@@ -68,6 +68,18 @@ public class JobExecutorTypeManager {
         return jobExecutorMap.computeIfAbsent(jobClassEnum.getName(), this::initJobExecutor);
     }
 
+    /**
+     * 关闭已创建的任务执行器，服务停止时调用
+     */
+    public void close() {
+        jobExecutorMap.values().forEach(jobExecutor -> {
+            if (jobExecutor instanceof CommonJobExecutor) {
+                ((CommonJobExecutor) jobExecutor).close();
+            }
+        });
+        jobExecutorMap.clear();
+    }
+
     public JobExecutor initJobExecutor(String className) {
         try {
             return (JobExecutor) Class.forName(className).newInstance();
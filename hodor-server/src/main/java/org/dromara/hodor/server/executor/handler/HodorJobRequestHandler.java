@@ -6,28 +6,37 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.common.Host;
 import org.dromara.hodor.common.concurrent.FutureCallback;
-import org.dromara.hodor.common.extension.ExtensionLoader;
 import org.dromara.hodor.common.loadbalance.LoadBalance;
 import org.dromara.hodor.common.loadbalance.LoadBalanceEnum;
 import org.dromara.hodor.common.loadbalance.LoadBalanceFactory;
+import org.dromara.hodor.common.utils.StringUtils;
 import org.dromara.hodor.common.utils.ThreadUtils;
 import org.dromara.hodor.core.Constants.FlowNodeConstants;
 import org.dromara.hodor.model.enums.JobExecuteStatus;
 import org.dromara.hodor.model.job.JobDesc;
 import org.dromara.hodor.model.job.JobKey;
+import org.dromara.hodor.model.node.NodeInfo;
 import org.dromara.hodor.remoting.api.RemotingClient;
 import org.dromara.hodor.remoting.api.RemotingConst;
 import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializerFactory;
 import org.dromara.hodor.remoting.api.message.Header;
 import org.dromara.hodor.remoting.api.message.MessageType;
 import org.dromara.hodor.remoting.api.message.RemotingMessage;
 import org.dromara.hodor.remoting.api.message.RemotingResponse;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteBatchRequest;
 import org.dromara.hodor.remoting.api.message.request.JobExecuteRequest;
 import org.dromara.hodor.remoting.api.message.response.JobExecuteResponse;
 import org.dromara.hodor.scheduler.api.HodorJobExecutionContext;
+import org.dromara.hodor.server.ServiceProvider;
+import org.dromara.hodor.server.config.HodorServerProperties;
+import org.dromara.hodor.server.config.HodorServerProperties.DispatchProperties;
 import org.dromara.hodor.server.executor.exception.IllegalJobExecuteStateException;
 import org.dromara.hodor.server.executor.exception.JobScheduleException;
 import org.dromara.hodor.server.manager.ActuatorNodeManager;
@@ -46,32 +55,64 @@ public class HodorJobRequestHandler implements RequestHandler {
 
     private final ActuatorNodeManager actuatorNodeManager;
 
-    private final RemotingMessageSerializer serializer;
-
     private final TypeReference<RemotingResponse<JobExecuteResponse>> typeReference;
 
+    private final JobRequestBatcher jobRequestBatcher;
+
     public HodorJobRequestHandler() {
         this.clientService = RemotingClient.getInstance();
         this.actuatorNodeManager = ActuatorNodeManager.getInstance();
-        this.serializer = ExtensionLoader.getExtensionLoader(RemotingMessageSerializer.class).getDefaultJoin();
+        LoadBalanceFactory.registerHostLoadProvider(actuatorNodeManager);
         this.typeReference = new TypeReference<RemotingResponse<JobExecuteResponse>>() {};
+        final DispatchProperties dispatchProperties = ServiceProvider.getInstance().getBean(HodorServerProperties.class).getDispatch();
+        this.jobRequestBatcher = dispatchProperties.getBatchWindowMillis() > 0
+            ? new JobRequestBatcher(clientService, dispatchProperties.getBatchWindowMillis(), dispatchProperties.getBatchMaxSize())
+            : null;
+        // 请求回调过期或重连后执行端重发的结果
+        this.clientService.registerPushHandler(MessageType.JOB_EXEC_REQUEST.getType(), new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage response) {
+                resultHandle(response.getHeader().getAttachment(), deserializeResponse(response));
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                log.error("HodorJobRequestHandler push handler exceptionCaught : {}", cause.getMessage(), cause);
+            }
+        });
     }
 
     public void preHandle(final HodorJobExecutionContext context) {
+        try {
+            preHandleAsync(context).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> preHandleAsync(final HodorJobExecutionContext context) {
         JobExecuteManager.getInstance().addSchedulerStartJob(context);
-        // check job is running
+        // check job is running, the remote probe doesn't block the dispatcher thread
         final JobKey jobKey = context.getJobKey();
-        if (JobExecuteManager.getInstance().isRunning(jobKey)) {
-            throw new IllegalJobExecuteStateException("The job {} is running", jobKey);
-        }
+        return JobExecuteManager.getInstance().isRunningAsync(jobKey).thenAccept(running -> {
+            if (running) {
+                throw new IllegalJobExecuteStateException("The job {} is running", jobKey);
+            }
+            selectHosts(context);
+        });
+    }
+
+    private void selectHosts(final HodorJobExecutionContext context) {
         // check available hosts
+        final JobKey jobKey = context.getJobKey();
         final List<Host> hosts = actuatorNodeManager.getAvailableHosts(jobKey);
         if (hosts.isEmpty()) {
             throw new JobScheduleException("The job [{}] has no available actuator nodes", jobKey);
         }
 
-        // TODO: get load balance type from job
-        LoadBalance loadBalance = LoadBalanceFactory.getLoadBalance(LoadBalanceEnum.RANDOM.name());
+        final String loadBalanceType = context.getJobDesc().getLoadBalance();
+        LoadBalance loadBalance = LoadBalanceFactory.getLoadBalance(StringUtils.isBlank(loadBalanceType) ? LoadBalanceEnum.RANDOM.name() : loadBalanceType);
         Host selected = loadBalance.select(hosts);
         hosts.remove(selected);
         hosts.add(selected);
@@ -81,29 +122,31 @@ public class HodorJobRequestHandler implements RequestHandler {
 
     public void handle(final HodorJobExecutionContext context) {
         log.info("Job [key:{}, id:{}] dispatch begins, details: {}", context.getJobKey(), context.getRequestId(), context);
+        dispatch(context, context.getHosts().size() - 1, null);
+    }
 
-        Exception jobException = null;
-        final RemotingMessage request = getRequestBody(context);
+    /**
+     * 从hosts的index位置开始向前依次尝试发送，直到有节点发送成功
+     */
+    private void dispatch(final HodorJobExecutionContext context, final int index, final Throwable lastException) {
+        Throwable jobException = lastException;
         final List<Host> hosts = context.getHosts();
-        for (int i = hosts.size() - 1; i >= 0; i--) {
+        for (int i = index; i >= 0; i--) {
             Host host = hosts.get(i);
             try {
-                clientService.sendBidiRequest(host, request, new FutureCallback<RemotingMessage>() {
-                    @Override
-                    public void onSuccess(RemotingMessage response) {
-                        Header header = response.getHeader();
-                        RemotingResponse<JobExecuteResponse> remotingResponse = serializer.deserialize(response.getBody(), typeReference.getType());
-                        resultHandle(header.getAttachment(), remotingResponse);
-                    }
-
-                    @Override
-                    public void onFailure(Throwable cause) {
-                        log.error("HodorJobRequestHandler exceptionCaught : {}", cause.getMessage(), cause);
-                    }
-                });
+                final byte version = negotiateVersion(host);
+                if (jobRequestBatcher != null && version >= RemotingConst.BINARY_VERSION) {
+                    // 先建立连接，节点不可用时切换到下一个节点
+                    clientService.getOrCreateBidiChannel(host);
+                    final JobExecuteBatchRequest.Item item = new JobExecuteBatchRequest.Item(buildAttachment(context), buildRequestFromContext(context));
+                    // 批量请求被确认后才记录执行节点，发送失败时切换到剩余的节点
+                    jobRequestBatcher.add(host, version, item, createResponseCallback(context), createDispatchCallback(context, i));
+                    return;
+                }
+                final RemotingMessage request = getRequestBody(context, version);
+                clientService.sendBidiRequest(host, request, createResponseCallback(context));
                 JobExecuteManager.getInstance().addSchedulerEndJob(context, host);
-                jobException = null;
-                break;
+                return;
             } catch (Exception e) {
                 jobException = e;
             }
@@ -130,6 +173,13 @@ public class HodorJobRequestHandler implements RequestHandler {
         HodorJobResponseHandler.INSTANCE.fireJobResponseHandler(errorResponse);
     }
 
+    @Override
+    public void close() {
+        if (jobRequestBatcher != null) {
+            jobRequestBatcher.close();
+        }
+    }
+
     public RemotingResponse<JobExecuteResponse> getErrorResponse(final HodorJobExecutionContext context, final Throwable t) {
         JobExecuteResponse jobExecuteResponse = new JobExecuteResponse();
         jobExecuteResponse.setRequestId(context.getRequestId());
@@ -140,10 +190,54 @@ public class HodorJobRequestHandler implements RequestHandler {
         return RemotingResponse.failed("InnerError", jobExecuteResponse);
     }
 
-    private RemotingMessage getRequestBody(final HodorJobExecutionContext context) {
-        byte[] requestBody = serializer.serialize(buildRequestFromContext(context));
+    private FutureCallback<RemotingMessage> createResponseCallback(final HodorJobExecutionContext context) {
+        return new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage response) {
+                // 回调只等待首个响应，之后的结果由push handler处理，运行时间长的任务不会因回调过期被判失败
+                clientService.completeBidiRequest(response.getHeader().getId());
+                resultHandle(response.getHeader().getAttachment(), deserializeResponse(response));
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                exceptionCaught(context, cause);
+            }
+        };
+    }
+
+    private FutureCallback<Host> createDispatchCallback(final HodorJobExecutionContext context, final int index) {
+        return new FutureCallback<Host>() {
+            @Override
+            public void onSuccess(Host host) {
+                JobExecuteManager.getInstance().addSchedulerEndJob(context, host);
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                log.warn("Job [key:{}, id:{}] batch dispatch to {} failed, msg: {}.", context.getJobKey(), context.getRequestId(),
+                    context.getHosts().get(index).getEndpoint(), cause.getMessage());
+                dispatch(context, index - 1, cause);
+            }
+        };
+    }
+
+    private RemotingResponse<JobExecuteResponse> deserializeResponse(final RemotingMessage response) {
+        RemotingMessageSerializer serializer = RemotingMessageSerializerFactory.getSerializer(response.getHeader().getVersion());
+        return serializer.deserialize(response.bodyBuffer(), typeReference.getType());
+    }
+
+    private byte negotiateVersion(final Host host) {
+        // 还未收到心跳的节点没有NodeInfo，使用默认版本
+        return RemotingMessageSerializerFactory.negotiateVersion(Optional.ofNullable(actuatorNodeManager.getActuatorNode(host.getEndpoint()))
+            .map(NodeInfo::getProtocolVersion)
+            .orElse(null));
+    }
+
+    private RemotingMessage getRequestBody(final HodorJobExecutionContext context, final byte version) {
+        byte[] requestBody = RemotingMessageSerializerFactory.getSerializer(version).serialize(buildRequestFromContext(context));
         return RemotingMessage.builder()
-            .header(buildHeader(requestBody.length, context))
+            .header(buildHeader(requestBody.length, version, context))
             .body(requestBody)
             .build();
     }
@@ -166,17 +260,21 @@ public class HodorJobRequestHandler implements RequestHandler {
             .build();
     }
 
-    private Header buildHeader(int bodyLength, HodorJobExecutionContext context) {
+    private Map<String, Object> buildAttachment(HodorJobExecutionContext context) {
         Map<String, Object> attachment = new HashMap<>();
         attachment.put("schedulerName", context.getSchedulerName());
         if (context.getRootJobKey() != null) {
             attachment.put(FlowNodeConstants.ROOT_JOB_KEY, context.getRootJobKey().getKeyName());
         }
+        return attachment;
+    }
+
+    private Header buildHeader(int bodyLength, byte version, HodorJobExecutionContext context) {
         return Header.builder()
             .id(context.getRequestId())
-            .version(RemotingConst.DEFAULT_VERSION)
+            .version(version)
             .type(MessageType.JOB_EXEC_REQUEST.getType())
-            .attachment(attachment)
+            .attachment(buildAttachment(context))
             .length(bodyLength)
             .build();
     }
@@ -0,0 +1,242 @@
+package org.dromara.hodor.server.executor.handler;
+
+import cn.hutool.core.lang.TypeReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hodor.common.Host;
+import org.dromara.hodor.common.IdGenerator;
+import org.dromara.hodor.common.concurrent.FutureCallback;
+import org.dromara.hodor.common.concurrent.HodorThreadFactory;
+import org.dromara.hodor.remoting.api.RemotingClient;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializerFactory;
+import org.dromara.hodor.remoting.api.message.Header;
+import org.dromara.hodor.remoting.api.message.MessageType;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.RemotingResponse;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteBatchRequest;
+import org.dromara.hodor.remoting.api.message.response.JobExecuteBatchResponse;
+
+/**
+ * 按执行节点和协议版本合并任务请求，窗口到期或达到batchMaxSize时以一个批量请求发送
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+@Slf4j
+public class JobRequestBatcher {
+
+    private final RemotingClient clientService;
+
+    private final long batchWindowMillis;
+
+    private final int batchMaxSize;
+
+    private final Map<BatchKey, HostBatch> hostBatches;
+
+    private final ScheduledExecutorService flushExecutor;
+
+    private final TypeReference<RemotingResponse<JobExecuteBatchResponse>> typeReference;
+
+    public JobRequestBatcher(final RemotingClient clientService, final long batchWindowMillis, final int batchMaxSize) {
+        this.clientService = clientService;
+        this.batchWindowMillis = batchWindowMillis;
+        this.batchMaxSize = Math.max(1, batchMaxSize);
+        this.hostBatches = new ConcurrentHashMap<>();
+        this.flushExecutor = new ScheduledThreadPoolExecutor(1, HodorThreadFactory.create("job-request-batcher", true));
+        this.typeReference = new TypeReference<RemotingResponse<JobExecuteBatchResponse>>() {};
+    }
+
+    /**
+     * 添加任务请求，批量请求被节点确认后回调dispatchCallback.onSuccess，发送失败时回调dispatchCallback.onFailure，结果通过callback返回
+     *
+     * @param host             执行节点
+     * @param version          协议版本
+     * @param item             任务请求
+     * @param callback         任务结果回调
+     * @param dispatchCallback 批量请求确认回调
+     */
+    public void add(final Host host, final byte version, final JobExecuteBatchRequest.Item item, final FutureCallback<RemotingMessage> callback,
+                    final FutureCallback<Host> dispatchCallback) {
+        final HostBatch batch = hostBatches.computeIfAbsent(new BatchKey(host, version), HostBatch::new);
+        batch.entries.add(new BatchEntry(item, callback, dispatchCallback));
+        if (batch.size.incrementAndGet() >= batchMaxSize) {
+            flushExecutor.execute(() -> flush(batch));
+        } else if (batch.scheduled.compareAndSet(false, true)) {
+            flushExecutor.schedule(() -> flush(batch), batchWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(final HostBatch batch) {
+        batch.scheduled.set(false);
+        List<BatchEntry> entries;
+        while (!(entries = batch.drain(batchMaxSize)).isEmpty()) {
+            send(batch.host, batch.version, entries);
+        }
+    }
+
+    private void send(final Host host, final byte version, final List<BatchEntry> entries) {
+        final JobExecuteBatchRequest batchRequest = new JobExecuteBatchRequest();
+        final Long batchId = IdGenerator.defaultGenerator().nextId();
+        batchRequest.setRequestId(batchId);
+        for (BatchEntry entry : entries) {
+            batchRequest.getRequests().add(entry.item);
+            clientService.registerBidiCallback(entry.requestId(), entry.callback);
+        }
+        final RemotingMessageSerializer serializer = RemotingMessageSerializerFactory.getSerializer(version);
+        final byte[] body = serializer.serialize(batchRequest);
+        final RemotingMessage request = RemotingMessage.builder()
+            .header(Header.builder()
+                .id(batchId)
+                .version(version)
+                .type(MessageType.JOB_EXEC_BATCH_REQUEST.getType())
+                .attachment(new HashMap<>())
+                .length(body.length)
+                .build())
+            .body(body)
+            .build();
+        log.debug("send job batch request {} to {}, size {}.", batchId, host.getEndpoint(), entries.size());
+        final FutureCallback<RemotingMessage> ackCallback = new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage response) {
+                clientService.completeBidiRequest(batchId);
+                RemotingResponse<JobExecuteBatchResponse> ack = RemotingMessageSerializerFactory.getSerializer(response.getHeader().getVersion())
+                    .deserialize(response.bodyBuffer(), typeReference.getType());
+                if (!ack.isSuccess() || ack.getData() == null) {
+                    fail(entries, new IllegalStateException(String.format("job batch request %s failed, msg: %s", batchId, ack.getMsg())));
+                    return;
+                }
+                // 已在执行中的请求结果由首次请求返回
+                for (Long rejectedRequestId : ack.getData().getRejectedRequestIds()) {
+                    log.warn("job request {} rejected by {}, it's running.", rejectedRequestId, host.getEndpoint());
+                    clientService.completeBidiRequest(rejectedRequestId);
+                }
+                for (BatchEntry entry : entries) {
+                    entry.dispatchCallback.onSuccess(host);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                fail(entries, cause);
+            }
+        };
+        try {
+            clientService.sendBidiRequest(host, request, ackCallback);
+        } catch (Exception e) {
+            clientService.completeBidiRequest(batchId);
+            fail(entries, e);
+        }
+    }
+
+    private void fail(final List<BatchEntry> entries, final Throwable cause) {
+        for (BatchEntry entry : entries) {
+            clientService.completeBidiRequest(entry.requestId());
+        }
+        // 失败回调可能在IO线程上，切换节点会建立连接，放到窗口线程上执行
+        final Runnable failover = () -> entries.forEach(entry -> entry.dispatchCallback.onFailure(cause));
+        try {
+            flushExecutor.execute(failover);
+        } catch (RejectedExecutionException e) {
+            failover.run();
+        }
+    }
+
+    /**
+     * 停止窗口定时器并发送所有未发送的请求
+     */
+    public void close() {
+        flushExecutor.shutdown();
+        hostBatches.values().forEach(this::flush);
+    }
+
+    private static class BatchKey {
+
+        private final Host host;
+
+        private final byte version;
+
+        BatchKey(final Host host, final byte version) {
+            this.host = host;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey that = (BatchKey) o;
+            return version == that.version && host.equals(that.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, version);
+        }
+    }
+
+    private static class HostBatch {
+
+        private final Host host;
+
+        private final byte version;
+
+        private final Queue<BatchEntry> entries = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        HostBatch(final BatchKey key) {
+            this.host = key.host;
+            this.version = key.version;
+        }
+
+        List<BatchEntry> drain(final int maxSize) {
+            List<BatchEntry> drained = new ArrayList<>(Math.min(maxSize, size.get()));
+            BatchEntry entry;
+            while (drained.size() < maxSize && (entry = entries.poll()) != null) {
+                drained.add(entry);
+                size.decrementAndGet();
+            }
+            return drained;
+        }
+    }
+
+    private static class BatchEntry {
+
+        private final JobExecuteBatchRequest.Item item;
+
+        private final FutureCallback<RemotingMessage> callback;
+
+        private final FutureCallback<Host> dispatchCallback;
+
+        BatchEntry(final JobExecuteBatchRequest.Item item, final FutureCallback<RemotingMessage> callback, final FutureCallback<Host> dispatchCallback) {
+            this.item = item;
+            this.callback = callback;
+            this.dispatchCallback = dispatchCallback;
+        }
+
+        long requestId() {
+            return item.getRequest().getRequestId();
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.dromara.hodor.server.executor.handler;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.dromara.hodor.remoting.api.message.RemotingResponse;
 import org.dromara.hodor.remoting.api.message.response.JobExecuteResponse;
 import org.dromara.hodor.scheduler.api.HodorJobExecutionContext;
@@ -15,6 +16,23 @@ public interface RequestHandler {
 
     void preHandle(final HodorJobExecutionContext context);
 
+    /**
+     * 异步的调度前检查，默认在调用线程中执行{@link #preHandle(HodorJobExecutionContext)}
+     *
+     * @param context 任务上下文参数
+     * @return 检查结果，检查不通过时异常完成
+     */
+    default CompletableFuture<Void> preHandleAsync(final HodorJobExecutionContext context) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            preHandle(context);
+            future.complete(null);
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+        return future;
+    }
+
     void handle(final HodorJobExecutionContext context);
 
     void postHandle(final HodorJobExecutionContext context);
@@ -23,4 +41,11 @@ public interface RequestHandler {
 
     void exceptionCaught(final HodorJobExecutionContext context, final Throwable t);
 
+    /**
+     * 释放处理器持有的资源，服务停止时调用
+     */
+    default void close() {
+
+    }
+
 }
@@ -1,8 +1,11 @@
 package org.dromara.hodor.server.listener;
 
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.common.utils.SerializeUtils;
 import org.dromara.hodor.common.utils.StringUtils;
+import org.dromara.hodor.model.actuator.ActuatorInfo;
 import org.dromara.hodor.model.node.NodeInfo;
 import org.dromara.hodor.register.api.DataChangeEvent;
 import org.dromara.hodor.register.api.DataChangeListener;
@@ -21,6 +24,8 @@ import java.util.Set;
 @Slf4j
 public class ActuatorNodeChangeListener implements DataChangeListener {
 
+    private static final Type HEARTBEATS_TYPE = new TypeToken<List<ActuatorInfo>>() {}.getType();
+
     private final ActuatorNodeManager actuatorNodeManager;
 
     public ActuatorNodeChangeListener(final ActuatorNodeManager actuatorNodeManager) {
@@ -47,7 +52,23 @@ public class ActuatorNodeChangeListener implements DataChangeListener {
 
         if (ActuatorNode.isBindingPath(actuatorPath)) {
             changeActuatorBindingData(event, actuatorPath);
+            return;
+        }
+
+        if (ActuatorNode.isHeartbeatPath(actuatorPath)) {
+            changeActuatorHeartbeatData(event, actuatorPath);
+        }
+    }
+
+    private void changeActuatorHeartbeatData(DataChangeEvent event, String actuatorPath) {
+        log.debug("ActuatorHeartbeatChange, eventType: {}, path: {}", event.getType(), actuatorPath);
+        // path: /actuator/heartbeats/${serverEndpoint}
+        if (event.getData() == null
+            || (event.getType() != DataChangeEvent.Type.NODE_UPDATED && event.getType() != DataChangeEvent.Type.NODE_ADDED)) {
+            return;
         }
+        List<ActuatorInfo> heartbeats = SerializeUtils.deserialize(event.getData(), HEARTBEATS_TYPE);
+        actuatorNodeManager.mergeHeartbeats(heartbeats);
     }
 
     private void changeActuatorBindingData(DataChangeEvent event, String actuatorPath) {
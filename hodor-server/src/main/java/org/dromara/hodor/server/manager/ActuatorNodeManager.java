@@ -8,26 +8,33 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.common.Host;
 import org.dromara.hodor.common.concurrent.HodorThreadFactory;
+import org.dromara.hodor.common.loadbalance.HostLoadProvider;
 import org.dromara.hodor.common.utils.TimeUtil;
 import org.dromara.hodor.model.actuator.ActuatorInfo;
 import org.dromara.hodor.model.job.JobKey;
 import org.dromara.hodor.model.node.NodeInfo;
 
 /**
- * actuator node manager
+ * actuator node manager<br/>
+ *
+ * 1、执行端心跳只更新接收节点的内存，注册中心只在执行端加入、离开或者集群分组变化时写入
+ * 2、各调度节点定期把收到的心跳汇总成一个摘要发布到注册中心，其他节点合并比本地更新的心跳
  *
  * @author tomgs
  * @version 2021/8/1 1.0
  */
 @Slf4j
-public class ActuatorNodeManager {
+public class ActuatorNodeManager implements HostLoadProvider {
 
     private static volatile ActuatorNodeManager INSTANCE;
 
@@ -40,10 +47,23 @@ public class ActuatorNodeManager {
     // endpoint -> actuatorNodeInfo
     private final Map<String, ActuatorInfo> actuatorNodeInfos = Maps.newConcurrentMap();
 
+    // endpoint -> 已派发未完成的任务数
+    private final Map<String, AtomicInteger> outstandingRequests = Maps.newConcurrentMap();
+
+    // endpoint -> 本节点最近一次写入注册中心的集群和分组
+    private final Map<String, String> reportedMemberships = Maps.newConcurrentMap();
+
+    // endpoint -> 上次发布摘要之后收到的心跳
+    private final Map<String, ActuatorInfo> pendingHeartbeats = Maps.newConcurrentMap();
+
     private static final int HEARTBEAT_THRESHOLD = 30_000;
 
+    private static final int HEARTBEAT_PUBLISH_INTERVAL = 5;
+
     private ScheduledExecutorService cleanSchedule;
 
+    private ScheduledExecutorService heartbeatPublishSchedule;
+
     private ActuatorNodeManager() {
 
     }
@@ -79,6 +99,8 @@ public class ActuatorNodeManager {
 
     private void removeNode(String endpoint) {
         actuatorNodeInfos.remove(endpoint);
+        reportedMemberships.remove(endpoint);
+        outstandingRequests.remove(endpoint);
         actuatorEndpoints.values().forEach(endpoints -> endpoints.removeIf(e -> e.equals(endpoint)));
     }
 
@@ -109,6 +131,9 @@ public class ActuatorNodeManager {
     public void clearActuatorNodes() {
         actuatorEndpoints.clear();
         actuatorNodeInfos.clear();
+        outstandingRequests.clear();
+        reportedMemberships.clear();
+        pendingHeartbeats.clear();
     }
 
     public void stopOfflineActuatorClean() {
@@ -117,6 +142,87 @@ public class ActuatorNodeManager {
         }
     }
 
+    /**
+     * 接收执行端心跳，只更新内存<br/>
+     *
+     * 返回true表示执行端第一次上报或者集群、分组发生变化，需要由调用方写入注册中心
+     */
+    public boolean receiveHeartbeat(ActuatorInfo actuatorInfo) {
+        final String endpoint = actuatorInfo.getNodeInfo().getEndpoint();
+        final ActuatorInfo heartbeat = ActuatorInfo.builder()
+            .nodeEndpoint(endpoint)
+            .nodeInfo(actuatorInfo.getNodeInfo())
+            .groupNames(actuatorInfo.getGroupNames())
+            .lastHeartbeat(actuatorInfo.getLastHeartbeat())
+            .build();
+        updateHeartbeat(heartbeat);
+        pendingHeartbeats.put(endpoint, heartbeat);
+        final String membership = actuatorInfo.getName() + new TreeSet<>(actuatorInfo.getGroupNames());
+        return !membership.equals(reportedMemberships.put(endpoint, membership));
+    }
+
+    /**
+     * 写入注册中心失败时调用，下次心跳重新写入
+     */
+    public void resetMembership(String endpoint) {
+        reportedMemberships.remove(endpoint);
+    }
+
+    /**
+     * 合并其他调度节点发布的心跳摘要
+     */
+    public void mergeHeartbeats(List<ActuatorInfo> heartbeats) {
+        heartbeats.forEach(this::updateHeartbeat);
+    }
+
+    /**
+     * 只接受比本地更新的心跳，心跳中的分组用于恢复被离线清理掉的执行端
+     */
+    private void updateHeartbeat(ActuatorInfo heartbeat) {
+        final String endpoint = heartbeat.getNodeEndpoint();
+        final ActuatorInfo actuatorInfo = actuatorNodeInfos.computeIfAbsent(endpoint, k -> ActuatorInfo.builder()
+            .nodeEndpoint(endpoint)
+            .groupNames(Sets.newConcurrentHashSet())
+            .build());
+        synchronized (actuatorInfo) {
+            if (heartbeat.getLastHeartbeat() < actuatorInfo.getLastHeartbeat()) {
+                return;
+            }
+            actuatorInfo.setLastHeartbeat(heartbeat.getLastHeartbeat());
+            actuatorInfo.setNodeInfo(heartbeat.getNodeInfo());
+        }
+        Optional.ofNullable(heartbeat.getGroupNames()).ifPresent(groupNames -> groupNames.forEach(groupName -> {
+            actuatorInfo.getGroupNames().add(groupName);
+            addActuatorEndpoint(groupName, endpoint);
+        }));
+    }
+
+    public void startHeartbeatPublish(Consumer<List<ActuatorInfo>> publisher) {
+        this.heartbeatPublishSchedule = Executors.newSingleThreadScheduledExecutor(HodorThreadFactory.create("actuator-heartbeat-publisher", true));
+        this.heartbeatPublishSchedule.scheduleWithFixedDelay(() -> publishHeartbeats(publisher),
+            HEARTBEAT_PUBLISH_INTERVAL, HEARTBEAT_PUBLISH_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    public void publishHeartbeats(Consumer<List<ActuatorInfo>> publisher) {
+        if (pendingHeartbeats.isEmpty()) {
+            return;
+        }
+        List<ActuatorInfo> heartbeats = Lists.newArrayListWithCapacity(pendingHeartbeats.size());
+        pendingHeartbeats.keySet().forEach(endpoint -> Optional.ofNullable(pendingHeartbeats.remove(endpoint)).ifPresent(heartbeats::add));
+        try {
+            publisher.accept(heartbeats);
+        } catch (Exception e) {
+            log.warn("publish {} actuator heartbeats failed, msg: {}", heartbeats.size(), e.getMessage());
+            heartbeats.forEach(heartbeat -> pendingHeartbeats.putIfAbsent(heartbeat.getNodeEndpoint(), heartbeat));
+        }
+    }
+
+    public void stopHeartbeatPublish() {
+        if (heartbeatPublishSchedule != null) {
+            heartbeatPublishSchedule.shutdown();
+        }
+    }
+
     public List<Host> getAvailableHosts(JobKey jobKey) {
         List<String> allWorkNodes = Lists.newArrayList(getActuatorEndpointsByGroupName(jobKey.getGroupName()));
         return allWorkNodes.stream()
@@ -128,7 +234,7 @@ public class ActuatorNodeManager {
     public void addActuatorNode(String nodeEndpoint, NodeInfo nodeInfo) {
         ActuatorInfo actuatorInfo = actuatorNodeInfos.computeIfAbsent(nodeEndpoint, k -> ActuatorInfo.builder()
             .nodeEndpoint(nodeEndpoint)
-            .groupNames(Sets.newHashSet())
+            .groupNames(Sets.newConcurrentHashSet())
             .build());
         actuatorInfo.setNodeInfo(nodeInfo);
     }
@@ -143,16 +249,18 @@ public class ActuatorNodeManager {
 
     public void removeActuatorNode(String nodeEndpoint) {
         actuatorNodeInfos.remove(nodeEndpoint);
+        reportedMemberships.remove(nodeEndpoint);
     }
 
     public void addActuatorNodeInfo(String groupName, String nodeEndpoint, long lastHeartbeat) {
         ActuatorInfo actuatorInfo = actuatorNodeInfos.computeIfAbsent(nodeEndpoint, k -> ActuatorInfo.builder()
             .nodeEndpoint(nodeEndpoint)
-            .groupNames(Sets.newHashSet(groupName))
+            .groupNames(Sets.newConcurrentHashSet(Sets.newHashSet(groupName)))
             .lastHeartbeat(lastHeartbeat)
             .build());
         actuatorInfo.getGroupNames().add(groupName);
-        actuatorInfo.setLastHeartbeat(lastHeartbeat);
+        // 注册中心中的时间是加入的时间，不能覆盖内存中更新的心跳
+        actuatorInfo.setLastHeartbeat(Math.max(actuatorInfo.getLastHeartbeat(), lastHeartbeat));
     }
 
     public Set<String> getGroupByClusterName(String clusterName) {
@@ -168,4 +276,44 @@ public class ActuatorNodeManager {
         Set<String> groupSet = clusterGroupMap.computeIfAbsent(clusterName, Sets::newHashSet);
         groupSet.remove(groupName);
     }
+
+    public void incrementOutstanding(String nodeEndpoint) {
+        outstandingRequests.computeIfAbsent(nodeEndpoint, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void decrementOutstanding(String nodeEndpoint) {
+        Optional.ofNullable(outstandingRequests.get(nodeEndpoint))
+            .ifPresent(counter -> counter.updateAndGet(count -> Math.max(0, count - 1)));
+    }
+
+    @Override
+    public int getOutstanding(Host host) {
+        AtomicInteger counter = outstandingRequests.get(host.getEndpoint());
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * 综合负载 = (本调度未完成任务数 + 执行端排队任务数 + 1) * (1 + cpu使用率 + 内存使用率)<br/>
+     *
+     * 心跳中的指标有延迟，本地未完成任务数保证在两次心跳之间已派发的任务也能体现在负载上，
+     * 还未收到节点心跳时只按本地未完成任务数计算
+     */
+    @Override
+    public double getLoad(Host host) {
+        NodeInfo nodeInfo = getActuatorNode(host.getEndpoint());
+        if (nodeInfo == null) {
+            return getOutstanding(host) + 1;
+        }
+        long queued = Math.max(Optional.ofNullable(nodeInfo.getQueueSize()).orElse(0L),
+            Optional.ofNullable(nodeInfo.getWaitingQueueSize()).orElse(0));
+        return (getOutstanding(host) + queued + 1) * (1 + usageRatio(nodeInfo.getCpuRatio()) + usageRatio(nodeInfo.getMemoryRatio()));
+    }
+
+    /**
+     * 执行端上报的是百分比，多核时cpu可能超过100
+     */
+    private double usageRatio(Double percent) {
+        return percent == null || percent < 0 ? 0 : percent / 100;
+    }
+
 }
@@ -5,16 +5,16 @@ import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.lang.TypeReference;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hodor.common.Host;
-import org.dromara.hodor.common.extension.ExtensionLoader;
 import org.dromara.hodor.common.utils.StringUtils;
 import org.dromara.hodor.core.entity.JobExecDetail;
 import org.dromara.hodor.core.recoder.JobExecuteRecorder;
 import org.dromara.hodor.model.enums.JobExecuteStatus;
 import org.dromara.hodor.model.job.JobDesc;
 import org.dromara.hodor.model.job.JobKey;
+import org.dromara.hodor.model.node.NodeInfo;
 import org.dromara.hodor.remoting.api.RemotingClient;
-import org.dromara.hodor.remoting.api.RemotingConst;
 import org.dromara.hodor.remoting.api.RemotingMessageSerializer;
+import org.dromara.hodor.remoting.api.RemotingMessageSerializerFactory;
 import org.dromara.hodor.remoting.api.message.Header;
 import org.dromara.hodor.remoting.api.message.MessageType;
 import org.dromara.hodor.remoting.api.message.RemotingMessage;
@@ -27,8 +27,16 @@ import org.dromara.hodor.remoting.api.message.response.JobExecuteStatusResponse;
 import org.dromara.hodor.remoting.api.message.response.KillRunningJobResponse;
 import org.dromara.hodor.scheduler.api.HodorJobExecutionContext;
 import org.dromara.hodor.server.ServiceProvider;
+import org.dromara.hodor.server.config.HodorServerProperties;
+import org.dromara.hodor.server.config.HodorServerProperties.DispatchProperties;
 
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * job status manager
@@ -43,14 +51,24 @@ public class JobExecuteManager {
 
     private final JobExecuteRecorder jobExecuteRecorder;
 
-    private final RemotingMessageSerializer serializer;
-
     private final TypeReference<RemotingResponse<JobExecuteStatusResponse>> typeReference;
 
+    /**
+     * 任务最近一次已知的运行状态，由调度下发和执行端推送的结果更新
+     */
+    private final Map<JobKey, RunningJobState> runningJobStates;
+
+    private final long runningStateStaleMillis;
+
+    private final int runningProbeTimeoutMillis;
+
     private JobExecuteManager() {
         this.jobExecuteRecorder = ServiceProvider.getInstance().getBean(JobExecuteRecorder.class);
-        this.serializer = ExtensionLoader.getExtensionLoader(RemotingMessageSerializer.class).getDefaultJoin();
         this.typeReference = new TypeReference<RemotingResponse<JobExecuteStatusResponse>>() { };
+        this.runningJobStates = new ConcurrentHashMap<>();
+        final DispatchProperties dispatchProperties = ServiceProvider.getInstance().getBean(HodorServerProperties.class).getDispatch();
+        this.runningStateStaleMillis = dispatchProperties.getRunningStateStaleMillis();
+        this.runningProbeTimeoutMillis = dispatchProperties.getRunningProbeTimeoutMillis();
     }
 
     public static JobExecuteManager getInstance() {
@@ -64,27 +82,57 @@ public class JobExecuteManager {
         return INSTANCE;
     }
 
-    public boolean isRunning(JobKey jobKey) {
-        JobExecDetail jobExecDetail = jobExecuteRecorder.getJobExecDetail(jobKey);
-        if (jobExecDetail == null
-            || jobExecDetail.getExecuteStatus() != JobExecuteStatus.READY
-            || jobExecDetail.getExecuteStatus() != JobExecuteStatus.PENDING
-            || jobExecDetail.getExecuteStatus() != JobExecuteStatus.RUNNING) {
-            return false;
+    /**
+     * 任务是否在运行，优先使用最近一次已知状态，状态过期后才到执行节点查询，查询不阻塞调用线程
+     *
+     * @param jobKey 任务key
+     * @return 是否运行中
+     */
+    public CompletableFuture<Boolean> isRunningAsync(JobKey jobKey) {
+        final RunningJobState state = runningJobStates.get(jobKey);
+        if (state == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (System.currentTimeMillis() - state.updateTime < runningStateStaleMillis) {
+            return CompletableFuture.completedFuture(true);
         }
+        return state.probe(() -> probeRunningState(jobKey, state));
+    }
+
+    private CompletableFuture<Boolean> probeRunningState(JobKey jobKey, RunningJobState state) {
         // 去执行端查询状态，并且更新状态
-        Host host = Host.of(jobExecDetail.getActuatorEndpoint());
         JobExecuteStatusRequest statusRequest = new JobExecuteStatusRequest();
-        statusRequest.setRequestId(jobExecDetail.getId());
-        JobExecuteStatusResponse statusResponse = queryExecuteJobStatus(host, statusRequest);
-        // 未查询到说明当前执行器上面并没有此任务运行
-        if (statusResponse == null) {
-            return false;
+        statusRequest.setRequestId(state.requestId);
+        return this.<JobExecuteStatusResponse>executeRequestAsync(Host.of(state.actuatorEndpoint), statusRequest,
+                MessageType.FETCH_JOB_STATUS_REQUEST, runningProbeTimeoutMillis)
+            .handle((statusResponse, e) -> {
+                if (e != null) {
+                    log.error("query job {} running status error, msg: {}", jobKey, e.getMessage());
+                    return false;
+                }
+                // 未查询到说明当前执行器上面并没有此任务运行
+                if (statusResponse == null || JobExecuteStatus.isFinished(statusResponse.getStatus())) {
+                    removeRunningJobState(jobKey, state);
+                    return false;
+                }
+                state.updateTime = System.currentTimeMillis();
+                return true;
+            });
+    }
+
+    private void putRunningJobState(JobKey jobKey, RunningJobState state) {
+        ActuatorNodeManager.getInstance().incrementOutstanding(state.actuatorEndpoint);
+        final RunningJobState previous = runningJobStates.put(jobKey, state);
+        if (previous != null) {
+            ActuatorNodeManager.getInstance().decrementOutstanding(previous.actuatorEndpoint);
         }
-        if (JobExecuteStatus.isFinished(statusResponse.getStatus())) {
-            removeRunningJob(jobKey);
+    }
+
+    private void removeRunningJobState(JobKey jobKey, RunningJobState state) {
+        // 只有移除成功的一方减少节点未完成数，避免结果推送与状态查询重复扣减
+        if (runningJobStates.remove(jobKey, state)) {
+            ActuatorNodeManager.getInstance().decrementOutstanding(state.actuatorEndpoint);
         }
-        return JobExecuteStatus.isRunning(statusResponse.getStatus());
     }
 
     public void removeRunningJob(JobKey jobKey) {
@@ -98,6 +146,7 @@ public class JobExecuteManager {
     }
 
     public void addSchedulerEndJob(HodorJobExecutionContext context, Host host) {
+        putRunningJobState(context.getJobKey(), new RunningJobState(context.getRequestId(), host.getEndpoint()));
         JobExecDetail jobExecDetail = buildSchedulerEndJobExecDetail(context, host);
         jobExecuteRecorder.addJobExecDetail(jobExecDetail);
         jobExecuteRecorder.recordJobExecDetail(JobExecuteRecorder.OP_UPDATE, jobExecDetail);
@@ -105,12 +154,27 @@ public class JobExecuteManager {
 
     public void addFinishJob(JobExecuteResponse jobExecuteResponse) {
         JobExecDetail jobExecDetail = buildFinishJobExecDetail(jobExecuteResponse);
+        updateRunningJobState(jobExecuteResponse);
         if (JobExecuteStatus.isFinished(jobExecDetail.getExecuteStatus())) {
             removeRunningJob(jobExecuteResponse.getJobKey());
         }
         jobExecuteRecorder.recordJobExecDetail(JobExecuteRecorder.OP_UPDATE, jobExecDetail);
     }
 
+    private void updateRunningJobState(JobExecuteResponse jobExecuteResponse) {
+        final JobKey jobKey = jobExecuteResponse.getJobKey();
+        final RunningJobState state = jobKey == null ? null : runningJobStates.get(jobKey);
+        // 只处理当前运行实例的结果，被拒绝调度的实例不影响运行状态
+        if (state == null || !state.requestId.equals(jobExecuteResponse.getRequestId())) {
+            return;
+        }
+        if (JobExecuteStatus.isFinished(jobExecuteResponse.getStatus())) {
+            removeRunningJobState(jobKey, state);
+        } else {
+            state.updateTime = System.currentTimeMillis();
+        }
+    }
+
     public JobExecuteStatusResponse queryExecuteJobStatus(Host host, JobExecuteStatusRequest request) {
         return executeRequest(host, request, MessageType.FETCH_JOB_STATUS_REQUEST);
     }
@@ -168,28 +232,101 @@ public class JobExecuteManager {
     }
 
     public <R> R executeRequest(Host host, AbstractRequestBody requestBody, MessageType messageType) {
-        byte[] body = serializer.serialize(requestBody);
+        try {
+            RemotingMessage remotingMessage = RemotingClient.getInstance().sendSyncRequest(host, buildRequest(host, requestBody, messageType), 1500);
+            return deserializeResponse(remotingMessage);
+        } catch (Exception e) {
+            log.error("execute request error, messageType: {}, errorMsg: {}", messageType, e.getMessage(), e);
+        }
+        return null;
+    }
+
+    /**
+     * 异步请求执行节点，响应在网络线程中反序列化
+     */
+    public <R> CompletableFuture<R> executeRequestAsync(Host host, AbstractRequestBody requestBody, MessageType messageType, int timeout) {
+        try {
+            return RemotingClient.getInstance().sendRequest(host, buildRequest(host, requestBody, messageType), timeout)
+                .thenApply(this::deserializeResponse);
+        } catch (Exception e) {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private RemotingMessage buildRequest(Host host, AbstractRequestBody requestBody, MessageType messageType) {
+        byte version = RemotingMessageSerializerFactory.negotiateVersion(Optional.ofNullable(ActuatorNodeManager.getInstance().getActuatorNode(host.getEndpoint()))
+            .map(NodeInfo::getProtocolVersion)
+            .orElse(null));
+        byte[] body = RemotingMessageSerializerFactory.getSerializer(version).serialize(requestBody);
         Header header = Header.builder()
                 .id(requestBody.getRequestId())
                 .type(messageType.getType())
                 .length(body.length)
-                .version(RemotingConst.DEFAULT_VERSION)
+                .version(version)
                 .build();
-        RemotingMessage remotingRequest = RemotingMessage.builder()
+        return RemotingMessage.builder()
                 .header(header)
                 .body(body)
                 .build();
+    }
+
+    private <R> R deserializeResponse(RemotingMessage remotingMessage) {
         try {
-            RemotingMessage remotingMessage = RemotingClient.getInstance().sendSyncRequest(host, remotingRequest, 1500);
-            RemotingResponse<R> remotingResponse = serializer.deserialize(remotingMessage.getBody(), typeReference.getType());
+            RemotingMessageSerializer serializer = RemotingMessageSerializerFactory.getSerializer(remotingMessage.getHeader().getVersion());
+            RemotingResponse<R> remotingResponse = serializer.deserialize(remotingMessage.bodyBuffer(), typeReference.getType());
             if (!remotingResponse.isSuccess()) {
                 log.error("request failure, code: {}, msg: {}", remotingResponse.getCode(), remotingResponse.getMsg());
             }
             return remotingResponse.getData();
-        } catch (Exception e) {
-            log.error("execute request error, messageType: {}, errorMsg: {}", messageType, e.getMessage(), e);
+        } finally {
+            remotingMessage.release();
+        }
+    }
+
+    private static class RunningJobState {
+
+        private final Long requestId;
+
+        private final String actuatorEndpoint;
+
+        private volatile long updateTime;
+
+        private final AtomicReference<CompletableFuture<Boolean>> probing = new AtomicReference<>();
+
+        RunningJobState(Long requestId, String actuatorEndpoint) {
+            this.requestId = requestId;
+            this.actuatorEndpoint = actuatorEndpoint;
+            this.updateTime = System.currentTimeMillis();
+        }
+
+        /**
+         * 同一时刻只有一个查询请求，并发的检查共享查询结果
+         */
+        CompletableFuture<Boolean> probe(Supplier<CompletableFuture<Boolean>> prober) {
+            for (;;) {
+                final CompletableFuture<Boolean> future = probing.get();
+                if (future != null) {
+                    return future;
+                }
+                final CompletableFuture<Boolean> created = new CompletableFuture<>();
+                if (probing.compareAndSet(null, created)) {
+                    // 查询失败时按未运行处理，任何情况下都要清除probing，避免之后的检查一直拿到同一个结果
+                    try {
+                        prober.get().whenComplete((running, e) -> {
+                            probing.set(null);
+                            created.complete(e == null && Boolean.TRUE.equals(running));
+                        });
+                    } catch (Throwable t) {
+                        log.warn("probe running job request {} on {} exception, msg: {}", requestId, actuatorEndpoint, t.getMessage());
+                        probing.set(null);
+                        created.complete(false);
+                    }
+                    return created;
+                }
+            }
         }
-        return null;
     }
 
 }
@@ -68,6 +68,7 @@ public class HodorService implements HodorLifecycle {
         // register listener
         registryService.registryActuatorNodeListener(new ActuatorNodeChangeListener(actuatorNodeManager));
         registryService.registryMetadataListener(new MetadataChangeListener(this));
+        actuatorNodeManager.startHeartbeatPublish(registryService::publishActuatorHeartbeats);
         //registryService.registryElectLeaderListener(new LeaderElectChangeListener(this));
         //registerService.registryJobEventListener(new JobEventDispatchListener(this));
 
@@ -82,6 +83,8 @@ public class HodorService implements HodorLifecycle {
         schedulerNodeManager.clearNodeServer();
         actuatorNodeManager.clearActuatorNodes();
         actuatorNodeManager.stopOfflineActuatorClean();
+        actuatorNodeManager.stopHeartbeatPublish();
+        JobExecutorTypeManager.getInstance().close();
     }
 
     public void electLeader() {
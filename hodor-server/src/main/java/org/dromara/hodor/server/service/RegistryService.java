@@ -86,7 +86,8 @@ public class RegistryService implements HodorLifecycle {
     }
 
     public Integer getRunningNodeCount() {
-        return getRunningNodes().size();
+        // 只用于等待节点加入，节点数偏少时多等一轮，可以在本地读取
+        return registryCenter.getChildren(SchedulerNode.NODES_PATH, true).size();
     }
 
     public List<String> getRunningNodes() {
@@ -127,6 +128,7 @@ public class RegistryService implements HodorLifecycle {
         registryListener(ActuatorNode.ACTUATOR_GROUPS_PATH, listener);
         registryListener(ActuatorNode.ACTUATOR_CLUSTERS_PATH, listener);
         registryListener(ActuatorNode.ACTUATOR_BINDING_PATH, listener);
+        registryListener(ActuatorNode.ACTUATOR_HEARTBEATS_PATH, listener);
     }
 
     public void registryListener(String path, DataChangeListener listener) {
@@ -153,6 +155,13 @@ public class RegistryService implements HodorLifecycle {
         registryCenter.createPersistent(ActuatorNode.createClusterPath(actuatorInfo.getName(), endpoint), String.valueOf(actuatorInfo.getLastHeartbeat()));
     }
 
+    /**
+     * 每个调度节点一个临时节点，保存本节点最近收到的执行端心跳
+     */
+    public void publishActuatorHeartbeats(final List<ActuatorInfo> heartbeats) {
+        registryCenter.createEphemeral(ActuatorNode.createHeartbeatPath(getServerEndpoint()), gsonUtils.toJson(heartbeats));
+    }
+
     public void removeActuator(final ActuatorInfo actuatorInfo) {
         String endpoint = actuatorInfo.getNodeInfo().getEndpoint();
         registryCenter.remove(ActuatorNode.createNodePath(endpoint));
@@ -0,0 +1,231 @@
+package org.dromara.hodor.server.executor.handler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dromara.hodor.common.Host;
+import org.dromara.hodor.common.concurrent.FutureCallback;
+import org.dromara.hodor.remoting.api.RemotingClient;
+import org.dromara.hodor.remoting.api.RemotingConst;
+import org.dromara.hodor.remoting.api.message.RemotingMessage;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteBatchRequest;
+import org.dromara.hodor.remoting.api.message.request.JobExecuteRequest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * job request batcher test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class JobRequestBatcherTest {
+
+    private static final Host HOST_A = Host.of("127.0.0.1:8081");
+
+    private static final Host HOST_B = Host.of("127.0.0.1:8082");
+
+    private final AtomicLong requestId = new AtomicLong();
+
+    private final List<Long> registered = new ArrayList<>();
+
+    private final List<SentBatch> sentBatches = new ArrayList<>();
+
+    private RemotingClient clientService;
+
+    private JobRequestBatcher batcher;
+
+    @Before
+    public void setUp() throws Exception {
+        clientService = Mockito.mock(RemotingClient.class);
+        // 每个批量请求发送前注册其中所有请求的回调
+        Mockito.doAnswer(invocation -> {
+            synchronized (sentBatches) {
+                registered.add(invocation.getArgument(0));
+            }
+            return null;
+        }).when(clientService).registerBidiCallback(ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+        Mockito.doAnswer(invocation -> {
+            synchronized (sentBatches) {
+                final RemotingMessage request = invocation.getArgument(1);
+                sentBatches.add(new SentBatch(invocation.getArgument(0), request.getHeader().getVersion(), new ArrayList<>(registered)));
+                registered.clear();
+                sentBatches.notifyAll();
+            }
+            return null;
+        }).when(clientService).sendBidiRequest(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @After
+    public void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void testFlushOnWindow() throws Exception {
+        batcher = new JobRequestBatcher(clientService, 50, 100);
+        add(HOST_A);
+        add(HOST_A);
+        add(HOST_A);
+        final List<SentBatch> batches = awaitBatches(1, 2000);
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(HOST_A, batches.get(0).host);
+        Assert.assertEquals(3, batches.get(0).requestIds.size());
+    }
+
+    @Test
+    public void testFlushOnMaxSize() throws Exception {
+        // 窗口足够长，只有达到batchMaxSize才会立即发送
+        batcher = new JobRequestBatcher(clientService, 60_000, 2);
+        add(HOST_A);
+        add(HOST_A);
+        final List<SentBatch> batches = awaitBatches(1, 2000);
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(2, batches.get(0).requestIds.size());
+
+        // 关闭时发送窗口内剩余的请求
+        add(HOST_A);
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assert.assertEquals(1, awaitBatches(1, 0).size());
+        batcher.close();
+        final List<SentBatch> closed = awaitBatches(2, 0);
+        Assert.assertEquals(2, closed.size());
+        Assert.assertEquals(1, closed.get(1).requestIds.size());
+    }
+
+    @Test
+    public void testGroupByHost() throws Exception {
+        batcher = new JobRequestBatcher(clientService, 50, 100);
+        final List<Long> hostARequests = new ArrayList<>();
+        final List<Long> hostBRequests = new ArrayList<>();
+        hostARequests.add(add(HOST_A));
+        hostBRequests.add(add(HOST_B));
+        hostARequests.add(add(HOST_A));
+        hostBRequests.add(add(HOST_B));
+        hostARequests.add(add(HOST_A));
+        final List<SentBatch> batches = awaitBatches(2, 2000);
+        Assert.assertEquals(2, batches.size());
+        for (SentBatch batch : batches) {
+            Assert.assertEquals(HOST_A.equals(batch.host) ? hostARequests : hostBRequests, batch.requestIds);
+        }
+    }
+
+    @Test
+    public void testGroupByVersion() throws Exception {
+        batcher = new JobRequestBatcher(clientService, 50, 100);
+        add(HOST_A, RemotingConst.DEFAULT_VERSION);
+        add(HOST_A, RemotingConst.BINARY_VERSION);
+        add(HOST_A, RemotingConst.DEFAULT_VERSION);
+        final List<SentBatch> batches = awaitBatches(2, 2000);
+        Assert.assertEquals(2, batches.size());
+        for (SentBatch batch : batches) {
+            // 后加入的请求不会改变已排队请求的协议版本
+            Assert.assertEquals(batch.version == RemotingConst.DEFAULT_VERSION ? 2 : 1, batch.requestIds.size());
+        }
+    }
+
+    @Test
+    public void testSendFailureNotifiesDispatchCallback() throws Exception {
+        Mockito.doThrow(new IllegalStateException("connection refused"))
+            .when(clientService).sendBidiRequest(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+        batcher = new JobRequestBatcher(clientService, 50, 100);
+        final CountDownLatch failed = new CountDownLatch(2);
+        final AtomicInteger resultFailures = new AtomicInteger();
+        final FutureCallback<RemotingMessage> callback = new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage result) {
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                resultFailures.incrementAndGet();
+            }
+        };
+        final FutureCallback<Host> dispatchCallback = new FutureCallback<Host>() {
+            @Override
+            public void onSuccess(Host host) {
+                Assert.fail("batch request is not acked.");
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                failed.countDown();
+            }
+        };
+        final long first = add(HOST_A, RemotingConst.DEFAULT_VERSION, callback, dispatchCallback);
+        final long second = add(HOST_A, RemotingConst.DEFAULT_VERSION, callback, dispatchCallback);
+        Assert.assertTrue(failed.await(2, TimeUnit.SECONDS));
+        // 发送失败由调用方切换节点，结果回调不会被触发
+        Assert.assertEquals(0, resultFailures.get());
+        Mockito.verify(clientService).completeBidiRequest(first);
+        Mockito.verify(clientService).completeBidiRequest(second);
+    }
+
+    private long add(Host host) {
+        return add(host, RemotingConst.DEFAULT_VERSION);
+    }
+
+    private long add(Host host, byte version) {
+        return add(host, version, new FutureCallback<RemotingMessage>() {
+            @Override
+            public void onSuccess(RemotingMessage result) {
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+            }
+        }, new FutureCallback<Host>() {
+            @Override
+            public void onSuccess(Host result) {
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+            }
+        });
+    }
+
+    private long add(Host host, byte version, FutureCallback<RemotingMessage> callback, FutureCallback<Host> dispatchCallback) {
+        final JobExecuteRequest request = new JobExecuteRequest();
+        request.setRequestId(requestId.incrementAndGet());
+        batcher.add(host, version, new JobExecuteBatchRequest.Item(new HashMap<>(), request), callback, dispatchCallback);
+        return request.getRequestId();
+    }
+
+    private List<SentBatch> awaitBatches(int count, long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (sentBatches) {
+            long remaining;
+            while (sentBatches.size() < count && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                sentBatches.wait(remaining);
+            }
+            return new ArrayList<>(sentBatches);
+        }
+    }
+
+    private static class SentBatch {
+
+        private final Host host;
+
+        private final byte version;
+
+        private final List<Long> requestIds;
+
+        SentBatch(Host host, byte version, List<Long> requestIds) {
+            this.host = host;
+            this.version = version;
+            this.requestIds = requestIds;
+        }
+    }
+
+}
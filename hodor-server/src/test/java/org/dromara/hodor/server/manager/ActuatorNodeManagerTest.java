@@ -0,0 +1,74 @@
+package org.dromara.hodor.server.manager;
+
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.dromara.hodor.model.actuator.ActuatorInfo;
+import org.dromara.hodor.model.node.NodeInfo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * actuator node manager test
+ *
+ * @author tomgs
+ * @since 1.0
+ */
+public class ActuatorNodeManagerTest {
+
+    private final ActuatorNodeManager actuatorNodeManager = ActuatorNodeManager.getInstance();
+
+    @After
+    public void tearDown() {
+        actuatorNodeManager.clearActuatorNodes();
+    }
+
+    @Test
+    public void testHeartbeatWritesRegistryOnlyOnMembershipChange() {
+        Assert.assertTrue(actuatorNodeManager.receiveHeartbeat(heartbeat("g1", 1000L)));
+        Assert.assertFalse(actuatorNodeManager.receiveHeartbeat(heartbeat("g1", 2000L)));
+        Assert.assertTrue(actuatorNodeManager.receiveHeartbeat(heartbeat("g2", 3000L)));
+        Assert.assertTrue(actuatorNodeManager.getActuatorEndpointsByGroupName("g2").contains("127.0.0.1:8080"));
+
+        actuatorNodeManager.resetMembership("127.0.0.1:8080");
+        Assert.assertTrue(actuatorNodeManager.receiveHeartbeat(heartbeat("g2", 4000L)));
+    }
+
+    @Test
+    public void testPublishAndMergeHeartbeats() {
+        actuatorNodeManager.receiveHeartbeat(heartbeat("g1", System.currentTimeMillis()));
+        actuatorNodeManager.receiveHeartbeat(heartbeat("g1", System.currentTimeMillis()));
+        final List<ActuatorInfo> published = new ArrayList<>();
+        actuatorNodeManager.publishHeartbeats(published::addAll);
+        Assert.assertEquals(1, published.size());
+        actuatorNodeManager.publishHeartbeats(heartbeats -> Assert.fail("nothing to publish"));
+
+        // 其他节点的摘要中更旧的心跳不覆盖本地
+        actuatorNodeManager.mergeHeartbeats(Collections.singletonList(ActuatorInfo.builder()
+            .nodeEndpoint("127.0.0.1:8080")
+            .nodeInfo(nodeInfo())
+            .lastHeartbeat(1000L)
+            .build()));
+        Assert.assertFalse(actuatorNodeManager.isOffline("127.0.0.1:8080"));
+
+        actuatorNodeManager.offlineActuatorClean();
+        actuatorNodeManager.mergeHeartbeats(published);
+        Assert.assertTrue(actuatorNodeManager.getActuatorEndpointsByGroupName("g1").contains("127.0.0.1:8080"));
+    }
+
+    private ActuatorInfo heartbeat(String groupName, long lastHeartbeat) {
+        return ActuatorInfo.builder()
+            .name("cluster")
+            .nodeInfo(nodeInfo())
+            .groupNames(Sets.newHashSet(groupName))
+            .lastHeartbeat(lastHeartbeat)
+            .build();
+    }
+
+    private NodeInfo nodeInfo() {
+        return NodeInfo.builder().ip("127.0.0.1").port(8080).build();
+    }
+
+}